@@ -6,6 +6,7 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.team30.game.game_mechanics.Entity;
 import com.team30.game.screen.MainMenu;
 
 public class GameContainer extends Game {
@@ -35,5 +36,6 @@ public class GameContainer extends Game {
 	public void dispose() {
 		batch.dispose();
 		teamLogoImg.dispose();
+		Entity.disposeTextures();
 	}
 }
@@ -1,7 +1,5 @@
 package com.team30.game.game_mechanics;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Vector2;
 import com.team30.game.game_mechanics.Infiltrators.Hallucinogenic;
 import com.team30.game.game_mechanics.Infiltrators.Infiltrator;
@@ -13,9 +11,9 @@ public class Auber extends Entity {
      * healed by the health system
      * damaged by a broken system
      */
-    private final float healthRange = 2.0f;
-    private final float damageRange = 2.0f;
-    private final float teleportRange = 1.0f;
+    public static final float HEALTH_RANGE = 2.0f;
+    public static final float DAMAGE_RANGE = 2.0f;
+    public static final float TELEPORT_RANGE = 1.0f;
     /**
      * The current and maximum health of the Auber
      */
@@ -26,41 +24,41 @@ public class Auber extends Entity {
      * The time for hallucination
      */
     public float hallucinationTime;
-    public Auber(TiledMapTileLayer roomTiles) {
-        super(new ID(EntityType.Auber), new Texture("Auber.png"), roomTiles, 1, 1);
-        this.VELOCITY_CHANGE = 2f;
-        this.MAX_VELOCITY *= 1.5;
+    /**
+     * The heal, damage and teleport zones the Auber is standing in
+     */
+    private final TriggerZones.Tracker zoneTracker = new TriggerZones.Tracker();
+    /**
+     * The world the Auber is in, for logging what happens to it
+     */
+    private final WorldContext context;
+
+    public Auber(EntityStore<? super Auber> store, CollisionGrid roomTiles, WorldContext context) {
+        super(store, context.nextId(EntityType.Auber), "Auber.png", roomTiles, context.random, 1, 1);
+        setSpeed(getMaxVelocity() * 1.5f, 2f);
         this.health = 100;
         this.teleportCoolDown = 0.0f;
+        this.context = context;
     }
 
-    public Auber(TiledMapTileLayer roomTiles, int health) {
-        super(new ID(EntityType.Auber), new Texture("Auber.png"), roomTiles, 1, 1);
-        this.VELOCITY_CHANGE = 2f;
-        this.MAX_VELOCITY *= 1.5;
+    public Auber(EntityStore<? super Auber> store, CollisionGrid roomTiles, WorldContext context, int health) {
+        super(store, context.nextId(EntityType.Auber), "Auber.png", roomTiles, context.random, 1, 1);
+        setSpeed(getMaxVelocity() * 1.5f, 2f);
         this.health = health;
         this.teleportCoolDown = 0.0f;
+        this.context = context;
     }
 
     /**
-     * Returns the closest system that is active
+     * Returns the closest system that is active, looked up from the cell under the position
      *
      * @param position The position to start from
      * @param systems  The container with positions of all active systems
-     *                 //TODO Find out how to properly document nullable
-     * @return ID            The ID of the target system (will default to first system returned by getActiveSystems)
+     * @return ID            The ID of the target system, or null if every system has been destroyed
      */
     public static ID getClosestSystem(Vector2 position, SystemContainer systems) {
-        float minDistance = Float.MAX_VALUE;
-        Integer closestSystem = null;
-        for (Integer id : systems.getActiveSystems()) {
-            float currentDistance = position.dst(systems.getEntityPosition(systems.integerIdLookup(id)));
-            if (currentDistance < minDistance) {
-                minDistance = currentDistance;
-                closestSystem = id;
-            }
-        }
-        return systems.integerIdLookup(closestSystem);
+        StationSystem closest = systems.getNearestSystems().getNearest(position.x, position.y);
+        return closest == null ? null : closest.id;
     }
 
     /**
@@ -70,12 +68,12 @@ public class Auber extends Entity {
      * @param healRate Health to be added to auber
      */
     public void healFromSystem(SystemContainer systems, int healRate) {
-        ID closest = getClosestSystem(position, systems);
-        if (health < maxHealth && systems.getEntity(closest).type.equals("Healing") && position.dst(systems.getEntityPosition(closest)) <= healthRange) {
+        zoneTracker.update(systems.getTriggerZones(), getXPosition(), getYPosition());
+        if (zoneTracker.isIn(TriggerZones.HEAL) && health < maxHealth && distanceTo(zoneTracker.getSystem()) <= HEALTH_RANGE) {
             health += healRate;
         }
         if (health <= 0) {
-            System.out.println("Auber dead");
+            context.log("Auber dead");
         }
     }
 
@@ -88,15 +86,26 @@ public class Auber extends Entity {
      * @return true if the health is below 0
      */
     public boolean damageFromSystem(SystemContainer systems, float damageRate) {
-        ID closest = getClosestSystem(position, systems);
-        StationSystem system = systems.getEntity(closest);
-        if (health > 0 && !(system.type.equals("Healing")) && position.dst(system.position) <= damageRange) {
+        zoneTracker.update(systems.getTriggerZones(), getXPosition(), getYPosition());
+        StationSystem system = zoneTracker.getSystem();
+        if (zoneTracker.isIn(TriggerZones.DAMAGE) && health > 0 && distanceTo(system) <= DAMAGE_RANGE) {
             //TODO Balance this heuristic
-            health -= (int) damageRate * (systems.getEntity(closest).getMaxHealth() - systems.getEntity(closest).getHealth());
+            health -= (int) damageRate * (system.getMaxHealth() - system.getHealth());
         }
         return health <= 0;
     }
 
+    public int getHealth() {
+        return health;
+    }
+
+    /**
+     * @return The heal, damage and teleport zones the Auber is standing in, and the zones last entered or left
+     */
+    public TriggerZones.Tracker getZoneTracker() {
+        return zoneTracker;
+    }
+
     /**
      * Updates the auber's telepportation cooldown
      *
@@ -117,11 +126,12 @@ public class Auber extends Entity {
      * @param systems SystemContainer of systems on the station
      */
     public void teleport(SystemContainer systems) {
-        ID closest = getClosestSystem(position, systems);
-        StationSystem teleporter = systems.getEntity(closest);
-        if (teleporter.type.equals("Teleportation") && position.dst(teleporter.position) < teleportRange && teleportCoolDown <= 0.0) {
-            this.position = systems.getEntityByInt(teleporter.pair).position.cpy();
-            System.out.println("Teleporting");
+        zoneTracker.update(systems.getTriggerZones(), getXPosition(), getYPosition());
+        StationSystem teleporter = zoneTracker.getSystem();
+        if (zoneTracker.isIn(TriggerZones.TELEPORT) && distanceTo(teleporter) < TELEPORT_RANGE && teleportCoolDown <= 0.0) {
+            StationSystem destination = systems.getEntityByInt(teleporter.pair);
+            setPosition(destination.getXPosition(), destination.getYPosition());
+            context.log("Teleporting");
             this.teleportCoolDown = 5.0f;
         }
     }
@@ -133,11 +143,12 @@ public class Auber extends Entity {
      * @param room      The room layer for collision detection
      */
     @Override
-    public void updatePosition(float deltaTime, TiledMapTileLayer room) {
+    public void updatePosition(float deltaTime, CollisionGrid room) {
         hallucinationTime -= deltaTime;
         if (hallucinationTime > 0) {
             setXVelocity(0);
             setYVelocity(0);
+            stoodStill();
             return;
         }
         hallucinationTime = 0;
@@ -158,11 +169,11 @@ public class Auber extends Entity {
     /**
      * Check hallucinations
      */
-    public void checkHallucinations(TiledMapTileLayer room, InfiltratorContainer infiltrators) {
+    public void checkHallucinations(CollisionGrid room, InfiltratorContainer infiltrators) {
 
         //get Infiltrators around auber
-        for (Entity infiltrator : infiltrators.getAllEntities()) {
-            if (infiltrator instanceof Hallucinogenic && ((Hallucinogenic) infiltrator).coolDown <= 0 && infiltrators.collisionCheck(this, (Infiltrator) infiltrator, 1)) {
+        for (Entity infiltrator : infiltrators.getInfiltratorsNear(this, 1)) {
+            if (infiltrator instanceof Hallucinogenic && ((Hallucinogenic) infiltrator).coolDown <= 0) {
                 getHallucinations((Infiltrator) infiltrator);
             }
         }
@@ -0,0 +1,14 @@
+package com.team30.game.game_mechanics;
+
+/**
+ * Steers the Auber in place of a player, so games can be played through without anyone at the keys
+ */
+public interface AuberPolicy {
+    /**
+     * Sets the Auber's velocity for the next step, called at the start of every step
+     *
+     * @param world     The world the Auber is in
+     * @param deltaTime The length of the step
+     */
+    void steer(World world, float deltaTime);
+}
@@ -0,0 +1,183 @@
+package com.team30.game.game_mechanics;
+
+import java.util.Arrays;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+
+/**
+ * A scripted Auber that chases the closest infiltrator, to play games through without a player<br>
+ * Every so often the walking distance to the closest infiltrator is searched out from all of them at once, then
+ * the Auber walks downhill one cell at a time, lining up with its cell before each step so it never clips a
+ * corner. It knows where every infiltrator is, even the invisible ones, but moves no faster than the player can
+ */
+public class ChasePolicy implements AuberPolicy {
+    /**
+     * The time between searches (in seconds), the same time infiltrators take between moves
+     */
+    private static final float REPLAN_INTERVAL = 0.2f;
+    private static final int UNREACHABLE = -1;
+
+    /**
+     * The number of moves from each cell to the closest infiltrator, created on the first search
+     */
+    private int[] distance;
+    private int[] queue;
+    private int width;
+    private int height;
+    private float timeSinceSearch;
+
+    @Override
+    public void steer(World world, float deltaTime) {
+        CollisionGrid roomTiles = world.getRoomTiles();
+        Auber auber = world.getAuber();
+        timeSinceSearch += deltaTime;
+        if (distance == null || timeSinceSearch >= REPLAN_INTERVAL) {
+            search(roomTiles, world.getInfiltrators(), auber);
+            timeSinceSearch = 0;
+        }
+
+        int x = Math.round(auber.getXPosition());
+        int y = Math.round(auber.getYPosition());
+        // A cell the Auber doesn't fit in (such as where it spawned) is further than any it does
+        int current = getDistance(x, y);
+        int best = current == UNREACHABLE ? Integer.MAX_VALUE : current;
+        int targetX = x;
+        int targetY = y;
+        for (int move = 0; move < DIRECTION_X.length; move++) {
+            int next = getDistance(x + DIRECTION_X[move], y + DIRECTION_Y[move]);
+            if (next != UNREACHABLE && next < best) {
+                best = next;
+                targetX = x + DIRECTION_X[move];
+                targetY = y + DIRECTION_Y[move];
+            }
+        }
+        if (best == Integer.MAX_VALUE || deltaTime <= 0) {
+            auber.setXVelocity(0);
+            auber.setYVelocity(0);
+            return;
+        }
+
+        // Any velocity is scaled up to the Auber's full speed, so it can only line up to within one step
+        float step = Math.min(0.5f, auber.getMaxVelocity() * deltaTime);
+        float offsetX = auber.getXPosition() - x;
+        float offsetY = auber.getYPosition() - y;
+        float speed = auber.getVelocityChange();
+        if (targetX != x && !isAligned(offsetY, step)) {
+            // Line up with the row before stepping sideways
+            auber.setXVelocity(0);
+            auber.setYVelocity(offsetY < 0 ? speed : -speed);
+        } else if (targetY != y && !isAligned(offsetX, step)) {
+            // Line up with the column before stepping up or down
+            auber.setXVelocity(offsetX < 0 ? speed : -speed);
+            auber.setYVelocity(0);
+        } else if (targetX == x && targetY == y) {
+            // Already in a cell next to an infiltrator, but only lined up to within a step, which can leave a gap
+            // wider than the capture range, so walk straight at it
+            walkTowards(auber, findClosest(world.getInfiltrators(), auber), speed);
+        } else {
+            auber.setXVelocity(Math.signum(targetX - x) * speed);
+            auber.setYVelocity(Math.signum(targetY - y) * speed);
+        }
+    }
+
+    /**
+     * Walks along whichever axis the Auber is furthest from the infiltrator, or stands still if there isn't one<br>
+     * Only one axis at a time, as a diagonal move can clip a corner
+     */
+    private static void walkTowards(Auber auber, Entity infiltrator, float speed) {
+        auber.setXVelocity(0);
+        auber.setYVelocity(0);
+        if (infiltrator == null) {
+            return;
+        }
+        float gapX = infiltrator.getXPosition() - auber.getXPosition();
+        float gapY = infiltrator.getYPosition() - auber.getYPosition();
+        if (Math.abs(gapX) >= Math.abs(gapY)) {
+            auber.setXVelocity(Math.signum(gapX) * speed);
+        } else {
+            auber.setYVelocity(Math.signum(gapY) * speed);
+        }
+    }
+
+    /**
+     * @return The infiltrator closest to the Auber in a straight line, or null if there are none
+     */
+    private static Entity findClosest(InfiltratorContainer infiltrators, Auber auber) {
+        Entity closest = null;
+        float closestDistance2 = Float.MAX_VALUE;
+        for (Entity infiltrator : infiltrators.getAllEntities()) {
+            float gapX = infiltrator.getXPosition() - auber.getXPosition();
+            float gapY = infiltrator.getYPosition() - auber.getYPosition();
+            float distance2 = gapX * gapX + gapY * gapY;
+            if (distance2 < closestDistance2) {
+                closestDistance2 = distance2;
+                closest = infiltrator;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * The Auber's box covers the cell it is lined up with and the next one along, the same cells as the search
+     * checked, only while it is no further past the cell than one step (and not before it at all)
+     */
+    private static boolean isAligned(float offset, float step) {
+        return offset >= 0 && offset < step;
+    }
+
+    /**
+     * Searches out from the cells of every infiltrator at once, so each cell stores the distance to the closest<br>
+     * Only cells the whole of the Auber fits in are searched, as its box reaches into the next row and column
+     */
+    private void search(CollisionGrid roomTiles, InfiltratorContainer infiltrators, Auber auber) {
+        if (distance == null) {
+            width = roomTiles.getWidth();
+            height = roomTiles.getHeight();
+            distance = new int[width * height];
+            queue = new int[width * height];
+        }
+        Arrays.fill(distance, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        for (Entity infiltrator : infiltrators.getAllEntities()) {
+            // Every cell the Auber fits in that would touch the infiltrator's box, as it may not fit in the closest
+            int minX = (int) Math.floor(infiltrator.getXPosition());
+            int minY = (int) Math.floor(infiltrator.getYPosition());
+            int maxX = (int) Math.ceil(infiltrator.getXPosition());
+            int maxY = (int) Math.ceil(infiltrator.getYPosition());
+            for (int y = Math.max(0, minY); y <= Math.min(height - 1, maxY); y++) {
+                for (int x = Math.max(0, minX); x <= Math.min(width - 1, maxX); x++) {
+                    if (roomTiles.isAreaWalkable(x, y, auber.width, auber.height) && distance[y * width + x] == UNREACHABLE) {
+                        distance[y * width + x] = 0;
+                        queue[tail++] = y * width + x;
+                    }
+                }
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            int cellX = cell % width;
+            int cellY = cell / width;
+            for (int move = 0; move < DIRECTION_X.length; move++) {
+                int nextX = cellX + DIRECTION_X[move];
+                int nextY = cellY + DIRECTION_Y[move];
+                if (!roomTiles.isAreaWalkable(nextX, nextY, auber.width, auber.height)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (distance[next] == UNREACHABLE) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    private int getDistance(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return UNREACHABLE;
+        }
+        return distance[y * width + x];
+    }
+}
@@ -0,0 +1,280 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * The walkable (room) cells of the map, stored as one bit per cell<br>
+ * Built once from the Rooms layer, so collision checks and pathfinding never touch the tile layer, which is
+ * only kept for rendering. Each row starts on a new long, so a cell is found with a shift and a mask<br>
+ * Cells can be opened and closed while the game runs (such as locked doors). Every change is logged and
+ * increases the version, so anything worked out from the grid can check the version and repair itself
+ */
+public class CollisionGrid {
+    /**
+     * How far short of a wall (in tiles) a swept box stops, so rounding can't leave it touching the wall
+     */
+    private static final float SWEEP_MARGIN = 1e-3f;
+    private final int width;
+    private final int height;
+    /**
+     * The number of longs in each row
+     */
+    private final int rowWords;
+    private final long[] bits;
+    /**
+     * The packed cells changed by setWalkable, in order, so change number n is changeLog.get(n)<br>
+     * Always empty for copies, which only keep the version they were copied at
+     */
+    private final IntArray changeLog;
+    private int version;
+    /**
+     * Built when first needed, and again after the walkable cells change
+     */
+    private WalkableCellIndex walkableCells;
+    /**
+     * Built when first needed, and again after the walkable cells change
+     */
+    private RoomGraph roomGraph;
+
+    /**
+     * Creates a grid with no walkable cells
+     *
+     * @param width  The width of the map (in tiles)
+     * @param height The height of the map (in tiles)
+     */
+    public CollisionGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.rowWords = (width + 63) >>> 6;
+        this.bits = new long[rowWords * height];
+        this.changeLog = new IntArray();
+        this.version = 0;
+    }
+
+    /**
+     * Creates a grid where every room tile is walkable
+     *
+     * @param roomTiles The map layer of valid room tiles
+     */
+    public CollisionGrid(TiledMapTileLayer roomTiles) {
+        this(roomTiles.getWidth(), roomTiles.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (roomTiles.getCell(x, y) != null) {
+                    setBit(x, y, true);
+                }
+            }
+        }
+        this.roomGraph = new RoomGraph(this);
+        this.walkableCells = new WalkableCellIndex(this, roomGraph.copySegments(), roomGraph.getSegmentCount());
+    }
+
+    /**
+     * Creates a copy of another grid, for use on other threads
+     *
+     * @param other The grid to copy
+     */
+    public CollisionGrid(CollisionGrid other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.rowWords = other.rowWords;
+        this.bits = other.bits.clone();
+        this.changeLog = new IntArray(0);
+        this.version = other.version;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return An index of every walkable cell, for picking random positions, grouped by the rooms and corridors
+     */
+    public WalkableCellIndex getWalkableCells() {
+        if (walkableCells == null) {
+            RoomGraph rooms = getRoomGraph();
+            walkableCells = new WalkableCellIndex(this, rooms.copySegments(), rooms.getSegmentCount());
+        }
+        return walkableCells;
+    }
+
+    /**
+     * @return The walkable cells split into rooms and corridors
+     */
+    public RoomGraph getRoomGraph() {
+        if (roomGraph == null) {
+            roomGraph = new RoomGraph(this);
+        }
+        return roomGraph;
+    }
+
+    /**
+     * Uses the given index, so the cells can be grouped into rooms<br>
+     * It is replaced with an index grouped by the room graph if the walkable cells change
+     *
+     * @param walkableCells An index built from this grid
+     */
+    public void setWalkableCells(WalkableCellIndex walkableCells) {
+        this.walkableCells = walkableCells;
+    }
+
+    /**
+     * @return True if the cell is inside the map and is a room tile
+     */
+    public boolean isWalkable(int x, int y) {
+        // Negative if any coordinate is outside the map
+        if ((x | y | (width - 1 - x) | (height - 1 - y)) < 0) {
+            return false;
+        }
+        return (bits[y * rowWords + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Checks the cells under the 4 corners of a box, as entities are moved when all of their corners are in rooms<br>
+     * The corners are the cells at (x, y), (x + width, y), (x, y + height) and (x + width, y + height)
+     *
+     * @param x      The x coordinate of the bottom left corner
+     * @param y      The y coordinate of the bottom left corner
+     * @param width  The width of the box (in tiles)
+     * @param height The height of the box (in tiles)
+     * @return True if every corner is on a walkable cell
+     */
+    public boolean isAreaWalkable(float x, float y, int width, int height) {
+        // Casting rounds towards zero, so a box hanging off the left or bottom would be read from the edge cells
+        if (x < 0 || y < 0) {
+            return false;
+        }
+        int left = (int) x;
+        int bottom = (int) y;
+        int right = left + width;
+        int top = bottom + height;
+        // The bottom left and top right corners are enough to tell if the whole box is inside the map
+        if ((left | bottom | (this.width - 1 - right) | (this.height - 1 - top)) < 0) {
+            return false;
+        }
+        int bottomRow = bottom * rowWords;
+        int topRow = top * rowWords;
+        long corners = (bits[bottomRow + (left >>> 6)] >>> left)
+                & (bits[bottomRow + (right >>> 6)] >>> right)
+                & (bits[topRow + (left >>> 6)] >>> left)
+                & (bits[topRow + (right >>> 6)] >>> right);
+        return (corners & 1L) != 0;
+    }
+
+    /**
+     * Finds how far a box can move before it touches a cell that isn't walkable, like isAreaWalkable but for
+     * every point along the move, so a fast entity (or a long time step) can't jump over a thin wall<br>
+     * The box covers the cells from (x, y) to (x + width, y + height). It only changes when an edge crosses a
+     * cell boundary, so each crossing is visited in time order and only the column or row entered is checked,
+     * along with the corners on the trailing edge (which are only checked at the corners where the box starts,
+     * so can be walls under a box more than 1 tile across)
+     *
+     * @param x      The x coordinate of the bottom left corner
+     * @param y      The y coordinate of the bottom left corner
+     * @param width  The width of the box (in tiles)
+     * @param height The height of the box (in tiles)
+     * @param moveX  The distance to move along x
+     * @param moveY  The distance to move along y
+     * @return The fraction of the move (0 to 1) that can be made, stopping just short of the first wall touched
+     */
+    public float sweepArea(float x, float y, int width, int height, float moveX, float moveY) {
+        if (!isAreaWalkable(x, y, width, height)) {
+            // Already touching a wall, so only allow moves that get out of it
+            return isAreaWalkable(x + moveX, y + moveY, width, height) ? 1 : 0;
+        }
+        int lowColumn = (int) Math.floor(x);
+        int highColumn = lowColumn + width;
+        int lowRow = (int) Math.floor(y);
+        int highRow = lowRow + height;
+        int stepX = moveX > 0 ? 1 : moveX < 0 ? -1 : 0;
+        int stepY = moveY > 0 ? 1 : moveY < 0 ? -1 : 0;
+        // The time between boundary crossings, and the time of the next one along each axis
+        float deltaX = stepX == 0 ? Float.MAX_VALUE : 1 / Math.abs(moveX);
+        float deltaY = stepY == 0 ? Float.MAX_VALUE : 1 / Math.abs(moveY);
+        float nextX = stepX > 0 ? (lowColumn + 1 - x) * deltaX : stepX < 0 ? (x - lowColumn) * deltaX : Float.MAX_VALUE;
+        float nextY = stepY > 0 ? (lowRow + 1 - y) * deltaY : stepY < 0 ? (y - lowRow) * deltaY : Float.MAX_VALUE;
+        while (true) {
+            boolean alongX = nextX <= nextY;
+            float time = alongX ? nextX : nextY;
+            int step = alongX ? stepX : stepY;
+            // Moving down or left, a cell is only entered once the edge is past the boundary
+            if (time > 1 || (time == 1 && step < 0)) {
+                return 1;
+            }
+            boolean blocked = false;
+            if (alongX) {
+                lowColumn += stepX;
+                highColumn += stepX;
+                int column = stepX > 0 ? highColumn : lowColumn;
+                for (int row = lowRow; row <= highRow && !blocked; row++) {
+                    blocked = !isWalkable(column, row);
+                }
+                int trailing = stepX > 0 ? lowColumn : highColumn;
+                blocked |= !isWalkable(trailing, lowRow) || !isWalkable(trailing, highRow);
+                nextX += deltaX;
+            } else {
+                lowRow += stepY;
+                highRow += stepY;
+                int row = stepY > 0 ? highRow : lowRow;
+                for (int column = lowColumn; column <= highColumn && !blocked; column++) {
+                    blocked = !isWalkable(column, row);
+                }
+                int trailing = stepY > 0 ? lowRow : highRow;
+                blocked |= !isWalkable(lowColumn, trailing) || !isWalkable(highColumn, trailing);
+                nextY += deltaY;
+            }
+            if (blocked) {
+                return Math.max(0, time - SWEEP_MARGIN * (alongX ? deltaX : deltaY));
+            }
+        }
+    }
+
+    /**
+     * Marks a cell as walkable or not, such as when a door is locked or unlocked<br>
+     * The change is logged and the version increased, nothing happens if the cell is already the same
+     *
+     * @param x        The x coordinate of the cell
+     * @param y        The y coordinate of the cell
+     * @param walkable True if the cell is a room tile
+     */
+    public void setWalkable(int x, int y, boolean walkable) {
+        if (isWalkable(x, y) == walkable) {
+            return;
+        }
+        setBit(x, y, walkable);
+        walkableCells = null;
+        roomGraph = null;
+        changeLog.add(y * width + x);
+        version++;
+    }
+
+    private void setBit(int x, int y, boolean walkable) {
+        if (walkable) {
+            bits[y * rowWords + (x >>> 6)] |= 1L << x;
+        } else {
+            bits[y * rowWords + (x >>> 6)] &= ~(1L << x);
+        }
+    }
+
+    /**
+     * @return The number of cells changed since the grid was built
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Used to catch up with the changes made since a version, by reading from that version up to getVersion()
+     *
+     * @param change The number of the change, from 0 to getVersion() - 1 (not valid on copies)
+     * @return The packed cell (y * width + x) that changed
+     */
+    public int getChangedCell(int change) {
+        return changeLog.get(change);
+    }
+}
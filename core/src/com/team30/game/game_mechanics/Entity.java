@@ -3,222 +3,383 @@ package com.team30.game.game_mechanics;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.team30.game.Recording.Action;
 
 import java.util.Random;
 
 /**
- * Handles updating position and collision detection
+ * Handles updating position and collision detection<br>
+ * The position, velocity and speeds are kept in the entity's slot of an EntityStore, so a container can update all
+ * of its entities at once. The methods here read and write that slot
  */
 public class Entity {
     /**
-     * The unique identifier for this entity
+     * Every texture loaded so far by file name, shared by all entities using the same file
      */
-    public ID id;
+    private static final ObjectMap<String, Texture> TEXTURES = new ObjectMap<>();
     /**
-     * The default max velocity of a entity
+     * The unique identifier for this entity
      */
-    public float MAX_VELOCITY = 5f;
+    public ID id;
     /**
-     * The amount velocity increases, when input is recorded
+     * The width of the entity (in grid tiles)
      */
-    public float VELOCITY_CHANGE = 2f;
+    public int width;
     /**
-     * The current position of the entity
+     * The height of the entity (in grid tiles)
      */
-    public Vector2 position;
+    public int height;
     /**
-     * The current movement of the entity
+     * The file of the texture used to render the entity, or null if it is never drawn
      */
-    public Vector2 velocity;
+    protected final String textureName;
     /**
-     * The width of the entity (in grid tiles)
+     * The texture used to render the entity, only loaded when first drawn so entities can be made without a screen
      */
-    public int width;
+    protected TextureRegion region;
     /**
-     * The height of the entity (in grid tiles)
+     * The spatial hash tracking this entity, and the bucket it is in, kept up to date as the entity moves
      */
-    public int height;
+    SpatialHash spatialHash;
+    int spatialBucket;
     /**
-     * The time since the movements of the infiltrators were last updated
+     * The collider stopping this entity walking into others, and its place in the collider's sorted list
      */
-    private float timeSinceLastUpdate;
+    EntityCollider collider;
+    int colliderIndex;
     /**
-     * The texture used to render the entity
+     * The store holding the position, velocity and speeds of this entity, and the slot they are in
      */
-    protected TextureRegion region;
+    EntityStore<?> store;
+    int slot;
 
     /**
      * Creates a new entity at a random position
      *
-     * @param texture   The texture of the given entity
+     * @param store     The store to keep the position and velocity in, the one of the container it belongs to
+     * @param texture   The file of the texture of the given entity
      * @param roomTiles The map layer of valid room cells
+     * @param random    Picks the cell to start in
      * @param width     The width of the entity
      * @param height    The height of the entity
      */
-    public Entity(ID id, Texture texture, TiledMapTileLayer roomTiles, int width, int height) {
+    public Entity(EntityStore<?> store, ID id, String texture, CollisionGrid roomTiles, Random random, int width, int height) {
         this.id = id;
-        if (texture != null) {
-            this.region = new TextureRegion(texture, 0, 0, texture.getWidth(), texture.getHeight());
-        }
+        this.textureName = texture;
         this.width = width;
         this.height = height;
 
-        this.position = new Vector2(0, 0);
-        this.velocity = new Vector2(0, 0);
-        this.timeSinceLastUpdate = 0f;
-        this.moveRandomCell(roomTiles);
+        store.addNew(this);
+        this.moveRandomCell(roomTiles, random);
     }
 
     /**
      * Creates a new entity at the given position
      *
-     * @param texture   The texture of the given entity
+     * @param store     The store to keep the position and velocity in, the one of the container it belongs to
+     * @param texture   The file of the texture of the given entity
      * @param xPosition The x coordinate of the entity
      * @param yPosition The y coordinate of the entity
      * @param width     The width of the entity
      * @param height    The height of the entity
      */
-    public Entity(ID id, Texture texture, float xPosition, float yPosition, int width, int height) {
+    public Entity(EntityStore<?> store, ID id, String texture, float xPosition, float yPosition, int width, int height) {
         this.id = id;
-        if (texture != null) {
-            this.region = new TextureRegion(texture, 0, 0, texture.getWidth(), texture.getHeight());
-        }
+        this.textureName = texture;
         this.width = width;
         this.height = height;
 
-        this.position = new Vector2(xPosition, yPosition);
-        this.velocity = new Vector2(0, 0);
-        this.timeSinceLastUpdate = 0f;
+        store.addNew(this);
+        setPosition(xPosition, yPosition);
     }
 
     /**
-     * Moves the current entity to a random valid room cell
+     * Moves the current entity to a random valid room cell, that the whole entity fits on
      *
      * @param roomTiles The map of valid roomTiles cells
+     * @param random    Picks the cell
      */
-    public void moveRandomCell(TiledMapTileLayer roomTiles) {
-        Random rand = new Random();
-        int x = rand.nextInt(roomTiles.getWidth());
-        int y = rand.nextInt(roomTiles.getHeight());
-        while (roomTiles.getCell(x, y) == null) {
-            x = rand.nextInt(roomTiles.getWidth());
-            y = rand.nextInt(roomTiles.getHeight());
-        }
-        this.position.x = x;
-        this.position.y = y;
+    public void moveRandomCell(CollisionGrid roomTiles, Random random) {
+        WalkableCellIndex cells = roomTiles.getWalkableCells();
+        moveToCell(cells, cells.randomCellFitting(roomTiles, width, height, random));
     }
 
     /**
-     * Draws the entity at the current position<br>
-     * Also rotates the entity to match the direction of travel
+     * Moves the current entity to a random cell in the given room
      *
-     * @param batch Where to render the entity too
+     * @param roomTiles The map of valid roomTiles cells
+     * @param room      The room to move to, as numbered by the walkable cell index
+     * @param random    Picks the cell
      */
-    public void draw(Batch batch) {
-        batch.draw(region, getXPosition(), getYPosition(), width / 2f, height / 2f, width, height, 1f, 1f, velocity.angle() + 90);
+    public void moveRandomCellInRoom(CollisionGrid roomTiles, int room, Random random) {
+        WalkableCellIndex cells = roomTiles.getWalkableCells();
+        moveToCell(cells, cells.randomCellInRoom(room, random));
     }
 
-
-
     /**
-     * Attempts to move to a new cell (from the current velocity), if all corners are inside room tiles
+     * Moves the current entity to a random valid room cell, away from the given position
      *
-     * @param deltaTime The time since last update
-     * @param room      The room layer for collision detection
+     * @param roomTiles   The map of valid roomTiles cells
+     * @param position    The position to keep away from, such as the Auber's
+     * @param minDistance The smallest distance allowed (in tiles)
+     * @param random      Picks the cell
      */
-    public void updatePosition(float deltaTime, TiledMapTileLayer room) {
-        if (deltaTime == 0) return;
+    public void moveRandomCellAwayFrom(CollisionGrid roomTiles, Vector2 position, float minDistance, Random random) {
+        WalkableCellIndex cells = roomTiles.getWalkableCells();
+        moveToCell(cells, cells.randomCellAwayFrom(position.x, position.y, minDistance, random));
+    }
 
-        if (deltaTime > 0.1f) {
-            deltaTime = 0.1f;
+    /**
+     * Moves to the given packed cell, staying put if there wasn't one
+     */
+    private void moveToCell(WalkableCellIndex cells, int cell) {
+        if (cell == WalkableCellIndex.NONE) {
+            System.out.println("No walkable cell to move " + id + " to");
+            return;
         }
-        // Limit the maximum speed
-        velocity.clamp(-this.MAX_VELOCITY, this.MAX_VELOCITY);
-
-        // Scale for time passed
-        velocity.scl(deltaTime);
+        setPosition(cells.getX(cell), cells.getY(cell));
+    }
 
-        //Check all corners are in room tiles
-        // Bottom Left Corner
-        if (room.getCell((int) (getXPosition() + getXVelocity()), (int) (getYPosition() + getYVelocity())) == null) {
-            velocity.scl((1 / deltaTime));
-            return;
+    /**
+     * Tells the spatial hash and collider (if any) that the position has changed
+     */
+    protected void moved() {
+        if (spatialHash != null) {
+            spatialHash.update(this);
         }
-        // Bottom Right Corner
-        if (room.getCell((int) (getXPosition() + getXVelocity() + width), (int) (getYPosition() + getYVelocity())) == null) {
-            velocity.scl((1 / deltaTime));
-            return;
+        if (collider != null) {
+            collider.update(this);
         }
-        // Top Left Corner
-        if (room.getCell((int) (getXPosition() + getXVelocity()), (int) (getYPosition() + getYVelocity()) + height) == null) {
-            velocity.scl((1 / deltaTime));
-            return;
+    }
+
+    /**
+     * Frees every texture loaded for drawing entities, call once nothing will be drawn again
+     */
+    public static void disposeTextures() {
+        for (Texture texture : TEXTURES.values()) {
+            texture.dispose();
         }
-        // Top Right Corner
-        if (room.getCell((int) (getXPosition() + getXVelocity() + width), (int) (getYPosition() + getYVelocity()) + height) == null) {
-            velocity.scl((1 / deltaTime));
-            return;
+        TEXTURES.clear();
+    }
+
+    /**
+     * Moves the entity without changing where it moved from this update, such as when another entity pushes it,
+     * so it is still drawn sliding there
+     */
+    void shift(float moveX, float moveY) {
+        store.x[slot] += moveX;
+        store.y[slot] += moveY;
+        moved();
+    }
+
+    /**
+     * Tells the spatial hash and collider that the entity has been placed somewhere new without moving there,
+     * so nothing treats it as having passed through everything in between
+     */
+    protected void jumped() {
+        store.previousX[slot] = store.renderX[slot] = store.x[slot];
+        store.previousY[slot] = store.renderY[slot] = store.y[slot];
+        moved();
+    }
+
+    /**
+     * Marks the entity as not having moved in this update, for when it is held in place
+     */
+    protected void stoodStill() {
+        store.previousX[slot] = store.x[slot];
+        store.previousY[slot] = store.y[slot];
+    }
+
+    /**
+     * Moves where the entity is drawn to part way along its last update
+     *
+     * @param alpha How far through the time until the next update it is, from 0 (the previous position) to 1
+     */
+    public void interpolate(float alpha) {
+        store.interpolate(slot, alpha);
+    }
+
+    /**
+     * Draws the entity at the current position<br>
+     * Also rotates the entity to match the direction of travel
+     *
+     * @param batch Where to render the entity too
+     */
+    public void draw(Batch batch) {
+        if (region == null) {
+            Texture texture = TEXTURES.get(textureName);
+            if (texture == null) {
+                texture = new Texture(textureName);
+                TEXTURES.put(textureName, texture);
+            }
+            region = new TextureRegion(texture, 0, 0, texture.getWidth(), texture.getHeight());
         }
-        position.add(velocity);
-        velocity.scl((1 / deltaTime));
+        float angle = (float) Math.atan2(getYVelocity(), getXVelocity()) * MathUtils.radiansToDegrees;
+        batch.draw(region, getRenderX(), getRenderY(), width / 2f, height / 2f, width, height, 1f, 1f, angle + 90);
     }
 
+    /**
+     * Draws the entity only if it can be seen from the origin of the field of view
+     *
+     * @param batch Where to render the entity too
+     * @param view  What the Auber can currently see
+     */
+    public void draw(Batch batch, FieldOfView view) {
+        if (view.canSee(this)) {
+            draw(batch);
+        }
+    }
+
+    /**
+     * Moves along the current velocity until it would leave the room tiles or walk into another entity in the
+     * same collider, stopping just before whichever comes first<br>
+     * The whole move is swept rather than just checking where it ends, so it stays correct however long the
+     * time step is
+     *
+     * @param deltaTime The time since last update
+     * @param room      The room layer for collision detection
+     */
+    public void updatePosition(float deltaTime, CollisionGrid room) {
+        store.updatePosition(slot, deltaTime, room);
+    }
 
     public float getTimeSinceLastUpdate() {
-        return timeSinceLastUpdate;
+        return store.timeSinceLastUpdate[slot];
     }
 
     public void incrementTimeSinceLastUpdate(float incrementTime) {
-        this.timeSinceLastUpdate += incrementTime;
+        store.timeSinceLastUpdate[slot] += incrementTime;
     }
 
     /**
      * Sets the timeSinceLastUpdate (For velocity) to zero
      */
     public void resetTimeSinceLastUpdate() {
-        this.timeSinceLastUpdate = 0;
+        store.timeSinceLastUpdate[slot] = 0;
     }
 
     public float getXPosition() {
-        return position.x;
+        return store.x[slot];
     }
 
     public float getYPosition() {
-        return position.y;
+        return store.y[slot];
+    }
+
+    /**
+     * @return The x coordinate the entity was at before its last update
+     */
+    public float getPreviousX() {
+        return store.previousX[slot];
+    }
+
+    /**
+     * @return The y coordinate the entity was at before its last update
+     */
+    public float getPreviousY() {
+        return store.previousY[slot];
+    }
+
+    /**
+     * @return The x coordinate the entity is drawn at, as of the last call to interpolate
+     */
+    public float getRenderX() {
+        return store.renderX[slot];
+    }
+
+    /**
+     * @return The y coordinate the entity is drawn at, as of the last call to interpolate
+     */
+    public float getRenderY() {
+        return store.renderY[slot];
     }
 
     public float getXVelocity() {
-        return velocity.x;
+        return store.velocityX[slot];
     }
 
     public float getYVelocity() {
-        return velocity.y;
+        return store.velocityY[slot];
     }
 
     public void setXVelocity(float velocity) {
-        this.velocity.x = velocity;
+        store.velocityX[slot] = velocity;
     }
 
     public void setYVelocity(float velocity) {
-        this.velocity.y = velocity;
+        store.velocityY[slot] = velocity;
+    }
+
+    /**
+     * @return The fastest the entity can move, any other velocity is scaled to this
+     */
+    public float getMaxVelocity() {
+        return store.getMaxVelocity(slot);
+    }
+
+    /**
+     * @return The amount velocity increases, when input is recorded
+     */
+    public float getVelocityChange() {
+        return store.getVelocityChange(slot);
+    }
+
+    /**
+     * Changes how fast the entity moves, shared with every other entity of its kind with the same speeds
+     *
+     * @param maxVelocity    The fastest the entity can move
+     * @param velocityChange The amount velocity increases, when input is recorded
+     */
+    public void setSpeed(float maxVelocity, float velocityChange) {
+        store.setSpeed(slot, maxVelocity, velocityChange);
     }
 
     public void setXPosition(float xPosition) {
-        this.position.x = xPosition;
+        store.x[slot] = xPosition;
+        jumped();
     }
 
     public void setYPosition(float yPosition) {
-        this.position.y = yPosition;
+        store.y[slot] = yPosition;
+        jumped();
+    }
+
+    /**
+     * Places the entity at the given position, without moving there
+     *
+     * @param xPosition The new x coordinate
+     * @param yPosition The new y coordinate
+     */
+    public void setPosition(float xPosition, float yPosition) {
+        store.x[slot] = xPosition;
+        store.y[slot] = yPosition;
+        jumped();
+    }
+
+    /**
+     * @return The distance between the positions of this and the other entity
+     */
+    public float distanceTo(Entity other) {
+        float xDistance = other.getXPosition() - getXPosition();
+        float yDistance = other.getYPosition() - getYPosition();
+        return (float) Math.sqrt(xDistance * xDistance + yDistance * yDistance);
     }
 
     /**
      * @return A COPY of this entities position
      */
     public Vector2 getPosition() {
-        return this.position.cpy();
+        return new Vector2(getXPosition(), getYPosition());
+    }
+
+    /**
+     * @return A COPY of where this entity was before its last update
+     */
+    public Vector2 getPreviousPosition() {
+        return new Vector2(getPreviousX(), getPreviousY());
     }
 
     /**
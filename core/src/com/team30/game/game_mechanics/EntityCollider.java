@@ -0,0 +1,387 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Arrays;
+
+/**
+ * Stops moving entities from walking into each other, with a sweep and prune along the x axis<br>
+ * An entity that walks into one with a higher ID pushes it along instead, as far as the walls and the entities
+ * behind it allow, so two entities meeting head on in a corridor can't block each other forever. The Auber is
+ * created first, so is pushed by nothing<br>
+ * Entities are kept sorted by the row of the map their bottom edge is in, then by their left edge, and an entity
+ * is shuffled back into place whenever it moves. As entities only move a little each frame this is usually a swap
+ * or two, so the list never needs sorting again. Checking a move is then a binary search in each row it could
+ * overlap, and a sweep along the row while the x ranges overlap<br>
+ * An entity covers the box from its position to its position plus its size, the same box checked against walls
+ */
+public class EntityCollider {
+    /**
+     * How far apart (in tiles) a swept entity stops from the one it hits, so rounding can't leave them overlapping
+     */
+    private static final float SWEEP_MARGIN = 1e-3f;
+    private static final int NONE = -1;
+    private Entity[] sorted;
+    /**
+     * The row and box of each entity in the sorted list, copied so the sweep doesn't have to visit every entity
+     */
+    private int[] row;
+    private float[] left;
+    private float[] bottom;
+    private float[] right;
+    private float[] top;
+    private int size;
+    /**
+     * The largest entity width and height added so far, used to find where the overlapping ranges start
+     */
+    private float maxWidth;
+    private float maxHeight;
+    /**
+     * The index of the entity the last sweep stopped at, or NONE if nothing stopped it
+     */
+    private int hitIndex;
+
+    public EntityCollider() {
+        this.sorted = new Entity[64];
+        this.row = new int[64];
+        this.left = new float[64];
+        this.bottom = new float[64];
+        this.right = new float[64];
+        this.top = new float[64];
+        this.size = 0;
+    }
+
+    /**
+     * Adds the entity, which will then be blocked by (and block) the other entities
+     *
+     * @param entity The entity to add, if it is in another collider it is removed from it first
+     */
+    public void add(Entity entity) {
+        if (entity.collider != null) {
+            entity.collider.remove(entity);
+        }
+        if (size == sorted.length) {
+            sorted = Arrays.copyOf(sorted, size * 2);
+            row = Arrays.copyOf(row, size * 2);
+            left = Arrays.copyOf(left, size * 2);
+            bottom = Arrays.copyOf(bottom, size * 2);
+            right = Arrays.copyOf(right, size * 2);
+            top = Arrays.copyOf(top, size * 2);
+        }
+        entity.collider = this;
+        entity.colliderIndex = size;
+        sorted[size++] = entity;
+        maxWidth = Math.max(maxWidth, entity.width);
+        maxHeight = Math.max(maxHeight, entity.height);
+        update(entity);
+    }
+
+    /**
+     * @param entity The entity to remove, nothing happens if it isn't in this collider
+     */
+    public void remove(Entity entity) {
+        if (entity.collider != this) {
+            return;
+        }
+        for (int index = entity.colliderIndex; index < size - 1; index++) {
+            copy(index + 1, index);
+        }
+        sorted[--size] = null;
+        entity.collider = null;
+    }
+
+    /**
+     * Copies an entry of the sorted list to another index
+     */
+    private void copy(int from, int to) {
+        sorted[to] = sorted[from];
+        row[to] = row[from];
+        left[to] = left[from];
+        bottom[to] = bottom[from];
+        right[to] = right[from];
+        top[to] = top[from];
+        sorted[to].colliderIndex = to;
+    }
+
+    /**
+     * @return True if the entry at the index comes after the given row and left edge
+     */
+    private boolean isAfter(int index, int row, float x) {
+        return this.row[index] > row || (this.row[index] == row && left[index] > x);
+    }
+
+    /**
+     * @return True if the entry at the index comes before the given row and left edge
+     */
+    private boolean isBefore(int index, int row, float x) {
+        return this.row[index] < row || (this.row[index] == row && left[index] < x);
+    }
+
+    /**
+     * Moves the entity back into order after its position has changed, called by the entity when it moves
+     *
+     * @param entity The entity that has moved
+     */
+    void update(Entity entity) {
+        int index = entity.colliderIndex;
+        float x = entity.getXPosition();
+        float y = entity.getYPosition();
+        int entityRow = (int) Math.floor(y);
+        while (index > 0 && isAfter(index - 1, entityRow, x)) {
+            copy(index - 1, index);
+            index--;
+        }
+        while (index < size - 1 && isBefore(index + 1, entityRow, x)) {
+            copy(index + 1, index);
+            index++;
+        }
+        sorted[index] = entity;
+        entity.colliderIndex = index;
+        row[index] = entityRow;
+        left[index] = x;
+        bottom[index] = y;
+        right[index] = x + entity.width;
+        top[index] = y + entity.height;
+    }
+
+    /**
+     * @return The index of the first entity in a later row, or in the given row with a left edge greater than x
+     */
+    private int firstAfter(int row, float x) {
+        return firstAfter(row, x, 0, size);
+    }
+
+    /**
+     * Finds the first entity in a later row, or in the given row with a left edge greater than x<br>
+     * Starts from an index that should be close, doubling the distance until the answer is passed, as the rows
+     * checked around a moving entity are next to it in the list
+     *
+     * @param hint An index close to the answer
+     */
+    private int firstAfterNear(int row, float x, int hint) {
+        int step = 1;
+        if (isAfter(hint, row, x)) {
+            int high = hint;
+            while (high - step >= 0 && isAfter(high - step, row, x)) {
+                high -= step;
+                step <<= 1;
+            }
+            return firstAfter(row, x, Math.max(0, high - step), high);
+        }
+        int low = hint + 1;
+        while (low + step <= size && !isAfter(low + step - 1, row, x)) {
+            low += step;
+            step <<= 1;
+        }
+        return firstAfter(row, x, low, Math.min(size, low + step - 1));
+    }
+
+    /**
+     * Binary searches between the indices for the first entity after the given row and left edge
+     */
+    private int firstAfter(int row, float x, int low, int high) {
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (isAfter(middle, row, x)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks if moving the entity to the given position would push it into another entity<br>
+     * Entities that already overlap (such as ones spawned on the same cell) may still move apart
+     *
+     * @param mover The entity that is moving
+     * @param x     The x coordinate it is moving to
+     * @param y     The y coordinate it is moving to
+     * @return True if the move should be stopped
+     */
+    public boolean isBlocked(Entity mover, float x, float y) {
+        int moverIndex = mover.colliderIndex;
+        float moverRight = x + mover.width;
+        float moverTop = y + mover.height;
+        int lastRow = (int) Math.floor(moverTop);
+        for (int sweepRow = (int) Math.floor(y - maxHeight); sweepRow <= lastRow; sweepRow++) {
+            for (int index = firstAfterNear(sweepRow, x - maxWidth, moverIndex); index < size && row[index] == sweepRow && left[index] < moverRight; index++) {
+                if (index == moverIndex || right[index] <= x || bottom[index] >= moverTop || top[index] <= y) {
+                    continue;
+                }
+                if (!overlaps(moverIndex, index)) {
+                    return true;
+                }
+                // Already overlapping, so only stop moves towards the other entity's centre
+                float towardsX = (left[index] + right[index]) - (left[moverIndex] + right[moverIndex]);
+                float towardsY = (bottom[index] + top[index]) - (bottom[moverIndex] + top[moverIndex]);
+                if ((x - left[moverIndex]) * towardsX + (y - bottom[moverIndex]) * towardsY > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds how far along a move the entity can go before it pushes into another entity, so fast entities
+     * can't pass through each other between updates<br>
+     * If the first entity in the way has a higher ID, it is pushed along by the rest of the move (as far as
+     * the walls and the other entities allow, without pushing them in turn) and the move is swept again
+     *
+     * @param mover       The entity that is moving
+     * @param moveX       The distance to move along x
+     * @param moveY       The distance to move along y
+     * @param maxFraction The fraction of the move already allowed, such as by the walls
+     * @param room        The room tiles the pushed entity is kept inside
+     * @return The fraction of the move (0 to maxFraction) that can be made
+     */
+    public float sweep(Entity mover, float moveX, float moveY, float maxFraction, CollisionGrid room) {
+        float fraction = sweep(mover, moveX, moveY, maxFraction);
+        if (hitIndex == NONE || sorted[hitIndex].id.ID < mover.id.ID) {
+            return fraction;
+        }
+        Entity pushed = sorted[hitIndex];
+        float pushX = moveX * (maxFraction - fraction);
+        float pushY = moveY * (maxFraction - fraction);
+        float pushFraction = room.sweepArea(pushed.getXPosition(), pushed.getYPosition(), pushed.width, pushed.height, pushX, pushY);
+        if (pushFraction > 0) {
+            pushFraction = sweep(pushed, pushX, pushY, pushFraction);
+        }
+        if (pushFraction <= 0) {
+            return fraction;
+        }
+        pushed.shift(pushX * pushFraction, pushY * pushFraction);
+        return sweep(mover, moveX, moveY, maxFraction);
+    }
+
+    /**
+     * Finds how far along a move the entity can go before it pushes into another entity, so fast entities
+     * can't pass through each other between updates<br>
+     * Entities in the area swept by the move are found like isBlocked, then the time each box would start
+     * overlapping is worked out from the gaps along each axis. Entities already overlapping may still move apart
+     *
+     * @param mover       The entity that is moving
+     * @param moveX       The distance to move along x
+     * @param moveY       The distance to move along y
+     * @param maxFraction The fraction of the move already allowed, such as by the walls
+     * @return The fraction of the move (0 to maxFraction) that can be made
+     */
+    public float sweep(Entity mover, float moveX, float moveY, float maxFraction) {
+        hitIndex = NONE;
+        int moverIndex = mover.colliderIndex;
+        float minX = left[moverIndex] + Math.min(0, moveX * maxFraction);
+        float maxX = right[moverIndex] + Math.max(0, moveX * maxFraction);
+        float minY = bottom[moverIndex] + Math.min(0, moveY * maxFraction);
+        float maxY = top[moverIndex] + Math.max(0, moveY * maxFraction);
+        float fraction = maxFraction;
+        int lastRow = (int) Math.floor(maxY);
+        for (int sweepRow = (int) Math.floor(minY - maxHeight); sweepRow <= lastRow; sweepRow++) {
+            for (int index = firstAfterNear(sweepRow, minX - maxWidth, moverIndex); index < size && row[index] == sweepRow && left[index] < maxX; index++) {
+                if (index == moverIndex || right[index] <= minX || bottom[index] >= maxY || top[index] <= minY) {
+                    continue;
+                }
+                if (overlaps(moverIndex, index)) {
+                    // Already overlapping, so only stop moves towards the other entity's centre
+                    float towardsX = (left[index] + right[index]) - (left[moverIndex] + right[moverIndex]);
+                    float towardsY = (bottom[index] + top[index]) - (bottom[moverIndex] + top[moverIndex]);
+                    if (moveX * towardsX + moveY * towardsY > 0) {
+                        hitIndex = NONE;
+                        return 0;
+                    }
+                    continue;
+                }
+                float impact = timeOfImpact(moverIndex, index, moveX, moveY);
+                if (impact < fraction) {
+                    fraction = impact;
+                    hitIndex = index;
+                }
+            }
+        }
+        return fraction;
+    }
+
+    /**
+     * Works out when a moving box starts to overlap a still one, from when the gaps close along each axis
+     *
+     * @return The fraction of the move when they start to overlap (just short of touching), or
+     * Float.MAX_VALUE if they never do
+     */
+    private float timeOfImpact(int mover, int other, float moveX, float moveY) {
+        float enterX;
+        float exitX;
+        if (moveX == 0) {
+            if (right[mover] <= left[other] || right[other] <= left[mover]) {
+                return Float.MAX_VALUE;
+            }
+            enterX = -Float.MAX_VALUE;
+            exitX = Float.MAX_VALUE;
+        } else {
+            float near = moveX > 0 ? left[other] - right[mover] : right[other] - left[mover];
+            float far = moveX > 0 ? right[other] - left[mover] : left[other] - right[mover];
+            enterX = near / moveX;
+            exitX = far / moveX;
+        }
+        float enterY;
+        float exitY;
+        if (moveY == 0) {
+            if (top[mover] <= bottom[other] || top[other] <= bottom[mover]) {
+                return Float.MAX_VALUE;
+            }
+            enterY = -Float.MAX_VALUE;
+            exitY = Float.MAX_VALUE;
+        } else {
+            float near = moveY > 0 ? bottom[other] - top[mover] : top[other] - bottom[mover];
+            float far = moveY > 0 ? top[other] - bottom[mover] : bottom[other] - top[mover];
+            enterY = near / moveY;
+            exitY = far / moveY;
+        }
+        float enter = Math.max(enterX, enterY);
+        float exit = Math.min(exitX, exitY);
+        if (enter >= exit || enter < 0) {
+            return Float.MAX_VALUE;
+        }
+        return Math.max(0, enter - SWEEP_MARGIN / Math.max(Math.abs(moveX), Math.abs(moveY)));
+    }
+
+    /**
+     * @return True if the boxes of the two entries overlap (touching edges don't count)
+     */
+    private boolean overlaps(int first, int second) {
+        return left[first] < right[second] && left[second] < right[first]
+                && bottom[first] < top[second] && bottom[second] < top[first];
+    }
+
+    /**
+     * Finds every entity whose box overlaps the given area (touching edges don't count)
+     *
+     * @param minX   The left edge of the area
+     * @param minY   The bottom edge of the area
+     * @param maxX   The right edge of the area
+     * @param maxY   The top edge of the area
+     * @param result Cleared, then filled with the entities found
+     * @return The number of entities found
+     */
+    public int queryArea(float minX, float minY, float maxX, float maxY, Array<Entity> result) {
+        result.clear();
+        int lastRow = (int) Math.floor(maxY);
+        for (int sweepRow = (int) Math.floor(minY - maxHeight); sweepRow <= lastRow; sweepRow++) {
+            for (int index = firstAfter(sweepRow, minX - maxWidth); index < size && row[index] == sweepRow && left[index] < maxX; index++) {
+                if (right[index] > minX && bottom[index] < maxY && top[index] > minY) {
+                    result.add(sorted[index]);
+                }
+            }
+        }
+        return result.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "Entity collider: " + size + " entities";
+    }
+}
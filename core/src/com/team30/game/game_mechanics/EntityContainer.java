@@ -1,7 +1,6 @@
 package com.team30.game.game_mechanics;
 
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Vector2;
 import com.team30.game.Recording.Action;
 
@@ -37,12 +36,12 @@ public interface EntityContainer {
      * Calculates the position of every active entity
      * from the entities velocity.
      */
-    void calculatePosition(float deltaTime, TiledMapTileLayer room);
+    void calculatePosition(float deltaTime, CollisionGrid room);
 
     /**
      * This is where the next movements for entities are calculated, and velocity is altered
      */
-    void updateMovements(float deltaTime, TiledMapTileLayer room);
+    void updateMovements(float deltaTime, CollisionGrid room);
 
     /**
      * Draws all active entities
@@ -51,6 +50,13 @@ public interface EntityContainer {
      */
     void draw(Batch batch);
 
+    /**
+     * Moves where every active entity is drawn to part way along its last update
+     *
+     * @param alpha How far through the time until the next update it is, from 0 to 1
+     */
+    void interpolate(float alpha);
+
     /**
      * Returns all actions that took place in this snapshot<br>
      * And resets the recording list
@@ -64,5 +70,5 @@ public interface EntityContainer {
      *
      * @param action The action to apply
      */
-    void applyAction(Action action, TiledMapTileLayer room);
+    void applyAction(Action action, CollisionGrid room);
 }
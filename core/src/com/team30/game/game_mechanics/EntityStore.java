@@ -0,0 +1,446 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.utils.IntIntMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Holds the moving state of a group of entities (position, velocity, speed and update timer) in parallel arrays,
+ * one slot per entity, so updating every entity walks along each array in order rather than jumping between
+ * objects<br>
+ * Slots are kept packed from 0 to size: removing an entity moves the last one into its slot, and an ID to slot
+ * map finds an entity's slot. The speeds are stored once per kind of entity (such as npcs, or fast
+ * infiltrators), as every entity of a kind moves the same<br>
+ * An Entity reads and writes its own slot, so it is a view of its store. Each entity is given its slot by its
+ * constructor, in the store of the container it belongs to, so nothing is copied or allocated when it joins the
+ * container<br>
+ * Large stores can be moved on a fork-join pool: how far each entity gets before a wall only depends on its own
+ * slot and the room tiles, so that is worked out for chunks of slots at once. Entities can still block each
+ * other, so the moves are then checked against the collider and made one at a time in slot order, which keeps
+ * the result the same however many threads there are<br>
+ * The collider is by far the slower phase, so it limits how much more threads help: on Map.tmx (MovementBenchmark)
+ * the wall sweep is 13% of an update at 5000 npcs and 3% at 20000, so no number of threads can make an update
+ * more than about 1.15x and 1.03x faster
+ *
+ * @param <T> The type of entity stored
+ */
+public class EntityStore<T extends Entity> {
+    private static final int NOT_STORED = -1;
+    /**
+     * The speeds an entity has until they are changed, the original defaults of every entity
+     */
+    private static final float DEFAULT_MAX_VELOCITY = 5f;
+    private static final float DEFAULT_VELOCITY_CHANGE = 2f;
+    /**
+     * The fewest entities worth splitting across threads, below this the walls are swept on the calling thread
+     */
+    public static final int PARALLEL_THRESHOLD = 4096;
+    /**
+     * The number of slots a task sweeps without splitting any further
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    float[] x;
+    float[] y;
+    /**
+     * Where each entity was before its last update, so anything checked between updates (like capturing) can
+     * use the whole path it moved along rather than just where it ended up
+     */
+    float[] previousX;
+    float[] previousY;
+    /**
+     * Where each entity is drawn, part way between the previous and current position
+     */
+    float[] renderX;
+    float[] renderY;
+    float[] velocityX;
+    float[] velocityY;
+    /**
+     * The time since each entity's movement was last chosen
+     */
+    float[] timeSinceLastUpdate;
+    /**
+     * The kind of each entity, an index into the speed tables
+     */
+    int[] kind;
+    /**
+     * The move each entity is making this update, and the fraction of it allowed by the walls
+     */
+    private float[] moveX;
+    private float[] moveY;
+    private float[] wallFraction;
+    private Entity[] entities;
+    private final IntIntMap slots;
+    private int size;
+
+    /**
+     * The fastest each kind can move, any other velocity is scaled to this
+     */
+    private float[] maxVelocity;
+    /**
+     * The amount velocity changes by for each kind, when input is recorded
+     */
+    private float[] velocityChange;
+    private int kinds;
+
+    public EntityStore() {
+        this(16);
+    }
+
+    /**
+     * @param capacity The number of entities to make room for, more are made room for as needed
+     */
+    public EntityStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.previousX = new float[capacity];
+        this.previousY = new float[capacity];
+        this.renderX = new float[capacity];
+        this.renderY = new float[capacity];
+        this.velocityX = new float[capacity];
+        this.velocityY = new float[capacity];
+        this.timeSinceLastUpdate = new float[capacity];
+        this.kind = new int[capacity];
+        this.moveX = new float[capacity];
+        this.moveY = new float[capacity];
+        this.wallFraction = new float[capacity];
+        this.entities = new Entity[capacity];
+        this.slots = new IntIntMap(capacity);
+        this.maxVelocity = new float[2];
+        this.velocityChange = new float[2];
+    }
+
+    /**
+     * Gives a new entity a slot, standing still at the origin with the default speeds<br>
+     * Called by the entity's constructor, the entity can't be in any other store
+     */
+    void addNew(Entity entity) {
+        int slot = newSlot(entity);
+        x[slot] = y[slot] = 0;
+        previousX[slot] = previousY[slot] = 0;
+        renderX[slot] = renderY[slot] = 0;
+        velocityX[slot] = velocityY[slot] = 0;
+        timeSinceLastUpdate[slot] = 0;
+        kind[slot] = kindOf(DEFAULT_MAX_VELOCITY, DEFAULT_VELOCITY_CHANGE);
+    }
+
+    /**
+     * Adds the entity, bringing its state over from the store it was in before
+     *
+     * @param entity The entity to add, nothing happens if it is already in this store. One that was removed from
+     *               its store starts again standing still at the origin
+     */
+    public void add(T entity) {
+        EntityStore<?> previous = entity.store;
+        if (previous == this) {
+            return;
+        }
+        if (previous == null) {
+            addNew(entity);
+            return;
+        }
+        int slot = newSlot(entity);
+        int from = entity.slot;
+        x[slot] = previous.x[from];
+        y[slot] = previous.y[from];
+        previousX[slot] = previous.previousX[from];
+        previousY[slot] = previous.previousY[from];
+        renderX[slot] = previous.renderX[from];
+        renderY[slot] = previous.renderY[from];
+        velocityX[slot] = previous.velocityX[from];
+        velocityY[slot] = previous.velocityY[from];
+        timeSinceLastUpdate[slot] = previous.timeSinceLastUpdate[from];
+        kind[slot] = kindOf(previous.getMaxVelocity(from), previous.getVelocityChange(from));
+        previous.removeSlot(from);
+        entity.store = this;
+        entity.slot = slot;
+    }
+
+    /**
+     * Removes the entity, which then has no position or velocity, so it shouldn't be used until it is added to
+     * a store again
+     *
+     * @param entity The entity to remove, nothing happens if it isn't in this store
+     */
+    public void remove(T entity) {
+        if (entity.store != this) {
+            return;
+        }
+        removeSlot(entity.slot);
+        entity.store = null;
+        entity.slot = NOT_STORED;
+    }
+
+    /**
+     * Puts a new entity into the next slot, growing the arrays if they are full
+     */
+    private int newSlot(Entity entity) {
+        if (size == entities.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            previousX = Arrays.copyOf(previousX, capacity);
+            previousY = Arrays.copyOf(previousY, capacity);
+            renderX = Arrays.copyOf(renderX, capacity);
+            renderY = Arrays.copyOf(renderY, capacity);
+            velocityX = Arrays.copyOf(velocityX, capacity);
+            velocityY = Arrays.copyOf(velocityY, capacity);
+            timeSinceLastUpdate = Arrays.copyOf(timeSinceLastUpdate, capacity);
+            kind = Arrays.copyOf(kind, capacity);
+            moveX = new float[capacity];
+            moveY = new float[capacity];
+            wallFraction = new float[capacity];
+            entities = Arrays.copyOf(entities, capacity);
+        }
+        int slot = size++;
+        entities[slot] = entity;
+        slots.put(entity.id.ID, slot);
+        if (entity.store == null) {
+            entity.store = this;
+            entity.slot = slot;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties the slot by moving the last entity into it
+     */
+    private void removeSlot(int slot) {
+        slots.remove(entities[slot].id.ID, NOT_STORED);
+        int last = --size;
+        if (slot != last) {
+            x[slot] = x[last];
+            y[slot] = y[last];
+            previousX[slot] = previousX[last];
+            previousY[slot] = previousY[last];
+            renderX[slot] = renderX[last];
+            renderY[slot] = renderY[last];
+            velocityX[slot] = velocityX[last];
+            velocityY[slot] = velocityY[last];
+            timeSinceLastUpdate[slot] = timeSinceLastUpdate[last];
+            kind[slot] = kind[last];
+            entities[slot] = entities[last];
+            entities[slot].slot = slot;
+            slots.put(entities[slot].id.ID, slot);
+        }
+        entities[last] = null;
+    }
+
+    /**
+     * @return The kind with the given speeds, added if no kind has them yet
+     */
+    private int kindOf(float maxVelocity, float velocityChange) {
+        for (int index = 0; index < kinds; index++) {
+            if (this.maxVelocity[index] == maxVelocity && this.velocityChange[index] == velocityChange) {
+                return index;
+            }
+        }
+        if (kinds == this.maxVelocity.length) {
+            this.maxVelocity = Arrays.copyOf(this.maxVelocity, kinds * 2);
+            this.velocityChange = Arrays.copyOf(this.velocityChange, kinds * 2);
+        }
+        this.maxVelocity[kinds] = maxVelocity;
+        this.velocityChange[kinds] = velocityChange;
+        return kinds++;
+    }
+
+    /**
+     * Changes the speeds of the entity in the slot, by moving it to the kind with those speeds
+     */
+    void setSpeed(int slot, float maxVelocity, float velocityChange) {
+        kind[slot] = kindOf(maxVelocity, velocityChange);
+    }
+
+    float getMaxVelocity(int slot) {
+        return maxVelocity[kind[slot]];
+    }
+
+    float getVelocityChange(int slot) {
+        return velocityChange[kind[slot]];
+    }
+
+    /**
+     * @return The entity with the given ID, or null if it isn't in this store
+     */
+    public T get(ID id) {
+        int slot = slots.get(id.ID, NOT_STORED);
+        return slot == NOT_STORED ? null : getAt(slot);
+    }
+
+    /**
+     * @param slot A slot from 0 to size - 1
+     * @return The entity in the slot
+     */
+    @SuppressWarnings("unchecked")
+    public T getAt(int slot) {
+        return (T) entities[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves every entity along its velocity, in slot order
+     *
+     * @param deltaTime The time since last update
+     * @param room      The room layer for collision detection
+     */
+    public void updatePositions(float deltaTime, CollisionGrid room) {
+        updatePositions(deltaTime, room, null);
+    }
+
+    /**
+     * Moves every entity along its velocity, sweeping the walls for chunks of slots on the pool, then
+     * checking the other entities and moving them in slot order
+     *
+     * @param deltaTime The time since last update
+     * @param room      The room layer for collision detection, which must not change until this returns
+     * @param pool      The pool to sweep the walls on, or null to sweep them on this thread
+     */
+    public void updatePositions(float deltaTime, CollisionGrid room, ForkJoinPool pool) {
+        if (pool != null && size >= PARALLEL_THRESHOLD) {
+            pool.invoke(new WallSweep(0, size, deltaTime, room));
+        } else {
+            sweepWalls(0, size, deltaTime, room);
+        }
+        for (int slot = 0; slot < size; slot++) {
+            move(slot, room);
+        }
+    }
+
+    /**
+     * Moves the entity in the slot along its velocity until it would leave the room tiles or walk into another
+     * entity in the same collider, stopping just before whichever comes first<br>
+     * The whole move is swept rather than just checking where it ends, so it stays correct however long the
+     * time step is
+     *
+     * @param slot      The slot of the entity to move
+     * @param deltaTime The time since last update
+     * @param room      The room layer for collision detection
+     */
+    void updatePosition(int slot, float deltaTime, CollisionGrid room) {
+        sweepWalls(slot, slot + 1, deltaTime, room);
+        move(slot, room);
+    }
+
+    /**
+     * Limits the speed of each entity in the slots, and works out how far it can move before a wall<br>
+     * Only writes to the given slots, so separate ranges can be swept at the same time
+     *
+     * @param from      The first slot to sweep
+     * @param to        The slot after the last one to sweep
+     * @param deltaTime The time since last update
+     * @param room      The room layer for collision detection
+     */
+    private void sweepWalls(int from, int to, float deltaTime, CollisionGrid room) {
+        for (int slot = from; slot < to; slot++) {
+            previousX[slot] = x[slot];
+            previousY[slot] = y[slot];
+            wallFraction[slot] = 0;
+            if (deltaTime == 0) continue;
+
+            // Limit the speed, the same as Vector2.clamp(-max, max): any other speed is scaled to exactly the max
+            float velocityX = this.velocityX[slot];
+            float velocityY = this.velocityY[slot];
+            float length2 = velocityX * velocityX + velocityY * velocityY;
+            if (length2 != 0) {
+                float max = getMaxVelocity(slot);
+                float max2 = max * max;
+                if (length2 != max2) {
+                    float scale = (float) Math.sqrt(max2 / length2);
+                    velocityX *= scale;
+                    velocityY *= scale;
+                    this.velocityX[slot] = velocityX;
+                    this.velocityY[slot] = velocityY;
+                }
+            }
+
+            // Scale for time passed
+            moveX[slot] = velocityX * deltaTime;
+            moveY[slot] = velocityY * deltaTime;
+            if (moveX[slot] == 0 && moveY[slot] == 0) continue;
+
+            Entity entity = entities[slot];
+            wallFraction[slot] = room.sweepArea(x[slot], y[slot], entity.width, entity.height, moveX[slot], moveY[slot]);
+        }
+    }
+
+    /**
+     * Makes as much of the slot's swept move as the other entities in its collider allow, pushing along those
+     * that give way<br>
+     * An entity pushed since its walls were swept has moved from where they were swept, so they are swept again
+     */
+    private void move(int slot, CollisionGrid room) {
+        float fraction = wallFraction[slot];
+        Entity entity = entities[slot];
+        if (fraction > 0 && (x[slot] != previousX[slot] || y[slot] != previousY[slot])) {
+            fraction = room.sweepArea(x[slot], y[slot], entity.width, entity.height, moveX[slot], moveY[slot]);
+        }
+        if (fraction <= 0) {
+            return;
+        }
+        if (entity.collider != null) {
+            fraction = entity.collider.sweep(entity, moveX[slot], moveY[slot], fraction, room);
+            if (fraction <= 0) {
+                return;
+            }
+        }
+        x[slot] += moveX[slot] * fraction;
+        y[slot] += moveY[slot] * fraction;
+        entity.moved();
+    }
+
+    /**
+     * Moves where every entity is drawn to part way along its last update
+     *
+     * @param alpha How far through the time until the next update it is, from 0 (the previous position) to 1
+     */
+    public void interpolate(float alpha) {
+        for (int slot = 0; slot < size; slot++) {
+            interpolate(slot, alpha);
+        }
+    }
+
+    void interpolate(int slot, float alpha) {
+        renderX[slot] = previousX[slot] + alpha * (x[slot] - previousX[slot]);
+        renderY[slot] = previousY[slot] + alpha * (y[slot] - previousY[slot]);
+    }
+
+    /**
+     * Sweeps the walls for a range of slots, splitting it in half until it is small enough to sweep directly,
+     * so idle threads can steal the halves
+     */
+    private class WallSweep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final float deltaTime;
+        private final CollisionGrid room;
+
+        WallSweep(int from, int to, float deltaTime, CollisionGrid room) {
+            this.from = from;
+            this.to = to;
+            this.deltaTime = deltaTime;
+            this.room = room;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                sweepWalls(from, to, deltaTime, room);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new WallSweep(from, middle, deltaTime, room), new WallSweep(middle, to, deltaTime, room));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Entity store: " + size + " entities of " + kinds + " kinds";
+    }
+}
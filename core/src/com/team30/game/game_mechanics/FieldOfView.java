@@ -0,0 +1,251 @@
+package com.team30.game.game_mechanics;
+
+import java.util.Arrays;
+
+/**
+ * The cells that can be seen from one cell, found with recursive shadowcasting over the walkable cells<br>
+ * Anything that isn't a room tile blocks sight (but can be seen itself). A cell is seen if some line from the
+ * middle of the origin reaches it without passing through the inside of a wall, lines that only touch it at a
+ * corner don't count. The result is kept until the origin moves onto another cell, so checking whether something
+ * can be seen is a single array lookup
+ */
+public class FieldOfView {
+    /**
+     * How to turn the first octant into each of the 8 octants around the origin
+     */
+    private static final int[][] OCTANTS = {
+            {1, 0, 0, -1, -1, 0, 0, 1},
+            {0, 1, -1, 0, 0, -1, 1, 0},
+            {0, 1, 1, 0, 0, -1, -1, 0},
+            {1, 0, 0, 1, -1, 0, 0, -1}
+    };
+
+    private final CollisionGrid roomTiles;
+    private final int width;
+    private final int height;
+    private final int radius;
+    /**
+     * A cell is visible if its stamp matches the current one, so nothing needs clearing between updates
+     */
+    private final int[] stamp;
+    private int currentStamp;
+    private int originX;
+    private int originY;
+    /**
+     * The version of the room tiles the visible cells were worked out from
+     */
+    private int gridVersion;
+
+    /**
+     * Creates a field of view for the given map, call update to choose the origin
+     *
+     * @param roomTiles The map of valid room tiles, everything else blocks sight
+     * @param radius    The furthest distance that can be seen (in tiles)
+     */
+    public FieldOfView(CollisionGrid roomTiles, int radius) {
+        this.roomTiles = roomTiles;
+        this.width = roomTiles.getWidth();
+        this.height = roomTiles.getHeight();
+        this.radius = radius;
+        this.stamp = new int[width * height];
+        this.currentStamp = 0;
+        this.originX = -1;
+        this.originY = -1;
+    }
+
+    /**
+     * Looks from the cell the entity is in, only working out what is visible if it is on a different cell
+     *
+     * @param entity The entity to look from, such as the Auber
+     * @return True if the visible cells were worked out again
+     */
+    public boolean update(Entity entity) {
+        return update(cellX(entity), cellY(entity));
+    }
+
+    /**
+     * Looks from the given cell, only working out what is visible if it is a different cell (or room tiles have
+     * been opened or closed since)
+     *
+     * @param x The x coordinate of the cell to look from
+     * @param y The y coordinate of the cell to look from
+     * @return True if the visible cells were worked out again
+     */
+    public boolean update(int x, int y) {
+        if (x == originX && y == originY && currentStamp != 0 && gridVersion == roomTiles.getVersion()) {
+            return false;
+        }
+        originX = x;
+        originY = y;
+        gridVersion = roomTiles.getVersion();
+        if (++currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            currentStamp = 1;
+        }
+        markVisible(x, y);
+        for (int octant = 0; octant < 8; octant++) {
+            castLight(1, 1.0f, 0.0f, OCTANTS[0][octant], OCTANTS[1][octant], OCTANTS[2][octant], OCTANTS[3][octant]);
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the visible cells, so they are worked out again on the next update
+     */
+    public void invalidate() {
+        originX = -1;
+        originY = -1;
+    }
+
+    /**
+     * Scans one octant row by row, moving away from the origin, between the start and end slopes<br>
+     * When a wall is found, the part of the octant before it is scanned further out with a recursive call,
+     * and this scan carries on past the wall's shadow
+     */
+    private void castLight(int row, float start, float end, int xx, int xy, int yx, int yy) {
+        if (start <= end) {
+            return;
+        }
+        int radiusSquared = radius * radius;
+        float newStart = 0;
+        for (int distance = row; distance <= radius; distance++) {
+            int dy = -distance;
+            boolean blocked = false;
+            for (int dx = -distance; dx <= 0; dx++) {
+                float leftSlope = (dx - 0.5f) / (dy + 0.5f);
+                float rightSlope = (dx + 0.5f) / (dy - 0.5f);
+                if (start <= rightSlope) {
+                    continue;
+                } else if (end >= leftSlope) {
+                    break;
+                }
+                int x = originX + dx * xx + dy * xy;
+                int y = originY + dx * yx + dy * yy;
+                // Lines into the far side of the cell cross the next cell along the row first, so if that is a
+                // wall only the lines through the near side reach it
+                float lowestSlope = dx < 0 && !roomTiles.isWalkable(x + xx, y + yx) ? (dx + 0.5f) / (dy + 0.5f) : rightSlope;
+                if (dx * dx + dy * dy <= radiusSquared && start > lowestSlope) {
+                    markVisible(x, y);
+                }
+                boolean opaque = !roomTiles.isWalkable(x, y);
+                if (blocked) {
+                    if (opaque) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                        // The wall covered the rest of a scan only as wide as a line, so nothing past it is lit
+                        if (start <= end) {
+                            return;
+                        }
+                    }
+                } else if (opaque && distance < radius) {
+                    blocked = true;
+                    castLight(distance + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked) {
+                break;
+            }
+        }
+    }
+
+    private void markVisible(int x, int y) {
+        if (x >= 0 && y >= 0 && x < width && y < height) {
+            stamp[y * width + x] = currentStamp;
+        }
+    }
+
+    /**
+     * @return True if the cell can be seen from the current origin
+     */
+    public boolean isVisible(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        return stamp[y * width + x] == currentStamp && currentStamp != 0;
+    }
+
+    /**
+     * @return True if the middle of the entity can be seen from the current origin
+     */
+    public boolean canSee(Entity entity) {
+        return isVisible(cellX(entity), cellY(entity));
+    }
+
+    /**
+     * Checks if one entity has a clear line of sight to another<br>
+     * Uses the cached cells if either is standing on the origin, otherwise follows a line between their cells
+     *
+     * @param looker The entity looking
+     * @param target The entity being looked for
+     * @return True if nothing but room tiles is between them, and they are within the radius
+     */
+    public boolean canSee(Entity looker, Entity target) {
+        int fromX = cellX(looker);
+        int fromY = cellY(looker);
+        int toX = cellX(target);
+        int toY = cellY(target);
+        if (fromX == originX && fromY == originY) {
+            return isVisible(toX, toY);
+        }
+        if (toX == originX && toY == originY) {
+            return isVisible(fromX, fromY);
+        }
+        return hasLineOfSight(fromX, fromY, toX, toY);
+    }
+
+    /**
+     * Follows a Bresenham line between the cells, checking each cell in between is a room tile
+     */
+    private boolean hasLineOfSight(int fromX, int fromY, int toX, int toY) {
+        int dx = Math.abs(toX - fromX);
+        int dy = Math.abs(toY - fromY);
+        if (dx * dx + dy * dy > radius * radius) {
+            return false;
+        }
+        int stepX = fromX < toX ? 1 : -1;
+        int stepY = fromY < toY ? 1 : -1;
+        int error = dx - dy;
+        int x = fromX;
+        int y = fromY;
+        while (x != toX || y != toY) {
+            if ((x != fromX || y != fromY) && !roomTiles.isWalkable(x, y)) {
+                return false;
+            }
+            int doubled = 2 * error;
+            if (doubled > -dy) {
+                error -= dy;
+                x += stepX;
+            }
+            if (doubled < dx) {
+                error += dx;
+                y += stepY;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The x coordinate of the cell the middle of the entity is in
+     */
+    private static int cellX(Entity entity) {
+        return (int) Math.floor(entity.getXPosition() + entity.width / 2f);
+    }
+
+    /**
+     * @return The y coordinate of the cell the middle of the entity is in
+     */
+    private static int cellY(Entity entity) {
+        return (int) Math.floor(entity.getYPosition() + entity.height / 2f);
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+}
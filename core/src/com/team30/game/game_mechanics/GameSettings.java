@@ -0,0 +1,97 @@
+package com.team30.game.game_mechanics;
+
+import com.team30.game.game_mechanics.Infiltrators.Infiltrator;
+import com.team30.game.game_mechanics.Pathfinding.PathfindingMode;
+
+/**
+ * The numbers a game is balanced by, so they can be changed for each game (such as when trying many settings
+ * at once without a screen) rather than being fixed in the code<br>
+ * Starts with the values the game is normally played with
+ */
+public class GameSettings {
+    /**
+     * The seed for every random choice in the game, so a game can be played again exactly
+     */
+    public long seed;
+    /**
+     * The number of infiltrators to spawn over the game
+     */
+    public int maxInfiltrators = InfiltratorContainer.MAX_INFILTRATORS;
+    /**
+     * The time between infiltrators spawning (in seconds)
+     */
+    public float spawnInterval = InfiltratorContainer.SPAWN_INTERVAL;
+    /**
+     * The damage an infiltrator does to a system in one attack
+     */
+    public int infiltratorDamage = Infiltrator.DAMAGE_DEALT;
+    /**
+     * The health every system starts with
+     */
+    public int systemHealth = StationSystem.DEFAULT_HEALTH;
+    /**
+     * The health the Auber gets back each tick, while at a healing system
+     */
+    public int auberHealRate = 1;
+    /**
+     * Scales the damage the Auber takes each tick, from systems that have been damaged
+     */
+    public float auberDamageRate = 0.5f;
+    /**
+     * The number of threads infiltrators search for paths on, 0 to search on the game thread
+     */
+    public int pathfindingThreads = InfiltratorContainer.PATHFINDING_THREADS;
+    /**
+     * How infiltrators find their way to a system
+     */
+    public PathfindingMode pathfindingMode = InfiltratorContainer.PATHFINDING_MODE;
+    /**
+     * Whether game events (spawns, attacks, captures and so on) are printed, turned off when playing many games
+     * at once
+     */
+    public boolean logEvents = true;
+    /**
+     * The number of threads to sweep moving entities against the walls on, 1 to move them on the game thread.
+     * Only used once there are at least EntityStore.PARALLEL_THRESHOLD of them
+     */
+    public int movementThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates the normal settings, with a seed picked from the clock
+     */
+    public GameSettings() {
+        this.seed = System.nanoTime();
+    }
+
+    /**
+     * Creates the normal settings, with the given seed
+     */
+    public GameSettings(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return A copy of these settings, that can be changed without changing these
+     */
+    public GameSettings copy() {
+        GameSettings copy = new GameSettings(seed);
+        copy.maxInfiltrators = maxInfiltrators;
+        copy.spawnInterval = spawnInterval;
+        copy.infiltratorDamage = infiltratorDamage;
+        copy.systemHealth = systemHealth;
+        copy.auberHealRate = auberHealRate;
+        copy.auberDamageRate = auberDamageRate;
+        copy.pathfindingThreads = pathfindingThreads;
+        copy.pathfindingMode = pathfindingMode;
+        copy.movementThreads = movementThreads;
+        copy.logEvents = logEvents;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "Settings: seed " + seed + ", " + maxInfiltrators + " infiltrators every " + spawnInterval
+                + "s, " + infiltratorDamage + " damage, " + systemHealth + " system health, Auber heals "
+                + auberHealRate + " and takes " + auberDamageRate + " damage, " + pathfindingMode + " pathfinding";
+    }
+}
@@ -3,13 +3,9 @@ package com.team30.game.game_mechanics;
 
 /**
  * A ID class used to uniquely identify every entity
- * Currently ID's are generated by adding one, off the previous ID
+ * ID's are generated by adding one, off the previous ID in the same world (see WorldContext)
  */
 public class ID {
-    /**
-     * Counter to assign new ID's
-     */
-    private static int idCount = 1;
     /**
      * The unique ID of the entity
      * Have to use this in hashmaps, due to Java hashing being different from even if the class data is the same
@@ -20,15 +16,12 @@ public class ID {
      */
     public final EntityType type;
 
-    public ID() {
-        idCount += 1;
-        this.ID = idCount;
-        type = null;
-    }
-
-    public ID(EntityType type) {
-        idCount += 1;
-        this.ID = idCount;
+    /**
+     * @param id   The unique number of the entity, from WorldContext.nextId
+     * @param type What "type" the entity has
+     */
+    public ID(int id, EntityType type) {
+        this.ID = id;
         this.type = type;
     }
 
@@ -1,20 +1,21 @@
 package com.team30.game.game_mechanics;
 
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
 import com.team30.game.Recording.Action;
 import com.team30.game.Recording.ActionType;
 import com.team30.game.game_mechanics.Infiltrators.Hallucinogenic;
 import com.team30.game.game_mechanics.Infiltrators.Infiltrator;
 import com.team30.game.game_mechanics.Infiltrators.InfiltratorType;
 import com.team30.game.game_mechanics.Infiltrators.Invisible;
+import com.team30.game.game_mechanics.Pathfinding.AuberDistanceField;
+import com.team30.game.game_mechanics.Pathfinding.PathPlanner;
+import com.team30.game.game_mechanics.Pathfinding.PathfindingMode;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
 
 /**
  * Wrapper class for all infiltrators, and handles the movement and rendering of them
@@ -23,12 +24,60 @@ public class InfiltratorContainer implements EntityContainer {
     /**
      * The maximum number of infiltrators to spawn
      */
-    private static final int MAX_INFILTRATORS = 10;
+    public static final int MAX_INFILTRATORS = 10;
     /**
-     * The infiltrators that are currently "alive" on the map
+     * The time between infiltrators spawning (in seconds)
      */
-    private final HashMap<Integer, Infiltrator> currentInfiltrators;
+    public static final float SPAWN_INTERVAL = 10;
+    /**
+     * The number of threads to search for paths on, so searches don't hold up rendering
+     */
+    public static final int PATHFINDING_THREADS = 2;
+    /**
+     * How infiltrators find their way to a system, unless the settings choose another way
+     */
+    public static final PathfindingMode PATHFINDING_MODE = PathfindingMode.FlowField;
+    /**
+     * The width and height of each bucket in the spatial hash (in tiles)
+     */
+    private static final int SPATIAL_CELL_SIZE = 2;
+    /**
+     * How far (in moves) from the Auber infiltrators keep track of it, past the distance they guard systems from
+     */
+    private static final int EVASION_RADIUS = 8;
+    /**
+     * The infiltrators that are currently "alive" on the map, with their positions and velocities stored together
+     */
+    private final EntityStore<Infiltrator> currentInfiltrators;
     private final SystemContainer systemContainer;
+    /**
+     * Shared by all infiltrators, to find their way to the closest system
+     */
+    private final PathPlanner pathPlanner;
+    /**
+     * How far the Auber is from the cells around it, shared by all infiltrators to keep away from it
+     */
+    private final AuberDistanceField auberDistance;
+    /**
+     * The attackable systems the Auber is within GUARD_DISTANCE of, reused each update
+     */
+    private final Bits guardedSystems;
+    /**
+     * Every current infiltrator, bucketed by position for proximity checks
+     */
+    private final SpatialHash spatialHash;
+    /**
+     * Reused for the results of proximity checks
+     */
+    private final Array<Entity> nearby;
+    /**
+     * Stops infiltrators walking into each other, and the other entities
+     */
+    private final EntityCollider collider;
+    /**
+     * The world the infiltrators are in, for their IDs, the random kind spawned and how many are spawned
+     */
+    private final WorldContext context;
     /**
      * The number of infiltrators that have been spawned so far
      */
@@ -41,6 +90,10 @@ public class InfiltratorContainer implements EntityContainer {
      * Range in which the infiltrator will be captured by the auber
      */
     private final float captureRange = 0.1f;
+    /**
+     * The furthest any infiltrator moved in the last update, so captures can look far enough back along its path
+     */
+    private float maxDisplacement;
 
     /**
      * Stores all actions taken, in the current snapshot
@@ -49,18 +102,30 @@ public class InfiltratorContainer implements EntityContainer {
 
     /**
      * Random to create different kinds of infiltrator
+     *
+     * @param systemContainer The systems for the infiltrators to attack
+     * @param roomTiles       The map of valid room tiles
+     * @param collider        Shared with the other entities, so infiltrators block and are blocked by them
+     * @param context         The world the infiltrators are in
      */
-    public InfiltratorContainer(SystemContainer systemContainer) {
+    public InfiltratorContainer(SystemContainer systemContainer, CollisionGrid roomTiles, EntityCollider collider, WorldContext context) {
         this.spawnedInfiltrators = 0;
         this.timeSinceLastSpawn = 0;
-        this.currentInfiltrators = new HashMap<>();
+        this.currentInfiltrators = new EntityStore<>(MAX_INFILTRATORS);
         this.recordedActions = new ArrayList<>();
         this.systemContainer = systemContainer;
+        this.pathPlanner = new PathPlanner(roomTiles, context.settings.pathfindingMode, context.settings.pathfindingThreads);
+        this.auberDistance = new AuberDistanceField(roomTiles, EVASION_RADIUS);
+        this.guardedSystems = new Bits();
+        this.spatialHash = new SpatialHash(roomTiles.getWidth(), roomTiles.getHeight(), SPATIAL_CELL_SIZE);
+        this.nearby = new Array<>();
+        this.collider = collider;
+        this.context = context;
     }
 
     @Override
     public Entity getEntity(ID id) {
-        return currentInfiltrators.get(id.ID);
+        return currentInfiltrators.get(id);
     }
 
     @Override
@@ -70,7 +135,11 @@ public class InfiltratorContainer implements EntityContainer {
 
     @Override
     public List<Entity> getAllEntities() {
-        return currentInfiltrators.values().stream().map(e -> (Entity) e).collect(Collectors.toList());
+        List<Entity> entities = new ArrayList<>(currentInfiltrators.size());
+        for (int slot = 0; slot < currentInfiltrators.size(); slot++) {
+            entities.add(currentInfiltrators.getAt(slot));
+        }
+        return entities;
     }
 
 
@@ -82,34 +151,87 @@ public class InfiltratorContainer implements EntityContainer {
      * @param room      The map layer containing all valid room tiles
      */
     @Override
-    public void calculatePosition(float deltaTime, TiledMapTileLayer room) {
+    public void calculatePosition(float deltaTime, CollisionGrid room) {
         timeSinceLastSpawn += deltaTime;
-        if (timeSinceLastSpawn > 10) {
+        if (timeSinceLastSpawn > context.settings.spawnInterval) {
             spawnInfiltrator(room);
         }
-        for (Infiltrator infiltrator : currentInfiltrators.values()) {
+        pathPlanner.update(systemContainer);
+        updateGuardedSystems();
+        // One at a time, as deciding damages systems, repairs the shared fields and fills the path cache
+        for (int slot = 0; slot < currentInfiltrators.size(); slot++) {
+            Infiltrator infiltrator = currentInfiltrators.getAt(slot);
             infiltrator.incrementTimeSinceLastUpdate(deltaTime);
             if (infiltrator.getTimeSinceLastUpdate() > 0.2) {
-                infiltrator.moveInfiltrator(room, systemContainer);
+                infiltrator.moveInfiltrator(room, systemContainer, pathPlanner, auberDistance);
                 recordedActions.add(new Action(infiltrator.id, ActionType.Move, infiltrator.getXPosition(), infiltrator.getYPosition(), infiltrator.getXVelocity(), infiltrator.getYVelocity(), infiltrator.infiltratorType));
                 infiltrator.resetTimeSinceLastUpdate();
             }
         }
     }
 
+    /**
+     * Measures how far the Auber is from the cells around it, for the infiltrators to keep away from it<br>
+     * Only searched again once the Auber has moved onto another cell
+     *
+     * @param auber The player character to keep away from
+     */
+    public void trackAuber(Auber auber) {
+        auberDistance.update(auber);
+    }
+
+    /**
+     * Finds the attackable systems the Auber is within GUARD_DISTANCE of, so infiltrators head for the others
+     */
+    private void updateGuardedSystems() {
+        guardedSystems.clear();
+        Bits attackable = systemContainer.getAttackableSystems();
+        for (int id = attackable.nextSetBit(0); id >= 0; id = attackable.nextSetBit(id + 1)) {
+            int distance = auberDistance.getDistance(systemContainer.getEntityByInt(id));
+            if (distance != AuberDistanceField.UNREACHABLE && distance <= Infiltrator.GUARD_DISTANCE) {
+                guardedSystems.set(id);
+            }
+        }
+        systemContainer.setGuardedSystems(guardedSystems);
+    }
+
     @Override
-    public void updateMovements(float deltaTime, TiledMapTileLayer room) {
-        for (Infiltrator infiltrator : currentInfiltrators.values()) {
+    public void updateMovements(float deltaTime, CollisionGrid room) {
+        maxDisplacement = 0;
+        for (int slot = 0; slot < currentInfiltrators.size(); slot++) {
+            Infiltrator infiltrator = currentInfiltrators.getAt(slot);
             infiltrator.updatePosition(deltaTime, room);
+            maxDisplacement = Math.max(maxDisplacement, Math.max(
+                    Math.abs(infiltrator.getXPosition() - infiltrator.getPreviousX()),
+                    Math.abs(infiltrator.getYPosition() - infiltrator.getPreviousY())));
         }
     }
 
     public void draw(Batch batch) {
-        for (Infiltrator infiltrator : currentInfiltrators.values()) {
+        for (int slot = 0; slot < currentInfiltrators.size(); slot++) {
+            Infiltrator infiltrator = currentInfiltrators.getAt(slot);
             infiltrator.draw(batch);
         }
     }
 
+    @Override
+    public void interpolate(float alpha) {
+        currentInfiltrators.interpolate(alpha);
+    }
+
+    /**
+     * Renders only the infiltrators the Auber can see
+     *
+     * @param batch Where to render the textures
+     * @param view  What the Auber can currently see
+     */
+    public void draw(Batch batch, FieldOfView view) {
+        for (int slot = 0; slot < currentInfiltrators.size(); slot++) {
+            Infiltrator infiltrator = currentInfiltrators.getAt(slot);
+            infiltrator.draw(batch, view);
+        }
+    }
+
     /**
      * Horrible logic statement for collision checking<br>
      * <p>
@@ -132,7 +254,7 @@ public class InfiltratorContainer implements EntityContainer {
                 && ((infiltrator.getXPosition() - ((float) infiltrator.width) / 2) < (auber.getXPosition() + range + ((float) auber.width) / 2)))
                 && (((auber.getYPosition() - (((float) auber.height) / 2) - range) < (infiltrator.getYPosition() + ((float) infiltrator.height) / 2)))
                 && ((infiltrator.getYPosition() - ((float) infiltrator.height) / 2) < (auber.getYPosition() + range + ((float) auber.height) / 2))) {
-            System.out.println("Captured by auber: " + infiltrator.id);
+            context.log("Captured by auber: " + infiltrator.id);
             recordedActions.add(new Action(infiltrator.id, ActionType.Capture, infiltrator.getXPosition(), infiltrator.getYPosition(), infiltrator.getXVelocity(), infiltrator.getYVelocity(), infiltrator.infiltratorType));
             return true;
         }
@@ -140,12 +262,92 @@ public class InfiltratorContainer implements EntityContainer {
     }
 
     /**
-     * Deletes any infiltrators in range of the Auber
+     * The same check as collisionCheck, but along the whole of the last update rather than just where each
+     * entity ended up, so a fast infiltrator (or a long time step) can't pass straight through the Auber<br>
+     * Both entities are taken to move in a straight line from their previous position, so the infiltrator
+     * moves relative to the Auber by the difference between their moves. The capture box is crossed if the
+     * times the gaps close along each axis overlap somewhere in the update
+     *
+     * @param auber       The player character to check a boundry around
+     * @param infiltrator The infiltrator to check if it passed through the boundry box
+     * @param range       The range around the auber to check (in the x and y axis)
+     * @return True if the infiltrator was inside the collision box at any point in the last update
+     */
+    boolean sweptCollisionCheck(Auber auber, Infiltrator infiltrator, float range) {
+        float halfWidth = (auber.width + infiltrator.width) / 2f + range;
+        float halfHeight = (auber.height + infiltrator.height) / 2f + range;
+        // Where the infiltrator started relative to the Auber, and how far that moved
+        float startX = infiltrator.getPreviousX() - auber.getPreviousX();
+        float startY = infiltrator.getPreviousY() - auber.getPreviousY();
+        float moveX = (infiltrator.getXPosition() - auber.getXPosition()) - startX;
+        float moveY = (infiltrator.getYPosition() - auber.getYPosition()) - startY;
+        float enter = 0;
+        float exit = 1;
+        if (moveX == 0) {
+            if (Math.abs(startX) >= halfWidth) {
+                return false;
+            }
+        } else {
+            float first = (-halfWidth - startX) / moveX;
+            float second = (halfWidth - startX) / moveX;
+            enter = Math.max(enter, Math.min(first, second));
+            exit = Math.min(exit, Math.max(first, second));
+        }
+        if (moveY == 0) {
+            if (Math.abs(startY) >= halfHeight) {
+                return false;
+            }
+        } else {
+            float first = (-halfHeight - startY) / moveY;
+            float second = (halfHeight - startY) / moveY;
+            enter = Math.max(enter, Math.min(first, second));
+            exit = Math.min(exit, Math.max(first, second));
+        }
+        if (enter >= exit) {
+            return false;
+        }
+        context.log("Captured by auber: " + infiltrator.id);
+        recordedActions.add(new Action(infiltrator.id, ActionType.Capture, infiltrator.getXPosition(), infiltrator.getYPosition(), infiltrator.getXVelocity(), infiltrator.getYVelocity(), infiltrator.infiltratorType));
+        return true;
+    }
+
+    /**
+     * Deletes any infiltrators that came in range of the Auber during the last update, that it can see
      *
      * @param auber - The entity to do collision checking on
+     * @param view  - What the Auber can currently see
+     */
+    public void checkCaptured(Auber auber, FieldOfView view) {
+        // Everything that could have crossed the capture box, from where the Auber started to where it is now
+        float halfWidth = auber.width / 2f + captureRange + maxDisplacement;
+        float halfHeight = auber.height / 2f + captureRange + maxDisplacement;
+        spatialHash.queryArea(Math.min(auber.getPreviousX(), auber.getXPosition()) - halfWidth,
+                Math.min(auber.getPreviousY(), auber.getYPosition()) - halfHeight,
+                Math.max(auber.getPreviousX(), auber.getXPosition()) + halfWidth,
+                Math.max(auber.getPreviousY(), auber.getYPosition()) + halfHeight, nearby);
+        for (Entity entity : nearby) {
+            Infiltrator infiltrator = (Infiltrator) entity;
+            if (view.canSee(auber, infiltrator) && sweptCollisionCheck(auber, infiltrator, captureRange)) {
+                currentInfiltrators.remove(infiltrator);
+                spatialHash.remove(infiltrator);
+                collider.remove(infiltrator);
+            }
+        }
+    }
+
+    /**
+     * Finds the infiltrators inside the box around an entity, the same box used by collisionCheck
+     *
+     * @param entity The entity to look around, such as the Auber
+     * @param range  The range around the entity to check (in the x and y axis)
+     * @return The infiltrators found, only valid until the next call
      */
-    public void checkCaptured(Auber auber) {
-        currentInfiltrators.entrySet().removeIf(infiltrator -> collisionCheck(auber, infiltrator.getValue(), captureRange));
+    public Array<Entity> getInfiltratorsNear(Entity entity, float range) {
+        float halfWidth = entity.width / 2f + range;
+        float halfHeight = entity.height / 2f + range;
+        spatialHash.queryArea(entity.getXPosition() - halfWidth, entity.getYPosition() - halfHeight,
+                entity.getXPosition() + halfWidth, entity.getYPosition() + halfHeight, nearby);
+        return nearby;
     }
 
 
@@ -155,35 +357,34 @@ public class InfiltratorContainer implements EntityContainer {
      *
      * @param roomTiles The map of valid room tiles
      */
-    public void spawnInfiltrator(TiledMapTileLayer roomTiles) {
-        if (spawnedInfiltrators < MAX_INFILTRATORS) {
+    public void spawnInfiltrator(CollisionGrid roomTiles) {
+        if (spawnedInfiltrators < context.settings.maxInfiltrators) {
             spawnedInfiltrators += 1;
             timeSinceLastSpawn = 0;
             Infiltrator newInfiltrator;
-            Random random = new Random();
-            int randomV = random.nextInt(4);
+            int randomV = context.random.nextInt(4);
             switch (randomV) {
                 case 0:
-                    System.out.println("Spawning invisible infiltrator");
-                    newInfiltrator = new Invisible(roomTiles);
+                    context.log("Spawning invisible infiltrator");
+                    newInfiltrator = new Invisible(currentInfiltrators, roomTiles, context);
                     break;
                 case 1:
-                    System.out.println("Spawning Hallucinogenic infiltrator");
-                    newInfiltrator = new Hallucinogenic(roomTiles);
+                    context.log("Spawning Hallucinogenic infiltrator");
+                    newInfiltrator = new Hallucinogenic(currentInfiltrators, roomTiles, context);
                     break;
                 case 2:
-                    System.out.println("Spawning Fast infiltrator");
-                    newInfiltrator = new Infiltrator(roomTiles);
+                    context.log("Spawning Fast infiltrator");
+                    newInfiltrator = new Infiltrator(currentInfiltrators, roomTiles, context);
                     newInfiltrator.infiltratorType = InfiltratorType.Fast;
-                    newInfiltrator.MAX_VELOCITY *= 2;
-                    newInfiltrator.VELOCITY_CHANGE *= 2;
+                    newInfiltrator.setSpeed(newInfiltrator.getMaxVelocity() * 2, newInfiltrator.getVelocityChange() * 2);
                     break;
                 default:
-                    newInfiltrator = new Infiltrator(roomTiles);
+                    newInfiltrator = new Infiltrator(currentInfiltrators, roomTiles, context);
                     break;
             }
 
-            currentInfiltrators.put(newInfiltrator.id.ID, newInfiltrator);
+            spatialHash.add(newInfiltrator);
+            collider.add(newInfiltrator);
             recordedActions.add(new Action(newInfiltrator.id, ActionType.Spawn, newInfiltrator.getXPosition(), newInfiltrator.getYPosition(), newInfiltrator.getXVelocity(), newInfiltrator.getYVelocity(), newInfiltrator.infiltratorType));
 
         }
@@ -200,7 +401,7 @@ public class InfiltratorContainer implements EntityContainer {
     }
 
     @Override
-    public void applyAction(Action action, TiledMapTileLayer roomTiles) {
+    public void applyAction(Action action, CollisionGrid roomTiles) {
         switch (action.getActionType()) {
             case Move:
                 applyMovementAction(action);
@@ -210,48 +411,95 @@ public class InfiltratorContainer implements EntityContainer {
                 // Need to check for null pointer exception
                 if (action.getInfiltratorType() == null) {
                     System.out.println("Null infiltrator type:" + action.toString());
-                    newInfiltrator = new Infiltrator(roomTiles);
+                    newInfiltrator = new Infiltrator(currentInfiltrators, roomTiles, context);
                 } else {
                     switch (action.getInfiltratorType()) {
                         case Fast:
-                            newInfiltrator = new Infiltrator(action.getId(), action.getXPosition(), action.getYPosition());
+                            newInfiltrator = new Infiltrator(currentInfiltrators, action.getId(), action.getXPosition(), action.getYPosition());
                             newInfiltrator.infiltratorType = InfiltratorType.Fast;
-                            newInfiltrator.MAX_VELOCITY *= 2;
-                            newInfiltrator.VELOCITY_CHANGE *= 2;
+                            newInfiltrator.setSpeed(newInfiltrator.getMaxVelocity() * 2, newInfiltrator.getVelocityChange() * 2);
                             break;
                         case Invisible:
-                            newInfiltrator = new Invisible(action.getId(), action.getXPosition(), action.getYPosition());
+                            newInfiltrator = new Invisible(currentInfiltrators, action.getId(), action.getXPosition(), action.getYPosition());
                             break;
                         case Hallucinogenic:
-                            newInfiltrator = new Hallucinogenic(action.getId(), action.getXPosition(), action.getYPosition());
+                            newInfiltrator = new Hallucinogenic(currentInfiltrators, action.getId(), action.getXPosition(), action.getYPosition());
                             break;
 
                         case Normal:
                         default:
-                            newInfiltrator = new Infiltrator(action.getId(), action.getXPosition(), action.getYPosition());
+                            newInfiltrator = new Infiltrator(currentInfiltrators, action.getId(), action.getXPosition(), action.getYPosition());
                             break;
                     }
                 }
-                currentInfiltrators.put(newInfiltrator.id.ID, newInfiltrator);
-                System.out.println("Adding infiltrator with key: " + newInfiltrator.id.ID + " and id: " + newInfiltrator.id.ID);
+                spatialHash.add(newInfiltrator);
+                collider.add(newInfiltrator);
+                context.log("Adding infiltrator with key: " + newInfiltrator.id.ID + " and id: " + newInfiltrator.id.ID);
                 break;
             case Damage:
                 // TODO Hopefully not needed?
                 break;
             case Capture:
-                System.out.println("Capturing infiltrator with action: " + action.getId().ID);
-                currentInfiltrators.remove(action.getId().ID);
+                context.log("Capturing infiltrator with action: " + action.getId().ID);
+                Infiltrator captured = currentInfiltrators.get(action.getId());
+                if (captured != null) {
+                    currentInfiltrators.remove(captured);
+                    spatialHash.remove(captured);
+                    collider.remove(captured);
+                }
                 break;
             default:
                 break;
         }
     }
 
+    /**
+     * @return The planner used by all infiltrators to find their way to a system
+     */
+    public PathPlanner getPathPlanner() {
+        return pathPlanner;
+    }
+
+    /**
+     * @return How far the Auber is from the cells around it, as of the last call to trackAuber
+     */
+    public AuberDistanceField getAuberDistance() {
+        return auberDistance;
+    }
+
+    /**
+     * @return Every current infiltrator, bucketed by position
+     */
+    public SpatialHash getSpatialHash() {
+        return spatialHash;
+    }
+
+    /**
+     * Stops the threads searching for paths
+     */
+    public void dispose() {
+        pathPlanner.dispose();
+    }
+
+    /**
+     * @return The number of infiltrators that have been spawned so far
+     */
+    public int getSpawnedInfiltrators() {
+        return spawnedInfiltrators;
+    }
+
+    /**
+     * @return The number of infiltrators that are currently "alive" on the map
+     */
+    public int getAmountOfInfiltrators() {
+        return currentInfiltrators.size();
+    }
+
     /**
      * @return True if all infiltrators have been spawned and defeated
      */
     public boolean hasPlayerWon() {
-        return (MAX_INFILTRATORS == spawnedInfiltrators && currentInfiltrators.size() == 0);
+        return (context.settings.maxInfiltrators == spawnedInfiltrators && currentInfiltrators.size() == 0);
     }
 
     /**
@@ -261,12 +509,12 @@ public class InfiltratorContainer implements EntityContainer {
      */
     public void applyMovementAction(Action action) {
         Infiltrator infiltrator =
-                this.currentInfiltrators.get(action.getId().ID);
+                this.currentInfiltrators.get(action.getId());
         if (infiltrator != null) {
             infiltrator.applyMovementAction(action);
         } else {
             System.out.println("Infiltrator does not exist!" + action.getId().ID);
-            System.out.println(currentInfiltrators.keySet());
+            System.out.println(currentInfiltrators);
         }
     }
 }
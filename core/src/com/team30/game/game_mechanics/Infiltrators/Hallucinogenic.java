@@ -1,21 +1,31 @@
 package com.team30.game.game_mechanics.Infiltrators;
 
 
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.EntityStore;
 import com.team30.game.game_mechanics.ID;
+import com.team30.game.game_mechanics.WorldContext;
 
 public class Hallucinogenic extends Infiltrator {
 
-    public Hallucinogenic(TiledMapTileLayer roomTiles) {
-        super(roomTiles);
+    public Hallucinogenic(EntityStore<? super Infiltrator> store, CollisionGrid roomTiles, WorldContext context) {
+        super(store, roomTiles, context);
         this.infiltratorType = InfiltratorType.Hallucinogenic;
-        System.out.println("Spawning hallucinatory infiltrator");
+        log("Spawning hallucinatory infiltrator");
     }
 
-    public Hallucinogenic(ID id, float xPosition, float yPosition) {
-        super(id, xPosition, yPosition);
+    public Hallucinogenic(EntityStore<? super Infiltrator> store, ID id, float xPosition, float yPosition) {
+        super(store, id, xPosition, yPosition);
         this.infiltratorType = InfiltratorType.Hallucinogenic;
-        System.out.println("Spawning hallucinatory infiltrator");
+        log("Spawning hallucinatory infiltrator");
 
     }
+
+    /**
+     * Only runs from the Auber while its hallucination ability is cooling down, as it needs to get close to use it
+     */
+    @Override
+    protected boolean evadesAuber() {
+        return coolDown > 0;
+    }
 }
\ No newline at end of file
@@ -1,55 +1,95 @@
 package com.team30.game.game_mechanics.Infiltrators;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Bits;
 import com.team30.game.game_mechanics.*;
+import com.team30.game.game_mechanics.Pathfinding.AuberDistanceField;
+import com.team30.game.game_mechanics.Pathfinding.PathPlanner;
+import com.team30.game.game_mechanics.Pathfinding.PathRequest;
+import com.team30.game.game_mechanics.Pathfinding.PathfindingMode;
+import com.team30.game.game_mechanics.Pathfinding.SystemDistanceField;
 
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.TreeMap;
-
-import static com.team30.game.game_mechanics.Node.getMovement;
 
 public class Infiltrator extends Entity {
     /**
      * The amount of damage applied in "one" attack
      */
     public static final int DAMAGE_DEALT = 50;
+    /**
+     * Marks a path that needs checking against the room tiles before it is followed
+     */
+    private static final int UNCHECKED = -1;
+    /**
+     * How close (in moves) the Auber can get before the infiltrator stops what it is doing and runs
+     */
+    public static final int FLEE_DISTANCE = 4;
+    /**
+     * How close (in moves) the Auber can be to a system before infiltrators head for another system instead
+     */
+    public static final int GUARD_DISTANCE = 6;
+    /**
+     * The width and height of every infiltrator (in tiles)
+     */
+    public static final int SIZE = 1;
     public float coolDown;
     public float coolDownTime = 5;
+    /**
+     * The amount of damage this infiltrator applies in "one" attack
+     */
+    public int damageDealt;
     /**
      * The list of movements to take
      */
     Queue<Node.Movements> moves;
+    /**
+     * The version of the room tiles the moves were last checked against, or UNCHECKED for a new path
+     */
+    private int pathVersion;
+    /**
+     * The path being searched for on the planner's worker threads, or null if none has been asked for
+     */
+    private PathRequest pendingPath;
     private ID targetSystem;
     public InfiltratorType infiltratorType;
+    /**
+     * The world the infiltrator is in, for logging what it does, or null when playing back a recording
+     */
+    protected final WorldContext context;
 
     /**
      * Spawns a new infiltrator at a random position
      *
+     * @param store     The store of the container the infiltrator is in
      * @param roomTiles The map of valid tiles
+     * @param context   The world the infiltrator is in, for its ID, position and damage
      */
-    public Infiltrator(TiledMapTileLayer roomTiles) {
-        super(new ID(EntityType.Infiltrator), new Texture(("Infiltrator.png")), roomTiles, 1, 1);
+    public Infiltrator(EntityStore<? super Infiltrator> store, CollisionGrid roomTiles, WorldContext context) {
+        super(store, context.nextId(EntityType.Infiltrator), "Infiltrator.png", roomTiles, context.random, SIZE, SIZE);
+        this.context = context;
+        this.damageDealt = context.settings.infiltratorDamage;
         this.targetSystem = null;
         this.infiltratorType = InfiltratorType.Normal;
         moves = new LinkedList<>();
-        System.out.println("Spawned infiltrator:" + this.id + " at: " + this.position.toString());
+        log("Spawned infiltrator:" + this.id + " at: " + getPosition().toString());
     }
 
     /**
      * Spawns a new Infiltrator with the given ID, and at the given position
      *
+     * @param store     The store of the container the infiltrator is in
      * @param id        The ID of the NPC
      * @param xPosition The x coordinate to spawn on
      * @param yPosition The y coordinate to spawn on
      */
-    public Infiltrator(ID id, float xPosition, float yPosition) {
-        super(id, new Texture(("Infiltrator.png")), xPosition, yPosition, 1, 1);
+    public Infiltrator(EntityStore<? super Infiltrator> store, ID id, float xPosition, float yPosition) {
+        super(store, id, "Infiltrator.png", xPosition, yPosition, SIZE, SIZE);
+        this.context = null;
+        this.damageDealt = DAMAGE_DEALT;
         this.targetSystem = null;
         moves = new LinkedList<>();
-        System.out.println("Spawned infiltrator:" + this.id + " at: " + this.position.toString());
+        log("Spawned infiltrator:" + this.id + " at: " + getPosition().toString());
     }
 
 
@@ -63,12 +103,13 @@ public class Infiltrator extends Entity {
     public static Vector2 getClosestSystemVect(Vector2 position, SystemContainer systemContainer) {
         float minDistance = Float.MAX_VALUE;
         Vector2 direction = new Vector2();
-        for (Integer id : systemContainer.getAttackableSystems()) {
-            StationSystem system = (StationSystem) systemContainer.getEntityByInt(id);
-            float currentDistance = position.dst(system.position);
+        Bits attackable = systemContainer.getAttackableSystems();
+        for (int id = attackable.nextSetBit(0); id >= 0; id = attackable.nextSetBit(id + 1)) {
+            StationSystem system = systemContainer.getEntityByInt(id);
+            float currentDistance = position.dst(system.getXPosition(), system.getYPosition());
             if (currentDistance < minDistance) {
                 minDistance = currentDistance;
-                direction = system.position.cpy().sub(position);
+                direction = system.getPosition().sub(position);
             }
         }
         return direction;
@@ -84,9 +125,11 @@ public class Infiltrator extends Entity {
      */
     public static ID getClosestSystem(Vector2 position, SystemContainer systemContainer) {
         float minDistance = Float.MAX_VALUE;
-        Integer closestSystem = null;
-        for (Integer id : systemContainer.getAttackableSystems()) {
-            float currentDistance = position.dst(systemContainer.getEntityPosition(systemContainer.integerIdLookup(id)));
+        int closestSystem = -1;
+        Bits attackable = systemContainer.getAttackableSystems();
+        for (int id = attackable.nextSetBit(0); id >= 0; id = attackable.nextSetBit(id + 1)) {
+            StationSystem system = systemContainer.getEntityByInt(id);
+            float currentDistance = position.dst(system.getXPosition(), system.getYPosition());
             if (currentDistance < minDistance) {
                 minDistance = currentDistance;
                 closestSystem = id;
@@ -98,79 +141,225 @@ public class Infiltrator extends Entity {
 
     /**
      * Executes the next move, on its path
-     * If the path is empty, triggers damaging the system
+     * If the path is empty, triggers damaging the system<br>
+     * If the Auber gets too close, runs away from it instead
      *
      * @param room    The map of valid room tiles
      * @param systems The location of all systems
+     * @param planner Decides how to find the way to a system
+     * @param auber   How far the Auber is from each cell, shared by all infiltrators
      * @return True if it can start damaging a system
      */
-    public boolean moveInfiltrator(TiledMapTileLayer room, SystemContainer systems) {
-        if (moves.isEmpty() && targetSystem == null) {
-            Node node = getMove(room, systems);
-            moves = node.exportPath();
+    public boolean moveInfiltrator(CollisionGrid room, SystemContainer systems, PathPlanner planner, AuberDistanceField auber) {
+        setXVelocity(0);
+        setYVelocity(0);
+        if (evadesAuber() && flee(auber)) {
+            return false;
         }
-        this.velocity.x = 0;
-        this.velocity.y = 0;
         if (targetSystem != null) {
-            systems.applyDamage(this.id, targetSystem, DAMAGE_DEALT);
-            if (!systems.getActiveSystems().contains(targetSystem.ID)) {
+            systems.applyDamage(this.id, targetSystem, damageDealt);
+            if (!systems.isActive(targetSystem.ID)) {
                 targetSystem = null;
                 //TODO look at moving the infiltrator away from just attacked system to avoid detection and make game harder
             }
-        } else if (!moves.isEmpty()) {
-            Node.Movements move = moves.remove();
-            this.velocity.add(getMovement(move)).scl(this.MAX_VELOCITY);
-            // We have reached the target system
-            if (moves.isEmpty()) {
-                targetSystem = getClosestSystem(position, systems);
-                System.out.println("At target system: " + targetSystem);
-            }
+        } else if (planner.getMode() == PathfindingMode.FlowField) {
+            followDistanceField(systems, auber);
+        } else {
+            followPath(room, systems, planner, auber);
         }
         return false;
     }
 
     /**
-     * Uses A* to find the closest system to the infiltrator
+     * Steps away from the Auber if it is within FLEE_DISTANCE, giving up any attack or path
+     *
+     * @param auber How far the Auber is from each cell
+     * @return True if the infiltrator is running away
+     */
+    private boolean flee(AuberDistanceField auber) {
+        int x = Math.round(getXPosition());
+        int y = Math.round(getYPosition());
+        if (!auber.isWithin(x, y, FLEE_DISTANCE)) {
+            return false;
+        }
+        if (targetSystem != null) {
+            log(id + " fleeing from the Auber, stopped attacking " + targetSystem);
+            targetSystem = null;
+        }
+        // The path starts from where it was, so search again once safe
+        moves.clear();
+        Node.Movements move = auber.getAwayMove(x, y);
+        if (move != null) {
+            addMove(move);
+        }
+        return true;
+    }
+
+    /**
+     * @return True if this infiltrator runs from the Auber, rather than wanting to get close to it
+     */
+    protected boolean evadesAuber() {
+        return true;
+    }
+
+    /**
+     * Takes one step downhill on the shared distance field (keeping away from the Auber when there is a choice),
+     * or starts attacking if next to a system<br>
+     * Heads for the closest system the Auber isn't guarding, unless it is guarding every one that can be reached
+     *
+     * @param systems The location of all systems
+     * @param auber   How far the Auber is from each cell
+     */
+    private void followDistanceField(SystemContainer systems, AuberDistanceField auber) {
+        int x = getCellX();
+        int y = getCellY();
+        SystemDistanceField field = systems.getDistanceField(x, y, evadesAuber());
+        if (field.getDistance(x, y) == 0) {
+            targetSystem = systems.integerIdLookup(field.getClosestSystem(x, y));
+            log("At target system: " + targetSystem);
+            return;
+        }
+        Node.Movements move = field.getNextMove(x, y, auber);
+        if (move != null) {
+            addMove(move);
+        }
+    }
+
+    /**
+     * Takes the next move on the current path, searching for a new path if it is empty<br>
+     * New paths lead to the closest system the Auber isn't guarding, the same as on the distance field
      *
      * @param room    The map of valid room tiles
      * @param systems The location of all systems
-     * @return The node of the path to the closest system
-     */
-    private Node getMove(TiledMapTileLayer room, SystemContainer systems) {
-        TreeMap<Float, Node> possibleMoves = new TreeMap<>();
-        LinkedList<Vector2> visited = new LinkedList<>();
-
-        Node currentNode = new Node(null, position, null, 0, 0);
-        possibleMoves.put(currentNode.getHeuristic(), currentNode);
-
-        while (!possibleMoves.isEmpty()) {
-            currentNode = possibleMoves.remove(possibleMoves.firstKey());
-            visited.add(currentNode.getPosition());
-            // Checks if we are at a system
-            Vector2 closestSystem = getClosestSystemVect(currentNode.getPosition(), systems);
-            if (closestSystem.len() < 1) {
-                return currentNode;
+     * @param planner Used to search for a new path
+     * @param auber   How far the Auber is from each cell
+     */
+    private void followPath(CollisionGrid room, SystemContainer systems, PathPlanner planner, AuberDistanceField auber) {
+        if (moves.isEmpty()) {
+            SystemDistanceField targets = systems.getDistanceField(getCellX(), getCellY(), evadesAuber());
+            // Spawned where the box doesn't fit, so step onto a cell it does fit on before searching
+            if (targets.getDistance(getCellX(), getCellY()) == SystemDistanceField.UNREACHABLE) {
+                followDistanceField(systems, auber);
+                return;
+            }
+            Queue<Node.Movements> path;
+            if (planner.isAsynchronous()) {
+                path = collectRequestedPath(systems, targets, planner, auber);
+            } else {
+                path = planner.findPath(room, getCellX(), getCellY(), systems, targets);
+            }
+            // No path yet, so wait (or take a fallback step) and try again on the next update
+            if (path == null) {
+                return;
+            }
+            moves = path;
+            // Paths from the cache or worker threads may be older than the last change to the room tiles
+            pathVersion = room.getVersion() == 0 ? 0 : UNCHECKED;
+            // Already standing next to a system
+            if (moves.isEmpty()) {
+                targetSystem = getClosestSystem(getPosition(), systems);
+                return;
+            }
+        }
+        // Room tiles have been opened or closed, so go around any that are now in the way
+        if (pathVersion != room.getVersion()) {
+            Queue<Node.Movements> repaired = planner.repairPath(room, getCellX(), getCellY(), moves);
+            pathVersion = room.getVersion();
+            if (repaired == null) {
+                // Too far to go around, so search again on the next update
+                moves = new LinkedList<>();
+                return;
+            }
+            moves = repaired;
+        }
+        Node.Movements move = moves.poll();
+        if (move == null) {
+            // The rest of the path couldn't be worked out, so search again on the next update
+            moves = new LinkedList<>();
+            return;
+        }
+        addMove(move);
+        // We have reached the target system
+        if (moves.isEmpty()) {
+            targetSystem = getClosestSystem(getPosition(), systems);
+            log("At target system: " + targetSystem);
+        }
+    }
+
+    /**
+     * Collects the path asked for from the planner's worker threads, asking for one if needed<br>
+     * While the path is being searched for, steps downhill on the shared distance field instead
+     *
+     * @param systems The location of all systems
+     * @param targets The field to choose the system to head for from
+     * @param planner Used to ask for a new path
+     * @param auber   How far the Auber is from each cell
+     * @return The path from the current cell, or null if there isn't one yet
+     */
+    private Queue<Node.Movements> collectRequestedPath(SystemContainer systems, SystemDistanceField targets, PathPlanner planner, AuberDistanceField auber) {
+        int x = getCellX();
+        int y = getCellY();
+        // The target was destroyed before the path arrived
+        if (pendingPath == null || pendingPath.isCancelled()) {
+            pendingPath = planner.requestPath(x, y, systems, targets);
+            if (pendingPath == null) {
+                return null;
             }
-            // Add the valid children to the queue
-            for (Node.Movements move : currentNode.getValidMoves(room)) {
-                Vector2 position = currentNode.getPosition().cpy().add(getMovement(move));
-                if (!visited.contains(position)) {
-                    int cost = currentNode.getCost() + 1;
-                    float heuristic = getClosestSystemVect(position, systems).len();
-                    possibleMoves.put(heuristic + cost, new Node(currentNode, position, move, cost, heuristic));
-                }
+        }
+        if (pendingPath.isDone()) {
+            boolean reachable = pendingPath.isReachable();
+            Queue<Node.Movements> path = pendingPath.getPathFrom(x, y);
+            pendingPath = null;
+            if (path != null || !reachable) {
+                return path;
             }
+            // Stepped off the path while waiting for it, so ask again on the next update
+        }
+        followDistanceField(systems, auber);
+        return null;
+    }
 
+    /**
+     * @return The x coordinate of the cell under the bottom left corner, which the walls are checked from
+     */
+    private int getCellX() {
+        return (int) getXPosition();
+    }
+
+    /**
+     * @return The y coordinate of the cell under the bottom left corner, which the walls are checked from
+     */
+    private int getCellY() {
+        return (int) getYPosition();
+    }
+
+    /**
+     * Prints what the infiltrator is doing, unless the world's settings have turned events off<br>
+     * Always printed when playing back a recording
+     *
+     * @param message What happened
+     */
+    protected void log(String message) {
+        if (context != null) {
+            context.log(message);
+        } else {
+            System.out.println(message);
         }
-        return currentNode;
+    }
 
+    /**
+     * Adds the move to the velocity, at full speed
+     */
+    private void addMove(Node.Movements move) {
+        setXVelocity((getXVelocity() + move.x) * getMaxVelocity());
+        setYVelocity((getYVelocity() + move.y) * getMaxVelocity());
     }
 
     /**
      * Update coolDown time
      */
     @Override
-    public void updatePosition(float deltaTime, TiledMapTileLayer room) {
+    public void updatePosition(float deltaTime, CollisionGrid room) {
         super.updatePosition(deltaTime, room);
         if (coolDown > 0) {
             coolDown -= deltaTime;
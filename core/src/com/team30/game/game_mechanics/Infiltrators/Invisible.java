@@ -1,8 +1,11 @@
 package com.team30.game.game_mechanics.Infiltrators;
 
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.EntityStore;
+import com.team30.game.game_mechanics.FieldOfView;
 import com.team30.game.game_mechanics.ID;
+import com.team30.game.game_mechanics.WorldContext;
 
 
 public class Invisible extends Infiltrator {
@@ -12,14 +15,14 @@ public class Invisible extends Infiltrator {
     private float invisibleTime = 3;
 
 
-    public Invisible(TiledMapTileLayer roomTiles) {
-        super(roomTiles);
+    public Invisible(EntityStore<? super Infiltrator> store, CollisionGrid roomTiles, WorldContext context) {
+        super(store, roomTiles, context);
         this.infiltratorType = InfiltratorType.Invisible;
-        System.out.println("Spawning invisible infiltrator");
+        log("Spawning invisible infiltrator");
     }
 
-    public Invisible(ID id, float xPosition, float yPosition) {
-        super(id, xPosition, yPosition);
+    public Invisible(EntityStore<? super Infiltrator> store, ID id, float xPosition, float yPosition) {
+        super(store, id, xPosition, yPosition);
         this.infiltratorType = InfiltratorType.Invisible;
     }
 
@@ -28,14 +31,34 @@ public class Invisible extends Infiltrator {
      */
     @Override
     public void draw(Batch batch) {
-        if (coolDown <= 0) {
-            invisibleTime = 3;
-            coolDown = coolDownTime;
+        if (isShowing()) {
+            super.draw(batch);
         }
-        if (invisibleTime > 0) {
+
+    }
+
+    /**
+     * invisible infiltrator draw, also hidden behind walls<br>
+     * The timer keeps going while out of sight
+     */
+    @Override
+    public void draw(Batch batch, FieldOfView view) {
+        if (isShowing() && view.canSee(this)) {
             super.draw(batch);
         }
+    }
 
+    /**
+     * Restarts the visible time once the cool down is over
+     *
+     * @return True if the infiltrator is currently visible
+     */
+    private boolean isShowing() {
+        if (coolDown <= 0) {
+            invisibleTime = 3;
+            coolDown = coolDownTime;
+        }
+        return invisibleTime > 0;
     }
 
     /**
@@ -45,7 +68,7 @@ public class Invisible extends Infiltrator {
      * @param room      The room layer for collision detection
      */
     @Override
-    public void updatePosition(float deltaTime, TiledMapTileLayer room) {
+    public void updatePosition(float deltaTime, CollisionGrid room) {
         super.updatePosition(deltaTime, room);
         if (invisibleTime >= 0) {
             invisibleTime -= deltaTime;
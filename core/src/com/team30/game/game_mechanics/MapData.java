@@ -0,0 +1,88 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.XmlReader;
+
+/**
+ * The layers of a Tiled map that the game needs, read straight from the file without loading any tilesets<br>
+ * TmxMapLoader loads the tileset images as textures, which needs a screen. This only reads which cells of the
+ * Rooms layer are filled and the rectangles of the Systems layer, laid out the same way TmxMapLoader would
+ * (with y going up), so the game can be run without a screen
+ */
+public class MapData {
+    /**
+     * The layer of valid room tiles, its cells have no tiles and are only there to mark the room tiles
+     */
+    public final TiledMapTileLayer rooms;
+    /**
+     * The layer of systems, with x, y, width and height properties (in pixels) for each
+     */
+    public final MapLayer systems;
+
+    /**
+     * Reads the Rooms and Systems layers of a map, the Rooms layer must be stored as CSV
+     *
+     * @param file The .tmx file to read
+     */
+    public MapData(FileHandle file) {
+        XmlReader.Element map = new XmlReader().parse(file);
+        int width = map.getIntAttribute("width");
+        int height = map.getIntAttribute("height");
+        int tileWidth = map.getIntAttribute("tilewidth");
+        int tileHeight = map.getIntAttribute("tileheight");
+
+        this.rooms = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+        this.rooms.setName("Rooms");
+        XmlReader.Element data = findLayer(map, "layer", "Rooms").getChildByName("data");
+        if (!"csv".equals(data.getAttribute("encoding", null))) {
+            System.out.println("ERROR Rooms layer of " + file.name() + " isn't stored as CSV");
+        } else {
+            String[] tiles = data.getText().trim().split("[,\\s]+");
+            for (int index = 0; index < tiles.length && index < width * height; index++) {
+                if (!tiles[index].equals("0")) {
+                    // Tiled stores rows from the top down
+                    rooms.setCell(index % width, height - 1 - index / width, new TiledMapTileLayer.Cell());
+                }
+            }
+        }
+
+        this.systems = new MapLayer();
+        this.systems.setName("Systems");
+        XmlReader.Element group = findLayer(map, "objectgroup", "Systems");
+        for (XmlReader.Element object : group.getChildrenByName("object")) {
+            float x = object.getFloatAttribute("x", 0);
+            float y = object.getFloatAttribute("y", 0);
+            float objectWidth = object.getFloatAttribute("width", 0);
+            float objectHeight = object.getFloatAttribute("height", 0);
+            // Tiled measures y down from the top of the map to the top of the object
+            float flippedY = height * tileHeight - y - objectHeight;
+            RectangleMapObject system = new RectangleMapObject(x, flippedY, objectWidth, objectHeight);
+            system.setName(object.getAttribute("name", null));
+            MapProperties properties = system.getProperties();
+            properties.put("x", x);
+            properties.put("y", flippedY);
+            properties.put("width", objectWidth);
+            properties.put("height", objectHeight);
+            systems.getObjects().add(system);
+        }
+    }
+
+    /**
+     * @return The layer of the given type and name, or an empty one if the map doesn't have it
+     */
+    private static XmlReader.Element findLayer(XmlReader.Element map, String type, String name) {
+        for (XmlReader.Element layer : map.getChildrenByName(type)) {
+            if (name.equals(layer.getAttribute("name", null))) {
+                return layer;
+            }
+        }
+        System.out.println("ERROR Map is missing the " + name + " layer");
+        XmlReader.Element empty = new XmlReader.Element(type, null);
+        empty.addChild(new XmlReader.Element("data", empty));
+        return empty;
+    }
+}
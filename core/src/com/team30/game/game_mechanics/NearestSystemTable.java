@@ -0,0 +1,162 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.HashMap;
+
+/**
+ * The closest active system to every cell of the map, and the closest of each type of system<br>
+ * Distances are straight lines from the middle of the cell to the system's position, like Auber.getClosestSystem.
+ * Every cell is stored, not just room tiles, as teleporting puts the Auber on a system in the wall<br>
+ * When a system is destroyed only the cells it was closest to are worked out again
+ */
+public class NearestSystemTable {
+    /**
+     * Stored for cells with no active system left
+     */
+    private static final int NONE = -1;
+
+    private final int width;
+    private final int height;
+    private final StationSystem[] systems;
+    private final boolean[] active;
+    /**
+     * The index into typeIndex of each system's type
+     */
+    private final int[] typeOfSystem;
+    private final HashMap<String, Integer> typeIndex;
+    /**
+     * The index of the closest active system to each packed cell
+     */
+    private final int[] nearest;
+    /**
+     * The index of the closest active system of each type, to each packed cell
+     */
+    private final int[][] nearestOfType;
+
+    /**
+     * Builds the table with every given system active
+     *
+     * @param width   The width of the map (in tiles)
+     * @param height  The height of the map (in tiles)
+     * @param systems Every system on the map, ties go to the earliest
+     */
+    public NearestSystemTable(int width, int height, Array<StationSystem> systems) {
+        this.width = width;
+        this.height = height;
+        this.systems = systems.toArray(StationSystem.class);
+        this.active = new boolean[this.systems.length];
+        this.typeOfSystem = new int[this.systems.length];
+        this.typeIndex = new HashMap<>();
+        for (int system = 0; system < this.systems.length; system++) {
+            String type = this.systems[system].type;
+            if (!typeIndex.containsKey(type)) {
+                typeIndex.put(type, typeIndex.size());
+            }
+            typeOfSystem[system] = typeIndex.get(type);
+            active[system] = true;
+        }
+        this.nearest = new int[width * height];
+        this.nearestOfType = new int[typeIndex.size()][width * height];
+        for (int cell = 0; cell < nearest.length; cell++) {
+            nearest[cell] = findNearest(cell, -1);
+            for (int type = 0; type < nearestOfType.length; type++) {
+                nearestOfType[type][cell] = findNearest(cell, type);
+            }
+        }
+    }
+
+    /**
+     * Searches every active system for the closest to the middle of the cell, ties go to the earliest system
+     *
+     * @param cell The packed cell
+     * @param type The type of system to look for, or -1 for any type
+     * @return The index of the closest system, or NONE
+     */
+    private int findNearest(int cell, int type) {
+        float x = cell % width + 0.5f;
+        float y = cell / width + 0.5f;
+        int closest = NONE;
+        float minDistance = Float.MAX_VALUE;
+        for (int system = 0; system < systems.length; system++) {
+            if (!active[system] || (type != -1 && typeOfSystem[system] != type)) {
+                continue;
+            }
+            float dx = systems[system].getXPosition() - x;
+            float dy = systems[system].getYPosition() - y;
+            float distance = dx * dx + dy * dy;
+            if (distance < minDistance) {
+                minDistance = distance;
+                closest = system;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Stops the system being the closest to anywhere, as it has been destroyed
+     *
+     * @param destroyed The system that has been destroyed
+     */
+    void removeSystem(StationSystem destroyed) {
+        int removed = NONE;
+        for (int system = 0; system < systems.length; system++) {
+            if (systems[system] == destroyed && active[system]) {
+                removed = system;
+            }
+        }
+        if (removed == NONE) {
+            return;
+        }
+        active[removed] = false;
+        int type = typeOfSystem[removed];
+        for (int cell = 0; cell < nearest.length; cell++) {
+            if (nearest[cell] == removed) {
+                nearest[cell] = findNearest(cell, -1);
+            }
+            if (nearestOfType[type][cell] == removed) {
+                nearestOfType[type][cell] = findNearest(cell, type);
+            }
+        }
+    }
+
+    /**
+     * @return The packed cell under the position, or NONE if it is off the map
+     */
+    private int cellAt(float x, float y) {
+        int cellX = (int) Math.floor(x);
+        int cellY = (int) Math.floor(y);
+        if (cellX < 0 || cellY < 0 || cellX >= width || cellY >= height) {
+            return NONE;
+        }
+        return cellY * width + cellX;
+    }
+
+    /**
+     * @param x The x coordinate to look from
+     * @param y The y coordinate to look from
+     * @return The closest active system, or null if there are none
+     */
+    public StationSystem getNearest(float x, float y) {
+        int cell = cellAt(x, y);
+        if (cell == NONE || nearest[cell] == NONE) {
+            return null;
+        }
+        return systems[nearest[cell]];
+    }
+
+    /**
+     * @param x    The x coordinate to look from
+     * @param y    The y coordinate to look from
+     * @param type The type of system, such as "Healing"
+     * @return The closest active system of the given type, or null if there are none
+     */
+    public StationSystem getNearest(float x, float y, String type) {
+        int cell = cellAt(x, y);
+        Integer index = typeIndex.get(type);
+        if (cell == NONE || index == null || nearestOfType[index][cell] == NONE) {
+            return null;
+        }
+        return systems[nearestOfType[index][cell]];
+    }
+}
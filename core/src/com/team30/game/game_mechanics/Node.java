@@ -1,7 +1,7 @@
 package com.team30.game.game_mechanics;
 
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.ByteArray;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -10,9 +10,27 @@ import java.util.Queue;
 
 /**
  * Helper class for A* algorithm<br>
- * Basically checks if nearby tiles are accessible
+ * Basically checks if nearby tiles are accessible<br>
+ * The static methods work on plain cell coordinates and write into buffers given by the caller, so searches
+ * can check neighbours without creating any objects
  */
 public class Node {
+    /**
+     * The change in x for each movement, indexed by Movements.ordinal()<br>
+     * Shared by every search on every thread, so it must only ever be read
+     */
+    public static final int[] DIRECTION_X = {-1, 1, 0, 0};
+    /**
+     * The change in y for each movement, indexed by Movements.ordinal()<br>
+     * Shared by every search on every thread, so it must only ever be read
+     */
+    public static final int[] DIRECTION_Y = {0, 0, 1, -1};
+    /**
+     * Every movement, indexed by Movements.ordinal() (values() copies the array on every call)<br>
+     * Shared the same as the directions, so it must only ever be read
+     */
+    public static final Movements[] MOVEMENTS = Movements.values();
+
     private final Node parent;
     private final Vector2 position;
     private final Movements move;
@@ -36,23 +54,24 @@ public class Node {
     }
 
     /**
-     * Converts a Movements enum to a vector
+     * Converts a Movements enum to a new vector
      *
      * @param move The enum to convert
      * @return A Vector2 of the movement
      */
     public static Vector2 getMovement(Movements move) {
-        switch (move) {
-            case LEFT:
-                return new Vector2(-1, 0);
-            case RIGHT:
-                return new Vector2(1, 0);
-            case UP:
-                return new Vector2(0, 1);
-            case DOWN:
-                return new Vector2(0, -1);
-        }
-        return null;
+        return new Vector2(move.x, move.y);
+    }
+
+    /**
+     * Converts a Movements enum to a vector, without creating a new one
+     *
+     * @param move   The enum to convert
+     * @param result The vector to store the movement in
+     * @return The result vector
+     */
+    public static Vector2 getMovement(Movements move, Vector2 result) {
+        return result.set(move.x, move.y);
     }
 
     public Vector2 getPosition() {
@@ -67,6 +86,25 @@ public class Node {
         return heuristic;
     }
 
+    /**
+     * Checks the 4 neighbouring cells of the given cell, to see if they are valid room tiles
+     *
+     * @param room  The map containing valid room tiles
+     * @param x     The x coordinate of the cell
+     * @param y     The y coordinate of the cell
+     * @param moves The buffer to write the valid movements into, at least 4 long
+     * @return The number of valid movements written
+     */
+    public static int getValidMoves(CollisionGrid room, int x, int y, Movements[] moves) {
+        int count = 0;
+        for (int move = 0; move < MOVEMENTS.length; move++) {
+            if (room.isWalkable(x + DIRECTION_X[move], y + DIRECTION_Y[move])) {
+                moves[count++] = MOVEMENTS[move];
+            }
+        }
+        return count;
+    }
+
     /**
      * Checks the 4 neighbouring cells (In the given Movements Enum), to see if they are valid room tiles<br>
      * And returns the valid ones
@@ -74,44 +112,62 @@ public class Node {
      * @param room The map containing valid room tiles
      * @return The list of valid movements
      */
-    public ArrayList<Movements> getValidMoves(TiledMapTileLayer room) {
-        ArrayList<Movements> moves = new ArrayList<>();
-        for (Movements movement : Movements.values()) {
-            Vector2 newPosition = position.cpy().add(getMovement(movement));
-            if (room.getCell((int) newPosition.x, (int) newPosition.y) != null) {
-                moves.add(movement);
-            }
+    public ArrayList<Movements> getValidMoves(CollisionGrid room) {
+        Movements[] buffer = new Movements[MOVEMENTS.length];
+        int count = getValidMoves(room, (int) position.x, (int) position.y, buffer);
+        ArrayList<Movements> moves = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            moves.add(buffer[index]);
         }
         return moves;
     }
 
+    /**
+     * Backtracks up the tree, writing the ordinal of each movement to get to the target, in order
+     *
+     * @param moves The array to write the movements into, which is cleared first
+     * @return The number of movements
+     */
+    public int exportPath(ByteArray moves) {
+        moves.clear();
+        for (Node node = this; node.parent != null && node.move != null; node = node.parent) {
+            moves.add((byte) node.move.ordinal());
+        }
+        moves.reverse();
+        return moves.size;
+    }
+
     /**
      * Backtracks up the tree, returning the path of movements to get to the target
      *
      * @return A queue of movements
      */
     public Queue<Movements> exportPath() {
-        // At the top of the tree
-        if (move == null) {
-            return new LinkedList<>();
-        }
-        if (parent != null) {
-            Queue<Movements> moves = this.parent.exportPath();
-            moves.add(this.move);
-            return moves;
+        LinkedList<Movements> moves = new LinkedList<>();
+        for (Node node = this; node.parent != null && node.move != null; node = node.parent) {
+            moves.addFirst(node.move);
         }
-        return new LinkedList<>();
+        return moves;
     }
 
     /**
      * Represents all possible movement directions
      */
     public enum Movements {
-        LEFT,
-        RIGHT,
-        UP,
-        DOWN
-    }
-}
+        LEFT(-1, 0),
+        RIGHT(1, 0),
+        UP(0, 1),
+        DOWN(0, -1);
 
+        /**
+         * The change in position for this movement
+         */
+        public final int x;
+        public final int y;
 
+        Movements(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
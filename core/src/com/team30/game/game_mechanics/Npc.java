@@ -1,43 +1,53 @@
 package com.team30.game.game_mechanics;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-
-import java.util.List;
 import java.util.Random;
 
 public class Npc extends Entity {
+    /**
+     * Reused when picking a direction, to avoid creating a list every time
+     */
+    private final Node.Movements[] validMoves = new Node.Movements[Node.MOVEMENTS.length];
+
     /**
      * Spawns a new NPC at a random position
      *
-     * @param room The map layer of valid room tiles
+     * @param store   The store of the container the NPC is in
+     * @param room    The map layer of valid room tiles
+     * @param context The world the NPC is in, for its ID and position
      */
-    public Npc(TiledMapTileLayer room) {
-        super(new ID(EntityType.Npc), new Texture(("NPC.png")), room, 1, 1);
+    public Npc(EntityStore<? super Npc> store, CollisionGrid room, WorldContext context) {
+        super(store, context.nextId(EntityType.Npc), "NPC.png", room, context.random, 1, 1);
     }
 
     /**
      * Spawns a new NPC with the given ID, and at the given position
      *
+     * @param store     The store of the container the NPC is in
      * @param id        The ID of the NPC
      * @param xPosition The x coordinate to spawn on
      * @param yPosition The y coordinate to spawn on
      */
-    public Npc(ID id, int xPosition, int yPosition) {
-        super(id, new Texture(("NPC.png")), xPosition, yPosition, 1, 1);
+    public Npc(EntityStore<? super Npc> store, ID id, int xPosition, int yPosition) {
+        super(store, id, "NPC.png", xPosition, yPosition, 1, 1);
     }
 
 
     /**
-     * Sets the velocity for the npc in a random direction
+     * Sets the velocity for the npc in a random direction, or stops it if every direction is blocked
      *
      * @param roomTiles The map of valid tiles
+     * @param random    Picks the direction
      */
-    public void calculateNewVelocity(TiledMapTileLayer roomTiles) {
-        Node node = new Node(position);
-        List<Node.Movements> possilbeMoves = node.getValidMoves(roomTiles);
-        Random random = new Random();
-        this.velocity = Node.getMovement(possilbeMoves.get(random.nextInt(possilbeMoves.size())));
+    public void calculateNewVelocity(CollisionGrid roomTiles, Random random) {
+        int possibleMoves = Node.getValidMoves(roomTiles, (int) getXPosition(), (int) getYPosition(), validMoves);
+        if (possibleMoves == 0) {
+            setXVelocity(0);
+            setYVelocity(0);
+            return;
+        }
+        Node.Movements move = validMoves[random.nextInt(possibleMoves)];
+        setXVelocity(move.x);
+        setYVelocity(move.y);
     }
 
 }
@@ -2,27 +2,41 @@ package com.team30.game.game_mechanics;
 
 
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Vector2;
 import com.team30.game.Recording.Action;
 import com.team30.game.Recording.ActionType;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Handles all concurrent npcs, and rendering of them
  */
 public class NpcContainer implements EntityContainer {
     private static final int NPC_AMOUNT = 5;
-    private final HashMap<Integer, Npc> npcs;
+    /**
+     * Every npc, with their positions and velocities stored together so they can all be moved in one pass
+     */
+    private final EntityStore<Npc> npcs;
+    /**
+     * Stops npcs walking into each other, and the other entities
+     */
+    private final EntityCollider collider;
+    /**
+     * The world the npcs are in, for their IDs and random movements
+     */
+    private final WorldContext context;
     private ArrayList<Action> recordedActions;
 
-    public NpcContainer() {
-        npcs = new HashMap<>();
+    /**
+     * @param collider Shared with the other entities, so npcs block and are blocked by them
+     * @param context  The world the npcs are in
+     */
+    public NpcContainer(EntityCollider collider, WorldContext context) {
+        npcs = new EntityStore<>(NPC_AMOUNT);
         recordedActions = new ArrayList<>();
+        this.collider = collider;
+        this.context = context;
     }
 
     /**
@@ -30,17 +44,17 @@ public class NpcContainer implements EntityContainer {
      *
      * @param room The map layer of valid room tiles
      */
-    public void spawnNpcs(TiledMapTileLayer room) {
+    public void spawnNpcs(CollisionGrid room) {
         for (int index = 0; index < NPC_AMOUNT; index++) {
-            Npc npc = new Npc(room);
-            npcs.put(npc.id.ID, npc);
+            Npc npc = new Npc(npcs, room, context);
+            collider.add(npc);
             recordedActions.add(new Action(npc.id, ActionType.Spawn, npc.getXPosition(), npc.getYPosition(), npc.getXVelocity(), npc.getYVelocity()));
         }
     }
 
     @Override
     public Entity getEntity(ID id) {
-        return npcs.get(id.ID);
+        return npcs.get(id);
     }
 
     @Override
@@ -50,7 +64,11 @@ public class NpcContainer implements EntityContainer {
 
     @Override
     public List<Entity> getAllEntities() {
-        return npcs.values().stream().map(e -> (Entity) e).collect(Collectors.toList());
+        List<Entity> entities = new ArrayList<>(npcs.size());
+        for (int slot = 0; slot < npcs.size(); slot++) {
+            entities.add(npcs.getAt(slot));
+        }
+        return entities;
     }
 
     /**
@@ -60,22 +78,29 @@ public class NpcContainer implements EntityContainer {
      * @param room      The map layer of valid room tiles
      */
     @Override
-    public void calculatePosition(float deltaTime, TiledMapTileLayer room) {
-        for (Npc npc : npcs.values()) {
-            npc.incrementTimeSinceLastUpdate(deltaTime);
-            if (npc.getTimeSinceLastUpdate() > 0.1) {
-                npc.calculateNewVelocity(room);
+    public void calculatePosition(float deltaTime, CollisionGrid room) {
+        // Only the npcs choosing a new direction are visited, the timers are checked straight from the store
+        float[] timeSinceLastUpdate = npcs.timeSinceLastUpdate;
+        for (int slot = 0; slot < npcs.size(); slot++) {
+            timeSinceLastUpdate[slot] += deltaTime;
+            if (timeSinceLastUpdate[slot] > 0.1) {
+                Npc npc = npcs.getAt(slot);
+                npc.calculateNewVelocity(room, context.random);
                 recordedActions.add(new Action(npc.id, ActionType.Move, npc.getXPosition(), npc.getYPosition(), npc.getXVelocity(), npc.getYVelocity()));
                 npc.resetTimeSinceLastUpdate();
             }
         }
     }
 
+    /**
+     * Moves every npc, on the world's movement pool if there are enough of them
+     *
+     * @param deltaTime The time since last update
+     * @param room      The map layer of valid room tiles
+     */
     @Override
-    public void updateMovements(float deltaTime, TiledMapTileLayer room) {
-        for (Npc npc : npcs.values()) {
-            npc.updatePosition(deltaTime, room);
-        }
+    public void updateMovements(float deltaTime, CollisionGrid room) {
+        npcs.updatePositions(deltaTime, room, context.getMovementPool());
     }
 
     /**
@@ -84,8 +109,25 @@ public class NpcContainer implements EntityContainer {
      * @param batch Where to render the textures
      */
     public void draw(Batch batch) {
-        for (Npc npc : npcs.values()) {
-            npc.draw(batch);
+        for (int slot = 0; slot < npcs.size(); slot++) {
+            npcs.getAt(slot).draw(batch);
+        }
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        npcs.interpolate(alpha);
+    }
+
+    /**
+     * Renders only the NPC's the Auber can see
+     *
+     * @param batch Where to render the textures
+     * @param view  What the Auber can currently see
+     */
+    public void draw(Batch batch, FieldOfView view) {
+        for (int slot = 0; slot < npcs.size(); slot++) {
+            npcs.getAt(slot).draw(batch, view);
         }
     }
 
@@ -97,14 +139,14 @@ public class NpcContainer implements EntityContainer {
     }
 
     @Override
-    public void applyAction(Action action, TiledMapTileLayer room) {
+    public void applyAction(Action action, CollisionGrid room) {
         switch (action.getActionType()) {
             case Move:
                 applyMovementAction(action);
                 break;
             case Spawn:
-                Npc newNpc = new Npc(action.getId(), (int) action.getXPosition(), (int) action.getYPosition());
-                npcs.put(action.getId().ID, newNpc);
+                Npc newNpc = new Npc(npcs, action.getId(), (int) action.getXPosition(), (int) action.getYPosition());
+                collider.add(newNpc);
                 break;
 
             default:
@@ -114,7 +156,7 @@ public class NpcContainer implements EntityContainer {
 
     public void applyMovementAction(Action action) {
         Npc npc =
-                this.npcs.get(action.getId().ID);
+                this.npcs.get(action.getId());
         if (npc != null) {
             npc.applyMovementAction(action);
         } else {
@@ -0,0 +1,220 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Entity;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.StationSystem;
+
+import java.util.Arrays;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * A flow field, storing the walking distance from the Auber to every room tile near it<br>
+ * Built with one breadth first search from the Auber's cell, so any number of infiltrators can check how close
+ * the Auber is (or which way is away from it) by looking at their own and neighbouring cells<br>
+ * Only cells within the radius are searched, and only when the Auber moves onto another cell (or room tiles are
+ * opened or closed). A move of one cell changes the distance of almost every cell by one, so repairing the
+ * field would visit as many cells as searching again, the radius is what keeps each update small
+ */
+public class AuberDistanceField {
+    /**
+     * The distance stored for cells further than the radius, or that the Auber can't walk to
+     */
+    public static final int UNREACHABLE = -1;
+
+    private final CollisionGrid roomTiles;
+    private final int width;
+    private final int height;
+    private final int radius;
+    /**
+     * The number of moves from the Auber to each cell, only valid if the cell's stamp matches the current one
+     */
+    private final int[] distance;
+    private final int[] stamp;
+    private int currentStamp;
+    private final int[] queue;
+    private int originX;
+    private int originY;
+    /**
+     * The version of the room tiles the field was searched on
+     */
+    private int gridVersion;
+    private int searchedCells;
+
+    /**
+     * Creates an empty field for the given map, call update to place the Auber
+     *
+     * @param roomTiles The map of valid room tiles
+     * @param radius    The furthest distance searched from the Auber (in moves)
+     */
+    public AuberDistanceField(CollisionGrid roomTiles, int radius) {
+        this.roomTiles = roomTiles;
+        this.width = roomTiles.getWidth();
+        this.height = roomTiles.getHeight();
+        this.radius = radius;
+        this.distance = new int[width * height];
+        this.stamp = new int[width * height];
+        // No more cells than the diamond of the radius can be reached
+        this.queue = new int[(int) Math.min((long) width * height, 2L * radius * (radius + 1) + 1)];
+        this.currentStamp = 0;
+        this.originX = -1;
+        this.originY = -1;
+    }
+
+    /**
+     * Searches out from the cell the Auber is in, only if it is a different cell to last time
+     *
+     * @param auber The entity to measure from
+     * @return True if the field was searched again
+     */
+    public boolean update(Entity auber) {
+        return update(Math.round(auber.getXPosition()), Math.round(auber.getYPosition()));
+    }
+
+    /**
+     * Searches out from the given cell, only if it is a different cell (or room tiles have been opened or
+     * closed since)
+     *
+     * @param x The x coordinate of the Auber's cell
+     * @param y The y coordinate of the Auber's cell
+     * @return True if the field was searched again
+     */
+    public boolean update(int x, int y) {
+        if (x == originX && y == originY && currentStamp != 0 && gridVersion == roomTiles.getVersion()) {
+            return false;
+        }
+        originX = x;
+        originY = y;
+        gridVersion = roomTiles.getVersion();
+        if (++currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            currentStamp = 1;
+        }
+        if (!roomTiles.isWalkable(x, y)) {
+            return true;
+        }
+        int head = 0;
+        int tail = 0;
+        int start = y * width + x;
+        stamp[start] = currentStamp;
+        distance[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (distance[cell] == radius) {
+                continue;
+            }
+            int cellX = cell % width;
+            int cellY = cell / width;
+            for (int move = 0; move < DIRECTION_X.length; move++) {
+                int nextX = cellX + DIRECTION_X[move];
+                int nextY = cellY + DIRECTION_Y[move];
+                if (!roomTiles.isWalkable(nextX, nextY)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (stamp[next] != currentStamp) {
+                    stamp[next] = currentStamp;
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        searchedCells += tail;
+        return true;
+    }
+
+    /**
+     * @return The number of moves from the Auber to the cell, or UNREACHABLE if it is further than the radius
+     */
+    public int getDistance(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return UNREACHABLE;
+        }
+        int cell = y * width + x;
+        return stamp[cell] == currentStamp && currentStamp != 0 ? distance[cell] : UNREACHABLE;
+    }
+
+    /**
+     * @return True if the Auber can walk to the cell in no more than the given number of moves
+     */
+    public boolean isWithin(int x, int y, int moves) {
+        int current = getDistance(x, y);
+        return current != UNREACHABLE && current <= moves;
+    }
+
+    /**
+     * Finds how close the Auber is to attacking a system, from the room tiles around it (systems sit in the walls)
+     *
+     * @param system The system to look around
+     * @return The fewest moves from the Auber to a room tile next to the system, or UNREACHABLE if none are
+     * within the radius
+     */
+    public int getDistance(StationSystem system) {
+        int left = (int) system.getXPosition();
+        int bottom = (int) system.getYPosition();
+        int right = left + Math.max(1, system.width) - 1;
+        int top = bottom + Math.max(1, system.height) - 1;
+        int closest = UNREACHABLE;
+        for (int sideX = left; sideX <= right; sideX++) {
+            closest = closer(closest, getDistance(sideX, bottom - 1));
+            closest = closer(closest, getDistance(sideX, top + 1));
+        }
+        for (int sideY = bottom; sideY <= top; sideY++) {
+            closest = closer(closest, getDistance(left - 1, sideY));
+            closest = closer(closest, getDistance(right + 1, sideY));
+        }
+        return closest;
+    }
+
+    private static int closer(int first, int second) {
+        if (first == UNREACHABLE) {
+            return second;
+        }
+        return second == UNREACHABLE ? first : Math.min(first, second);
+    }
+
+    /**
+     * Follows the field uphill from the given cell, cells past the radius count as further than any inside it
+     *
+     * @return The move that gets furthest from the Auber, or null if no move gets further away
+     */
+    public Node.Movements getAwayMove(int x, int y) {
+        int current = getDistance(x, y);
+        if (current == UNREACHABLE) {
+            return null;
+        }
+        Node.Movements best = null;
+        int bestDistance = current;
+        for (int move = 0; move < DIRECTION_X.length; move++) {
+            int nextX = x + DIRECTION_X[move];
+            int nextY = y + DIRECTION_Y[move];
+            if (!roomTiles.isWalkable(nextX, nextY)) {
+                continue;
+            }
+            int next = getDistance(nextX, nextY);
+            if (next == UNREACHABLE) {
+                return MOVEMENTS[move];
+            }
+            if (next > bestDistance) {
+                bestDistance = next;
+                best = MOVEMENTS[move];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return The number of cells visited by every search, since the field was created
+     */
+    public int getSearchedCells() {
+        return searchedCells;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+}
@@ -0,0 +1,178 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.StationSystem;
+import com.team30.game.game_mechanics.SystemContainer;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * A* search over the room grid<br>
+ * Cells are packed into a single int (y * width + x), and all of the search state is kept in primitive arrays
+ * that are reused between searches, so a search only allocates the path it returns
+ */
+public class GridPathfinder {
+    private final int width;
+    /**
+     * The cost of the cheapest known path to each cell
+     */
+    private final int[] gScore;
+    /**
+     * The index of the move taken to reach each cell on its cheapest known path
+     */
+    private final byte[] cameFrom;
+    /**
+     * The search that last wrote gScore and cameFrom for each cell, so they never need clearing
+     */
+    private final int[] searchStamp;
+    /**
+     * Bitmap of the cells that have already been expanded
+     */
+    private final long[] closed;
+    /**
+     * The open set of cells, ordered by their f score
+     */
+    private final IntMinHeap openSet;
+    /**
+     * The systems the current search is heading for
+     */
+    private final SystemGoals goals;
+    private int currentSearch;
+    /**
+     * The number of cells expanded by the last search
+     */
+    private int expandedNodes;
+
+    /**
+     * Creates a pathfinder for a map of the given size
+     *
+     * @param width  The width of the map (in tiles)
+     * @param height The height of the map (in tiles)
+     */
+    public GridPathfinder(int width, int height) {
+        this.width = width;
+        int cells = width * height;
+        this.gScore = new int[cells];
+        this.cameFrom = new byte[cells];
+        this.searchStamp = new int[cells];
+        this.closed = new long[(cells + 63) >>> 6];
+        this.openSet = new IntMinHeap(cells);
+        this.goals = new SystemGoals();
+        this.currentSearch = 0;
+    }
+
+    /**
+     * Finds the shortest path from the given cell to the closest attackable system<br>
+     * Systems sit in the walls, so a system is reached from any room tile next to it
+     *
+     * @param room    The map of valid room tiles
+     * @param startX  The x coordinate of the starting cell
+     * @param startY  The y coordinate of the starting cell
+     * @param systems The container with positions of all systems
+     * @return The movements to reach the system (empty if already there), or null if no system can be reached
+     */
+    public Queue<Node.Movements> findPath(CollisionGrid room, int startX, int startY, SystemContainer systems) {
+        goals.setAttackable(systems);
+        return search(room, startX, startY);
+    }
+
+    /**
+     * Finds the shortest path from the given cell to one system
+     *
+     * @param room        The map of valid room tiles
+     * @param startX      The x coordinate of the starting cell
+     * @param startY      The y coordinate of the starting cell
+     * @param destination The system to reach
+     * @return The movements to reach the system (empty if already there), or null if it can not be reached
+     */
+    public Queue<Node.Movements> findPath(CollisionGrid room, int startX, int startY, StationSystem destination) {
+        goals.clear();
+        goals.add(destination);
+        return search(room, startX, startY);
+    }
+
+    /**
+     * @return The number of cells expanded by the last search
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Runs A* from the start cell until a cell next to a system is expanded
+     */
+    private Queue<Node.Movements> search(CollisionGrid room, int startX, int startY) {
+        expandedNodes = 0;
+        if (goals.isEmpty() || !room.isWalkable(startX, startY)) {
+            return null;
+        }
+        // Wrapping round would make a stale stamp look current, so clear them once every 2^32 searches
+        if (++currentSearch == 0) {
+            Arrays.fill(searchStamp, 0);
+            currentSearch = 1;
+        }
+        Arrays.fill(closed, 0L);
+        openSet.clear();
+
+        int start = startY * width + startX;
+        searchStamp[start] = currentSearch;
+        gScore[start] = 0;
+        cameFrom[start] = -1;
+        openSet.push(start, goals.heuristic(startX, startY));
+
+        while (!openSet.isEmpty()) {
+            int cell = openSet.pop();
+            if ((closed[cell >>> 6] & (1L << cell)) != 0) {
+                continue;
+            }
+            closed[cell >>> 6] |= 1L << cell;
+            expandedNodes++;
+
+            int x = cell % width;
+            int y = cell / width;
+            if (goals.isReached(x, y)) {
+                return exportPath(cell);
+            }
+            int cost = gScore[cell] + 1;
+            for (int move = 0; move < MOVEMENTS.length; move++) {
+                int nextX = x + DIRECTION_X[move];
+                int nextY = y + DIRECTION_Y[move];
+                if (!room.isWalkable(nextX, nextY)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if ((closed[next >>> 6] & (1L << next)) != 0) {
+                    continue;
+                }
+                if (searchStamp[next] != currentSearch || cost < gScore[next]) {
+                    searchStamp[next] = currentSearch;
+                    gScore[next] = cost;
+                    cameFrom[next] = (byte) move;
+                    openSet.push(next, cost + goals.heuristic(nextX, nextY));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walks back along cameFrom from the goal, and returns the moves in the order they are taken
+     */
+    private Queue<Node.Movements> exportPath(int goal) {
+        LinkedList<Node.Movements> path = new LinkedList<>();
+        int cell = goal;
+        while (cameFrom[cell] != -1) {
+            int move = cameFrom[cell];
+            path.addFirst(MOVEMENTS[move]);
+            cell -= DIRECTION_Y[move] * width + DIRECTION_X[move];
+        }
+        return path;
+    }
+}
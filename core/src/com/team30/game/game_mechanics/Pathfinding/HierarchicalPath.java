@@ -0,0 +1,127 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.utils.Bits;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.SystemContainer;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A path through the abstract graph of a HierarchicalPathfinder<br>
+ * Movements are only worked out for the next step of the abstract path, when the previous ones have been used up.
+ * If a step can't be worked out (such as when the system is destroyed), the path ends with the movements
+ * already worked out, so it is empty as soon as poll has nothing left to return
+ */
+class HierarchicalPath extends AbstractQueue<Node.Movements> {
+    private static final int NONE = -1;
+    private final HierarchicalPathfinder pathfinder;
+    private final SystemContainer systems;
+    /**
+     * The systems the path shouldn't end next to, or null
+     */
+    private final Bits ignored;
+    /**
+     * The cells of the abstract nodes to pass through
+     */
+    private final int[] waypoints;
+    /**
+     * The movements worked out, but not taken yet
+     */
+    private final ArrayDeque<Node.Movements> refined;
+    private int nextWaypoint;
+    /**
+     * The cell the refined movements end at, or NONE once the path is finished
+     */
+    private int currentCell;
+    /**
+     * The number of movements left on the path, from the cost of the abstract path until the last step is worked out
+     */
+    private int remaining;
+
+    HierarchicalPath(HierarchicalPathfinder pathfinder, SystemContainer systems, Bits ignored, int start, int[] waypoints, int cost) {
+        this.pathfinder = pathfinder;
+        this.systems = systems;
+        this.ignored = ignored;
+        this.waypoints = waypoints;
+        this.refined = new ArrayDeque<>();
+        this.nextWaypoint = 0;
+        this.currentCell = cost == 0 ? NONE : start;
+        this.remaining = cost;
+    }
+
+    /**
+     * Adds a movement after the end of the path, so works out the rest of the path first
+     */
+    @Override
+    public boolean offer(Node.Movements movement) {
+        refineAll();
+        refined.add(movement);
+        return true;
+    }
+
+    @Override
+    public Node.Movements poll() {
+        refineIfEmpty();
+        Node.Movements movement = refined.poll();
+        if (movement != null) {
+            remaining--;
+        }
+        return movement;
+    }
+
+    @Override
+    public Node.Movements peek() {
+        refineIfEmpty();
+        return refined.peek();
+    }
+
+    /**
+     * Works out the next step first if needed, so a path that can't be followed any further has no movements left
+     */
+    @Override
+    public int size() {
+        refineIfEmpty();
+        if (currentCell == NONE) {
+            return refined.size();
+        }
+        return Math.max(remaining, refined.size());
+    }
+
+    /**
+     * Iterating needs every movement, so refines the rest of the path first
+     */
+    @Override
+    public Iterator<Node.Movements> iterator() {
+        refineAll();
+        return refined.iterator();
+    }
+
+    private void refineAll() {
+        while (currentCell != NONE) {
+            refineNext();
+        }
+    }
+
+    private void refineIfEmpty() {
+        while (refined.isEmpty() && currentCell != NONE) {
+            refineNext();
+        }
+    }
+
+    /**
+     * Works out the movements to the next waypoint, or to the system after the last waypoint
+     */
+    private void refineNext() {
+        boolean lastStep = nextWaypoint == waypoints.length;
+        int target = lastStep ? NONE : waypoints[nextWaypoint++];
+        int reached = pathfinder.refine(currentCell, target, systems, ignored, refined);
+        if (reached == NONE) {
+            // The system was destroyed since the path was found, so finish with what is left
+            currentCell = NONE;
+            return;
+        }
+        currentCell = lastStep ? NONE : reached;
+    }
+}
@@ -0,0 +1,514 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.IntArray;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.SystemContainer;
+
+import java.util.Arrays;
+import java.util.Queue;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * Hierarchical pathfinding (HPA*) for large maps<br>
+ * The map is split into square clusters, and the room tiles either side of each gap between clusters become
+ * the nodes of a much smaller abstract graph. Paths are searched for on that graph, and each step is only turned
+ * back into cell by cell movements when the infiltrator reaches it
+ */
+public class HierarchicalPathfinder {
+    /**
+     * The width and height of a cluster (in tiles)
+     */
+    public static final int CLUSTER_SIZE = 16;
+    /**
+     * Gaps between clusters at least this wide get a node at each end, instead of one in the middle
+     */
+    private static final int WIDE_ENTRANCE = 6;
+    /**
+     * Marks the goal of a search, instead of an abstract node
+     */
+    private static final int GOAL = -2;
+    private static final int NONE = -1;
+
+    private final CollisionGrid roomTiles;
+    private final int width;
+    private final int height;
+
+    /**
+     * The cell of each abstract node, and the node at each cell (or NONE)
+     */
+    private final IntArray nodeCell;
+    private final int[] nodeOfCell;
+    /**
+     * The edges of the abstract graph, the edges of node n are edgeStart[n] to edgeStart[n + 1]
+     */
+    private int[] edgeStart;
+    private int[] edgeTarget;
+    private int[] edgeCost;
+    /**
+     * The abstract nodes inside each cluster
+     */
+    private final IntArray[] clusterNodes;
+    private final int[] clusterStamp;
+    private final int clustersX;
+
+    /**
+     * Search state for the abstract graph, reused between searches
+     */
+    private final IntMinHeap openSet;
+    private int[] nodeCost;
+    private int[] nodeParent;
+    private int[] nodeStamp;
+    private int[] nodeClosed;
+    /**
+     * The cost from each node to the closest system in its cluster (valid when goalStamp matches)
+     */
+    private int[] goalCost;
+    private int[] goalStamp;
+    private int currentSearch;
+
+    /**
+     * Search state for breadth first searches inside a single cluster
+     */
+    private final int[] cellDistance;
+    private final byte[] cellMove;
+    private final int[] cellStamp;
+    private final int[] cellQueue;
+    private int cellQueueSize;
+    private int currentCellSearch;
+    private byte[] moveBuffer;
+
+    private final SystemGoals goals;
+    private final IntArray goalCells;
+    private final IntArray goalSystems;
+    /**
+     * The number of abstract nodes expanded by the last search
+     */
+    private int expandedNodes;
+
+    /**
+     * Splits the map into clusters, and precomputes the abstract graph
+     *
+     * @param roomTiles The map of valid room tiles
+     */
+    public HierarchicalPathfinder(CollisionGrid roomTiles) {
+        this.roomTiles = roomTiles;
+        this.width = roomTiles.getWidth();
+        this.height = roomTiles.getHeight();
+        this.clustersX = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        int clustersY = (height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+
+        this.nodeCell = new IntArray();
+        this.nodeOfCell = new int[width * height];
+        Arrays.fill(nodeOfCell, NONE);
+        this.clusterNodes = new IntArray[clustersX * clustersY];
+        this.clusterStamp = new int[clusterNodes.length];
+        for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+            clusterNodes[cluster] = new IntArray();
+        }
+
+        this.cellDistance = new int[width * height];
+        this.cellMove = new byte[width * height];
+        this.cellStamp = new int[width * height];
+        // Refining a step between clusters starts from one cell outside the cluster
+        this.cellQueue = new int[CLUSTER_SIZE * CLUSTER_SIZE + 1];
+        this.moveBuffer = new byte[CLUSTER_SIZE * CLUSTER_SIZE];
+        this.goals = new SystemGoals();
+        this.goalCells = new IntArray();
+        this.goalSystems = new IntArray();
+
+        buildGraph(clustersY);
+        int nodes = nodeCell.size;
+        this.openSet = new IntMinHeap(nodes + 1);
+        this.nodeCost = new int[nodes];
+        this.nodeParent = new int[nodes];
+        this.nodeStamp = new int[nodes];
+        this.nodeClosed = new int[nodes];
+        this.goalCost = new int[nodes];
+        this.goalStamp = new int[nodes];
+    }
+
+    /**
+     * Searches the abstract graph for the closest attackable system<br>
+     * Only the returned abstract path is stored, it is turned into movements one segment at a time as it is consumed
+     *
+     * @param startX  The x coordinate of the starting cell
+     * @param startY  The y coordinate of the starting cell
+     * @param systems The container with positions of all systems
+     * @return The movements to reach the system (empty if already there), or null if no system can be reached
+     */
+    public Queue<Node.Movements> findPath(int startX, int startY, SystemContainer systems) {
+        return findPath(startX, startY, systems, null);
+    }
+
+    /**
+     * Searches the abstract graph for the closest attackable system, apart from the ignored ones<br>
+     * The ignored systems are read again when the last step of the path is worked out
+     *
+     * @param startX  The x coordinate of the starting cell
+     * @param startY  The y coordinate of the starting cell
+     * @param systems The container with positions of all systems
+     * @param ignored The IDs of the systems not to head for (such as those the Auber is guarding), or null
+     * @return The movements to reach the system (empty if already there), or null if no system can be reached
+     */
+    public Queue<Node.Movements> findPath(int startX, int startY, SystemContainer systems, Bits ignored) {
+        expandedNodes = 0;
+        goals.setAttackable(systems, ignored);
+        if (goals.isEmpty() || !roomTiles.isWalkable(startX, startY)) {
+            return null;
+        }
+        int start = startY * width + startX;
+        if (goals.isReached(startX, startY)) {
+            return new HierarchicalPath(this, systems, ignored, start, new int[0], 0);
+        }
+        nextSearch();
+        connectGoals();
+
+        // Connect the start to the nodes of its cluster (and to a system if one is in the same cluster)
+        openSet.clear();
+        int bestGoalCost = Integer.MAX_VALUE;
+        int bestGoalParent = NONE;
+        beginCellSearch();
+        addCellSource(start);
+        int reachedGoal = searchCluster(start, NONE, true);
+        if (reachedGoal != NONE) {
+            bestGoalCost = cellDistance[reachedGoal];
+            openSet.push(GOAL, bestGoalCost);
+        }
+        IntArray startNodes = clusterNodes[clusterOf(start)];
+        for (int index = 0; index < startNodes.size; index++) {
+            int node = startNodes.get(index);
+            int cell = nodeCell.get(node);
+            if (cellStamp[cell] == currentCellSearch) {
+                openNode(node, NONE, cellDistance[cell]);
+            }
+        }
+
+        while (!openSet.isEmpty()) {
+            int node = openSet.pop();
+            if (node == GOAL) {
+                return new HierarchicalPath(this, systems, ignored, start, exportWaypoints(bestGoalParent), bestGoalCost);
+            }
+            if (nodeClosed[node] == currentSearch) {
+                continue;
+            }
+            nodeClosed[node] = currentSearch;
+            expandedNodes++;
+
+            int cost = nodeCost[node];
+            if (goalStamp[node] == currentSearch && cost + goalCost[node] < bestGoalCost) {
+                bestGoalCost = cost + goalCost[node];
+                bestGoalParent = node;
+                openSet.push(GOAL, bestGoalCost);
+            }
+            for (int edge = edgeStart[node]; edge < edgeStart[node + 1]; edge++) {
+                int next = edgeTarget[edge];
+                if (nodeClosed[next] != currentSearch) {
+                    openNode(next, node, cost + edgeCost[edge]);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of abstract nodes expanded by the last search
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * @return The number of nodes in the abstract graph
+     */
+    public int getNodeCount() {
+        return nodeCell.size;
+    }
+
+    /**
+     * Turns one step of an abstract path back into movements, with a breadth first search inside a cluster
+     *
+     * @param from    The cell to start from
+     * @param to      The cell to reach, or NONE to stop next to any attackable system
+     * @param systems The container with positions of all systems
+     * @param ignored The IDs of the systems not to stop next to, or null
+     * @param moves   Where to add the movements
+     * @return The cell the movements end at, or NONE if it could not be reached
+     */
+    int refine(int from, int to, SystemContainer systems, Bits ignored, Queue<Node.Movements> moves) {
+        if (to == NONE) {
+            goals.setAttackable(systems, ignored);
+        }
+        beginCellSearch();
+        addCellSource(from);
+        int reached = searchCluster(to == NONE ? from : to, to, to == NONE);
+        if (reached == NONE) {
+            return NONE;
+        }
+        // Walk back to the start, then add the moves in the order they are taken
+        int length = 0;
+        int cell = reached;
+        while (cell != from) {
+            int move = cellMove[cell];
+            if (length == moveBuffer.length) {
+                moveBuffer = Arrays.copyOf(moveBuffer, length * 2);
+            }
+            moveBuffer[length++] = (byte) move;
+            cell -= DIRECTION_Y[move] * width + DIRECTION_X[move];
+        }
+        for (int index = length - 1; index >= 0; index--) {
+            moves.add(MOVEMENTS[moveBuffer[index]]);
+        }
+        return reached;
+    }
+
+    /**
+     * Finds every gap between neighbouring clusters, then links the nodes inside each cluster
+     */
+    private void buildGraph(int clustersY) {
+        IntArray edgesFrom = new IntArray();
+        IntArray edgesTo = new IntArray();
+        IntArray edgesCost = new IntArray();
+
+        for (int clusterY = 0; clusterY < clustersY; clusterY++) {
+            for (int clusterX = 0; clusterX < clustersX; clusterX++) {
+                int left = clusterX * CLUSTER_SIZE;
+                int bottom = clusterY * CLUSTER_SIZE;
+                int right = Math.min(width, left + CLUSTER_SIZE) - 1;
+                int top = Math.min(height, bottom + CLUSTER_SIZE) - 1;
+                // The border with the cluster to the right
+                if (right + 1 < width) {
+                    int start = NONE;
+                    for (int y = bottom; y <= top + 1; y++) {
+                        boolean open = y <= top && roomTiles.isWalkable(right, y) && roomTiles.isWalkable(right + 1, y);
+                        if (open && start == NONE) {
+                            start = y;
+                        } else if (!open && start != NONE) {
+                            addEntrance(right, start, right, y - 1, 1, 0, edgesFrom, edgesTo, edgesCost);
+                            start = NONE;
+                        }
+                    }
+                }
+                // The border with the cluster above
+                if (top + 1 < height) {
+                    int start = NONE;
+                    for (int x = left; x <= right + 1; x++) {
+                        boolean open = x <= right && roomTiles.isWalkable(x, top) && roomTiles.isWalkable(x, top + 1);
+                        if (open && start == NONE) {
+                            start = x;
+                        } else if (!open && start != NONE) {
+                            addEntrance(start, top, x - 1, top, 0, 1, edgesFrom, edgesTo, edgesCost);
+                            start = NONE;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Link every pair of nodes that can reach each other without leaving their cluster
+        for (IntArray nodes : clusterNodes) {
+            for (int index = 0; index < nodes.size; index++) {
+                int node = nodes.get(index);
+                int cell = nodeCell.get(node);
+                beginCellSearch();
+                addCellSource(cell);
+                searchCluster(cell, NONE, false);
+                for (int other = 0; other < nodes.size; other++) {
+                    int otherCell = nodeCell.get(nodes.get(other));
+                    if (other != index && cellStamp[otherCell] == currentCellSearch) {
+                        edgesFrom.add(node);
+                        edgesTo.add(nodes.get(other));
+                        edgesCost.add(cellDistance[otherCell]);
+                    }
+                }
+            }
+        }
+
+        // Pack the edges so the edges of each node are next to each other
+        int nodes = nodeCell.size;
+        edgeStart = new int[nodes + 1];
+        for (int edge = 0; edge < edgesFrom.size; edge++) {
+            edgeStart[edgesFrom.get(edge) + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            edgeStart[node + 1] += edgeStart[node];
+        }
+        edgeTarget = new int[edgesFrom.size];
+        edgeCost = new int[edgesFrom.size];
+        int[] next = Arrays.copyOf(edgeStart, nodes);
+        for (int edge = 0; edge < edgesFrom.size; edge++) {
+            int slot = next[edgesFrom.get(edge)]++;
+            edgeTarget[slot] = edgesTo.get(edge);
+            edgeCost[slot] = edgesCost.get(edge);
+        }
+    }
+
+    /**
+     * Adds the nodes for one gap between two clusters, from (startX, startY) to (endX, endY) on the lower side
+     *
+     * @param stepX The offset to the matching cell in the other cluster
+     * @param stepY The offset to the matching cell in the other cluster
+     */
+    private void addEntrance(int startX, int startY, int endX, int endY, int stepX, int stepY,
+                             IntArray edgesFrom, IntArray edgesTo, IntArray edgesCost) {
+        int length = Math.max(endX - startX, endY - startY) + 1;
+        if (length < WIDE_ENTRANCE) {
+            int middle = length / 2;
+            int x = startX + (endX > startX ? middle : 0);
+            int y = startY + (endY > startY ? middle : 0);
+            addTransition(x, y, stepX, stepY, edgesFrom, edgesTo, edgesCost);
+        } else {
+            addTransition(startX, startY, stepX, stepY, edgesFrom, edgesTo, edgesCost);
+            addTransition(endX, endY, stepX, stepY, edgesFrom, edgesTo, edgesCost);
+        }
+    }
+
+    private void addTransition(int x, int y, int stepX, int stepY, IntArray edgesFrom, IntArray edgesTo, IntArray edgesCost) {
+        int node = getOrAddNode(y * width + x);
+        int other = getOrAddNode((y + stepY) * width + x + stepX);
+        edgesFrom.add(node);
+        edgesTo.add(other);
+        edgesCost.add(1);
+        edgesFrom.add(other);
+        edgesTo.add(node);
+        edgesCost.add(1);
+    }
+
+    private int getOrAddNode(int cell) {
+        if (nodeOfCell[cell] == NONE) {
+            nodeOfCell[cell] = nodeCell.size;
+            nodeCell.add(cell);
+            clusterNodes[clusterOf(cell)].add(nodeOfCell[cell]);
+        }
+        return nodeOfCell[cell];
+    }
+
+    /**
+     * Finds the cost from the nodes of every cluster containing a system, to the closest system in that cluster
+     */
+    private void connectGoals() {
+        goalCells.clear();
+        goalSystems.clear();
+        goals.collectCells(roomTiles, goalCells, goalSystems);
+        for (int index = 0; index < goalCells.size; index++) {
+            int cluster = clusterOf(goalCells.get(index));
+            // Each cluster is only searched once, from all of its goal cells together
+            if (clusterStamp[cluster] == currentSearch) {
+                continue;
+            }
+            clusterStamp[cluster] = currentSearch;
+            beginCellSearch();
+            for (int other = index; other < goalCells.size; other++) {
+                if (clusterOf(goalCells.get(other)) == cluster) {
+                    addCellSource(goalCells.get(other));
+                }
+            }
+            searchCluster(goalCells.get(index), NONE, false);
+            IntArray nodes = clusterNodes[cluster];
+            for (int node = 0; node < nodes.size; node++) {
+                int cell = nodeCell.get(nodes.get(node));
+                if (cellStamp[cell] == currentCellSearch) {
+                    goalStamp[nodes.get(node)] = currentSearch;
+                    goalCost[nodes.get(node)] = cellDistance[cell];
+                }
+            }
+        }
+    }
+
+    private void openNode(int node, int parent, int cost) {
+        if (nodeStamp[node] != currentSearch || cost < nodeCost[node]) {
+            nodeStamp[node] = currentSearch;
+            nodeCost[node] = cost;
+            nodeParent[node] = parent;
+            int cell = nodeCell.get(node);
+            openSet.push(node, cost + goals.heuristic(cell % width, cell / width));
+        }
+    }
+
+    /**
+     * @return The cells of the abstract nodes from the start to the given node
+     */
+    private int[] exportWaypoints(int last) {
+        int length = 0;
+        for (int node = last; node != NONE; node = nodeParent[node]) {
+            length++;
+        }
+        int[] waypoints = new int[length];
+        for (int node = last; node != NONE; node = nodeParent[node]) {
+            waypoints[--length] = nodeCell.get(node);
+        }
+        return waypoints;
+    }
+
+    private void nextSearch() {
+        if (++currentSearch == 0) {
+            Arrays.fill(nodeStamp, 0);
+            Arrays.fill(nodeClosed, 0);
+            Arrays.fill(goalStamp, 0);
+            Arrays.fill(clusterStamp, 0);
+            currentSearch = 1;
+        }
+    }
+
+    private void beginCellSearch() {
+        if (++currentCellSearch == 0) {
+            Arrays.fill(cellStamp, 0);
+            currentCellSearch = 1;
+        }
+        cellQueueSize = 0;
+    }
+
+    private void addCellSource(int cell) {
+        cellStamp[cell] = currentCellSearch;
+        cellDistance[cell] = 0;
+        cellMove[cell] = -1;
+        cellQueue[cellQueueSize++] = cell;
+    }
+
+    /**
+     * Breadth first search from the added sources, without leaving the cluster containing the given cell
+     *
+     * @param clusterCell Any cell in the cluster to search
+     * @param target      The cell to stop at, or NONE
+     * @param stopAtGoal  Whether to stop at the first cell next to a system
+     * @return The cell the search stopped at, or NONE if it searched the whole cluster
+     */
+    private int searchCluster(int clusterCell, int target, boolean stopAtGoal) {
+        int left = (clusterCell % width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        int bottom = (clusterCell / width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        int right = Math.min(width, left + CLUSTER_SIZE) - 1;
+        int top = Math.min(height, bottom + CLUSTER_SIZE) - 1;
+        int head = 0;
+        while (head < cellQueueSize) {
+            int cell = cellQueue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            if (cell == target || (stopAtGoal && goals.isReached(x, y))) {
+                return cell;
+            }
+            for (int move = 0; move < MOVEMENTS.length; move++) {
+                int nextX = x + DIRECTION_X[move];
+                int nextY = y + DIRECTION_Y[move];
+                if (nextX < left || nextX > right || nextY < bottom || nextY > top || !roomTiles.isWalkable(nextX, nextY)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (cellStamp[next] != currentCellSearch) {
+                    cellStamp[next] = currentCellSearch;
+                    cellDistance[next] = cellDistance[cell] + 1;
+                    cellMove[next] = (byte) move;
+                    cellQueue[cellQueueSize++] = next;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private int clusterOf(int cell) {
+        return (cell / width) / CLUSTER_SIZE * clustersX + (cell % width) / CLUSTER_SIZE;
+    }
+}
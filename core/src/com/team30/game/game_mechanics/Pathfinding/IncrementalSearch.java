@@ -0,0 +1,165 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.StationSystem;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * An A* search to one system that can be paused after any number of expanded cells, and carried on later<br>
+ * The search state is kept in arrays the size of the map, so once a search has finished it should be reused
+ * for the next one with start, rather than thrown away
+ */
+class IncrementalSearch {
+    private final CollisionGrid roomTiles;
+    private final int width;
+    private final SystemGoals goals;
+    private final IntMinHeap openSet;
+    private final int[] gScore;
+    /**
+     * The index of the move taken to reach each cell on its cheapest known path
+     */
+    private final byte[] cameFrom;
+    /**
+     * 2 * currentSearch if a cell has been reached by the current search, or one more than that once it has been
+     * expanded, so nothing needs clearing between searches
+     */
+    private final int[] stamp;
+    private int currentSearch;
+    PathRequest request;
+    /**
+     * The movements found, only valid once the search is finished
+     */
+    private Queue<Node.Movements> path;
+    private boolean finished;
+
+    /**
+     * Creates the search state for a map, call start before stepping
+     *
+     * @param roomTiles The map of valid room tiles
+     */
+    IncrementalSearch(CollisionGrid roomTiles) {
+        this.roomTiles = roomTiles;
+        this.width = roomTiles.getWidth();
+        int cells = width * roomTiles.getHeight();
+        this.goals = new SystemGoals();
+        this.openSet = new IntMinHeap(64);
+        this.gScore = new int[cells];
+        this.cameFrom = new byte[cells];
+        this.stamp = new int[cells];
+    }
+
+    /**
+     * Starts a new search, without expanding any cells
+     *
+     * @param request     The request to finish once the path is found
+     * @param destination The system to reach
+     */
+    void start(PathRequest request, StationSystem destination) {
+        this.request = request;
+        this.path = null;
+        this.finished = false;
+        // Stamps are doubled, so clear them before they would overflow
+        if (++currentSearch == Integer.MAX_VALUE / 2) {
+            Arrays.fill(stamp, 0);
+            currentSearch = 1;
+        }
+        goals.clear();
+        goals.add(destination);
+        openSet.clear();
+
+        int startX = request.startCell % width;
+        int startY = request.startCell / width;
+        if (roomTiles.isWalkable(startX, startY)) {
+            stamp[request.startCell] = currentSearch * 2;
+            gScore[request.startCell] = 0;
+            cameFrom[request.startCell] = -1;
+            openSet.push(request.startCell, goals.heuristic(startX, startY));
+        }
+    }
+
+    /**
+     * Carries on the search
+     *
+     * @param maxNodes The most cells to expand before pausing
+     * @return The number of cells expanded
+     */
+    int step(int maxNodes) {
+        int reached = currentSearch * 2;
+        int expandedMark = reached + 1;
+        int expanded = 0;
+        while (expanded < maxNodes) {
+            if (openSet.isEmpty()) {
+                finished = true;
+                break;
+            }
+            int cell = openSet.pop();
+            if (stamp[cell] == expandedMark) {
+                continue;
+            }
+            stamp[cell] = expandedMark;
+            expanded++;
+            int x = cell % width;
+            int y = cell / width;
+            if (goals.isReached(x, y)) {
+                path = exportPath(cell);
+                finished = true;
+                break;
+            }
+            int cost = gScore[cell] + 1;
+            for (int move = 0; move < MOVEMENTS.length; move++) {
+                int nextX = x + DIRECTION_X[move];
+                int nextY = y + DIRECTION_Y[move];
+                if (!roomTiles.isWalkable(nextX, nextY)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (stamp[next] == expandedMark) {
+                    continue;
+                }
+                if (stamp[next] != reached || cost < gScore[next]) {
+                    stamp[next] = reached;
+                    gScore[next] = cost;
+                    cameFrom[next] = (byte) move;
+                    openSet.push(next, cost + goals.heuristic(nextX, nextY));
+                }
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * @return True if the path has been found, or the system can't be reached
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return The movements to reach the system (empty if already there), or null if it can not be reached
+     */
+    Queue<Node.Movements> getPath() {
+        return path;
+    }
+
+    /**
+     * Walks back along cameFrom from the goal, and returns the moves in the order they are taken
+     */
+    private Queue<Node.Movements> exportPath(int goal) {
+        LinkedList<Node.Movements> moves = new LinkedList<>();
+        int cell = goal;
+        while (cameFrom[cell] != -1) {
+            int move = cameFrom[cell];
+            moves.addFirst(MOVEMENTS[move]);
+            cell -= DIRECTION_Y[move] * width + DIRECTION_X[move];
+        }
+        return moves;
+    }
+}
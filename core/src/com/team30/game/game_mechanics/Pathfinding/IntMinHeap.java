@@ -0,0 +1,84 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of ints ordered by a float priority, used as the open set of a search<br>
+ * Values can be pushed more than once, so searches skip stale entries when they are popped
+ */
+class IntMinHeap {
+    private int[] values;
+    private float[] priorities;
+    private int size;
+
+    IntMinHeap(int capacity) {
+        this.values = new int[Math.max(16, capacity)];
+        this.priorities = new float[values.length];
+        this.size = 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The priority of the value that would be popped next
+     */
+    float peekPriority() {
+        return priorities[0];
+    }
+
+    void push(int value, float priority) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            values[index] = values[parent];
+            priorities[index] = priorities[parent];
+            index = parent;
+        }
+        values[index] = value;
+        priorities[index] = priority;
+    }
+
+    /**
+     * @return The value with the lowest priority, which is removed from the heap
+     */
+    int pop() {
+        int top = values[0];
+        size--;
+        int value = values[size];
+        float priority = priorities[size];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            values[index] = values[child];
+            priorities[index] = priorities[child];
+            index = child;
+        }
+        values[index] = value;
+        priorities[index] = priority;
+        return top;
+    }
+}
@@ -0,0 +1,246 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.StationSystem;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * Jump Point Search for the 4 directional movement of infiltrators<br>
+ * Instead of adding every neighbour to the open set, the search jumps in a straight line until something
+ * interesting happens (a wall ends, or a system is reached), so large open rooms only add a handful of nodes.
+ * Paths are ordered so vertical moves come before horizontal ones: a horizontal jump stops where a wall
+ * above or below it ends, and a vertical jump stops wherever a horizontal jump from it would stop
+ */
+public class JumpPointPathfinder {
+    private static final int NONE = -1;
+    /**
+     * Directions that jump points were reached from, matching the Node.Movements ordinals
+     */
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int UP = 2;
+    private static final int DOWN = 3;
+    private static final int START = 4;
+
+    private final CollisionGrid roomTiles;
+    private final int width;
+    private final int[] gScore;
+    /**
+     * The jump point each jump point was reached from, and the direction it was reached in
+     */
+    private final int[] parent;
+    private final byte[] direction;
+    private final int[] searchStamp;
+    private final long[] closed;
+    /**
+     * Bitmap of the cells next to a system, with the list of set bits so it can be cleared quickly
+     */
+    private final long[] goalCells;
+    private final IntArray goalList;
+    private final IntArray goalSystems;
+    private final IntMinHeap openSet;
+    private final SystemGoals goals;
+    private int currentSearch;
+    private int expandedNodes;
+
+    /**
+     * Creates a pathfinder for the given map
+     *
+     * @param roomTiles The map of valid room tiles
+     */
+    public JumpPointPathfinder(CollisionGrid roomTiles) {
+        this.roomTiles = roomTiles;
+        this.width = roomTiles.getWidth();
+        int cells = width * roomTiles.getHeight();
+        this.gScore = new int[cells];
+        this.parent = new int[cells];
+        this.direction = new byte[cells];
+        this.searchStamp = new int[cells];
+        this.closed = new long[(cells + 63) >>> 6];
+        this.goalCells = new long[(cells + 63) >>> 6];
+        this.goalList = new IntArray();
+        this.goalSystems = new IntArray();
+        this.openSet = new IntMinHeap(64);
+        this.goals = new SystemGoals();
+    }
+
+    /**
+     * Finds the shortest path from the given cell to one system
+     *
+     * @param startX      The x coordinate of the starting cell
+     * @param startY      The y coordinate of the starting cell
+     * @param destination The system to reach
+     * @return The movements to reach the system (empty if already there), or null if it can not be reached
+     */
+    public Queue<Node.Movements> findPath(int startX, int startY, StationSystem destination) {
+        expandedNodes = 0;
+        if (!roomTiles.isWalkable(startX, startY)) {
+            return null;
+        }
+        goals.clear();
+        goals.add(destination);
+        for (int index = 0; index < goalList.size; index++) {
+            goalCells[goalList.get(index) >>> 6] = 0L;
+        }
+        goalList.clear();
+        goalSystems.clear();
+        goals.collectCells(roomTiles, goalList, goalSystems);
+        for (int index = 0; index < goalList.size; index++) {
+            int cell = goalList.get(index);
+            goalCells[cell >>> 6] |= 1L << cell;
+        }
+
+        if (++currentSearch == 0) {
+            Arrays.fill(searchStamp, 0);
+            currentSearch = 1;
+        }
+        Arrays.fill(closed, 0L);
+        openSet.clear();
+        int start = startY * width + startX;
+        searchStamp[start] = currentSearch;
+        gScore[start] = 0;
+        parent[start] = NONE;
+        direction[start] = START;
+        openSet.push(start, goals.heuristic(startX, startY));
+
+        while (!openSet.isEmpty()) {
+            int cell = openSet.pop();
+            if ((closed[cell >>> 6] & (1L << cell)) != 0) {
+                continue;
+            }
+            closed[cell >>> 6] |= 1L << cell;
+            expandedNodes++;
+            if (isGoal(cell)) {
+                return exportPath(cell);
+            }
+            int x = cell % width;
+            int y = cell / width;
+            switch (direction[cell]) {
+                case LEFT:
+                case RIGHT:
+                    int dx = DIRECTION_X[direction[cell]];
+                    addSuccessor(cell, jumpHorizontal(x, y, dx), direction[cell]);
+                    // Forced neighbours, where a wall above or below has just ended
+                    if (roomTiles.isWalkable(x, y + 1) && !roomTiles.isWalkable(x - dx, y + 1)) {
+                        addSuccessor(cell, jumpVertical(x, y, 1), UP);
+                    }
+                    if (roomTiles.isWalkable(x, y - 1) && !roomTiles.isWalkable(x - dx, y - 1)) {
+                        addSuccessor(cell, jumpVertical(x, y, -1), DOWN);
+                    }
+                    break;
+                case UP:
+                case DOWN:
+                    addSuccessor(cell, jumpVertical(x, y, DIRECTION_Y[direction[cell]]), direction[cell]);
+                    addSuccessor(cell, jumpHorizontal(x, y, -1), LEFT);
+                    addSuccessor(cell, jumpHorizontal(x, y, 1), RIGHT);
+                    break;
+                default:
+                    addSuccessor(cell, jumpVertical(x, y, 1), UP);
+                    addSuccessor(cell, jumpVertical(x, y, -1), DOWN);
+                    addSuccessor(cell, jumpHorizontal(x, y, -1), LEFT);
+                    addSuccessor(cell, jumpHorizontal(x, y, 1), RIGHT);
+                    break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of jump points expanded by the last search
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    private void addSuccessor(int from, int to, int arrival) {
+        if (to == NONE || (closed[to >>> 6] & (1L << to)) != 0) {
+            return;
+        }
+        int cost = gScore[from] + Math.abs(to % width - from % width) + Math.abs(to / width - from / width);
+        if (searchStamp[to] != currentSearch || cost < gScore[to]) {
+            searchStamp[to] = currentSearch;
+            gScore[to] = cost;
+            parent[to] = from;
+            direction[to] = (byte) arrival;
+            openSet.push(to, cost + goals.heuristic(to % width, to / width));
+        }
+    }
+
+    /**
+     * Moves horizontally until a wall, a system, or a cell where a wall above or below has ended
+     *
+     * @return The jump point found, or NONE if a wall was hit first
+     */
+    private int jumpHorizontal(int x, int y, int dx) {
+        while (true) {
+            x += dx;
+            if (!roomTiles.isWalkable(x, y)) {
+                return NONE;
+            }
+            int cell = y * width + x;
+            if (isGoal(cell)) {
+                return cell;
+            }
+            if ((roomTiles.isWalkable(x, y + 1) && !roomTiles.isWalkable(x - dx, y + 1))
+                    || (roomTiles.isWalkable(x, y - 1) && !roomTiles.isWalkable(x - dx, y - 1))) {
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * Moves vertically until a wall, a system, or a cell that a horizontal jump would find a jump point from
+     *
+     * @return The jump point found, or NONE if a wall was hit first
+     */
+    private int jumpVertical(int x, int y, int dy) {
+        while (true) {
+            y += dy;
+            if (!roomTiles.isWalkable(x, y)) {
+                return NONE;
+            }
+            int cell = y * width + x;
+            if (isGoal(cell)) {
+                return cell;
+            }
+            if (jumpHorizontal(x, y, -1) != NONE || jumpHorizontal(x, y, 1) != NONE) {
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * Fills in the straight lines between jump points, and returns the moves in the order they are taken
+     */
+    private Queue<Node.Movements> exportPath(int goal) {
+        LinkedList<Node.Movements> path = new LinkedList<>();
+        for (int cell = goal; parent[cell] != NONE; cell = parent[cell]) {
+            int arrival = direction[cell];
+            int length = Math.abs(cell % width - parent[cell] % width) + Math.abs(cell / width - parent[cell] / width);
+            for (int step = 0; step < length; step++) {
+                path.addFirst(MOVEMENTS[arrival]);
+            }
+        }
+        return path;
+    }
+
+    private boolean isGoal(int cell) {
+        return (goalCells[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * @return The map this pathfinder searches
+     */
+    CollisionGrid getRoomTiles() {
+        return roomTiles;
+    }
+}
@@ -0,0 +1,235 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.team30.game.game_mechanics.Node;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * Remembers the paths found from a start cell to a system, least recently used paths are dropped first<br>
+ * Also remembers which systems could not be reached, so they are not searched for again
+ */
+public class PathCache {
+    /**
+     * The default amount of memory the cache can use
+     */
+    public static final int DEFAULT_CAPACITY_BYTES = 1 << 20;
+    /**
+     * The rough size of an entry, not counting its moves (key, entry and map node)
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    /**
+     * Entries keyed by start cell (upper 32 bits) and destination system ID, in least recently used order
+     */
+    private final LinkedHashMap<Long, Entry> entries;
+    private final int capacityBytes;
+    private int usedBytes;
+
+    private int hits;
+    private int negativeHits;
+    private int misses;
+    private int evictions;
+    private int invalidations;
+
+    /**
+     * Creates an empty cache
+     *
+     * @param capacityBytes The amount of memory the stored paths can use
+     */
+    public PathCache(int capacityBytes) {
+        this.entries = new LinkedHashMap<>(64, 0.75f, true);
+        this.capacityBytes = capacityBytes;
+        this.usedBytes = 0;
+    }
+
+    /**
+     * Looks for a path, counting a hit or a miss
+     *
+     * @param startCell   The packed cell the path starts from
+     * @param destination The ID of the system the path leads to
+     * @return The cached entry, or null if there is none
+     */
+    Entry get(int startCell, int destination) {
+        Entry entry = entries.get(key(startCell, destination));
+        if (entry == null) {
+            misses++;
+        } else if (entry.moves == null) {
+            negativeHits++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the result of a search, dropping the least recently used entries if the cache is full
+     *
+     * @param startCell   The packed cell the path starts from
+     * @param destination The ID of the system the path leads to
+     * @param path        The path found, or null if the system could not be reached
+     */
+    void put(int startCell, int destination, Queue<Node.Movements> path) {
+        put(startCell, new Entry(destination, path));
+    }
+
+    /**
+     * Stores an entry that has already been built, such as one from a worker thread
+     *
+     * @param startCell The packed cell the path starts from
+     * @param entry     The path found, and the system it leads to
+     */
+    void put(int startCell, Entry entry) {
+        Entry previous = entries.put(key(startCell, entry.destination), entry);
+        if (previous != null) {
+            usedBytes -= previous.getSize();
+        }
+        usedBytes += entry.getSize();
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (usedBytes > capacityBytes && oldest.hasNext()) {
+            usedBytes -= oldest.next().getSize();
+            oldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops every entry leading to the given system, because it can no longer be attacked
+     *
+     * @param destination The ID of the system
+     */
+    public void invalidateSystem(int destination) {
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.destination == destination) {
+                usedBytes -= entry.getSize();
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Drops every entry, for when the map changes
+     */
+    public void clear() {
+        invalidations += entries.size();
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of lookups that found a system could not be reached
+     */
+    public int getNegativeHits() {
+        return negativeHits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of times a path was looked for, each miss being a search that had to be run
+     */
+    public int getLookups() {
+        return hits + negativeHits + misses;
+    }
+
+    /**
+     * @return The fraction of lookups answered without searching (including unreachable systems), or 0 if there
+     * have been none
+     */
+    public float getHitRate() {
+        int lookups = getLookups();
+        return lookups == 0 ? 0 : (float) (hits + negativeHits) / lookups;
+    }
+
+    /**
+     * @return The number of entries dropped to make space
+     */
+    public int getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The number of entries dropped because their system could no longer be attacked
+     */
+    public int getInvalidations() {
+        return invalidations;
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return The approximate memory used by the stored entries (in bytes)
+     */
+    public int getUsedBytes() {
+        return usedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Path cache: " + entries.size() + " entries (" + usedBytes + "/" + capacityBytes + " bytes) hits: " + hits
+                + " negative hits: " + negativeHits + " misses: " + misses + " evictions: " + evictions
+                + " invalidations: " + invalidations;
+    }
+
+    static long key(int startCell, int destination) {
+        return ((long) startCell << 32) | (destination & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A cached path, stored as one byte per move
+     */
+    static class Entry {
+        final int destination;
+        /**
+         * The ordinal of each move, or null if the destination could not be reached
+         */
+        final byte[] moves;
+
+        Entry(int destination, Queue<Node.Movements> path) {
+            this.destination = destination;
+            if (path == null) {
+                this.moves = null;
+            } else {
+                this.moves = new byte[path.size()];
+                int index = 0;
+                for (Node.Movements move : path) {
+                    moves[index++] = (byte) move.ordinal();
+                }
+            }
+        }
+
+        /**
+         * @return A new queue of the cached moves, or null if the destination could not be reached
+         */
+        Queue<Node.Movements> toPath() {
+            if (moves == null) {
+                return null;
+            }
+            LinkedList<Node.Movements> path = new LinkedList<>();
+            for (byte move : moves) {
+                path.add(MOVEMENTS[move]);
+            }
+            return path;
+        }
+
+        int getSize() {
+            return ENTRY_OVERHEAD_BYTES + (moves == null ? 0 : moves.length);
+        }
+    }
+}
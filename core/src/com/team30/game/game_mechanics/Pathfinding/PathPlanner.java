@@ -0,0 +1,295 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.utils.IntSet;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.StationSystem;
+import com.team30.game.game_mechanics.SystemContainer;
+
+import java.util.Queue;
+
+/**
+ * Shared by all infiltrators, to decide how they find their way to a system<br>
+ * Each search (and the cache, worker threads and path repairer) is only built the first time the mode needs it,
+ * as most modes use only one of them and each holds arrays the size of the map
+ */
+public class PathPlanner {
+    private GridPathfinder gridPathfinder;
+    /**
+     * Dropped when the room tiles change, as its abstract graph is worked out from them, and built again the next
+     * time a path is searched for
+     */
+    private HierarchicalPathfinder hierarchicalPathfinder;
+    private JumpPointPathfinder jumpPointPathfinder;
+    /**
+     * Paths found by A* or Jump Point Search, keyed by start cell and destination system
+     */
+    private PathCache pathCache;
+    /**
+     * The systems that paths in the cache (or being searched for) lead to, so they can be dropped once the
+     * system can't be attacked
+     */
+    private final IntSet cachedDestinations;
+    /**
+     * Runs A* and Jump Point Search off the game thread, or null if searches run straight away (or none have
+     * been asked for yet)
+     */
+    private PathfindingService service;
+    /**
+     * The number of threads to give the service, 0 to search on the game thread
+     */
+    private final int workerThreads;
+    /**
+     * Runs A* a little at a time on the game thread, for when worker threads can't be used
+     */
+    private TimeSlicedPathfinder timeSlicedPathfinder;
+    /**
+     * Fixes paths that cross room tiles that have been closed
+     */
+    private PathRepairer pathRepairer;
+    private final CollisionGrid roomTiles;
+    /**
+     * The version of the room tiles the cache, worker snapshot and hierarchical graph were made from
+     */
+    private int gridVersion;
+    private final int width;
+    private PathfindingMode mode;
+
+    /**
+     * Creates a planner for the given map, that searches on the game thread
+     *
+     * @param roomTiles The map of valid room tiles
+     * @param mode      How infiltrators should find their way to a system
+     */
+    public PathPlanner(CollisionGrid roomTiles, PathfindingMode mode) {
+        this(roomTiles, mode, 0);
+    }
+
+    /**
+     * Creates a planner for the given map
+     *
+     * @param roomTiles     The map of valid room tiles
+     * @param mode          How infiltrators should find their way to a system
+     * @param workerThreads The number of threads to run A* and Jump Point Search on, or 0 to search on the game thread
+     */
+    public PathPlanner(CollisionGrid roomTiles, PathfindingMode mode, int workerThreads) {
+        this.cachedDestinations = new IntSet();
+        this.workerThreads = workerThreads;
+        this.roomTiles = roomTiles;
+        this.gridVersion = roomTiles.getVersion();
+        this.width = roomTiles.getWidth();
+        this.mode = mode;
+    }
+
+    /**
+     * Collects the paths found by the worker threads, carries on the time sliced searches, and cancels searches
+     * for systems that can't be attacked<br>
+     * If room tiles have been opened or closed, cached paths are dropped and the workers are given a new copy of
+     * the map. Should be called once per update, before any infiltrator moves
+     *
+     * @param systems The container with positions of all systems
+     */
+    public void update(SystemContainer systems) {
+        if (roomTiles.getVersion() != gridVersion) {
+            gridVersion = roomTiles.getVersion();
+            if (pathCache != null) {
+                pathCache.clear();
+            }
+            hierarchicalPathfinder = null;
+            if (service != null) {
+                service.updateSnapshot(roomTiles);
+            }
+        }
+        invalidateUnavailableSystems(systems);
+        if (service != null) {
+            service.collectCompleted(getPathCache());
+        }
+        if (timeSlicedPathfinder != null) {
+            timeSlicedPathfinder.update(getPathCache());
+        }
+    }
+
+    /**
+     * @return True if paths are found over later updates, so they must be asked for with requestPath
+     */
+    public boolean isAsynchronous() {
+        if (mode == PathfindingMode.TimeSlicedAStar) {
+            return true;
+        }
+        return workerThreads > 0 && (mode == PathfindingMode.AStar || mode == PathfindingMode.JumpPoint);
+    }
+
+    /**
+     * Asks for a path from the given cell to the closest system on the given field, to be searched for on a worker
+     * thread or over the next few updates<br>
+     * Paths already in the cache are returned as a finished request. Only valid while isAsynchronous is true
+     *
+     * @param startX  The x coordinate of the starting cell
+     * @param startY  The y coordinate of the starting cell
+     * @param systems The container with positions of all systems
+     * @param targets The distance field to choose the system from, such as one leaving out guarded systems
+     * @return The request for the path, or null if no system can be reached
+     */
+    public PathRequest requestPath(int startX, int startY, SystemContainer systems, SystemDistanceField targets) {
+        if (!systems.canReachAttackableSystem(roomTiles.getRoomGraph(), startX, startY)) {
+            return null;
+        }
+        invalidateUnavailableSystems(systems);
+        int destination = targets.getClosestSystem(startX, startY);
+        if (destination == SystemDistanceField.UNREACHABLE) {
+            return null;
+        }
+        int startCell = startY * width + startX;
+        PathCache.Entry cached = getPathCache().get(startCell, destination);
+        if (cached != null) {
+            return PathRequest.completed(startCell, width, cached);
+        }
+        cachedDestinations.add(destination);
+        StationSystem system = systems.getEntityByInt(destination);
+        if (mode == PathfindingMode.TimeSlicedAStar) {
+            return getTimeSlicedPathfinder().request(startCell, system);
+        }
+        if (service == null) {
+            service = new PathfindingService(roomTiles, workerThreads);
+        }
+        return service.request(startCell, system, mode);
+    }
+
+    /**
+     * Searches for a full path from the given cell to the closest system on the given field<br>
+     * A start cell that isn't connected to any attackable system in the room graph is turned away without
+     * searching, in every mode. The closest system is then read from the field, apart from hierarchical
+     * searches, which find the closest system themselves but leave out the same systems as the field
+     *
+     * @param room    The map of valid room tiles
+     * @param startX  The x coordinate of the starting cell
+     * @param startY  The y coordinate of the starting cell
+     * @param systems The container with positions of all systems
+     * @param targets The distance field to choose the system from, such as one leaving out guarded systems
+     * @return The movements to reach the system (empty if already there), or null if no system can be reached
+     */
+    public Queue<Node.Movements> findPath(CollisionGrid room, int startX, int startY, SystemContainer systems, SystemDistanceField targets) {
+        if (!systems.canReachAttackableSystem(room.getRoomGraph(), startX, startY)) {
+            return null;
+        }
+        if (mode == PathfindingMode.Hierarchical) {
+            if (hierarchicalPathfinder == null) {
+                hierarchicalPathfinder = new HierarchicalPathfinder(roomTiles);
+            }
+            return hierarchicalPathfinder.findPath(startX, startY, systems, targets.getIgnoredSystems());
+        }
+        invalidateUnavailableSystems(systems);
+        int destination = targets.getClosestSystem(startX, startY);
+        if (destination == SystemDistanceField.UNREACHABLE) {
+            return null;
+        }
+        int startCell = startY * width + startX;
+        PathCache.Entry cached = getPathCache().get(startCell, destination);
+        if (cached != null) {
+            return cached.toPath();
+        }
+        StationSystem system = systems.getEntityByInt(destination);
+        Queue<Node.Movements> path;
+        if (mode == PathfindingMode.JumpPoint) {
+            if (jumpPointPathfinder == null) {
+                jumpPointPathfinder = new JumpPointPathfinder(roomTiles);
+            }
+            path = jumpPointPathfinder.findPath(startX, startY, system);
+        } else {
+            if (gridPathfinder == null) {
+                gridPathfinder = new GridPathfinder(roomTiles.getWidth(), roomTiles.getHeight());
+            }
+            path = gridPathfinder.findPath(room, startX, startY, system);
+        }
+        pathCache.put(startCell, destination, path);
+        cachedDestinations.add(destination);
+        return path;
+    }
+
+    /**
+     * Checks a path against the current room tiles, and goes around any cells on it that have been closed<br>
+     * Only the part of the path crossing the closed cells is replaced
+     *
+     * @param room   The map of valid room tiles
+     * @param startX The x coordinate of the cell the path starts from
+     * @param startY The y coordinate of the cell the path starts from
+     * @param moves  The movements left on the path
+     * @return The same moves if they are still walkable, the repaired moves, or null if the path should be
+     * searched for again
+     */
+    public Queue<Node.Movements> repairPath(CollisionGrid room, int startX, int startY, Queue<Node.Movements> moves) {
+        if (pathRepairer == null) {
+            pathRepairer = new PathRepairer(roomTiles.getWidth(), roomTiles.getHeight());
+        }
+        return pathRepairer.repair(room, startX, startY, moves);
+    }
+
+    /**
+     * Drops cached paths leading to systems that have been destroyed, or are cooling down
+     *
+     * @param systems The container with positions of all systems
+     */
+    private void invalidateUnavailableSystems(SystemContainer systems) {
+        IntSet.IntSetIterator iterator = cachedDestinations.iterator();
+        while (iterator.hasNext) {
+            int destination = iterator.next();
+            if (!systems.isAttackable(destination) || !systems.isActive(destination)) {
+                if (pathCache != null) {
+                    pathCache.invalidateSystem(destination);
+                }
+                if (service != null) {
+                    service.cancelSystem(destination);
+                }
+                if (timeSlicedPathfinder != null) {
+                    timeSlicedPathfinder.cancelSystem(destination);
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return The cache of paths found by A* and Jump Point Search, with its hit and miss counts
+     */
+    public PathCache getPathCache() {
+        if (pathCache == null) {
+            pathCache = new PathCache(PathCache.DEFAULT_CAPACITY_BYTES);
+        }
+        return pathCache;
+    }
+
+    /**
+     * @return The worker threads searching for paths, or null if searches run on the game thread (or no search
+     * has been asked for yet)
+     */
+    public PathfindingService getService() {
+        return service;
+    }
+
+    /**
+     * @return The pathfinder that runs A* a little at a time, and its budget
+     */
+    public TimeSlicedPathfinder getTimeSlicedPathfinder() {
+        if (timeSlicedPathfinder == null) {
+            timeSlicedPathfinder = new TimeSlicedPathfinder(roomTiles);
+        }
+        return timeSlicedPathfinder;
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    public void dispose() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    public PathfindingMode getMode() {
+        return mode;
+    }
+
+    public void setMode(PathfindingMode mode) {
+        this.mode = mode;
+    }
+}
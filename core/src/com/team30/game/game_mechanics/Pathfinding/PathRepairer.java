@@ -0,0 +1,227 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Node;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * Fixes a path after room tiles have been closed, by only replacing the part that crosses them<br>
+ * The moves up to the first closed cell are kept, then a small breadth first search looks for the cheapest way
+ * back onto the rest of the path (counting both the detour and what is left of the path after it). Anything
+ * after the point it rejoins is kept as it was, and checked for further closed cells
+ */
+class PathRepairer {
+    /**
+     * The most cells a detour search can visit, before giving up so the path is searched for again in full
+     */
+    static final int MAX_DETOUR_CELLS = 256;
+    private static final int NONE = -1;
+
+    private final int width;
+    private final int height;
+    /**
+     * Equal to currentSearch if a cell has been reached by the current detour search
+     */
+    private final int[] stamp;
+    /**
+     * Equal to currentSearch if a cell is on the rest of the path, which pathIndex then gives
+     */
+    private final int[] pathStamp;
+    private final int[] pathIndex;
+    private final int[] depth;
+    private final byte[] cameFrom;
+    private final int[] queue;
+    private final IntArray cells;
+    private final IntArray detour;
+    private int currentSearch;
+    private int repairs;
+    private int failures;
+
+    /**
+     * Creates the search state for a map
+     *
+     * @param width  The width of the map (in tiles)
+     * @param height The height of the map (in tiles)
+     */
+    PathRepairer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stamp = new int[width * height];
+        this.pathStamp = new int[width * height];
+        this.pathIndex = new int[width * height];
+        this.depth = new int[width * height];
+        this.cameFrom = new byte[width * height];
+        this.queue = new int[MAX_DETOUR_CELLS];
+        this.cells = new IntArray();
+        this.detour = new IntArray();
+    }
+
+    /**
+     * Checks the path against the current room tiles, going around any cells that have been closed
+     *
+     * @param room   The map of valid room tiles
+     * @param startX The x coordinate of the cell the path starts from
+     * @param startY The y coordinate of the cell the path starts from
+     * @param moves  The movements of the path, not changed
+     * @return The same moves if nothing is in the way, the repaired moves, or null if it couldn't be repaired
+     */
+    Queue<Node.Movements> repair(CollisionGrid room, int startX, int startY, Queue<Node.Movements> moves) {
+        if (!room.isWalkable(startX, startY)) {
+            failures++;
+            return null;
+        }
+        // The cells along the path, with NONE for any off the map
+        Node.Movements[] steps = moves.toArray(new Node.Movements[0]);
+        cells.clear();
+        int x = startX;
+        int y = startY;
+        cells.add(y * width + x);
+        for (Node.Movements step : steps) {
+            x += DIRECTION_X[step.ordinal()];
+            y += DIRECTION_Y[step.ordinal()];
+            cells.add(x < 0 || y < 0 || x >= width || y >= height ? NONE : y * width + x);
+        }
+        int blocked = nextBlocked(room, 1);
+        if (blocked == cells.size) {
+            return moves;
+        }
+
+        LinkedList<Node.Movements> repaired = new LinkedList<>();
+        int index = 0;
+        while (blocked < cells.size) {
+            // Keep the moves up to the cell before the closed one
+            for (int step = index; step < blocked - 1; step++) {
+                repaired.add(steps[step]);
+            }
+            int rejoin = findDetour(room, blocked - 1, blocked);
+            if (rejoin == NONE) {
+                failures++;
+                return null;
+            }
+            for (int step = detour.size - 1; step >= 0; step--) {
+                repaired.add(MOVEMENTS[detour.get(step)]);
+            }
+            index = rejoin;
+            blocked = nextBlocked(room, rejoin + 1);
+        }
+        for (int step = index; step < steps.length; step++) {
+            repaired.add(steps[step]);
+        }
+        repairs++;
+        return repaired;
+    }
+
+    /**
+     * @return The index of the first closed (or off the map) cell on the path from the given index, or the
+     * number of cells if there isn't one
+     */
+    private int nextBlocked(CollisionGrid room, int from) {
+        for (int index = from; index < cells.size; index++) {
+            int cell = cells.get(index);
+            if (cell == NONE || !room.isWalkable(cell % width, cell / width)) {
+                return index;
+            }
+        }
+        return cells.size;
+    }
+
+    /**
+     * Searches out from a cell on the path for the cheapest way back onto the path after a closed cell<br>
+     * Fills detour with the move indices taken, in reverse order
+     *
+     * @param from    The index of the cell to leave the path from
+     * @param blocked The index of the closed cell
+     * @return The index of the cell the detour rejoins the path at, or NONE if there isn't one close enough
+     */
+    private int findDetour(CollisionGrid room, int from, int blocked) {
+        if (++currentSearch == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(pathStamp, 0);
+            currentSearch = 1;
+        }
+        int last = cells.size - 1;
+        for (int index = blocked + 1; index <= last; index++) {
+            int cell = cells.get(index);
+            if (cell != NONE) {
+                // Later indices win, so a path that loops back on itself skips the loop
+                pathStamp[cell] = currentSearch;
+                pathIndex[cell] = index;
+            }
+        }
+
+        int start = cells.get(from);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        stamp[start] = currentSearch;
+        depth[start] = 0;
+        cameFrom[start] = -1;
+        int bestCell = NONE;
+        int bestCost = Integer.MAX_VALUE;
+        while (head < tail) {
+            int cell = queue[head++];
+            // The rest of the path can't be shorter than nothing, so nothing further out can do better
+            if (depth[cell] >= bestCost) {
+                break;
+            }
+            if (pathStamp[cell] == currentSearch) {
+                int cost = depth[cell] + last - pathIndex[cell];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestCell = cell;
+                }
+                continue;
+            }
+            int cellX = cell % width;
+            int cellY = cell / width;
+            for (int move = 0; move < MOVEMENTS.length; move++) {
+                int nextX = cellX + DIRECTION_X[move];
+                int nextY = cellY + DIRECTION_Y[move];
+                if (!room.isWalkable(nextX, nextY)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (stamp[next] == currentSearch) {
+                    continue;
+                }
+                if (tail == queue.length) {
+                    break;
+                }
+                stamp[next] = currentSearch;
+                depth[next] = depth[cell] + 1;
+                cameFrom[next] = (byte) move;
+                queue[tail++] = next;
+            }
+        }
+        if (bestCell == NONE) {
+            return NONE;
+        }
+        detour.clear();
+        for (int cell = bestCell; cameFrom[cell] != -1; cell -= DIRECTION_Y[cameFrom[cell]] * width + DIRECTION_X[cameFrom[cell]]) {
+            detour.add(cameFrom[cell]);
+        }
+        return pathIndex[bestCell];
+    }
+
+    /**
+     * @return The number of paths that have been repaired
+     */
+    int getRepairs() {
+        return repairs;
+    }
+
+    /**
+     * @return The number of paths that couldn't be repaired, and had to be searched for again
+     */
+    int getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,124 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.team30.game.game_mechanics.Node;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Future;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * A path that has been asked for, which may still be being searched for on a worker thread<br>
+ * Infiltrators asking for the same path share one request, so each of them gets its own copy of the moves
+ */
+public class PathRequest {
+    final int startCell;
+    final int destination;
+    private final int width;
+    /**
+     * The search running on a worker thread, only touched by the game thread
+     */
+    Future<?> future;
+    /**
+     * Set by the worker thread once the search has finished
+     */
+    private volatile PathCache.Entry result;
+    private volatile boolean cancelled;
+    /**
+     * The version of the room tiles the path was searched for on, set by the worker thread before it finishes
+     */
+    volatile int gridVersion;
+
+    PathRequest(int startCell, int destination, int width) {
+        this.startCell = startCell;
+        this.destination = destination;
+        this.width = width;
+    }
+
+    /**
+     * Creates a request that is already finished, for a path that was found in the cache
+     */
+    static PathRequest completed(int startCell, int width, PathCache.Entry entry) {
+        PathRequest request = new PathRequest(startCell, entry.destination, width);
+        request.result = entry;
+        return request;
+    }
+
+    void complete(PathCache.Entry entry) {
+        this.result = entry;
+    }
+
+    /**
+     * Stops the search if it hasn't started yet, because the destination can no longer be attacked
+     */
+    void cancel() {
+        cancelled = true;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    PathCache.Entry getResult() {
+        return result;
+    }
+
+    /**
+     * @return True if the search has finished
+     */
+    public boolean isDone() {
+        return result != null;
+    }
+
+    /**
+     * @return True if the destination could no longer be attacked before the path arrived
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return True if the search has finished and found a path
+     */
+    public boolean isReachable() {
+        return result != null && result.moves != null;
+    }
+
+    /**
+     * @return The ID of the system the path leads to
+     */
+    public int getDestination() {
+        return destination;
+    }
+
+    /**
+     * Returns the rest of the path from the given cell, as the infiltrator may have moved while waiting for it
+     *
+     * @param x The x coordinate of the current cell
+     * @param y The y coordinate of the current cell
+     * @return The remaining movements, or null if the search hasn't finished, failed, or the cell is not on the path
+     */
+    public Queue<Node.Movements> getPathFrom(int x, int y) {
+        if (!isReachable()) {
+            return null;
+        }
+        byte[] moves = result.moves;
+        int target = y * width + x;
+        int cell = startCell;
+        int index = 0;
+        while (cell != target) {
+            if (index == moves.length) {
+                return null;
+            }
+            cell += DIRECTION_Y[moves[index]] * width + DIRECTION_X[moves[index]];
+            index++;
+        }
+        LinkedList<Node.Movements> path = new LinkedList<>();
+        for (; index < moves.length; index++) {
+            path.add(MOVEMENTS[moves[index]]);
+        }
+        return path;
+    }
+}
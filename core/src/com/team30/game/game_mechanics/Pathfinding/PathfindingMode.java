@@ -0,0 +1,27 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+/**
+ * The ways an infiltrator can find its way to a system
+ */
+public enum PathfindingMode {
+    /**
+     * Searches for a full path with A*, whenever the infiltrator needs a new target
+     */
+    AStar,
+    /**
+     * Follows the shared distance field towards the closest system, one cell at a time
+     */
+    FlowField,
+    /**
+     * Searches a precomputed graph of the gaps between clusters of the map, for large maps
+     */
+    Hierarchical,
+    /**
+     * Searches for a full path with Jump Point Search, which skips over the open parts of rooms
+     */
+    JumpPoint,
+    /**
+     * Searches with A* a little at a time each update, within a budget shared by all infiltrators
+     */
+    TimeSlicedAStar
+}
@@ -0,0 +1,204 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.StationSystem;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs path searches on a pool of worker threads, so a long search never holds up rendering<br>
+ * The workers search a copy of the room tiles taken when the service is created, and each has its own
+ * pathfinders. Systems never move, so their positions are read directly<br>
+ * Apart from the workers themselves, everything here is only called from the game thread
+ */
+public class PathfindingService {
+    /**
+     * A copy of the room tiles, only read by the workers<br>
+     * Replaced with a new copy when the room tiles change, so a running search keeps the copy it started with
+     */
+    private volatile CollisionGrid snapshot;
+    private final int width;
+    private final int threads;
+    /**
+     * The searches that haven't been collected yet, keyed like the path cache so the same search is only run once
+     */
+    private final HashMap<Long, PathRequest> pending;
+    /**
+     * Searches finished by the workers, waiting to be collected on the game thread
+     */
+    private final ConcurrentLinkedQueue<PathRequest> completed;
+    private final ThreadLocal<GridPathfinder> gridPathfinders;
+    private final ThreadLocal<JumpPointPathfinder> jumpPointPathfinders;
+    /**
+     * Started when the first search is requested
+     */
+    private ExecutorService workers;
+
+    private int requests;
+    private int duplicates;
+    private int cancellations;
+
+    /**
+     * Creates a service for the given map
+     *
+     * @param roomTiles The map of valid room tiles
+     * @param threads   The number of worker threads to search on
+     */
+    public PathfindingService(CollisionGrid roomTiles, int threads) {
+        this.snapshot = new CollisionGrid(roomTiles);
+        this.width = roomTiles.getWidth();
+        this.threads = threads;
+        this.pending = new HashMap<>();
+        this.completed = new ConcurrentLinkedQueue<>();
+        this.gridPathfinders = ThreadLocal.withInitial(() -> new GridPathfinder(snapshot.getWidth(), snapshot.getHeight()));
+        this.jumpPointPathfinders = ThreadLocal.withInitial(() -> new JumpPointPathfinder(snapshot));
+    }
+
+    /**
+     * Starts searching for a path, or joins a search for the same path that is already running
+     *
+     * @param startCell   The packed cell to start from
+     * @param destination The system to reach
+     * @param mode        Which search to use, Jump Point Search or A*
+     * @return The request, which will be finished on a later update
+     */
+    PathRequest request(int startCell, StationSystem destination, PathfindingMode mode) {
+        long key = PathCache.key(startCell, destination.id.ID);
+        PathRequest request = pending.get(key);
+        if (request != null && !request.isCancelled()) {
+            duplicates++;
+            return request;
+        }
+        request = new PathRequest(startCell, destination.id.ID, width);
+        pending.put(key, request);
+        requests++;
+        if (workers == null || workers.isShutdown()) {
+            workers = Executors.newFixedThreadPool(threads, new WorkerFactory());
+        }
+        final PathRequest search = request;
+        request.future = workers.submit(() -> run(search, destination, mode));
+        return request;
+    }
+
+    /**
+     * Runs on a worker thread
+     */
+    private void run(PathRequest request, StationSystem destination, PathfindingMode mode) {
+        if (request.isCancelled()) {
+            completed.add(request);
+            return;
+        }
+        int x = request.startCell % width;
+        int y = request.startCell / width;
+        CollisionGrid grid = snapshot;
+        try {
+            Queue<Node.Movements> path;
+            if (mode == PathfindingMode.JumpPoint) {
+                JumpPointPathfinder pathfinder = jumpPointPathfinders.get();
+                if (pathfinder.getRoomTiles() != grid) {
+                    pathfinder = new JumpPointPathfinder(grid);
+                    jumpPointPathfinders.set(pathfinder);
+                }
+                path = pathfinder.findPath(x, y, destination);
+            } else {
+                path = gridPathfinders.get().findPath(grid, x, y, destination);
+            }
+            request.gridVersion = grid.getVersion();
+            request.complete(new PathCache.Entry(request.destination, path));
+        } catch (RuntimeException e) {
+            // The infiltrator will ask again, so give up on this search rather than leave it pending forever
+            System.out.println("Path search failed: " + e);
+            request.cancel();
+        }
+        completed.add(request);
+    }
+
+    /**
+     * Collects the searches the workers have finished, storing their paths in the cache
+     *
+     * @param cache The cache to store the paths in
+     */
+    void collectCompleted(PathCache cache) {
+        PathRequest request;
+        while ((request = completed.poll()) != null) {
+            long key = PathCache.key(request.startCell, request.destination);
+            if (pending.get(key) == request) {
+                pending.remove(key);
+            }
+            // Paths found on an old copy of the map are still handed out (and checked), but not kept
+            if (!request.isCancelled() && request.isDone() && request.gridVersion == snapshot.getVersion()) {
+                cache.put(request.startCell, request.getResult());
+            }
+        }
+    }
+
+    /**
+     * Gives the workers a new copy of the room tiles, for searches started from now on
+     *
+     * @param roomTiles The map of valid room tiles, after it has changed
+     */
+    void updateSnapshot(CollisionGrid roomTiles) {
+        snapshot = new CollisionGrid(roomTiles);
+    }
+
+    /**
+     * Cancels every search heading for the given system, because it can no longer be attacked
+     *
+     * @param destination The ID of the system
+     */
+    void cancelSystem(int destination) {
+        Iterator<PathRequest> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            PathRequest request = iterator.next();
+            if (request.destination == destination) {
+                request.cancel();
+                iterator.remove();
+                cancellations++;
+            }
+        }
+    }
+
+    /**
+     * @return The number of searches that haven't been collected yet
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops the worker threads, they are started again if another search is requested
+     */
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Pathfinding service: " + requests + " searches, " + duplicates + " duplicates joined, "
+                + cancellations + " cancelled, " + pending.size() + " pending";
+    }
+
+    /**
+     * Daemon threads, so a running search never keeps the game open
+     */
+    private static class WorkerFactory implements ThreadFactory {
+        private static final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "pathfinding-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
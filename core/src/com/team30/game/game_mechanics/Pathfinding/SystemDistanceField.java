@@ -0,0 +1,399 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.IntArray;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.SystemContainer;
+
+import java.util.Arrays;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+import static com.team30.game.game_mechanics.Node.MOVEMENTS;
+
+/**
+ * A flow field, storing the walking distance from every room tile to the closest attackable system<br>
+ * Built with one breadth first search seeded from every system at once, so any number of infiltrators
+ * can find their next move by looking at their neighbouring cells<br>
+ * When room tiles are opened or closed the field is repaired with Lifelong Planning A* (with no heuristic, as
+ * there is no single start to aim for), which only visits the cells whose distance actually changes<br>
+ * Each cell is the bottom left corner of an infiltrator sized box, checked against the walls the same way as
+ * entity movement, so only cells the box fits on are in the field. The search starts from every cell where the
+ * box covers a room tile next to a system, so every step down the field can be walked and ends at a system
+ */
+public class SystemDistanceField {
+    /**
+     * The distance stored for cells that can not reach any system
+     */
+    public static final int UNREACHABLE = -1;
+    /**
+     * The cost of cells that can not reach any system, while repairing
+     */
+    private static final int INFINITE = Integer.MAX_VALUE;
+
+    private final CollisionGrid roomTiles;
+    private final int width;
+    private final int height;
+    /**
+     * The size of the box moved down the field, the same as the entity's width and height
+     */
+    private final int boxWidth;
+    private final int boxHeight;
+    /**
+     * The number of moves from each cell to the closest system
+     */
+    private final int[] distance;
+    /**
+     * The ID of the system each cell is closest to
+     */
+    private final int[] closestSystem;
+    /**
+     * The queue of packed cells used by the search
+     */
+    private final int[] queue;
+    /**
+     * The room tiles next to each system, that the search starts from
+     */
+    private final SystemGoals goals;
+    private final IntArray seedCells;
+    private final IntArray seedSystems;
+    /**
+     * The attackable systems left out of the field when it was last built
+     */
+    private final Bits ignoredSystems;
+    /**
+     * The distance each cell should have, from its best neighbour (0 next to a system), INFINITE if there is none.
+     * Cells where this doesn't match the distance are waiting in the open set to be repaired
+     */
+    private final int[] lookahead;
+    /**
+     * The closest system through the best neighbour of each cell
+     */
+    private final int[] lookaheadSystem;
+    private final IntMinHeap openSet;
+    /**
+     * The version of the room tiles the field matches
+     */
+    private int gridVersion;
+    private int repairedCells;
+
+    /**
+     * Creates an empty field for the given map, call rebuild to fill it
+     *
+     * @param roomTiles The map of valid room tiles
+     * @param boxWidth  The width of the entities that follow the field (in tiles)
+     * @param boxHeight The height of the entities that follow the field (in tiles)
+     */
+    public SystemDistanceField(CollisionGrid roomTiles, int boxWidth, int boxHeight) {
+        this.roomTiles = roomTiles;
+        this.width = roomTiles.getWidth();
+        this.height = roomTiles.getHeight();
+        this.boxWidth = boxWidth;
+        this.boxHeight = boxHeight;
+        this.distance = new int[width * height];
+        this.closestSystem = new int[width * height];
+        this.queue = new int[width * height];
+        this.goals = new SystemGoals();
+        this.seedCells = new IntArray();
+        this.seedSystems = new IntArray();
+        this.ignoredSystems = new Bits();
+        this.lookahead = new int[width * height];
+        this.lookaheadSystem = new int[width * height];
+        this.openSet = new IntMinHeap(64);
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(lookahead, INFINITE);
+    }
+
+    /**
+     * Recalculates the distance of every cell from the systems that can currently be attacked<br>
+     * Systems sit in the walls, so every cell where the box covers a room tile next to a system is a starting point
+     *
+     * @param systems The container with positions of all systems
+     */
+    public void rebuild(SystemContainer systems) {
+        rebuild(systems, null);
+    }
+
+    /**
+     * Recalculates the distance of every cell from the systems that can currently be attacked, apart from the
+     * ignored ones (such as those the Auber is guarding)
+     *
+     * @param systems The container with positions of all systems
+     * @param ignored The IDs of the systems to leave out, or null to leave none out
+     */
+    public void rebuild(SystemContainer systems, Bits ignored) {
+        Arrays.fill(distance, UNREACHABLE);
+        seedCells.clear();
+        seedSystems.clear();
+        ignoredSystems.clear();
+        if (ignored != null) {
+            ignoredSystems.or(ignored);
+        }
+        goals.setAttackable(systems, ignoredSystems);
+        goals.collectCells(roomTiles, seedCells, seedSystems);
+        int head = 0;
+        int tail = 0;
+        for (int seed = 0; seed < seedCells.size; seed++) {
+            int goalX = seedCells.get(seed) % width;
+            int goalY = seedCells.get(seed) / width;
+            // Every corner the box could be on while covering the room tile
+            for (int y = goalY - boxHeight; y <= goalY; y++) {
+                for (int x = goalX - boxWidth; x <= goalX; x++) {
+                    int system = systemTouching(x, y);
+                    if (system != UNREACHABLE && distance[y * width + x] == UNREACHABLE) {
+                        distance[y * width + x] = 0;
+                        closestSystem[y * width + x] = system;
+                        queue[tail++] = y * width + x;
+                    }
+                }
+            }
+        }
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            for (int move = 0; move < DIRECTION_X.length; move++) {
+                int nextX = x + DIRECTION_X[move];
+                int nextY = y + DIRECTION_Y[move];
+                if (!fits(nextX, nextY)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (distance[next] == UNREACHABLE) {
+                    distance[next] = distance[cell] + 1;
+                    closestSystem[next] = closestSystem[cell];
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        // Every cell starts out matching its best neighbour, so only changed cells need repairing
+        for (int cell = 0; cell < distance.length; cell++) {
+            lookahead[cell] = cost(cell);
+            lookaheadSystem[cell] = closestSystem[cell];
+        }
+        openSet.clear();
+        gridVersion = roomTiles.getVersion();
+    }
+
+    /**
+     * Catches up with the room tiles opened or closed since the field was last built or repaired<br>
+     * Each changed cell and its neighbours work out their distance from their best neighbour again, then the
+     * cells that no longer match are settled in order of distance, spreading the change only as far as it goes
+     *
+     * @return True if any room tiles had changed
+     */
+    public boolean repair() {
+        int version = roomTiles.getVersion();
+        if (version == gridVersion) {
+            return false;
+        }
+        for (int change = gridVersion; change < version; change++) {
+            int cell = roomTiles.getChangedCell(change);
+            // Every box covering the changed tile may have started or stopped fitting
+            for (int y = cell / width - boxHeight; y <= cell / width; y++) {
+                for (int x = cell % width - boxWidth; x <= cell % width; x++) {
+                    updateLookahead(x, y);
+                    for (int move = 0; move < DIRECTION_X.length; move++) {
+                        updateLookahead(x + DIRECTION_X[move], y + DIRECTION_Y[move]);
+                    }
+                }
+            }
+        }
+        gridVersion = version;
+
+        while (!openSet.isEmpty()) {
+            float key = openSet.peekPriority();
+            int cell = openSet.pop();
+            int current = cost(cell);
+            int best = lookahead[cell];
+            // Skip entries left behind by an earlier push for the same cell
+            if (key != Math.min(current, best)) {
+                continue;
+            }
+            repairedCells++;
+            if (current > best) {
+                // Found a shorter way (or the first way) to a system
+                distance[cell] = best;
+                closestSystem[cell] = lookaheadSystem[cell];
+            } else if (current < best) {
+                // The old way was closed off, so forget it and look again once the neighbours have settled
+                distance[cell] = UNREACHABLE;
+                updateLookahead(cell % width, cell / width);
+            } else if (closestSystem[cell] != lookaheadSystem[cell]) {
+                // Same distance, but through a different system
+                closestSystem[cell] = lookaheadSystem[cell];
+            } else {
+                continue;
+            }
+            int x = cell % width;
+            int y = cell / width;
+            for (int move = 0; move < DIRECTION_X.length; move++) {
+                updateLookahead(x + DIRECTION_X[move], y + DIRECTION_Y[move]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Works out the distance a cell should have from its neighbours, and queues it if that isn't its distance
+     */
+    private void updateLookahead(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return;
+        }
+        int cell = y * width + x;
+        int best = INFINITE;
+        int bestSystem = UNREACHABLE;
+        if (fits(x, y)) {
+            bestSystem = systemTouching(x, y);
+            if (bestSystem != UNREACHABLE) {
+                best = 0;
+            } else {
+                for (int move = 0; move < DIRECTION_X.length; move++) {
+                    int nextX = x + DIRECTION_X[move];
+                    int nextY = y + DIRECTION_Y[move];
+                    if (!fits(nextX, nextY)) {
+                        continue;
+                    }
+                    int next = nextY * width + nextX;
+                    if (distance[next] != UNREACHABLE && distance[next] + 1 < best) {
+                        best = distance[next] + 1;
+                        bestSystem = closestSystem[next];
+                    }
+                }
+            }
+        }
+        lookahead[cell] = best;
+        lookaheadSystem[cell] = bestSystem;
+        int current = cost(cell);
+        if (current != best || (best != INFINITE && closestSystem[cell] != bestSystem)) {
+            openSet.push(cell, Math.min(current, best));
+        }
+    }
+
+    /**
+     * @return True if the box fits with its bottom left corner on the cell
+     */
+    private boolean fits(int x, int y) {
+        return roomTiles.isAreaWalkable(x, y, boxWidth, boxHeight);
+    }
+
+    /**
+     * @return The ID of the first system next to a room tile the box covers from the cell, or UNREACHABLE if the
+     * box doesn't fit there or doesn't cover a tile next to a system
+     */
+    private int systemTouching(int x, int y) {
+        if (!fits(x, y)) {
+            return UNREACHABLE;
+        }
+        for (int coveredY = y; coveredY <= y + boxHeight; coveredY++) {
+            for (int coveredX = x; coveredX <= x + boxWidth; coveredX++) {
+                int system = goals.systemNextTo(coveredX, coveredY);
+                if (system != UNREACHABLE && roomTiles.isWalkable(coveredX, coveredY)) {
+                    return system;
+                }
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    /**
+     * @return The distance of the cell, or INFINITE if it can't reach a system
+     */
+    private int cost(int cell) {
+        return distance[cell] == UNREACHABLE ? INFINITE : distance[cell];
+    }
+
+    /**
+     * @return The distance of the cell, or INFINITE if it can't reach a system (or is outside the map)
+     */
+    private int cost(int x, int y) {
+        int distance = getDistance(x, y);
+        return distance == UNREACHABLE ? INFINITE : distance;
+    }
+
+    /**
+     * @return The IDs of the attackable systems left out of the field, which searches choosing from this field
+     * should also leave out
+     */
+    public Bits getIgnoredSystems() {
+        return ignoredSystems;
+    }
+
+    /**
+     * @return The number of cells settled by repairs, since the field was created
+     */
+    public int getRepairedCells() {
+        return repairedCells;
+    }
+
+    /**
+     * @return The number of moves to the closest system, or UNREACHABLE
+     */
+    public int getDistance(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return UNREACHABLE;
+        }
+        return distance[y * width + x];
+    }
+
+    /**
+     * @return The ID of the closest system, or UNREACHABLE if there is none
+     */
+    public int getClosestSystem(int x, int y) {
+        if (getDistance(x, y) == UNREACHABLE) {
+            return UNREACHABLE;
+        }
+        return closestSystem[y * width + x];
+    }
+
+    /**
+     * Follows the field downhill from the given cell<br>
+     * From a cell the box doesn't fit on (such as a spawn next to a wall), steps onto the closest cell of the field
+     *
+     * @return The move towards the closest system, or null if already there (or no system can be reached)
+     */
+    public Node.Movements getNextMove(int x, int y) {
+        int current = cost(x, y);
+        for (int move = 0; move < DIRECTION_X.length; move++) {
+            if (cost(x + DIRECTION_X[move], y + DIRECTION_Y[move]) < current) {
+                return MOVEMENTS[move];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Follows the field downhill from the given cell, taking the way furthest from the Auber when there is a choice<br>
+     * From a cell the box doesn't fit on, steps onto any neighbouring cell of the field
+     *
+     * @param auber How far the Auber is from each cell
+     * @return The move towards the closest system, or null if already there (or no system can be reached)
+     */
+    public Node.Movements getNextMove(int x, int y, AuberDistanceField auber) {
+        int current = cost(x, y);
+        Node.Movements best = null;
+        int bestAuberDistance = Integer.MIN_VALUE;
+        for (int move = 0; move < DIRECTION_X.length; move++) {
+            int nextX = x + DIRECTION_X[move];
+            int nextY = y + DIRECTION_Y[move];
+            int next = cost(nextX, nextY);
+            if (next >= current) {
+                continue;
+            }
+            int auberDistance = auber.getDistance(nextX, nextY);
+            // Past the radius is further than anywhere inside it
+            if (auberDistance == AuberDistanceField.UNREACHABLE) {
+                return MOVEMENTS[move];
+            }
+            if (auberDistance > bestAuberDistance) {
+                bestAuberDistance = auberDistance;
+                best = MOVEMENTS[move];
+            }
+        }
+        return best;
+    }
+}
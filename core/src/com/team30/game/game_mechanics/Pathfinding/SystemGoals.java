@@ -0,0 +1,137 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.IntArray;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.StationSystem;
+import com.team30.game.game_mechanics.SystemContainer;
+
+import java.util.Arrays;
+
+/**
+ * The footprints of the systems a search is heading for<br>
+ * Systems sit in the walls, so a system is reached from any room tile next to it
+ */
+class SystemGoals {
+    private int[] left = new int[16];
+    private int[] bottom = new int[16];
+    private int[] right = new int[16];
+    private int[] top = new int[16];
+    private int[] ids = new int[16];
+    private int count;
+
+    /**
+     * Replaces the goals with every system that can currently be attacked
+     *
+     * @param systems The container with positions of all systems
+     */
+    void setAttackable(SystemContainer systems) {
+        setAttackable(systems, null);
+    }
+
+    /**
+     * Replaces the goals with every system that can currently be attacked, apart from the ignored ones
+     *
+     * @param systems The container with positions of all systems
+     * @param ignored The IDs of the systems to leave out, or null to leave none out
+     */
+    void setAttackable(SystemContainer systems, Bits ignored) {
+        clear();
+        Bits attackable = systems.getAttackableSystems();
+        for (int id = attackable.nextSetBit(0); id >= 0; id = attackable.nextSetBit(id + 1)) {
+            if (ignored == null || !ignored.get(id)) {
+                add(systems.getEntityByInt(id));
+            }
+        }
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    void add(StationSystem system) {
+        if (count == left.length) {
+            left = Arrays.copyOf(left, count * 2);
+            bottom = Arrays.copyOf(bottom, count * 2);
+            right = Arrays.copyOf(right, count * 2);
+            top = Arrays.copyOf(top, count * 2);
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        left[count] = (int) system.getXPosition();
+        bottom[count] = (int) system.getYPosition();
+        right[count] = left[count] + Math.max(1, system.width) - 1;
+        top[count] = bottom[count] + Math.max(1, system.height) - 1;
+        ids[count] = system.id.ID;
+        count++;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return The manhattan distance from the cell to the closest system footprint
+     */
+    int distance(int x, int y) {
+        int minDistance = Integer.MAX_VALUE;
+        for (int goal = 0; goal < count; goal++) {
+            int dx = Math.max(0, Math.max(left[goal] - x, x - right[goal]));
+            int dy = Math.max(0, Math.max(bottom[goal] - y, y - top[goal]));
+            minDistance = Math.min(minDistance, dx + dy);
+        }
+        return minDistance;
+    }
+
+    /**
+     * @return The ID of the first system the cell is next to (or inside), or -1 if there isn't one
+     */
+    int systemNextTo(int x, int y) {
+        for (int goal = 0; goal < count; goal++) {
+            int dx = Math.max(0, Math.max(left[goal] - x, x - right[goal]));
+            int dy = Math.max(0, Math.max(bottom[goal] - y, y - top[goal]));
+            if (dx + dy <= 1) {
+                return ids[goal];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return True if the cell is next to (or inside) a system
+     */
+    boolean isReached(int x, int y) {
+        return distance(x, y) <= 1;
+    }
+
+    /**
+     * @return A lower bound on the number of moves from the cell to any system
+     */
+    int heuristic(int x, int y) {
+        return Math.max(0, distance(x, y) - 1);
+    }
+
+    /**
+     * Adds every room tile next to a system to the given list, as packed cells
+     *
+     * @param roomTiles The map of valid room tiles
+     * @param cells     The list to add the cells to
+     * @param systemIds The ID of the system each added cell is next to
+     */
+    void collectCells(CollisionGrid roomTiles, IntArray cells, IntArray systemIds) {
+        int width = roomTiles.getWidth();
+        for (int goal = 0; goal < count; goal++) {
+            for (int y = bottom[goal] - 1; y <= top[goal] + 1; y++) {
+                for (int x = left[goal] - 1; x <= right[goal] + 1; x++) {
+                    // Skip the corners, they only touch the system diagonally
+                    boolean outsideX = x < left[goal] || x > right[goal];
+                    boolean outsideY = y < bottom[goal] || y > top[goal];
+                    if ((outsideX && outsideY) || !roomTiles.isWalkable(x, y)) {
+                        continue;
+                    }
+                    cells.add(y * width + x);
+                    systemIds.add(ids[goal]);
+                }
+            }
+        }
+    }
+}
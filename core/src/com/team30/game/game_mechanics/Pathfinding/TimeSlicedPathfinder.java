@@ -0,0 +1,183 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.StationSystem;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Runs A* searches a little at a time on the game thread, so no update spends more than a set budget on them<br>
+ * Each update the budget is split evenly between the waiting searches, taking turns so the searches that were
+ * left out last time go first. Budget left over by searches that finish early is passed on to the rest
+ */
+public class TimeSlicedPathfinder {
+    /**
+     * The default number of cells that can be expanded in one update, across all searches
+     */
+    public static final int DEFAULT_NODE_BUDGET = 2000;
+    /**
+     * The default time that can be spent searching in one update (in microseconds)
+     */
+    public static final int DEFAULT_TIME_BUDGET_MICROS = 1000;
+    /**
+     * The fewest cells a search expands in one turn, so a crowd of searches still makes progress
+     */
+    private static final int MIN_SLICE = 16;
+
+    private final CollisionGrid roomTiles;
+    /**
+     * The searches that haven't finished, in the order they take their turns
+     */
+    private final ArrayDeque<IncrementalSearch> waiting;
+    /**
+     * The same searches, keyed like the path cache so the same search is only run once
+     */
+    private final HashMap<Long, IncrementalSearch> pending;
+    /**
+     * Finished searches, kept so their map sized arrays can be reused by the next search
+     */
+    private final ArrayDeque<IncrementalSearch> spare;
+    private int nodeBudget;
+    private long timeBudgetNanos;
+
+    private int requests;
+    private int duplicates;
+    private int cancellations;
+    private long totalExpandedNodes;
+    private long longestUpdateNanos;
+
+    /**
+     * Creates a pathfinder with the default budget
+     *
+     * @param roomTiles The map of valid room tiles
+     */
+    public TimeSlicedPathfinder(CollisionGrid roomTiles) {
+        this.roomTiles = roomTiles;
+        this.waiting = new ArrayDeque<>();
+        this.pending = new HashMap<>();
+        this.spare = new ArrayDeque<>();
+        this.nodeBudget = DEFAULT_NODE_BUDGET;
+        this.timeBudgetNanos = DEFAULT_TIME_BUDGET_MICROS * 1000L;
+    }
+
+    /**
+     * Starts a search, or joins a search for the same path that is already waiting
+     *
+     * @param startCell   The packed cell to start from
+     * @param destination The system to reach
+     * @return The request, which will be finished on a later update
+     */
+    PathRequest request(int startCell, StationSystem destination) {
+        long key = PathCache.key(startCell, destination.id.ID);
+        IncrementalSearch search = pending.get(key);
+        if (search != null) {
+            duplicates++;
+            return search.request;
+        }
+        search = spare.isEmpty() ? new IncrementalSearch(roomTiles) : spare.poll();
+        search.start(new PathRequest(startCell, destination.id.ID, roomTiles.getWidth()), destination);
+        pending.put(key, search);
+        waiting.add(search);
+        requests++;
+        return search.request;
+    }
+
+    /**
+     * Carries on the waiting searches until the node or time budget runs out, storing finished paths in the cache
+     *
+     * @param cache The cache to store the paths in
+     */
+    void update(PathCache cache) {
+        long start = System.nanoTime();
+        int remaining = nodeBudget;
+        while (!waiting.isEmpty() && remaining > 0 && System.nanoTime() - start < timeBudgetNanos) {
+            // One round, giving every waiting search an even share of what is left
+            int turns = waiting.size();
+            int slice = Math.max(MIN_SLICE, remaining / turns);
+            for (int turn = 0; turn < turns && remaining > 0; turn++) {
+                IncrementalSearch search = waiting.poll();
+                remaining -= search.step(Math.min(slice, remaining));
+                if (search.isFinished()) {
+                    finish(search, cache);
+                } else {
+                    waiting.add(search);
+                }
+                if (System.nanoTime() - start >= timeBudgetNanos) {
+                    break;
+                }
+            }
+        }
+        totalExpandedNodes += nodeBudget - remaining;
+        longestUpdateNanos = Math.max(longestUpdateNanos, System.nanoTime() - start);
+    }
+
+    private void finish(IncrementalSearch search, PathCache cache) {
+        PathRequest request = search.request;
+        pending.remove(PathCache.key(request.startCell, request.destination));
+        PathCache.Entry entry = new PathCache.Entry(request.destination, search.getPath());
+        request.complete(entry);
+        cache.put(request.startCell, entry);
+        spare.add(search);
+    }
+
+    /**
+     * Cancels every search heading for the given system, because it can no longer be attacked
+     *
+     * @param destination The ID of the system
+     */
+    void cancelSystem(int destination) {
+        Iterator<IncrementalSearch> iterator = waiting.iterator();
+        while (iterator.hasNext()) {
+            IncrementalSearch search = iterator.next();
+            PathRequest request = search.request;
+            if (request.destination == destination) {
+                request.cancel();
+                pending.remove(PathCache.key(request.startCell, request.destination));
+                iterator.remove();
+                spare.add(search);
+                cancellations++;
+            }
+        }
+    }
+
+    /**
+     * Sets the most cells that can be expanded in one update, across all searches
+     *
+     * @param nodeBudget The number of cells
+     */
+    public void setNodeBudget(int nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Sets the most time that can be spent searching in one update
+     *
+     * @param timeBudgetMicros The time (in microseconds)
+     */
+    public void setTimeBudgetMicros(int timeBudgetMicros) {
+        this.timeBudgetNanos = timeBudgetMicros * 1000L;
+    }
+
+    /**
+     * @return The number of searches that haven't finished
+     */
+    public int getPendingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * @return The longest time spent searching in one update (in nanoseconds)
+     */
+    public long getLongestUpdateNanos() {
+        return longestUpdateNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Time sliced pathfinder: " + requests + " searches, " + duplicates + " duplicates joined, "
+                + cancellations + " cancelled, " + waiting.size() + " pending, " + totalExpandedNodes
+                + " nodes expanded, longest update: " + longestUpdateNanos / 1000 + "us";
+    }
+}
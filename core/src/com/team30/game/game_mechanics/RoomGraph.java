@@ -0,0 +1,379 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * The walkable cells split into rooms and the corridors between them, with a graph of which ones touch<br>
+ * Rooms are the open areas of the map: every cell whose 3x3 neighbourhood is walkable seeds a room, and
+ * each room takes the ring of cells around its seeds. What is left over is split into corridors, and the
+ * corridor cells next to a room are its doorways<br>
+ * Rooms and corridors are both segments, rooms numbered first. The connected parts of the graph are labelled
+ * too, so checking whether one cell can be reached from another is two array lookups
+ */
+public class RoomGraph {
+    /**
+     * The segment of cells that aren't walkable, and the answer when there is no segment
+     */
+    public static final int NONE = -1;
+    /**
+     * How far (in cells, including diagonals) a cell must be from the nearest wall to seed a room
+     */
+    private static final int ROOM_CLEARANCE = 2;
+    /**
+     * The 8 neighbours of a cell, for measuring the clearance
+     */
+    private static final int[] AROUND_X = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] AROUND_Y = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    private final int width;
+    private final int height;
+    /**
+     * The segment of each packed cell, or NONE if it isn't walkable
+     */
+    private final int[] segmentOfCell;
+    /**
+     * Marks the corridor cells next to a room
+     */
+    private final boolean[] doorway;
+    private final int roomCount;
+    private final int segmentCount;
+    /**
+     * The number of cells in each segment
+     */
+    private final int[] segmentSize;
+    /**
+     * The segments next to each segment are between adjacentStart[segment] and adjacentStart[segment + 1]
+     */
+    private final int[] adjacentStart;
+    private final int[] adjacent;
+    /**
+     * The connected part of the graph each segment is in
+     */
+    private final int[] componentOfSegment;
+    private final int componentCount;
+
+    /**
+     * Splits the walkable cells of the grid into rooms and corridors
+     *
+     * @param grid The walkable cells of the map
+     */
+    public RoomGraph(CollisionGrid grid) {
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        int cells = width * height;
+        int[] queue = new int[cells];
+        this.segmentOfCell = new int[cells];
+        Arrays.fill(segmentOfCell, NONE);
+
+        int[] clearance = measureClearance(grid, queue);
+        // Rooms are the connected seeds, which then take the cells around them
+        int rooms = 0;
+        for (int start = 0; start < cells; start++) {
+            if (clearance[start] >= ROOM_CLEARANCE && segmentOfCell[start] == NONE) {
+                floodFill(grid, start, rooms, clearance, queue);
+                rooms++;
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (clearance[cell] < ROOM_CLEARANCE) {
+                continue;
+            }
+            for (int around = 0; around < AROUND_X.length; around++) {
+                int x = cell % width + AROUND_X[around];
+                int y = cell / width + AROUND_Y[around];
+                if (segmentOfCell[y * width + x] == NONE) {
+                    segmentOfCell[y * width + x] = segmentOfCell[cell];
+                }
+            }
+        }
+        this.roomCount = rooms;
+
+        // Whatever is left over is split into corridors
+        int segments = rooms;
+        for (int start = 0; start < cells; start++) {
+            if (segmentOfCell[start] == NONE && grid.isWalkable(start % width, start / width)) {
+                floodFill(grid, start, segments, null, queue);
+                segments++;
+            }
+        }
+        this.segmentCount = segments;
+        this.segmentSize = new int[segments];
+        this.doorway = new boolean[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            if (segmentOfCell[cell] != NONE) {
+                segmentSize[segmentOfCell[cell]]++;
+            }
+        }
+
+        // Links the segments either side of every edge between cells of different segments
+        IntArray[] links = new IntArray[segments];
+        for (int segment = 0; segment < segments; segment++) {
+            links[segment] = new IntArray(4);
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            int segment = segmentOfCell[cell];
+            if (segment == NONE) {
+                continue;
+            }
+            int x = cell % width;
+            int y = cell / width;
+            for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+                int other = getSegment(x + Node.DIRECTION_X[move], y + Node.DIRECTION_Y[move]);
+                if (other == NONE || other == segment) {
+                    continue;
+                }
+                if (!links[segment].contains(other)) {
+                    links[segment].add(other);
+                }
+                if (segment >= rooms && other < rooms) {
+                    doorway[cell] = true;
+                }
+            }
+        }
+        this.adjacentStart = new int[segments + 1];
+        for (int segment = 0; segment < segments; segment++) {
+            adjacentStart[segment + 1] = adjacentStart[segment] + links[segment].size;
+        }
+        this.adjacent = new int[adjacentStart[segments]];
+        for (int segment = 0; segment < segments; segment++) {
+            links[segment].sort();
+            System.arraycopy(links[segment].items, 0, adjacent, adjacentStart[segment], links[segment].size);
+        }
+
+        // Labels the connected parts of the graph
+        this.componentOfSegment = new int[segments];
+        Arrays.fill(componentOfSegment, NONE);
+        int components = 0;
+        for (int start = 0; start < segments; start++) {
+            if (componentOfSegment[start] != NONE) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            componentOfSegment[start] = components;
+            while (head < tail) {
+                int segment = queue[head++];
+                for (int index = adjacentStart[segment]; index < adjacentStart[segment + 1]; index++) {
+                    if (componentOfSegment[adjacent[index]] == NONE) {
+                        componentOfSegment[adjacent[index]] = components;
+                        queue[tail++] = adjacent[index];
+                    }
+                }
+            }
+            components++;
+        }
+        this.componentCount = components;
+    }
+
+    /**
+     * Finds how far each walkable cell is from the nearest wall, counting diagonal steps as one<br>
+     * A breadth first search out from every wall at once, the edge of the map counts as a wall
+     *
+     * @return The clearance of each packed cell, 0 for walls
+     */
+    private int[] measureClearance(CollisionGrid grid, int[] queue) {
+        int[] clearance = new int[width * height];
+        Arrays.fill(clearance, Integer.MAX_VALUE);
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < clearance.length; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            if (!grid.isWalkable(x, y)) {
+                clearance[cell] = 0;
+                continue;
+            }
+            for (int around = 0; around < AROUND_X.length; around++) {
+                if (!grid.isWalkable(x + AROUND_X[around], y + AROUND_Y[around])) {
+                    clearance[cell] = 1;
+                    queue[tail++] = cell;
+                    break;
+                }
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int around = 0; around < AROUND_X.length; around++) {
+                // Cells on the edge of the map are next to the walls past it, so are searched from too
+                int nextX = cell % width + AROUND_X[around];
+                int nextY = cell / width + AROUND_Y[around];
+                if (nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (clearance[next] == Integer.MAX_VALUE) {
+                    clearance[next] = clearance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return clearance;
+    }
+
+    /**
+     * Gives the segment to every walkable cell connected to the start that has no segment yet
+     *
+     * @param clearance If not null, only cells with at least the room clearance are filled
+     */
+    private void floodFill(CollisionGrid grid, int start, int segment, int[] clearance, int[] queue) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        segmentOfCell[start] = segment;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+                int nextX = x + Node.DIRECTION_X[move];
+                int nextY = y + Node.DIRECTION_Y[move];
+                int next = nextY * width + nextX;
+                if (!grid.isWalkable(nextX, nextY) || segmentOfCell[next] != NONE
+                        || (clearance != null && clearance[next] < ROOM_CLEARANCE)) {
+                    continue;
+                }
+                segmentOfCell[next] = segment;
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    /**
+     * @return The segment the cell is in, or NONE if it isn't walkable
+     */
+    public int getSegment(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return NONE;
+        }
+        return segmentOfCell[y * width + x];
+    }
+
+    /**
+     * @return The segment under the middle of the entity, or NONE if it isn't walkable
+     */
+    public int getSegment(Entity entity) {
+        return getSegment((int) Math.floor(entity.getXPosition() + entity.width / 2f),
+                (int) Math.floor(entity.getYPosition() + entity.height / 2f));
+    }
+
+    /**
+     * @return True if the segment is a room, false if it is a corridor
+     */
+    public boolean isRoom(int segment) {
+        return segment >= 0 && segment < roomCount;
+    }
+
+    /**
+     * @return True if the cell is a corridor cell next to a room
+     */
+    public boolean isDoorway(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        return doorway[y * width + x];
+    }
+
+    /**
+     * @return True if the two entities are standing in the same room or corridor
+     */
+    public boolean isSameSegment(Entity first, Entity second) {
+        int segment = getSegment(first);
+        return segment != NONE && segment == getSegment(second);
+    }
+
+    /**
+     * @return The connected part of the map the cell is in, or NONE if it isn't walkable
+     */
+    public int getComponent(int x, int y) {
+        int segment = getSegment(x, y);
+        return segment == NONE ? NONE : componentOfSegment[segment];
+    }
+
+    /**
+     * Checks if there is any walk between two cells, without searching
+     *
+     * @return True if both cells are walkable and connected
+     */
+    public boolean isReachable(int fromX, int fromY, int toX, int toY) {
+        int component = getComponent(fromX, fromY);
+        return component != NONE && component == getComponent(toX, toY);
+    }
+
+    /**
+     * Checks if a system can be reached from a cell, systems sit in the walls so any room tile beside one will do
+     *
+     * @param x      The x coordinate of the cell
+     * @param y      The y coordinate of the cell
+     * @param system The system to reach
+     * @return True if a room tile next to the system is connected to the cell
+     */
+    public boolean canReach(int x, int y, StationSystem system) {
+        int component = getComponent(x, y);
+        if (component == NONE) {
+            return false;
+        }
+        int left = (int) system.getXPosition();
+        int bottom = (int) system.getYPosition();
+        int right = left + Math.max(1, system.width) - 1;
+        int top = bottom + Math.max(1, system.height) - 1;
+        for (int sideX = left; sideX <= right; sideX++) {
+            if (getComponent(sideX, bottom - 1) == component || getComponent(sideX, top + 1) == component) {
+                return true;
+            }
+        }
+        for (int sideY = bottom; sideY <= top; sideY++) {
+            if (getComponent(left - 1, sideY) == component || getComponent(right + 1, sideY) == component) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of segments next to the given one
+     */
+    public int getAdjacentCount(int segment) {
+        return adjacentStart[segment + 1] - adjacentStart[segment];
+    }
+
+    /**
+     * @param segment The segment to look around
+     * @param index   Which neighbour, from 0 to getAdjacentCount(segment) - 1
+     * @return The neighbouring segment, neighbours are in increasing order
+     */
+    public int getAdjacent(int segment, int index) {
+        return adjacent[adjacentStart[segment] + index];
+    }
+
+    /**
+     * @return A copy of the segment of every packed cell, NONE for cells that aren't walkable
+     */
+    public int[] copySegments() {
+        return segmentOfCell.clone();
+    }
+
+    public int getSegmentSize(int segment) {
+        return segmentSize[segment];
+    }
+
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    @Override
+    public String toString() {
+        return "Room graph: " + roomCount + " rooms, " + (segmentCount - roomCount) + " corridors, "
+                + adjacent.length / 2 + " links, " + componentCount + " connected areas";
+    }
+}
@@ -0,0 +1,182 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Buckets entities by position on a uniform grid, so proximity checks only look at the entities nearby<br>
+ * Entities keep track of their own bucket, and are moved between buckets as their position changes<br>
+ * An entity covers the box from its position minus half its size to its position plus half its size,
+ * the same box used for capturing
+ */
+public class SpatialHash {
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final Array<Entity>[] buckets;
+    /**
+     * Half of the largest entity width and height added so far, queries are widened by this
+     */
+    private float maxHalfWidth;
+    private float maxHalfHeight;
+    private int size;
+
+    /**
+     * Creates an empty hash covering the map, positions outside the map are put in the closest edge bucket
+     *
+     * @param mapWidth  The width of the map (in tiles)
+     * @param mapHeight The height of the map (in tiles)
+     * @param cellSize  The width and height of each bucket (in tiles)
+     */
+    @SuppressWarnings("unchecked")
+    public SpatialHash(int mapWidth, int mapHeight, int cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (mapWidth + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (mapHeight + cellSize - 1) / cellSize);
+        this.buckets = (Array<Entity>[]) new Array<?>[columns * rows];
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            buckets[bucket] = new Array<>(false, 4);
+        }
+    }
+
+    private int column(float x) {
+        return Math.min(columns - 1, Math.max(0, (int) Math.floor(x / cellSize)));
+    }
+
+    private int row(float y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / cellSize)));
+    }
+
+    private int bucketOf(Entity entity) {
+        return row(entity.getYPosition()) * columns + column(entity.getXPosition());
+    }
+
+    /**
+     * Adds the entity, which will then update the hash whenever it moves
+     *
+     * @param entity The entity to add, if it is in another hash it is removed from it first
+     */
+    public void add(Entity entity) {
+        if (entity.spatialHash != null) {
+            entity.spatialHash.remove(entity);
+        }
+        entity.spatialHash = this;
+        entity.spatialBucket = bucketOf(entity);
+        buckets[entity.spatialBucket].add(entity);
+        maxHalfWidth = Math.max(maxHalfWidth, entity.width / 2f);
+        maxHalfHeight = Math.max(maxHalfHeight, entity.height / 2f);
+        size++;
+    }
+
+    /**
+     * @param entity The entity to remove, nothing happens if it isn't in this hash
+     */
+    public void remove(Entity entity) {
+        if (entity.spatialHash != this) {
+            return;
+        }
+        buckets[entity.spatialBucket].removeValue(entity, true);
+        entity.spatialHash = null;
+        size--;
+    }
+
+    /**
+     * Moves the entity to the bucket for its current position, called by the entity when it moves
+     *
+     * @param entity The entity that has moved
+     */
+    void update(Entity entity) {
+        int bucket = bucketOf(entity);
+        if (bucket != entity.spatialBucket) {
+            buckets[entity.spatialBucket].removeValue(entity, true);
+            buckets[bucket].add(entity);
+            entity.spatialBucket = bucket;
+        }
+    }
+
+    /**
+     * Removes every entity
+     */
+    public void clear() {
+        for (Array<Entity> bucket : buckets) {
+            for (Entity entity : bucket) {
+                entity.spatialHash = null;
+            }
+            bucket.clear();
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds every entity whose box overlaps the given area (touching edges don't count)
+     *
+     * @param minX   The left edge of the area
+     * @param minY   The bottom edge of the area
+     * @param maxX   The right edge of the area
+     * @param maxY   The top edge of the area
+     * @param result Cleared, then filled with the entities found
+     * @return The number of entities found
+     */
+    public int queryArea(float minX, float minY, float maxX, float maxY, Array<Entity> result) {
+        result.clear();
+        int left = column(minX - maxHalfWidth);
+        int right = column(maxX + maxHalfWidth);
+        int bottom = row(minY - maxHalfHeight);
+        int top = row(maxY + maxHalfHeight);
+        for (int y = bottom; y <= top; y++) {
+            for (int x = left; x <= right; x++) {
+                Array<Entity> bucket = buckets[y * columns + x];
+                for (int index = 0; index < bucket.size; index++) {
+                    Entity entity = bucket.get(index);
+                    float halfWidth = entity.width / 2f;
+                    float halfHeight = entity.height / 2f;
+                    if (minX < entity.getXPosition() + halfWidth && entity.getXPosition() - halfWidth < maxX
+                            && minY < entity.getYPosition() + halfHeight && entity.getYPosition() - halfHeight < maxY) {
+                        result.add(entity);
+                    }
+                }
+            }
+        }
+        return result.size;
+    }
+
+    /**
+     * Finds every entity whose position is within the given distance of a point
+     *
+     * @param x      The x coordinate of the point
+     * @param y      The y coordinate of the point
+     * @param radius The largest distance allowed
+     * @param result Cleared, then filled with the entities found
+     * @return The number of entities found
+     */
+    public int queryRadius(float x, float y, float radius, Array<Entity> result) {
+        result.clear();
+        int left = column(x - radius);
+        int right = column(x + radius);
+        int bottom = row(y - radius);
+        int top = row(y + radius);
+        float radiusSquared = radius * radius;
+        for (int row = bottom; row <= top; row++) {
+            for (int column = left; column <= right; column++) {
+                Array<Entity> bucket = buckets[row * columns + column];
+                for (int index = 0; index < bucket.size; index++) {
+                    Entity entity = bucket.get(index);
+                    float dx = entity.getXPosition() - x;
+                    float dy = entity.getYPosition() - y;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        result.add(entity);
+                    }
+                }
+            }
+        }
+        return result.size;
+    }
+
+    @Override
+    public String toString() {
+        return "Spatial hash: " + size + " entities in " + columns + "x" + rows + " buckets of " + cellSize + " tiles";
+    }
+}
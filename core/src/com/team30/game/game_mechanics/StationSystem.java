@@ -22,13 +22,12 @@ public class StationSystem extends Entity {
     public Integer pair;
 
 
-    public StationSystem(String name, int xPos, int yPos, int width, int height, int health) {
-        super(new ID(EntityType.StationSystem), null, xPos, yPos, width, height);
+    public StationSystem(EntityStore<? super StationSystem> store, ID id, String name, int xPos, int yPos, int width, int height, int health) {
+        super(store, id, null, xPos, yPos, width, height);
         // Currently using type to find system types (healing, teleportation)
         // TODO Switch to an enum eventually
         this.type = name;
-        this.MAX_VELOCITY = 0f;
-        this.VELOCITY_CHANGE = 0f;
+        setSpeed(0f, 0f);
         this.health = health;
         this.maxHealth = health;
         this.active = true;
@@ -48,7 +47,6 @@ public class StationSystem extends Entity {
             return this.health;
         }
         this.health = this.health - inflicted;
-        System.out.println("Inflicting: " + inflicted + " to system: " + this.type + "now at: " + this.health);
         //TODO create sprite to warn Auber of system damage (play sound?)
         if (this.health <= 0) {
             this.active = false;
@@ -72,7 +70,8 @@ public class StationSystem extends Entity {
         if (this.coolDown == 0) {
             return false;
         }
-        this.coolDown -= delta;
+        // Stop at zero, otherwise the cooldown never reads as expired and the system is never attackable again
+        this.coolDown = Math.max(0, this.coolDown - delta);
         return this.coolDown == 0;
     }
 
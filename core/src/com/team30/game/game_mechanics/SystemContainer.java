@@ -3,33 +3,71 @@ package com.team30.game.game_mechanics;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
 import com.badlogic.gdx.maps.MapProperties;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
 import com.team30.game.Recording.Action;
 import com.team30.game.Recording.ActionType;
 import com.team30.game.game_mechanics.Infiltrators.Infiltrator;
-import com.team30.game.screen.GameScreen;
+import com.team30.game.game_mechanics.Pathfinding.SystemDistanceField;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Handles all systems, and rendering of them
  */
 public class SystemContainer implements EntityContainer {
     /**
-     * All systems in the ship
+     * All systems in the ship, keyed by ID
      */
-    private final HashMap<Integer, StationSystem> systems;
+    private final IntMap<StationSystem> systems;
     /**
-     * The ID's of all systems that are not destroyed
+     * The positions of every system, kept together as systems never move
      */
-    private final Set<Integer> activeSystems;
+    private final EntityStore<StationSystem> store;
     /**
-     * The ID'S of all systems that can be attacked
+     * The ID's of all systems that are not destroyed, one bit per ID
+     */
+    private final Bits activeSystems;
+    /**
+     * The ID'S of all systems that can be attacked, one bit per ID
      * (Cooldown has expired)
      */
-    private final Set<Integer> attackableSystems;
+    private final Bits attackableSystems;
+    private int activeCount;
+
+    /**
+     * The walking distance from every room tile to the closest attackable system
+     * Rebuilt whenever the attackable systems change
+     */
+    private final SystemDistanceField distanceField;
+    /**
+     * The same as the distance field, but leaving out the systems the Auber is guarding
+     * Rebuilt whenever the attackable or guarded systems change
+     */
+    private final SystemDistanceField unguardedField;
+    private final Bits guardedSystems;
+    /**
+     * The closest active system to every cell, for the Auber's checks
+     */
+    private final NearestSystemTable nearestSystems;
+    /**
+     * The cells where the Auber is healed, damaged or teleported by the closest system
+     */
+    private final TriggerZones triggerZones;
+    /**
+     * The damage done by each attack when playing back a recording
+     */
+    private final int infiltratorDamage;
+    /**
+     * The world the systems are in, for logging attacks
+     */
+    private final WorldContext context;
 
     /**
      * Stores all actions taken, in the current snapshot
@@ -48,14 +86,22 @@ public class SystemContainer implements EntityContainer {
      * health
      * active
      *
-     * @param map The object layer containing systems
+     * @param map       The object layer containing systems
+     * @param roomTiles The map of valid room tiles
+     * @param context   The world the systems are in, for their IDs and health
      */
-    public SystemContainer(MapLayer map) {
-        this.systems = new HashMap<>();
-        this.activeSystems = new HashSet<>();
-        this.attackableSystems = new HashSet<>();
+    public SystemContainer(MapLayer map, CollisionGrid roomTiles, WorldContext context) {
+        this.infiltratorDamage = context.settings.infiltratorDamage;
+        this.context = context;
+        this.systems = new IntMap<>();
+        this.activeSystems = new Bits();
+        this.attackableSystems = new Bits();
         this.recordedActions = new ArrayList<>();
-        for (MapObject object : map.getObjects()) {
+        // Indexed rather than iterated, as libGDX reuses one iterator and the map may be shared by other worlds
+        MapObjects objects = map.getObjects();
+        this.store = new EntityStore<>(objects.getCount());
+        for (int index = 0; index < objects.getCount(); index++) {
+            MapObject object = objects.get(index);
             MapProperties properties = object.getProperties();
 
             // Check all required fields are valid
@@ -69,33 +115,52 @@ public class SystemContainer implements EntityContainer {
                 continue;
             }
 
-            int x_pos = ((int) (float) xPosObject) / GameScreen.TILE_SIZE;
-            int y_pos = ((int) (float) yPosObject) / GameScreen.TILE_SIZE;
-            int width = ((int) (float) widthObject) / GameScreen.TILE_SIZE;
-            int height = ((int) (float) heightObject) / GameScreen.TILE_SIZE;
+            int x_pos = ((int) (float) xPosObject) / World.TILE_SIZE;
+            int y_pos = ((int) (float) yPosObject) / World.TILE_SIZE;
+            int width = ((int) (float) widthObject) / World.TILE_SIZE;
+            int height = ((int) (float) heightObject) / World.TILE_SIZE;
 
-            StationSystem system = new StationSystem(object.getName(), x_pos, y_pos, width, height, StationSystem.DEFAULT_HEALTH);
+            StationSystem system = new StationSystem(store, context.nextId(EntityType.StationSystem), object.getName(), x_pos, y_pos, width, height, context.settings.systemHealth);
             this.systems.put(system.id.ID, system);
-            this.activeSystems.add(system.id.ID);
-            this.attackableSystems.add(system.id.ID);
+            this.activeSystems.set(system.id.ID);
+            this.attackableSystems.set(system.id.ID);
+            this.activeCount++;
+        }
+
+        // Every system in order of ID, so the pairs and ties don't depend on how the map stores them
+        Array<StationSystem> ordered = new Array<>(systems.size);
+        for (int id = activeSystems.nextSetBit(0); id >= 0; id = activeSystems.nextSetBit(id + 1)) {
+            ordered.add(systems.get(id));
         }
 
         // Assign teleportation pairs
         // TODO Eventually allow for user selection
-        ArrayList<Integer> teleporters = new ArrayList<>();
-        for (Map.Entry<Integer, StationSystem> entry : systems.entrySet()) {
-            if (entry.getValue().type.equals("Teleportation")) {
-                teleporters.add(entry.getValue().id.ID);
+        IntArray teleporters = new IntArray();
+        for (StationSystem system : ordered) {
+            if (system.type.equals("Teleportation")) {
+                teleporters.add(system.id.ID);
             }
         }
         systems.get(teleporters.get(0)).pair = teleporters.get(2);
         systems.get(teleporters.get(2)).pair = teleporters.get(0);
         systems.get(teleporters.get(1)).pair = teleporters.get(3);
         systems.get(teleporters.get(3)).pair = teleporters.get(1);
+
+        this.distanceField = new SystemDistanceField(roomTiles, Infiltrator.SIZE, Infiltrator.SIZE);
+        this.unguardedField = new SystemDistanceField(roomTiles, Infiltrator.SIZE, Infiltrator.SIZE);
+        this.guardedSystems = new Bits();
+        rebuildDistanceField();
+        this.nearestSystems = new NearestSystemTable(roomTiles.getWidth(), roomTiles.getHeight(), ordered);
+        this.triggerZones = new TriggerZones(roomTiles.getWidth(), roomTiles.getHeight(), nearestSystems,
+                Auber.HEALTH_RANGE, Auber.DAMAGE_RANGE, Auber.TELEPORT_RANGE);
     }
 
-    public ID integerIdLookup(Integer id) {
-        return systems.get(id).id;
+    /**
+     * @return The ID object of the system with the given ID, or null if there isn't one
+     */
+    public ID integerIdLookup(int id) {
+        StationSystem system = systems.get(id);
+        return system == null ? null : system.id;
     }
 
     @Override
@@ -103,7 +168,7 @@ public class SystemContainer implements EntityContainer {
         return systems.get(id.ID);
     }
 
-    public Entity getEntityByInt(Integer id) {
+    public StationSystem getEntityByInt(int id) {
         return systems.get(id);
     }
 
@@ -118,25 +183,125 @@ public class SystemContainer implements EntityContainer {
     }
 
     /**
-     * @return The ArrayList of currently active systems
+     * Iterate with nextSetBit, the bits should not be changed
+     *
+     * @return The IDs of the currently active systems, one bit per ID
      */
-    public Set<Integer> getActiveSystems() {
+    public Bits getActiveSystems() {
         return activeSystems;
     }
 
 
     /**
-     * @return The list of currently active systems that can aren't on cool down
+     * Iterate with nextSetBit, the bits should not be changed
+     *
+     * @return The IDs of the currently active systems that aren't on cool down, one bit per ID
      */
-    public Set<Integer> getAttackableSystems() {
+    public Bits getAttackableSystems() {
         return attackableSystems;
     }
 
+    /**
+     * @return True if the system has not been destroyed
+     */
+    public boolean isActive(int id) {
+        return activeSystems.get(id);
+    }
+
+    /**
+     * @return True if the system has not been destroyed, and isn't on cool down
+     */
+    public boolean isAttackable(int id) {
+        return attackableSystems.get(id);
+    }
+
+    /**
+     * Checks the room graph for an attackable system connected to the cell, without searching
+     *
+     * @param rooms The rooms and corridors of the map
+     * @param x     The x coordinate of the cell
+     * @param y     The y coordinate of the cell
+     * @return True if any attackable system can be walked to from the cell
+     */
+    public boolean canReachAttackableSystem(RoomGraph rooms, int x, int y) {
+        for (int id = attackableSystems.nextSetBit(0); id >= 0; id = attackableSystems.nextSetBit(id + 1)) {
+            if (rooms.canReach(x, y, systems.get(id))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The walking distance from every room tile to the closest attackable system
+     */
+    public SystemDistanceField getDistanceField() {
+        return distanceField;
+    }
+
+    /**
+     * Chooses which field to follow from a cell, to keep away from the Auber<br>
+     * Leaves out the systems the Auber is guarding, unless none of the others can be reached from the cell
+     *
+     * @param x            The x coordinate of the cell
+     * @param y            The y coordinate of the cell
+     * @param avoidGuarded False to head for the closest system, guarded or not
+     * @return The walking distance from every room tile to the closest system worth heading for
+     */
+    public SystemDistanceField getDistanceField(int x, int y, boolean avoidGuarded) {
+        if (avoidGuarded && unguardedField.getDistance(x, y) != SystemDistanceField.UNREACHABLE) {
+            return unguardedField;
+        }
+        return distanceField;
+    }
+
+    /**
+     * Marks the systems the Auber is close enough to guard, and refills the unguarded field if they changed
+     *
+     * @param guarded The IDs of the guarded systems
+     */
+    public void setGuardedSystems(Bits guarded) {
+        if (!guardedSystems.equals(guarded)) {
+            guardedSystems.clear();
+            guardedSystems.or(guarded);
+            unguardedField.rebuild(this, guardedSystems);
+        }
+    }
+
+    /**
+     * @return The closest active system to every cell
+     */
+    public NearestSystemTable getNearestSystems() {
+        return nearestSystems;
+    }
+
+    /**
+     * @return The cells where the Auber is healed, damaged or teleported by the closest system
+     */
+    public TriggerZones getTriggerZones() {
+        return triggerZones;
+    }
+
+    /**
+     * Refills the distance fields from the current attackable systems
+     */
+    private void rebuildDistanceField() {
+        distanceField.rebuild(this);
+        unguardedField.rebuild(this, guardedSystems);
+    }
+
     /**
      * @return Gets the amount of systems with health greater than 0
      */
     public int getAmountOfActiveSystems() {
-        return activeSystems.size();
+        return activeCount;
+    }
+
+    /**
+     * @return Gets the amount of systems, including those destroyed
+     */
+    public int getAmountOfSystems() {
+        return systems.size;
     }
 
     /**
@@ -149,16 +314,23 @@ public class SystemContainer implements EntityContainer {
     public void applyDamage(ID attackerID, ID systemID, int damage) {
         StationSystem system = systems.get(systemID.ID);
         if (system != null && system.getCoolDown() == 0) {
-            if (system.applyDamage(damage) == 0) {
-                this.attackableSystems.remove(systemID.ID);
-                this.activeSystems.remove(systemID.ID);
+            int health = system.applyDamage(damage);
+            context.log("Inflicting: " + damage + " to system: " + system.type + " now at: " + health);
+            if (health == 0) {
+                this.attackableSystems.clear(systemID.ID);
+                if (this.activeSystems.getAndClear(systemID.ID)) {
+                    activeCount--;
+                }
+                rebuildDistanceField();
+                nearestSystems.removeSystem(system);
+                triggerZones.rebuild();
             }
             this.recordedActions.add(new Action(attackerID, ActionType.Damage, system.getXPosition(), system.getYPosition(), system.getXVelocity(), system.getYVelocity(), systemID));
         }
     }
 
     @Override
-    public void calculatePosition(float deltaTime, TiledMapTileLayer room) {
+    public void calculatePosition(float deltaTime, CollisionGrid room) {
     }
 
     /**
@@ -168,13 +340,20 @@ public class SystemContainer implements EntityContainer {
      * @param deltaTime takes the time passed since last updated
      */
     @Override
-    public void updateMovements(float deltaTime, TiledMapTileLayer room) {
-        for (Integer id : activeSystems) {
+    public void updateMovements(float deltaTime, CollisionGrid room) {
+        // Catch up with any room tiles opened or closed since the last update
+        distanceField.repair();
+        unguardedField.repair();
+        boolean attackableChanged = false;
+        for (int id = activeSystems.nextSetBit(0); id >= 0; id = activeSystems.nextSetBit(id + 1)) {
             StationSystem system = systems.get(id);
             if (system.updateCoolDown(deltaTime)) {
-                this.attackableSystems.add(id);
+                attackableChanged |= !this.attackableSystems.getAndSet(id);
             }
         }
+        if (attackableChanged) {
+            rebuildDistanceField();
+        }
     }
 
     @Override
@@ -182,6 +361,11 @@ public class SystemContainer implements EntityContainer {
         // Not required as textures are in map layer 0
     }
 
+    @Override
+    public void interpolate(float alpha) {
+        // Not required as systems don't move
+    }
+
     /**
      * Returns all actions that took place in this snapshot<br>
      * And resets the recording list
@@ -193,9 +377,9 @@ public class SystemContainer implements EntityContainer {
     }
 
     @Override
-    public void applyAction(Action action, TiledMapTileLayer room) {
+    public void applyAction(Action action, CollisionGrid room) {
         if (action.getActionType() == ActionType.Damage) {
-            applyDamage(action.getId(), action.getTarget(), Infiltrator.DAMAGE_DEALT);
+            applyDamage(action.getId(), action.getTarget(), infiltratorDamage);
         }
     }
 }
@@ -0,0 +1,181 @@
+package com.team30.game.game_mechanics;
+
+/**
+ * Marks the cells where standing would heal, damage or teleport the Auber, as a bitmask per cell<br>
+ * A cell is in a zone if its closest system is of the right type, and any part of the cell is within range of
+ * that system. So the exact distance only needs checking while inside a zone, and the system types are only
+ * compared when the zones are built (on loading, and when a system is destroyed)
+ */
+public class TriggerZones {
+    /**
+     * Within range of a healing system
+     */
+    public static final int HEAL = 1;
+    /**
+     * Within range of a system that damages the Auber (any system that isn't for healing)
+     */
+    public static final int DAMAGE = 2;
+    /**
+     * Within range of a teleporter
+     */
+    public static final int TELEPORT = 4;
+
+    private final int width;
+    private final int height;
+    private final NearestSystemTable nearestSystems;
+    private final float healRange;
+    private final float damageRange;
+    private final float teleportRange;
+    private final byte[] zones;
+    /**
+     * Increased every time the zones are rebuilt, so trackers know to look again
+     */
+    private int version;
+
+    /**
+     * Builds the zones around the closest system to every cell
+     *
+     * @param width          The width of the map (in tiles)
+     * @param height         The height of the map (in tiles)
+     * @param nearestSystems The closest active system to every cell
+     * @param healRange      The distance healing systems heal from
+     * @param damageRange    The distance damaged systems hurt from
+     * @param teleportRange  The distance teleporters can be used from
+     */
+    public TriggerZones(int width, int height, NearestSystemTable nearestSystems, float healRange, float damageRange, float teleportRange) {
+        this.width = width;
+        this.height = height;
+        this.nearestSystems = nearestSystems;
+        this.healRange = healRange;
+        this.damageRange = damageRange;
+        this.teleportRange = teleportRange;
+        this.zones = new byte[width * height];
+        rebuild();
+    }
+
+    /**
+     * Works out the zones of every cell again, as the closest systems have changed
+     */
+    void rebuild() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                StationSystem system = nearestSystems.getNearest(x, y);
+                int cellZones = 0;
+                if (system != null) {
+                    // The closest point of the cell to the system
+                    float dx = Math.max(0, Math.max(x - system.getXPosition(), system.getXPosition() - (x + 1)));
+                    float dy = Math.max(0, Math.max(y - system.getYPosition(), system.getYPosition() - (y + 1)));
+                    float distance = (float) Math.sqrt(dx * dx + dy * dy);
+                    if (system.type.equals("Healing")) {
+                        cellZones |= distance <= healRange ? HEAL : 0;
+                    } else {
+                        cellZones |= distance <= damageRange ? DAMAGE : 0;
+                    }
+                    if (system.type.equals("Teleportation") && distance <= teleportRange) {
+                        cellZones |= TELEPORT;
+                    }
+                }
+                zones[y * width + x] = (byte) cellZones;
+            }
+        }
+        version++;
+    }
+
+    /**
+     * @return The zones the cell is in, or 0 if it is off the map
+     */
+    public int getZones(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return 0;
+        }
+        return zones[y * width + x];
+    }
+
+    /**
+     * @return The system that the zones of the cell belong to, or null if there isn't one
+     */
+    public StationSystem getSystem(int x, int y) {
+        return nearestSystems.getNearest(x, y);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Follows an entity across the zones, only looking up the cell when the entity moves onto a new one<br>
+     * Reports which zones were entered and left on the last change
+     */
+    public static class Tracker {
+        private TriggerZones trackedZones;
+        private int version;
+        private int cellX;
+        private int cellY;
+        private int zones;
+        private int entered;
+        private int exited;
+        private StationSystem system;
+
+        /**
+         * Updates the zones from the given position, if it has moved onto a new cell or the zones have changed
+         *
+         * @param triggerZones The zones to track
+         * @param x            The x coordinate of the entity
+         * @param y            The y coordinate of the entity
+         * @return True if any zones were entered or left
+         */
+        public boolean update(TriggerZones triggerZones, float x, float y) {
+            int newX = (int) Math.floor(x);
+            int newY = (int) Math.floor(y);
+            if (triggerZones == trackedZones && version == triggerZones.version && newX == cellX && newY == cellY) {
+                return false;
+            }
+            trackedZones = triggerZones;
+            version = triggerZones.version;
+            cellX = newX;
+            cellY = newY;
+            int newZones = triggerZones.getZones(newX, newY);
+            system = newZones == 0 ? null : triggerZones.getSystem(newX, newY);
+            if (newZones == zones) {
+                return false;
+            }
+            entered = newZones & ~zones;
+            exited = zones & ~newZones;
+            zones = newZones;
+            return true;
+        }
+
+        /**
+         * @param zone The zone to check, such as TriggerZones.HEAL
+         * @return True if the current cell is in the zone
+         */
+        public boolean isIn(int zone) {
+            return (zones & zone) != 0;
+        }
+
+        public int getZones() {
+            return zones;
+        }
+
+        /**
+         * @return The zones entered on the last change
+         */
+        public int getEntered() {
+            return entered;
+        }
+
+        /**
+         * @return The zones left on the last change
+         */
+        public int getExited() {
+            return exited;
+        }
+
+        /**
+         * @return The system the current zones belong to, or null if not in any zone
+         */
+        public StationSystem getSystem() {
+            return system;
+        }
+    }
+}
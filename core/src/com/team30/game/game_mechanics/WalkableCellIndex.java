@@ -0,0 +1,218 @@
+package com.team30.game.game_mechanics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A dense list of every walkable cell, grouped by room, so a random spawn position is a single array lookup<br>
+ * Cells are packed into a single int (y * width + x). Without a room layout, each connected area of the map
+ * counts as one room
+ */
+public class WalkableCellIndex {
+    /**
+     * Returned when there is no cell to pick, and the room of cells that aren't walkable
+     */
+    public static final int NONE = -1;
+    /**
+     * How many cells are drawn when looking for one far enough away, before settling for the furthest
+     */
+    private static final int MAX_ATTEMPTS = 64;
+
+    private final int width;
+    /**
+     * The walkable cells, sorted by room, so the cells of a room are between roomStart[room] and roomStart[room + 1]
+     */
+    private final int[] cells;
+    private final int[] roomStart;
+    /**
+     * The room of every cell on the map
+     */
+    private final int[] roomOfCell;
+
+    /**
+     * Builds the index, treating each connected area of walkable cells as a room
+     *
+     * @param grid The walkable cells of the map
+     */
+    public WalkableCellIndex(CollisionGrid grid) {
+        this(grid, new int[grid.getWidth() * grid.getHeight()], NONE);
+    }
+
+    /**
+     * Builds the index with the given room layout
+     *
+     * @param grid       The walkable cells of the map
+     * @param roomOfCell The room of each packed cell (NONE if it isn't walkable), this array is kept
+     * @param roomCount  The number of rooms
+     */
+    public WalkableCellIndex(CollisionGrid grid, int[] roomOfCell, int roomCount) {
+        this.width = grid.getWidth();
+        this.roomOfCell = roomOfCell;
+        if (roomCount == NONE) {
+            roomCount = labelConnectedAreas(grid, roomOfCell);
+        }
+        // Counting sort of the walkable cells by room
+        this.roomStart = new int[roomCount + 1];
+        for (int room : roomOfCell) {
+            if (room != NONE) {
+                roomStart[room + 1]++;
+            }
+        }
+        for (int room = 0; room < roomCount; room++) {
+            roomStart[room + 1] += roomStart[room];
+        }
+        this.cells = new int[roomStart[roomCount]];
+        int[] next = Arrays.copyOf(roomStart, roomCount);
+        for (int cell = 0; cell < roomOfCell.length; cell++) {
+            if (roomOfCell[cell] != NONE) {
+                cells[next[roomOfCell[cell]]++] = cell;
+            }
+        }
+    }
+
+    /**
+     * Labels each connected area of walkable cells with its own room, with a flood fill
+     *
+     * @return The number of areas found
+     */
+    private static int labelConnectedAreas(CollisionGrid grid, int[] roomOfCell) {
+        int width = grid.getWidth();
+        Arrays.fill(roomOfCell, NONE);
+        int[] queue = new int[roomOfCell.length];
+        int rooms = 0;
+        for (int start = 0; start < roomOfCell.length; start++) {
+            if (roomOfCell[start] != NONE || !grid.isWalkable(start % width, start / width)) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            roomOfCell[start] = rooms;
+            while (head < tail) {
+                int cell = queue[head++];
+                int x = cell % width;
+                int y = cell / width;
+                for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+                    int nextX = x + Node.DIRECTION_X[move];
+                    int nextY = y + Node.DIRECTION_Y[move];
+                    int next = nextY * width + nextX;
+                    if (grid.isWalkable(nextX, nextY) && roomOfCell[next] == NONE) {
+                        roomOfCell[next] = rooms;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            rooms++;
+        }
+        return rooms;
+    }
+
+    /**
+     * @return A random walkable cell, or NONE if there are none
+     */
+    public int randomCell(Random random) {
+        if (cells.length == 0) {
+            return NONE;
+        }
+        return cells[random.nextInt(cells.length)];
+    }
+
+    /**
+     * Picks a random cell a box of the given size fits on, as entities are checked against the walls by the cells
+     * under their corners, so can't move off a cell they don't fit on<br>
+     * Only walkable cells are drawn, and if none of a fixed number of draws fit the last one is used, so this never
+     * scans the map
+     *
+     * @param grid      The walkable cells of the map
+     * @param boxWidth  The width of the box (in tiles)
+     * @param boxHeight The height of the box (in tiles)
+     * @return A random cell, or NONE if there are no walkable cells
+     */
+    public int randomCellFitting(CollisionGrid grid, int boxWidth, int boxHeight, Random random) {
+        int cell = NONE;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && cells.length > 0; attempt++) {
+            cell = cells[random.nextInt(cells.length)];
+            if (grid.isAreaWalkable(getX(cell), getY(cell), boxWidth, boxHeight)) {
+                return cell;
+            }
+        }
+        return cell;
+    }
+
+    /**
+     * @param room The room to pick from
+     * @return A random cell in the given room, or NONE if it is empty
+     */
+    public int randomCellInRoom(int room, Random random) {
+        int size = getRoomSize(room);
+        if (size == 0) {
+            return NONE;
+        }
+        return cells[roomStart[room] + random.nextInt(size)];
+    }
+
+    /**
+     * Picks a random cell at least the given distance away from a position, such as the Auber<br>
+     * Only walkable cells are drawn, and if none of a fixed number of draws are far enough the furthest is used,
+     * so this never scans the map
+     *
+     * @param x           The x coordinate to keep away from
+     * @param y           The y coordinate to keep away from
+     * @param minDistance The smallest distance allowed (in tiles)
+     * @return A random cell, or NONE if there are no walkable cells
+     */
+    public int randomCellAwayFrom(float x, float y, float minDistance, Random random) {
+        int furthest = NONE;
+        float furthestDistance = -1;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && cells.length > 0; attempt++) {
+            int cell = cells[random.nextInt(cells.length)];
+            float dx = getX(cell) - x;
+            float dy = getY(cell) - y;
+            float distance = dx * dx + dy * dy;
+            if (distance >= minDistance * minDistance) {
+                return cell;
+            }
+            if (distance > furthestDistance) {
+                furthestDistance = distance;
+                furthest = cell;
+            }
+        }
+        return furthest;
+    }
+
+    /**
+     * @return The number of walkable cells
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    public int getRoomCount() {
+        return roomStart.length - 1;
+    }
+
+    public int getRoomSize(int room) {
+        if (room < 0 || room >= getRoomCount()) {
+            return 0;
+        }
+        return roomStart[room + 1] - roomStart[room];
+    }
+
+    /**
+     * @return The room the cell is in, or NONE if it isn't walkable
+     */
+    public int getRoom(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y * width + x >= roomOfCell.length) {
+            return NONE;
+        }
+        return roomOfCell[y * width + x];
+    }
+
+    public int getX(int cell) {
+        return cell % width;
+    }
+
+    public int getY(int cell) {
+        return cell / width;
+    }
+}
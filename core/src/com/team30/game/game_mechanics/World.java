@@ -0,0 +1,407 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.team30.game.Recording.Action;
+import com.team30.game.Recording.ActionType;
+import com.team30.game.Recording.RecordingContainer;
+
+import java.util.LinkedList;
+
+/**
+ * Everything in a game apart from drawing it: the map's room tiles and systems, the Auber, npcs and infiltrators,
+ * and the recording<br>
+ * Nothing here loads textures or needs a screen, so games can be stepped without a window (such as many games at
+ * once on a machine with no GPU). GameScreen draws a world and passes it the player's input<br>
+ * Frames are turned into a whole number of fixed length ticks, so the game plays the same at any frame rate.
+ * Whatever time is left over is used to draw entities part way between their last two ticks<br>
+ * Every random choice and ID comes from the world's own context, so many worlds can be stepped at once on
+ * different threads, and a world given the same settings (and seed) plays out the same way
+ */
+public class World {
+    /**
+     * The size of the tiles in pixels
+     */
+    public static final int TILE_SIZE = 64;
+    /**
+     * How far the Auber can see along a clear line (in tiles), further than the screen reaches
+     */
+    public static final int SIGHT_RADIUS = 16;
+    private static final float SNAPSHOT_INTERVAL = 0.1f;
+    /**
+     * The number of ticks per second of game time, unless changed with setTickRate
+     */
+    public static final int DEFAULT_TICK_RATE = 60;
+    /**
+     * The most ticks run for one frame, so a slow frame can't make the next frame slower still. Any time past
+     * this is dropped, slowing the game down rather than stalling it
+     */
+    public static final int MAX_TICKS_PER_FRAME = 5;
+
+    /**
+     * The valid tiles for characters to enter (Room Tiles), built once from the Rooms layer
+     */
+    private final CollisionGrid roomTiles;
+    private final Auber auber;
+    /**
+     * Stops the Auber, npcs and infiltrators walking into each other
+     */
+    private final EntityCollider collider;
+    /**
+     * The tiles the Auber can see, only worked out again when it moves onto a new tile
+     */
+    private final FieldOfView fieldOfView;
+    private final InfiltratorContainer infiltrators;
+    private final NpcContainer npcs;
+    private final SystemContainer systemContainer;
+    /**
+     * The settings, random numbers and IDs of this world
+     */
+    private final WorldContext context;
+    /**
+     * Steers the Auber in place of a player, or null when the player (or a recording) moves it
+     */
+    private AuberPolicy auberPolicy;
+
+    private final RecordingContainer recording;
+    private final boolean shouldRecord;
+    private final boolean isPlayback;
+    private float timeSinceLastSnapshot;
+    private boolean isOver;
+    private boolean playerWon;
+    /**
+     * The game time passed (in seconds)
+     */
+    private float elapsedTime;
+    /**
+     * The length of a tick (in seconds)
+     */
+    private float tickTime;
+    /**
+     * The frame time not yet used up by ticks
+     */
+    private float accumulator;
+    private long ticks;
+    private long droppedTicks;
+
+    /**
+     * Builds the entities for a game on the given map
+     */
+    private World(CollisionGrid roomTiles, MapLayer systemsMap, GameSettings settings, RecordingContainer recording, boolean shouldRecord, boolean isPlayback) {
+        this.context = new WorldContext(settings);
+        this.roomTiles = roomTiles;
+        this.auber = new Auber(new EntityStore<>(1), roomTiles, context);
+        this.collider = new EntityCollider();
+        this.collider.add(auber);
+        this.fieldOfView = new FieldOfView(roomTiles, SIGHT_RADIUS);
+        this.fieldOfView.update(auber);
+        this.npcs = new NpcContainer(collider, context);
+        this.systemContainer = new SystemContainer(systemsMap, roomTiles, context);
+        this.infiltrators = new InfiltratorContainer(systemContainer, roomTiles, collider, context);
+
+        this.recording = recording;
+        this.shouldRecord = shouldRecord;
+        this.isPlayback = isPlayback;
+        this.timeSinceLastSnapshot = 0;
+        this.isOver = false;
+        this.tickTime = 1f / DEFAULT_TICK_RATE;
+        this.accumulator = 0;
+    }
+
+    /**
+     * Starts a new game with a player controlled Auber
+     *
+     * @param roomTiles    The valid room tiles of the map
+     * @param systemsMap   The map layer of systems
+     * @param shouldRecord Whether this game should be recorded
+     */
+    public World(CollisionGrid roomTiles, MapLayer systemsMap, boolean shouldRecord) {
+        this(roomTiles, systemsMap, new GameSettings(), shouldRecord);
+    }
+
+    /**
+     * Starts a new game with the given settings
+     *
+     * @param roomTiles    The valid room tiles of the map
+     * @param systemsMap   The map layer of systems
+     * @param settings     The settings to play with, including the seed
+     * @param shouldRecord Whether this game should be recorded
+     */
+    public World(CollisionGrid roomTiles, MapLayer systemsMap, GameSettings settings, boolean shouldRecord) {
+        this(roomTiles, systemsMap, settings, new RecordingContainer(), shouldRecord, false);
+        npcs.spawnNpcs(roomTiles);
+    }
+
+    /**
+     * Creates a new playback of the given recording
+     *
+     * @param roomTiles  The valid room tiles of the map
+     * @param systemsMap The map layer of systems
+     * @param recording  The recording to playback from
+     */
+    public World(CollisionGrid roomTiles, MapLayer systemsMap, RecordingContainer recording) {
+        this(roomTiles, systemsMap, new GameSettings(), recording, false, true);
+    }
+
+    /**
+     * Starts a new game on a map read from a file, without loading any textures
+     *
+     * @param map          The map to play on
+     * @param shouldRecord Whether this game should be recorded
+     */
+    public World(MapData map, boolean shouldRecord) {
+        this(map, new GameSettings(), shouldRecord);
+    }
+
+    /**
+     * Starts a new game on a map read from a file, with the given settings<br>
+     * Each world builds its own room tiles, so many worlds can share one map
+     *
+     * @param map          The map to play on
+     * @param settings     The settings to play with, including the seed
+     * @param shouldRecord Whether this game should be recorded
+     */
+    public World(MapData map, GameSettings settings, boolean shouldRecord) {
+        this(new CollisionGrid(map.rooms), map.systems, settings, shouldRecord);
+    }
+
+    /**
+     * Runs as many ticks as fit in the time passed, up to MAX_TICKS_PER_FRAME, keeping the rest for next time
+     *
+     * @param frameTime The time passed since the last frame
+     * @return True if the game has ended
+     */
+    public boolean update(float frameTime) {
+        accumulator += frameTime;
+        int frameTicks = 0;
+        while (accumulator >= tickTime && !isOver) {
+            if (frameTicks == MAX_TICKS_PER_FRAME) {
+                // Too far behind to catch up, so drop the whole ticks and keep the part way through one
+                droppedTicks += (long) (accumulator / tickTime);
+                accumulator %= tickTime;
+                break;
+            }
+            step(tickTime);
+            accumulator -= tickTime;
+            frameTicks++;
+        }
+        return isOver;
+    }
+
+    /**
+     * Moves where every entity is drawn to part way between its last two ticks, by how far the time left over
+     * from the last update is through the next tick
+     */
+    public void interpolate() {
+        float alpha = Math.min(1, accumulator / tickTime);
+        auber.interpolate(alpha);
+        infiltrators.interpolate(alpha);
+        npcs.interpolate(alpha);
+        systemContainer.interpolate(alpha);
+    }
+
+    /**
+     * Moves the game on by one step of the given time: plays back or records actions, moves every entity,
+     * captures infiltrators and applies damage and healing<br>
+     * Called by update with the tick time. Only movement scales with the step: the Auber is healed and damaged
+     * by a fixed amount each step, and npcs and infiltrators only choose a new move when their own timers (0.1
+     * and 0.2 seconds) run out. Any other step length plays a differently balanced game, so games without a
+     * screen should be driven through update too
+     *
+     * @param deltaTime The time passed since the last step
+     * @return True if the game has ended
+     */
+    public boolean step(float deltaTime) {
+        if (isOver) {
+            return true;
+        }
+        ticks++;
+        elapsedTime += deltaTime;
+        timeSinceLastSnapshot += deltaTime;
+        if (auberPolicy != null) {
+            auberPolicy.steer(this, deltaTime);
+        }
+
+        // Tries to playback recording
+        if (isPlayback && timeSinceLastSnapshot > SNAPSHOT_INTERVAL) {
+            timeSinceLastSnapshot -= SNAPSHOT_INTERVAL;
+            LinkedList<Action> actions = recording.getSnapshot();
+            for (Action action : actions) {
+                switch (action.getEntityType()) {
+                    case Auber:
+                        auber.applyMovementAction(action);
+                        break;
+                    case Infiltrator:
+                        infiltrators.applyAction(action, roomTiles);
+                        break;
+                    case Npc:
+                        npcs.applyAction(action, roomTiles);
+                        break;
+                    case StationSystem:
+                        systemContainer.applyAction(action, roomTiles);
+                        break;
+                }
+            }
+        }
+
+        // Move entities if not in playback mode
+        if (!isPlayback) {
+            infiltrators.trackAuber(auber);
+            infiltrators.calculatePosition(deltaTime, roomTiles);
+            npcs.calculatePosition(deltaTime, roomTiles);
+            infiltrators.checkCaptured(auber, fieldOfView);
+        }
+        auber.updatePosition(deltaTime, roomTiles);
+        // Check if an infiltrator is applying a hallucination
+        auber.checkHallucinations(roomTiles, infiltrators);
+
+        // Check if auber is on teleporter
+        auber.updateTeleportCoolDown(deltaTime);
+        auber.teleport(systemContainer);
+        fieldOfView.update(auber);
+
+        infiltrators.updateMovements(deltaTime, roomTiles);
+        npcs.updateMovements(deltaTime, roomTiles);
+        systemContainer.updateMovements(deltaTime, roomTiles);
+
+        //TODO balance heal and damage rates
+        //Updates the aubers health (both damage and healing)
+        auber.healFromSystem(systemContainer, context.settings.auberHealRate);
+        if (auber.damageFromSystem(systemContainer, context.settings.auberDamageRate) || systemContainer.getAmountOfActiveSystems() < 1 || infiltrators.hasPlayerWon()) {
+            context.log("Game ends");
+            isOver = true;
+            playerWon = infiltrators.hasPlayerWon() && auber.getHealth() > 0;
+            //TODO game end condition
+        }
+
+        // Records any movements made
+        if (shouldRecord && timeSinceLastSnapshot > SNAPSHOT_INTERVAL) {
+            recording.newSnapshot();
+            recording.addAction(new Action(auber.id, ActionType.Move, auber.getXPosition(), auber.getYPosition(), auber.getXVelocity(), auber.getYVelocity()));
+            recording.addAllActions(npcs.record());
+            recording.addAllActions(infiltrators.record());
+            recording.addAllActions(systemContainer.record());
+            timeSinceLastSnapshot = 0;
+        }
+        return isOver;
+    }
+
+    /**
+     * Stops the infiltrators' pathfinding threads, call once the world is no longer needed
+     */
+    public void dispose() {
+        infiltrators.dispose();
+        context.dispose();
+    }
+
+    /**
+     * Lets something other than the player steer the Auber, such as a script when playing without a screen
+     *
+     * @param auberPolicy Called at the start of every step to set the Auber's velocity, or null to stop
+     */
+    public void setAuberPolicy(AuberPolicy auberPolicy) {
+        this.auberPolicy = auberPolicy;
+    }
+
+    /**
+     * Changes how many ticks are run per second of game time
+     *
+     * @param ticksPerSecond The new tick rate, such as 30 or 120
+     */
+    public void setTickRate(int ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            System.out.println("ERROR Tick rate must be positive, not " + ticksPerSecond);
+            return;
+        }
+        this.tickTime = 1f / ticksPerSecond;
+    }
+
+    public float getTickTime() {
+        return tickTime;
+    }
+
+    /**
+     * @return The number of steps run so far
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return The number of ticks skipped because frames took too long to catch up with
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * @return The game time passed so far (in seconds)
+     */
+    public float getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * @return The number of systems the infiltrators have destroyed
+     */
+    public int getSystemsDestroyed() {
+        return systemContainer.getAmountOfSystems() - systemContainer.getAmountOfActiveSystems();
+    }
+
+    public GameSettings getSettings() {
+        return context.settings;
+    }
+
+    public WorldContext getContext() {
+        return context;
+    }
+
+    public CollisionGrid getRoomTiles() {
+        return roomTiles;
+    }
+
+    public Auber getAuber() {
+        return auber;
+    }
+
+    public FieldOfView getFieldOfView() {
+        return fieldOfView;
+    }
+
+    public InfiltratorContainer getInfiltrators() {
+        return infiltrators;
+    }
+
+    public NpcContainer getNpcs() {
+        return npcs;
+    }
+
+    public SystemContainer getSystemContainer() {
+        return systemContainer;
+    }
+
+    public RecordingContainer getRecording() {
+        return recording;
+    }
+
+    public boolean shouldRecord() {
+        return shouldRecord;
+    }
+
+    public boolean isPlayback() {
+        return isPlayback;
+    }
+
+    /**
+     * @return True once the Auber has died, every system has been destroyed, or every infiltrator caught
+     */
+    public boolean isOver() {
+        return isOver;
+    }
+
+    /**
+     * @return True if the game ended with every infiltrator caught and the Auber still alive
+     */
+    public boolean hasPlayerWon() {
+        return playerWon;
+    }
+}
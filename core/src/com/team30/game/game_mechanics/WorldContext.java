@@ -0,0 +1,75 @@
+package com.team30.game.game_mechanics;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * What is shared by everything in one world, but never between worlds: the settings, the random numbers and
+ * the counter for new IDs<br>
+ * Each world having its own means many worlds can run at once on different threads, and a world started with
+ * the same seed plays out the same way
+ */
+public class WorldContext {
+    public final GameSettings settings;
+    /**
+     * Used for every random choice in the world, seeded from the settings
+     */
+    public final Random random;
+    /**
+     * Counter to assign new ID's
+     */
+    private int idCount;
+    /**
+     * The pool entities are moved on, started the first time it is needed
+     */
+    private ForkJoinPool movementPool;
+
+    /**
+     * @param settings The settings the world is played with
+     */
+    public WorldContext(GameSettings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.seed);
+        this.idCount = 1;
+    }
+
+    /**
+     * @param type What "type" the new entity is
+     * @return A new ID, unique within this world
+     */
+    public ID nextId(EntityType type) {
+        idCount += 1;
+        return new ID(idCount, type);
+    }
+
+    /**
+     * Prints a game event, such as a spawn or an attack, unless the settings have turned events off
+     *
+     * @param message What happened
+     */
+    public void log(String message) {
+        if (settings.logEvents) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * @return The pool to move entities on, or null if they are moved on the game thread
+     */
+    public ForkJoinPool getMovementPool() {
+        if (movementPool == null && settings.movementThreads > 1) {
+            movementPool = new ForkJoinPool(settings.movementThreads);
+        }
+        return movementPool;
+    }
+
+    /**
+     * Stops the movement pool's threads, it is started again if it is needed
+     */
+    public void dispose() {
+        if (movementPool != null) {
+            movementPool.shutdown();
+            movementPool = null;
+        }
+    }
+}
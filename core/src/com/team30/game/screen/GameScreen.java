@@ -14,37 +14,32 @@ import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.team30.game.GameContainer;
-import com.team30.game.Recording.Action;
-import com.team30.game.Recording.ActionType;
 import com.team30.game.Recording.RecordingContainer;
 import com.team30.game.game_mechanics.Auber;
-import com.team30.game.game_mechanics.InfiltratorContainer;
-import com.team30.game.game_mechanics.NpcContainer;
-import com.team30.game.game_mechanics.SystemContainer;
-
-import java.util.LinkedList;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.World;
 
 public class GameScreen extends ScreenAdapter implements InputProcessor {
     /**
      * The size of the tiles in pixels
      */
-    public static final int TILE_SIZE = 64;
+    public static final int TILE_SIZE = World.TILE_SIZE;
     /**
      * The amount of tiles rendered around the Auber
      */
     private static final int VIEW_DISTANCE = 10;
-    private static final float SNAPSHOT_INTERVAL = 0.1f;
-    private final Auber auber;
 
     /**
-     * A map layer, representing valid tiles for characters to enter (Room Tiles)
-     * Used for collision detection
+     * The valid tiles for characters to enter (Room Tiles), built once from the Rooms layer
+     * Used for collision detection, the layer itself is only used for rendering
      */
-    private final TiledMapTileLayer roomTiles;
+    private final CollisionGrid roomTiles;
     private final MapLayer systemsMap;
-
-    private final InfiltratorContainer infiltrators;
-    private final SystemContainer systemContainer;
+    /**
+     * The game being drawn, which moves everything along
+     */
+    private World world;
+    private Auber auber;
     /**
      * Used for selecting the view window for the player
      */
@@ -52,25 +47,20 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
     OrthogonalTiledMapRenderer tiledMapRenderer;
     TiledMap tiledMap;
     GameContainer game;
-    NpcContainer npcs;
-
-    float timeSinceLastSnapshot;
-    RecordingContainer recording;
-    Boolean shouldRecord;
-    Boolean isPlayback;
 
     /**
-     * Builds the map, camera and entities for a game
+     * Loads the map and sets up the camera for a game
      */
-    private GameScreen() {
+    private GameScreen(GameContainer game) {
         float width = GameContainer.SCREEN_WIDTH;
         float height = GameContainer.SCREEN_HEIGHT;
+        this.game = game;
 
         // Map setup
         tiledMap = new TmxMapLoader().load("Map.tmx");
         //tiledMap = new TmxMapLoader().load("test_map.tmx");
         MapLayers layers = tiledMap.getLayers();
-        roomTiles = (TiledMapTileLayer) layers.get("Rooms");
+        roomTiles = new CollisionGrid((TiledMapTileLayer) layers.get("Rooms"));
         systemsMap = layers.get("Systems");
 
         // Builds the renderer and sets the grid to one "tile"
@@ -81,13 +71,6 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
         camera.setToOrtho(false, (width / height) * VIEW_DISTANCE, VIEW_DISTANCE);
         camera.update();
 
-        // Create all entities
-        auber = new Auber(roomTiles);
-        npcs = new NpcContainer();
-
-        systemContainer = new SystemContainer(systemsMap);
-        infiltrators = new InfiltratorContainer(systemContainer);
-
         Gdx.input.setInputProcessor(this);
     }
 
@@ -98,16 +81,9 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
      * @param shouldRecord Whether this game should be recorded
      */
     GameScreen(GameContainer game, Boolean shouldRecord) {
-        this();
-        this.game = game;
-        // Recording setup
-        this.timeSinceLastSnapshot = 0;
-        this.shouldRecord = shouldRecord;
-        this.isPlayback = false;
-        this.recording = new RecordingContainer();
-
-        //Spawn entities
-        npcs.spawnNpcs(roomTiles);
+        this(game);
+        this.world = new World(roomTiles, systemsMap, shouldRecord);
+        this.auber = world.getAuber();
     }
 
     /**
@@ -117,14 +93,9 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
      * @param recording The recording to playback from
      */
     GameScreen(GameContainer game, RecordingContainer recording) {
-        this();
-        this.game = game;
-
-        // Recording setup
-        this.timeSinceLastSnapshot = 0;
-        this.shouldRecord = false;
-        this.isPlayback = true;
-        this.recording = recording;
+        this(game);
+        this.world = new World(roomTiles, systemsMap, recording);
+        this.auber = world.getAuber();
     }
 
     @Override
@@ -132,52 +103,14 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
         // Set black background anc clear screen
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-        timeSinceLastSnapshot += delta;
-
-        // Tries to playback recording
-        if (isPlayback & timeSinceLastSnapshot > SNAPSHOT_INTERVAL) {
-            timeSinceLastSnapshot -= SNAPSHOT_INTERVAL;
-            LinkedList<Action> actions = recording.getSnapshot();
-            for (Action action : actions) {
-                switch (action.getEntityType()) {
-                    case Auber:
-                        auber.applyMovementAction(action);
-                        break;
-                    case Infiltrator:
-                        infiltrators.applyAction(action, roomTiles);
-                        break;
-                    case Npc:
-                        npcs.applyAction(action, roomTiles);
-                        break;
-                    case StationSystem:
-                        systemContainer.applyAction(action, roomTiles);
-                        break;
-                }
-            }
-        }
-
-        // Move entities if not in playback mode
-        if (!isPlayback) {
-            infiltrators.calculatePosition(delta, roomTiles);
-            npcs.calculatePosition(delta, roomTiles);
-            infiltrators.checkCaptured(auber);
-        }
-        auber.updatePosition(delta, roomTiles);
-        // Check if an infiltrator is applying a hallucination
-        auber.checkHallucinations(roomTiles, infiltrators);
-
-        // Check if auber is on teleporter
-        auber.updateTeleportCoolDown(delta);
-        auber.teleport(systemContainer);
-
-        infiltrators.updateMovements(delta, roomTiles);
-        npcs.updateMovements(delta, roomTiles);
-        systemContainer.updateMovements(delta, roomTiles);
 
+        // Runs however many fixed ticks fit in the frame, then draws part way towards the next one
+        boolean isOver = world.update(delta);
+        world.interpolate();
 
         // Set the camera to focus on Auber
-        camera.position.x = auber.getXPosition();
-        camera.position.y = auber.getYPosition();
+        camera.position.x = auber.getRenderX();
+        camera.position.y = auber.getRenderY();
 
         camera.update();
         tiledMapRenderer.setView(camera);
@@ -186,29 +119,22 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
         Batch batch = tiledMapRenderer.getBatch();
         batch.begin();
         auber.draw(batch);
-        infiltrators.draw(batch);
-        npcs.draw(batch);
+        world.getInfiltrators().draw(batch, world.getFieldOfView());
+        world.getNpcs().draw(batch, world.getFieldOfView());
+        batch.end();
 
-        //TODO balance heal and damage rates
-        //Updates the aubers health (both damage and healing)
-        auber.healFromSystem(systemContainer, 1);
-        if (auber.damageFromSystem(systemContainer, 0.5f) || systemContainer.getAmountOfActiveSystems() < 1 || infiltrators.hasPlayerWon()) {
-            System.out.println("Game ends");
+        if (isOver) {
             game.pause();
             game.setScreen(new MainMenu(game));
-            //TODO game end condition
         }
-        batch.end();
+    }
 
-        // Records any movements made
-        if (shouldRecord && timeSinceLastSnapshot > SNAPSHOT_INTERVAL) {
-            recording.newSnapshot();
-            recording.addAction(new Action(auber.id, ActionType.Move, auber.getXPosition(), auber.getYPosition(), auber.getXVelocity(), auber.getYVelocity()));
-            recording.addAllActions(npcs.record());
-            recording.addAllActions(infiltrators.record());
-            recording.addAllActions(systemContainer.record());
-            timeSinceLastSnapshot = 0;
-        }
+    /**
+     * Called when switching to another screen
+     */
+    @Override
+    public void hide() {
+        world.dispose();
     }
 
     /**
@@ -220,13 +146,13 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
     @Override
     public boolean keyUp(int keycode) {
         if (keycode == Input.Keys.ESCAPE) {
-            if (shouldRecord) {
-                recording.exportRecording();
+            if (world.shouldRecord()) {
+                world.getRecording().exportRecording();
             }
             game.setScreen(new MainMenu(game));
         }
         // Disable player input for playback
-        if (!isPlayback) {
+        if (!world.isPlayback()) {
             if (keycode == Input.Keys.LEFT) {
                 auber.setXVelocity(0);
             }
@@ -240,7 +166,7 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
                 auber.setYVelocity(0);
             }
             if (keycode == Input.Keys.SPACE) {
-                recording.exportRecording();
+                world.getRecording().exportRecording();
             }
         }
         return false;
@@ -255,16 +181,16 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
     @Override
     public boolean keyDown(int keycode) {
         if (keycode == Input.Keys.LEFT) {
-            auber.setXVelocity(-auber.VELOCITY_CHANGE);
+            auber.setXVelocity(-auber.getVelocityChange());
         }
         if (keycode == Input.Keys.RIGHT) {
-            auber.setXVelocity(auber.VELOCITY_CHANGE);
+            auber.setXVelocity(auber.getVelocityChange());
         }
         if (keycode == Input.Keys.UP) {
-            auber.setYVelocity(auber.VELOCITY_CHANGE);
+            auber.setYVelocity(auber.getVelocityChange());
         }
         if (keycode == Input.Keys.DOWN) {
-            auber.setYVelocity(-auber.VELOCITY_CHANGE);
+            auber.setYVelocity(-auber.getVelocityChange());
         }
         return false;
     }
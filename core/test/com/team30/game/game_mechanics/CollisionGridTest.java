@@ -0,0 +1,153 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+import java.util.Random;
+
+/**
+ * Checks the bitset grid against a plain array of the same cells, on the map and on random maps wider than one
+ * 64 bit word<br>
+ * Every cell (and the cells just outside the map) must be walkable exactly when the array says so, every box
+ * must fit exactly when the cells under its 4 corners are walkable, and opening or closing a cell must change
+ * only that cell and be logged<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class CollisionGridTest {
+    private static final int RANDOM_MAPS = 20;
+
+    private final CollisionGrid grid;
+    /**
+     * The walkable cells the grid should have, indexed by y * width + x
+     */
+    private final boolean[] walkable;
+    private final int width;
+    private final int height;
+    private int checked;
+    private int failures;
+
+    private CollisionGridTest(CollisionGrid grid, boolean[] walkable) {
+        this.grid = grid;
+        this.walkable = walkable;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        TiledMapTileLayer rooms = map.rooms;
+        boolean[] walkable = new boolean[rooms.getWidth() * rooms.getHeight()];
+        for (int y = 0; y < rooms.getHeight(); y++) {
+            for (int x = 0; x < rooms.getWidth(); x++) {
+                walkable[y * rooms.getWidth() + x] = rooms.getCell(x, y) != null;
+            }
+        }
+        CollisionGridTest test = new CollisionGridTest(new CollisionGrid(rooms), walkable);
+        test.checkCells();
+        test.checkAreas();
+
+        Random random = new Random(1);
+        for (int count = 0; count < RANDOM_MAPS; count++) {
+            CollisionGridTest noise = randomGrid(random);
+            noise.checkCells();
+            noise.checkAreas();
+            noise.checkChanges(random);
+            test.checked += noise.checked;
+            test.failures += noise.failures;
+        }
+
+        System.out.println("Checked " + test.checked + " cells and boxes, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return A grid from 1 to 200 tiles each way, with a random share of its cells walkable
+     */
+    private static CollisionGridTest randomGrid(Random random) {
+        int width = 1 + random.nextInt(200);
+        int height = 1 + random.nextInt(200);
+        double open = random.nextDouble();
+        boolean[] walkable = new boolean[width * height];
+        CollisionGrid grid = new CollisionGrid(width, height);
+        for (int cell = 0; cell < walkable.length; cell++) {
+            walkable[cell] = random.nextDouble() < open;
+            grid.setWalkable(cell % width, cell / width, walkable[cell]);
+        }
+        return new CollisionGridTest(grid, walkable);
+    }
+
+    private boolean expected(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && walkable[y * width + x];
+    }
+
+    /**
+     * Checks every cell, and a ring of cells just outside the map
+     */
+    private void checkCells() {
+        for (int y = -1; y <= height; y++) {
+            for (int x = -1; x <= width; x++) {
+                checked++;
+                if (grid.isWalkable(x, y) != expected(x, y)) {
+                    failures++;
+                    System.out.println("ERROR Cell (" + x + ", " + y + ") of a " + width + "x" + height + " grid should "
+                            + (expected(x, y) ? "" : "not ") + "be walkable");
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks boxes of 1 and 2 tiles each way, at every cell and part way across it
+     */
+    private void checkAreas() {
+        for (int y = -1; y <= height; y++) {
+            for (int x = -1; x <= width; x++) {
+                for (int size = 1; size <= 4; size++) {
+                    int boxWidth = 1 + (size - 1) % 2;
+                    int boxHeight = 1 + (size - 1) / 2;
+                    checkArea(x, y, boxWidth, boxHeight);
+                    checkArea(x + 0.5f, y + 0.75f, boxWidth, boxHeight);
+                }
+            }
+        }
+    }
+
+    private void checkArea(float x, float y, int boxWidth, int boxHeight) {
+        int left = (int) x;
+        int bottom = (int) y;
+        boolean fits = x >= 0 && y >= 0 && expected(left, bottom) && expected(left + boxWidth, bottom)
+                && expected(left, bottom + boxHeight) && expected(left + boxWidth, bottom + boxHeight);
+        checked++;
+        if (grid.isAreaWalkable(x, y, boxWidth, boxHeight) != fits) {
+            failures++;
+            System.out.println("ERROR A " + boxWidth + "x" + boxHeight + " box at (" + x + ", " + y + ") should "
+                    + (fits ? "" : "not ") + "fit");
+        }
+    }
+
+    /**
+     * Opens and closes random cells, checking each change is logged and copies are the same as the grid
+     */
+    private void checkChanges(Random random) {
+        for (int change = 0; change < 100; change++) {
+            int cell = random.nextInt(walkable.length);
+            boolean open = random.nextBoolean();
+            int version = grid.getVersion();
+            grid.setWalkable(cell % width, cell / width, open);
+            int expectedVersion = walkable[cell] == open ? version : version + 1;
+            walkable[cell] = open;
+            checked++;
+            if (grid.getVersion() != expectedVersion || (expectedVersion != version && grid.getChangedCell(version) != cell)) {
+                failures++;
+                System.out.println("ERROR Setting cell " + cell + " to " + open + " wasn't logged as one change");
+            }
+        }
+        checkCells();
+        CollisionGridTest copy = new CollisionGridTest(new CollisionGrid(grid), walkable);
+        copy.checkCells();
+        checked += copy.checked;
+        failures += copy.failures;
+    }
+}
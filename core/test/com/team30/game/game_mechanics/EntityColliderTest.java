@@ -0,0 +1,316 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the sweep and prune collider against checking every pair of entities<br>
+ * Random entities, often overlapping, are added to a collider, then moved, removed and added again. After each
+ * change, areas found must be the same as checking every box, blocked moves must be the same as checking every
+ * box the move ends on, and sweeps (some far longer than any entity) must stop before every entity the move passes
+ * into, and only stop early when one is in the way<br>
+ * Two entities are then walked into each other head on in a corridor one entity wide, from both ends and with
+ * either ID first: the one with the lower ID must push the other back to the end of the corridor<br>
+ * Exits with 1 if any check fails
+ */
+public class EntityColliderTest {
+    private static final int RANDOM_COLLIDERS = 50;
+    private static final int CHANGES = 10;
+    private static final int QUERIES_PER_CHANGE = 50;
+    private static final float AREA_SIZE = 40;
+    /**
+     * How far (as a fraction of the move) a sweep may stop short of or run into an entity, for rounding
+     */
+    private static final float TOLERANCE = 1e-4f;
+    private static final float TIME_STEP = 1f / World.DEFAULT_TICK_RATE;
+
+    private final Random random;
+    private final EntityCollider collider;
+    private final EntityStore<Entity> store;
+    private final List<Entity> added;
+    private final List<Entity> removed;
+    private final Array<Entity> result;
+    private int checked;
+    private int failures;
+
+    private EntityColliderTest(Random random) {
+        this.random = random;
+        this.collider = new EntityCollider();
+        this.store = new EntityStore<>(1);
+        this.added = new ArrayList<>();
+        this.removed = new ArrayList<>();
+        this.result = new Array<>();
+    }
+
+    public static void main(String[] arg) {
+        Random random = new Random(1);
+        EntityColliderTest test = new EntityColliderTest(random);
+        for (int count = 0; count < RANDOM_COLLIDERS; count++) {
+            EntityColliderTest noise = new EntityColliderTest(random);
+            noise.run();
+            test.checked += noise.checked;
+            test.failures += noise.failures;
+        }
+        test.checkHeadOn(false, false);
+        test.checkHeadOn(false, true);
+        test.checkHeadOn(true, false);
+        test.checkHeadOn(true, true);
+
+        System.out.println("Checked " + test.checked + " queries, moves and sweeps, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    private float randomPosition() {
+        return random.nextFloat() * AREA_SIZE;
+    }
+
+    private void run() {
+        int entities = random.nextInt(200);
+        for (int entity = 0; entity < entities; entity++) {
+            Entity added = new Entity(store, new ID(entity, EntityType.Npc), null, randomPosition(), randomPosition(),
+                    1 + random.nextInt(3), 1 + random.nextInt(3));
+            collider.add(added);
+            this.added.add(added);
+        }
+        check();
+        for (int change = 0; change < CHANGES; change++) {
+            for (Entity entity : added) {
+                if (random.nextBoolean()) {
+                    if (random.nextInt(10) == 0) {
+                        entity.setPosition(randomPosition(), randomPosition());
+                    } else {
+                        entity.setPosition(entity.getXPosition() + random.nextFloat() - 0.5f,
+                                entity.getYPosition() + random.nextFloat() - 0.5f);
+                    }
+                }
+            }
+            for (int entity = added.size() - 1; entity >= 0; entity--) {
+                if (random.nextInt(10) == 0) {
+                    collider.remove(added.get(entity));
+                    removed.add(added.remove(entity));
+                }
+            }
+            for (int entity = removed.size() - 1; entity >= 0; entity--) {
+                if (random.nextInt(4) == 0) {
+                    collider.add(removed.get(entity));
+                    added.add(removed.remove(entity));
+                }
+            }
+            check();
+        }
+    }
+
+    private void check() {
+        checked++;
+        if (collider.size() != added.size()) {
+            fail(collider + " should have " + added.size() + " entities");
+        }
+        for (int query = 0; query < QUERIES_PER_CHANGE; query++) {
+            checkArea();
+            if (!added.isEmpty()) {
+                Entity mover = added.get(random.nextInt(added.size()));
+                checkBlocked(mover, mover.getXPosition() + random.nextFloat() * 2 - 1, mover.getYPosition() + random.nextFloat() * 2 - 1);
+                // Short moves like a normal update, and long ones like a huge time step
+                float length = random.nextBoolean() ? random.nextFloat() : random.nextFloat() * AREA_SIZE;
+                double angle = random.nextDouble() * 2 * Math.PI;
+                float moveX = random.nextInt(4) == 0 ? 0 : (float) (Math.cos(angle) * length);
+                float moveY = random.nextInt(4) == 0 ? 0 : (float) (Math.sin(angle) * length);
+                checkSweep(mover, moveX, moveY, random.nextBoolean() ? 1 : random.nextFloat());
+            }
+        }
+    }
+
+    private static boolean overlaps(Entity entity, float minX, float minY, float maxX, float maxY) {
+        return minX < entity.getXPosition() + entity.width && entity.getXPosition() < maxX
+                && minY < entity.getYPosition() + entity.height && entity.getYPosition() < maxY;
+    }
+
+    private static boolean overlaps(Entity first, Entity second) {
+        return overlaps(first, second.getXPosition(), second.getYPosition(),
+                second.getXPosition() + second.width, second.getYPosition() + second.height);
+    }
+
+    /**
+     * @return True if the move is towards the middle of the other entity
+     */
+    private static boolean isTowards(Entity mover, Entity other, float moveX, float moveY) {
+        float towardsX = (2 * other.getXPosition() + other.width) - (2 * mover.getXPosition() + mover.width);
+        float towardsY = (2 * other.getYPosition() + other.height) - (2 * mover.getYPosition() + mover.height);
+        return moveX * towardsX + moveY * towardsY > 0;
+    }
+
+    private void checkArea() {
+        float minX = randomPosition() - 5;
+        float minY = randomPosition() - 5;
+        float maxX = minX + random.nextFloat() * 10;
+        float maxY = minY + random.nextFloat() * 10;
+        Set<Entity> expected = new HashSet<>();
+        for (Entity entity : added) {
+            if (overlaps(entity, minX, minY, maxX, maxY)) {
+                expected.add(entity);
+            }
+        }
+        collider.queryArea(minX, minY, maxX, maxY, result);
+        Set<Entity> found = new HashSet<>();
+        for (Entity entity : result) {
+            found.add(entity);
+        }
+        checked++;
+        if (found.size() != result.size || !found.equals(expected)) {
+            fail("The area (" + minX + ", " + minY + ") to (" + maxX + ", " + maxY + ") found " + result.size
+                    + " entities, but " + expected.size() + " are in it");
+        }
+    }
+
+    /**
+     * A move is blocked if it ends on an entity that it didn't start on, or moves towards the middle of one it did
+     */
+    private void checkBlocked(Entity mover, float x, float y) {
+        boolean expected = false;
+        for (Entity entity : added) {
+            if (entity != mover && overlaps(entity, x, y, x + mover.width, y + mover.height)
+                    && (!overlaps(entity, mover) || isTowards(mover, entity, x - mover.getXPosition(), y - mover.getYPosition()))) {
+                expected = true;
+            }
+        }
+        checked++;
+        if (collider.isBlocked(mover, x, y) != expected) {
+            fail("Moving " + mover.id + " from (" + mover.getXPosition() + ", " + mover.getYPosition() + ") to ("
+                    + x + ", " + y + ") should " + (expected ? "" : "not ") + "be blocked");
+        }
+    }
+
+    /**
+     * Works out the fraction of the move when the mover first overlaps the other entity, in doubles
+     *
+     * @return The fraction, or Double.MAX_VALUE if the move never overlaps it
+     */
+    private static double impact(Entity mover, Entity other, float moveX, float moveY) {
+        double[] enterExit = {0, Double.MAX_VALUE};
+        if (!axisImpact(mover.getXPosition(), mover.width, other.getXPosition(), other.width, moveX, enterExit)
+                || !axisImpact(mover.getYPosition(), mover.height, other.getYPosition(), other.height, moveY, enterExit)) {
+            return Double.MAX_VALUE;
+        }
+        return enterExit[0] < enterExit[1] ? enterExit[0] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Narrows the fractions of the move the two ranges overlap along one axis
+     *
+     * @return False if they never overlap along the axis
+     */
+    private static boolean axisImpact(double moverStart, double moverSize, double otherStart, double otherSize, double move, double[] enterExit) {
+        if (move == 0) {
+            return moverStart < otherStart + otherSize && otherStart < moverStart + moverSize;
+        }
+        double enter = (otherStart - (moverStart + moverSize)) / move;
+        double exit = (otherStart + otherSize - moverStart) / move;
+        enterExit[0] = Math.max(enterExit[0], Math.min(enter, exit));
+        enterExit[1] = Math.min(enterExit[1], Math.max(enter, exit));
+        return true;
+    }
+
+    /**
+     * The sweep must stop before the first entity the move passes into, and only stop early if it does
+     */
+    private void checkSweep(Entity mover, float moveX, float moveY, float maxFraction) {
+        String move = "Sweeping " + mover.id + " by (" + moveX + ", " + moveY + ") up to " + maxFraction;
+        float fraction = collider.sweep(mover, moveX, moveY, maxFraction);
+        checked++;
+        boolean startsTowards = false;
+        double firstImpact = maxFraction;
+        for (Entity entity : added) {
+            if (entity == mover) {
+                continue;
+            }
+            if (overlaps(entity, mover)) {
+                startsTowards |= isTowards(mover, entity, moveX, moveY);
+            } else {
+                firstImpact = Math.min(firstImpact, impact(mover, entity, moveX, moveY));
+            }
+        }
+        if (startsTowards) {
+            if (fraction != 0) {
+                fail(move + " went " + fraction + " towards an entity it is on");
+            }
+            return;
+        }
+        if (fraction < 0 || fraction > maxFraction) {
+            fail(move + " went " + fraction + " of the move");
+        } else if (fraction > firstImpact + TOLERANCE) {
+            fail(move + " went " + fraction + " of the move, through an entity at " + firstImpact);
+        } else if (fraction < Math.min(maxFraction, firstImpact) - TOLERANCE
+                - 2e-3f / Math.max(Math.abs(moveX), Math.abs(moveY))) {
+            fail(move + " stopped at " + fraction + " of the move, but nothing is in the way until " + firstImpact);
+        }
+    }
+
+    /**
+     * Walks two entities into each other in a corridor, checking the one with the lower ID pushes the other to the
+     * end and they never overlap or leave the corridor
+     *
+     * @param lowerOnRight True if the entity with the lower ID starts at the right end
+     * @param lowerFirst   True if the entity with the lower ID is added (and so updated) first
+     */
+    private void checkHeadOn(boolean lowerOnRight, boolean lowerFirst) {
+        int length = 30;
+        // A 1x1 entity at y = 1 covers the cells of rows 1 and 2
+        CollisionGrid corridor = new CollisionGrid(length, 4);
+        for (int x = 0; x < length; x++) {
+            corridor.setWalkable(x, 1, true);
+            corridor.setWalkable(x, 2, true);
+        }
+        EntityStore<Entity> store = new EntityStore<>(2);
+        EntityCollider collider = new EntityCollider();
+        Entity lower = null;
+        Entity higher = null;
+        for (int index = 0; index < 2; index++) {
+            boolean isLower = (index == 0) == lowerFirst;
+            boolean onRight = isLower == lowerOnRight;
+            Entity entity = new Entity(store, new ID(isLower ? 1 : 2, EntityType.Npc), null, onRight ? length - 5 : 3, 1, 1, 1);
+            entity.setXVelocity(onRight ? -1 : 1);
+            collider.add(entity);
+            if (isLower) {
+                lower = entity;
+            } else {
+                higher = entity;
+            }
+        }
+
+        String walk = "Walking head on with the lower ID on the " + (lowerOnRight ? "right" : "left")
+                + (lowerFirst ? ", updated first" : ", updated second");
+        for (int update = 0; update < 20 * World.DEFAULT_TICK_RATE; update++) {
+            store.updatePositions(TIME_STEP, corridor);
+            checked++;
+            if (overlaps(lower, higher)) {
+                fail(walk + ", they overlap at (" + lower.getXPosition() + ", " + higher.getXPosition() + ")");
+                return;
+            }
+            if (!corridor.isAreaWalkable(lower.getXPosition(), lower.getYPosition(), 1, 1)
+                    || !corridor.isAreaWalkable(higher.getXPosition(), higher.getYPosition(), 1, 1)) {
+                fail(walk + ", they left the corridor at (" + lower.getXPosition() + ", " + higher.getXPosition() + ")");
+                return;
+            }
+        }
+        // Pushed up against the far end, and the pusher up against it
+        float end = lowerOnRight ? 0 : length - 1;
+        float pushed = higher.getXPosition();
+        float pusher = lower.getXPosition();
+        checked++;
+        if (Math.abs(pushed - end) > 0.1f || Math.abs(pusher - (lowerOnRight ? pushed + 1 : pushed - 1)) > 0.1f) {
+            fail(walk + ", they ended at " + pusher + " and " + pushed + ", not pushed to the end at " + end);
+        }
+    }
+}
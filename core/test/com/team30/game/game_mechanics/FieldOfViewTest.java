@@ -0,0 +1,239 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.util.Random;
+
+/**
+ * Checks the shadowcast field of view against lines of sight worked out directly<br>
+ * From random cells of the map, and of random maps, every cell within the radius whose middle can be reached by a
+ * straight line from the middle of the origin, without touching anything but room tiles, must be visible (so
+ * nothing in plain sight is hidden from capture). Every visible cell must be within the radius, and reachable by
+ * at least one line from the middle of the origin to a point in the cell that passes through no wall (so nothing
+ * behind a wall is shown)<br>
+ * The cached cells must only be worked out again when the origin moves or a room tile changes<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class FieldOfViewTest {
+    private static final int ORIGINS = 300;
+    private static final int RANDOM_MAPS = 20;
+    private static final int RANDOM_MAP_ORIGINS = 50;
+    /**
+     * Points checked along each side of a cell, when looking for a line that reaches it
+     */
+    private static final int POINTS_PER_SIDE = 9;
+    /**
+     * How far inside a wall a line must pass to count as blocked, so lines along the edge of a wall aren't
+     */
+    private static final double GRAZE = 1e-9;
+
+    private final CollisionGrid grid;
+    private final FieldOfView view;
+    private final int radius;
+    private int checked;
+    private int failures;
+
+    private FieldOfViewTest(CollisionGrid grid, int radius) {
+        this.grid = grid;
+        this.view = new FieldOfView(grid, radius);
+        this.radius = radius;
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        Random random = new Random(1);
+        CollisionGrid room = new CollisionGrid(map.rooms);
+        FieldOfViewTest test = new FieldOfViewTest(room, World.SIGHT_RADIUS);
+        WalkableCellIndex cells = room.getWalkableCells();
+        for (int origin = 0; origin < ORIGINS; origin++) {
+            int cell = cells.randomCell(random);
+            test.check(cells.getX(cell), cells.getY(cell));
+        }
+        test.checkCaching(random);
+
+        for (int count = 0; count < RANDOM_MAPS; count++) {
+            int width = 1 + random.nextInt(60);
+            int height = 1 + random.nextInt(60);
+            double open = 0.5 + random.nextDouble() / 2;
+            CollisionGrid grid = new CollisionGrid(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    grid.setWalkable(x, y, random.nextDouble() < open);
+                }
+            }
+            FieldOfViewTest noise = new FieldOfViewTest(grid, 1 + random.nextInt(20));
+            for (int origin = 0; origin < RANDOM_MAP_ORIGINS; origin++) {
+                noise.check(random.nextInt(width), random.nextInt(height));
+            }
+            test.checked += noise.checked;
+            test.failures += noise.failures;
+        }
+
+        System.out.println("Checked " + test.checked + " cells, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    /**
+     * Checks every cell around the origin, and a ring just outside the radius
+     */
+    private void check(int originX, int originY) {
+        view.update(originX, originY);
+        for (int y = originY - radius - 1; y <= originY + radius + 1; y++) {
+            for (int x = originX - radius - 1; x <= originX + radius + 1; x++) {
+                int dx = x - originX;
+                int dy = y - originY;
+                boolean inRange = dx * dx + dy * dy <= radius * radius && x >= 0 && y >= 0
+                        && x < grid.getWidth() && y < grid.getHeight();
+                boolean visible = view.isVisible(x, y);
+                String cell = "Cell (" + x + ", " + y + ") from (" + originX + ", " + originY + ")";
+                checked++;
+                if (visible && !inRange) {
+                    fail(cell + " is visible, but outside a radius of " + radius);
+                } else if (!visible && inRange && isClear(originX, originY, x, y)) {
+                    fail(cell + " is in plain sight, but isn't visible");
+                } else if (visible && !canReach(originX, originY, x, y)) {
+                    fail(cell + " is visible, but every line to it passes through a wall");
+                }
+            }
+        }
+    }
+
+    /**
+     * Follows the line between the middles of the cells, through every cell it touches (both cells either side of
+     * a corner it passes through), checking each is a room tile
+     *
+     * @return True if the line only touches room tiles, apart from the cells at each end
+     */
+    private boolean isClear(int fromX, int fromY, int toX, int toY) {
+        int stepsX = Math.abs(toX - fromX);
+        int stepsY = Math.abs(toY - fromY);
+        int stepX = Integer.signum(toX - fromX);
+        int stepY = Integer.signum(toY - fromY);
+        int x = fromX;
+        int y = fromY;
+        int movedX = 0;
+        int movedY = 0;
+        while (movedX < stepsX || movedY < stepsY) {
+            // Which edge of the current cell the line leaves through, compared without dividing
+            long decision = (long) (1 + 2 * movedX) * stepsY - (long) (1 + 2 * movedY) * stepsX;
+            if (decision == 0) {
+                if (!grid.isWalkable(x + stepX, y) || !grid.isWalkable(x, y + stepY)) {
+                    return false;
+                }
+                x += stepX;
+                y += stepY;
+                movedX++;
+                movedY++;
+            } else if (decision < 0) {
+                x += stepX;
+                movedX++;
+            } else {
+                y += stepY;
+                movedY++;
+            }
+            if ((x != toX || y != toY) && !grid.isWalkable(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if a line from the middle of the origin reaches any of the points around and inside the cell,
+     * without passing through a wall on the way
+     */
+    private boolean canReach(int fromX, int fromY, int toX, int toY) {
+        for (int i = 0; i < POINTS_PER_SIDE; i++) {
+            for (int j = 0; j < POINTS_PER_SIDE; j++) {
+                double pointX = toX + (double) i / (POINTS_PER_SIDE - 1);
+                double pointY = toY + (double) j / (POINTS_PER_SIDE - 1);
+                if (!isBlocked(fromX, fromY, fromX + 0.5, fromY + 0.5, toX, toY, pointX, pointY)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the line between the points passes through the inside of any wall, apart from the cells it
+     * starts and ends in
+     */
+    private boolean isBlocked(int fromX, int fromY, double startX, double startY, int toX, int toY, double endX, double endY) {
+        int left = Math.min(fromX, toX);
+        int right = Math.max(fromX, toX);
+        int bottom = Math.min(fromY, toY);
+        int top = Math.max(fromY, toY);
+        for (int y = bottom; y <= top; y++) {
+            for (int x = left; x <= right; x++) {
+                if ((x == fromX && y == fromY) || (x == toX && y == toY) || grid.isWalkable(x, y)) {
+                    continue;
+                }
+                if (crosses(startX, startY, endX, endY, x + GRAZE, y + GRAZE, x + 1 - GRAZE, y + 1 - GRAZE)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clips the line to the box along each axis in turn
+     *
+     * @return True if any part of the line is inside the box
+     */
+    private static boolean crosses(double startX, double startY, double endX, double endY, double minX, double minY, double maxX, double maxY) {
+        double[] range = {0, 1};
+        return clip(startX, endX - startX, minX, maxX, range) && clip(startY, endY - startY, minY, maxY, range);
+    }
+
+    private static boolean clip(double start, double move, double min, double max, double[] range) {
+        if (move == 0) {
+            return start > min && start < max;
+        }
+        double enter = (min - start) / move;
+        double exit = (max - start) / move;
+        range[0] = Math.max(range[0], Math.min(enter, exit));
+        range[1] = Math.min(range[1], Math.max(enter, exit));
+        return range[0] < range[1];
+    }
+
+    /**
+     * Checks updating from the same cell reuses the cells, and moving or changing a room tile works them out again
+     */
+    private void checkCaching(Random random) {
+        WalkableCellIndex cells = grid.getWalkableCells();
+        int x;
+        int y;
+        do {
+            int cell = cells.randomCell(random);
+            x = cells.getX(cell);
+            y = cells.getY(cell);
+        } while (!grid.isWalkable(x + 1, y) || !grid.isWalkable(x + 2, y));
+        checked++;
+        if (!view.update(x, y) || view.update(x, y)) {
+            fail("Looking from (" + x + ", " + y + ") twice should only work out the visible cells once");
+        }
+        checked++;
+        if (!view.update(x + 1, y)) {
+            fail("Moving to (" + (x + 1) + ", " + y + ") didn't work out the visible cells again");
+        }
+        // Close the next cell along, which must then block the cell after it
+        grid.setWalkable(x + 2, y, false);
+        checked++;
+        if (!view.update(x + 1, y)) {
+            fail("Closing (" + (x + 2) + ", " + y + ") didn't work out the visible cells again");
+        }
+        check(x + 1, y);
+        grid.setWalkable(x + 2, y, true);
+        view.update(x + 1, y);
+        check(x + 1, y);
+    }
+}
@@ -0,0 +1,90 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Times each phase of moving a crowd of npcs, to show how much of an update the fork-join pool can speed up<br>
+ * Choosing moves and checking them against the collider run one entity at a time, only the wall sweep is split
+ * across threads. The wall sweep is timed by moving the same crowd without a collider, the rest of the move is
+ * the collider. The speed-up for more threads then follows from the share that is serial (Amdahl's law), and is
+ * also measured on the pool if the machine has more than one core<br>
+ * Arguments: the map file, the number of npcs and the number of ticks
+ */
+public class MovementBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        int npcs = arg.length > 1 ? Integer.parseInt(arg[1]) : 20000;
+        int ticks = arg.length > 2 ? Integer.parseInt(arg[2]) : 300;
+        CollisionGrid room = new CollisionGrid(map.rooms);
+
+        // Warm up, so every phase is timed compiled
+        run(room, npcs, ticks / 4, true, null);
+        long[] collided = run(room, npcs, ticks, true, null);
+        long[] sweptOnly = run(room, npcs, ticks, false, null);
+        long decide = collided[0];
+        long sweep = sweptOnly[1];
+        long collide = Math.max(0, collided[1] - sweep);
+        long total = decide + sweep + collide;
+        float parallel = (float) sweep / total;
+        System.out.println(String.format(Locale.ROOT, "%d npcs, %d ticks: deciding %.1f ms, wall sweep %.1f ms, "
+                        + "collider %.1f ms per tick, %.0f%% can run in parallel", npcs, ticks, decide / 1e6 / ticks,
+                sweep / 1e6 / ticks, collide / 1e6 / ticks, parallel * 100));
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : THREADS) {
+            String line = String.format(Locale.ROOT, "%2d threads: at most %.2fx", threads,
+                    1 / ((1 - parallel) + parallel / threads));
+            if (threads > 1 && threads <= cores) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                long[] pooled = run(room, npcs, ticks, true, pool);
+                pool.shutdown();
+                line += String.format(Locale.ROOT, ", measured %.2fx", (float) (decide + collided[1]) / (pooled[0] + pooled[1]));
+            }
+            System.out.println(line);
+        }
+        if (cores < THREADS[THREADS.length - 1]) {
+            System.out.println("Only " + cores + " cores, so more threads than that are not measured");
+        }
+    }
+
+    /**
+     * Moves a crowd of npcs, placed and steered the same every time, choosing a new move for each every 0.1
+     * seconds the same as NpcContainer
+     *
+     * @return The nanoseconds spent choosing moves, then the nanoseconds spent moving
+     */
+    private static long[] run(CollisionGrid room, int npcs, int ticks, boolean collide, ForkJoinPool pool) {
+        GameSettings settings = new GameSettings(1);
+        settings.logEvents = false;
+        WorldContext context = new WorldContext(settings);
+        EntityCollider collider = new EntityCollider();
+        EntityStore<Npc> store = new EntityStore<>(npcs);
+        for (int count = 0; count < npcs; count++) {
+            Npc npc = new Npc(store, room, context);
+            if (collide) {
+                collider.add(npc);
+            }
+        }
+        float deltaTime = 1f / World.DEFAULT_TICK_RATE;
+        long[] times = new long[2];
+        for (int tick = 0; tick < ticks; tick++) {
+            long start = System.nanoTime();
+            for (int slot = 0; slot < store.size(); slot++) {
+                if ((tick + slot) % 6 == 0) {
+                    store.getAt(slot).calculateNewVelocity(room, context.random);
+                }
+            }
+            long decided = System.nanoTime();
+            store.updatePositions(deltaTime, room, pool);
+            times[0] += decided - start;
+            times[1] += System.nanoTime() - decided;
+        }
+        context.dispose();
+        return times;
+    }
+}
@@ -0,0 +1,187 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+
+import java.util.Random;
+
+/**
+ * Checks the nearest system table against a scan over every active system<br>
+ * From the middle of every cell, the table's system (of any type, and of each type) must be active, of the right
+ * type, and as close as the closest found by the scan. From anywhere else in the cell it may be a different
+ * system, but no more than the width of a cell further away. Systems are destroyed one at a time, and everything
+ * is checked again each time, until there are none left and the table finds nothing<br>
+ * The map's systems are destroyed by damaging them, like infiltrators do, then random systems on random maps are
+ * removed from the table directly<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class NearestSystemTableTest {
+    private static final int RANDOM_MAPS = 20;
+    private static final String[] TYPES = {"Healing", "Teleportation", "Power", "Oxygen"};
+    /**
+     * Random positions checked in each cell, as well as its middle
+     */
+    private static final int POSITIONS_PER_CELL = 4;
+    /**
+     * How much further than the closest system the table's may be, from anywhere in a cell: the middle of the cell
+     * is at most half its diagonal from any point in it, and this is counted once each way
+     */
+    private static final float CELL_ERROR = (float) Math.sqrt(2) + 1e-4f;
+
+    private final NearestSystemTable table;
+    private final int width;
+    private final int height;
+    private final Array<StationSystem> active;
+    private final Random random;
+    private int checked;
+    private int failures;
+
+    private NearestSystemTableTest(NearestSystemTable table, int width, int height, Array<StationSystem> active, Random random) {
+        this.table = table;
+        this.width = width;
+        this.height = height;
+        this.active = active;
+        this.random = random;
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        GameSettings settings = new GameSettings(1);
+        settings.pathfindingThreads = 0;
+        settings.logEvents = false;
+        World world = new World(map, settings, false);
+        SystemContainer systems = world.getSystemContainer();
+        CollisionGrid room = world.getRoomTiles();
+        Random random = new Random(1);
+        NearestSystemTableTest test = new NearestSystemTableTest(systems.getNearestSystems(), room.getWidth(),
+                room.getHeight(), new Array<StationSystem>(), random);
+        Bits ids = systems.getActiveSystems();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            test.active.add(systems.getEntityByInt(id));
+        }
+        test.checkCells();
+        while (test.active.size > 0) {
+            StationSystem system = test.active.removeIndex(random.nextInt(test.active.size));
+            systems.applyDamage(new ID(0, EntityType.Infiltrator), system.id, system.getMaxHealth());
+            test.checkCells();
+        }
+        world.dispose();
+
+        for (int count = 0; count < RANDOM_MAPS; count++) {
+            NearestSystemTableTest noise = randomTable(random);
+            noise.checkCells();
+            while (noise.active.size > 0) {
+                noise.table.removeSystem(noise.active.removeIndex(random.nextInt(noise.active.size)));
+                noise.checkCells();
+            }
+            test.checked += noise.checked;
+            test.failures += noise.failures;
+        }
+
+        System.out.println("Checked " + test.checked + " lookups, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return A table of up to 30 systems of random types, some sharing a position, on a map up to 80 tiles each way
+     */
+    private static NearestSystemTableTest randomTable(Random random) {
+        int width = 1 + random.nextInt(80);
+        int height = 1 + random.nextInt(80);
+        EntityStore<StationSystem> store = new EntityStore<>(1);
+        Array<StationSystem> systems = new Array<>();
+        int count = random.nextInt(30);
+        for (int system = 0; system < count; system++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (system > 0 && random.nextInt(5) == 0) {
+                x = (int) systems.peek().getXPosition();
+                y = (int) systems.peek().getYPosition();
+            }
+            systems.add(new StationSystem(store, new ID(system, EntityType.StationSystem),
+                    TYPES[random.nextInt(TYPES.length)], x, y, 1, 1, 100));
+        }
+        NearestSystemTable table = new NearestSystemTable(width, height, systems);
+        return new NearestSystemTableTest(table, width, height, new Array<>(systems), random);
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    private static float distance(StationSystem system, float x, float y) {
+        float dx = system.getXPosition() - x;
+        float dy = system.getYPosition() - y;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Scans every active system for the closest to the position
+     *
+     * @param type The type of system to look for, or null for any type
+     * @return The distance to the closest system, or Float.MAX_VALUE if there are none
+     */
+    private float closestDistance(float x, float y, String type) {
+        float closest = Float.MAX_VALUE;
+        for (StationSystem system : active) {
+            if (type == null || system.type.equals(type)) {
+                closest = Math.min(closest, distance(system, x, y));
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Checks every cell, and just off each edge of the map
+     */
+    private void checkCells() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                check(x + 0.5f, y + 0.5f, 0);
+                for (int position = 0; position < POSITIONS_PER_CELL; position++) {
+                    check(x + random.nextFloat(), y + random.nextFloat(), CELL_ERROR);
+                }
+            }
+        }
+        float[][] offMap = {{-0.5f, 0}, {0, -0.5f}, {width + 0.5f, 0}, {0, height + 0.5f}};
+        for (float[] position : offMap) {
+            checked++;
+            if (table.getNearest(position[0], position[1]) != null || table.getNearest(position[0], position[1], TYPES[0]) != null) {
+                fail("Found a system from (" + position[0] + ", " + position[1] + "), off a " + width + "x" + height + " map");
+            }
+        }
+    }
+
+    /**
+     * Checks the table's systems from the position, of any type and of each type
+     *
+     * @param error How much further than the closest system the table's may be
+     */
+    private void check(float x, float y, float error) {
+        check(x, y, null, table.getNearest(x, y), error);
+        for (String type : TYPES) {
+            check(x, y, type, table.getNearest(x, y, type), error);
+        }
+    }
+
+    private void check(float x, float y, String type, StationSystem found, float error) {
+        String looking = "Looking from (" + x + ", " + y + ") for " + (type == null ? "any system" : "a " + type + " system");
+        float closest = closestDistance(x, y, type);
+        checked++;
+        if (found == null) {
+            if (closest != Float.MAX_VALUE) {
+                fail(looking + " found nothing, but there is one " + closest + " away");
+            }
+        } else if (!active.contains(found, true)) {
+            fail(looking + " found " + found.id + ", which isn't active");
+        } else if (type != null && !found.type.equals(type)) {
+            fail(looking + " found " + found.id + ", which is a " + found.type + " system");
+        } else if (distance(found, x, y) > closest + error) {
+            fail(looking + " found " + found.id + " " + distance(found, x, y) + " away, but there is one " + closest + " away");
+        }
+    }
+}
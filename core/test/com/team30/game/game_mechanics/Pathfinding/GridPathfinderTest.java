@@ -0,0 +1,243 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.EntityStore;
+import com.team30.game.game_mechanics.EntityType;
+import com.team30.game.game_mechanics.GameSettings;
+import com.team30.game.game_mechanics.ID;
+import com.team30.game.game_mechanics.MapData;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.StationSystem;
+import com.team30.game.game_mechanics.SystemContainer;
+import com.team30.game.game_mechanics.World;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+
+import static com.team30.game.game_mechanics.Node.DIRECTION_X;
+import static com.team30.game.game_mechanics.Node.DIRECTION_Y;
+
+/**
+ * Checks the A* and Jump Point Search paths against a plain breadth first search, from every room tile of the
+ * map to every system (and A* to the closest attackable one). Hierarchical paths to the closest attackable system
+ * are checked the same, but may be a few moves longer<br>
+ * Every move costs the same, so the breadth first search gives the shortest possible length. Each path must
+ * be exactly that long, only cross room tiles, and end next to the system. A* and Jump Point Search are also
+ * checked on random maps of scattered walls, which have far more awkward corners than the station<br>
+ * Argument: the map file. Exits with 1 if any path is wrong
+ */
+public class GridPathfinderTest {
+    private static final int UNREACHABLE = -1;
+    private static final int NOISE_MAPS = 100;
+    /**
+     * How much longer than the shortest a hierarchical path may be, the most on Map.tmx is 6
+     */
+    private static final int MAX_HIERARCHICAL_EXTRA_MOVES = 8;
+
+    private final CollisionGrid room;
+    private final int width;
+    private final int height;
+    private final GridPathfinder pathfinder;
+    private final JumpPointPathfinder jumpPointPathfinder;
+    private int checked;
+    private int failures;
+    /**
+     * How many more moves than the shortest a path can have, and the most any path has had
+     */
+    private int maxExtraMoves;
+    private int mostExtraMoves;
+    private long totalExtraMoves;
+
+    private GridPathfinderTest(CollisionGrid room) {
+        this.room = room;
+        this.width = room.getWidth();
+        this.height = room.getHeight();
+        this.pathfinder = new GridPathfinder(width, height);
+        this.jumpPointPathfinder = new JumpPointPathfinder(room);
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        GameSettings settings = new GameSettings(1);
+        settings.pathfindingThreads = 0;
+        World world = new World(map, settings, false);
+        GridPathfinderTest test = new GridPathfinderTest(world.getRoomTiles());
+        SystemContainer systems = world.getSystemContainer();
+
+        Bits active = systems.getActiveSystems();
+        for (int id = active.nextSetBit(0); id >= 0; id = active.nextSetBit(id + 1)) {
+            StationSystem system = systems.getEntityByInt(id);
+            test.checkPaths("A*", new StationSystem[]{system}, system, (x, y) -> test.pathfinder.findPath(test.room, x, y, system));
+            test.checkPaths("JPS", new StationSystem[]{system}, system, (x, y) -> test.jumpPointPathfinder.findPath(x, y, system));
+        }
+        Bits attackable = systems.getAttackableSystems();
+        Array<StationSystem> goals = new Array<>(StationSystem.class);
+        for (int id = attackable.nextSetBit(0); id >= 0; id = attackable.nextSetBit(id + 1)) {
+            goals.add(systems.getEntityByInt(id));
+        }
+        test.checkPaths("A*", goals.toArray(), null, (x, y) -> test.pathfinder.findPath(test.room, x, y, systems));
+        // Hierarchical paths are only near shortest, as they go through the gaps between clusters
+        HierarchicalPathfinder hierarchical = new HierarchicalPathfinder(test.room);
+        test.maxExtraMoves = MAX_HIERARCHICAL_EXTRA_MOVES;
+        test.checkPaths("HPA*", goals.toArray(), null, (x, y) -> hierarchical.findPath(x, y, systems));
+        test.maxExtraMoves = 0;
+        world.dispose();
+
+        Random random = new Random(1);
+        for (int count = 0; count < NOISE_MAPS; count++) {
+            GridPathfinderTest noise = new GridPathfinderTest(randomRoom(random));
+            for (int index = 0; index < 2; index++) {
+                StationSystem system = new StationSystem(new EntityStore<>(1), new ID(index + 1, EntityType.StationSystem),
+                        "Power", random.nextInt(noise.width), random.nextInt(noise.height), 1 + random.nextInt(2), 1 + random.nextInt(2), 100);
+                noise.checkPaths("A*", new StationSystem[]{system}, system, (x, y) -> noise.pathfinder.findPath(noise.room, x, y, system));
+                noise.checkPaths("JPS", new StationSystem[]{system}, system, (x, y) -> noise.jumpPointPathfinder.findPath(x, y, system));
+            }
+            test.checked += noise.checked;
+            test.failures += noise.failures;
+        }
+
+        System.out.println("Checked " + test.checked + " paths, " + test.failures + " wrong. Hierarchical paths were "
+                + test.totalExtraMoves + " moves longer in total than the shortest, at most " + test.mostExtraMoves);
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return A map of 24 to 48 tiles each way, with between 15% and 55% of the cells walls
+     */
+    private static CollisionGrid randomRoom(Random random) {
+        int width = 24 + random.nextInt(24);
+        int height = 24 + random.nextInt(24);
+        double walls = 0.15 + random.nextDouble() * 0.4;
+        CollisionGrid room = new CollisionGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                room.setWalkable(x, y, random.nextDouble() >= walls);
+            }
+        }
+        return room;
+    }
+
+    /**
+     * Compares the path from every room tile with the breadth first search distance to the goals
+     *
+     * @param name        The name of the search, for errors
+     * @param goals       The systems the paths can end next to
+     * @param destination The system searched for, or null if searching for the closest attackable one
+     * @param search      Finds the path from a cell
+     */
+    private void checkPaths(String name, StationSystem[] goals, StationSystem destination, Search search) {
+        int[] distances = breadthFirstSearch(goals);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!room.isWalkable(x, y)) {
+                    continue;
+                }
+                Queue<Node.Movements> path = search.findPath(x, y);
+                String error = checkPath(goals, x, y, path, distances[y * width + x]);
+                checked++;
+                if (error != null) {
+                    failures++;
+                    System.out.println("ERROR " + name + " from (" + x + ", " + y + ") to "
+                            + (destination != null ? destination.id : "closest system") + ": " + error);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Why the path is wrong, or null if it is a shortest path
+     */
+    private String checkPath(StationSystem[] goals, int x, int y, Queue<Node.Movements> path, int distance) {
+        if (distance == UNREACHABLE) {
+            return path == null ? null : "found a path of " + path.size() + " moves, but no system can be reached";
+        }
+        if (path == null) {
+            return "found no path, but the shortest is " + distance + " moves";
+        }
+        int extraMoves = path.size() - distance;
+        if (extraMoves < 0 || extraMoves > maxExtraMoves) {
+            return "found a path of " + path.size() + " moves, but the shortest is " + distance;
+        }
+        mostExtraMoves = Math.max(mostExtraMoves, extraMoves);
+        totalExtraMoves += extraMoves;
+        for (Node.Movements move : path) {
+            x += DIRECTION_X[move.ordinal()];
+            y += DIRECTION_Y[move.ordinal()];
+            if (!room.isWalkable(x, y)) {
+                return "path crosses (" + x + ", " + y + "), which isn't a room tile";
+            }
+        }
+        return isGoal(goals, x, y) ? null : "path ends at (" + x + ", " + y + "), which isn't next to a system";
+    }
+
+    /**
+     * @return The fewest moves from each cell to a cell next to one of the goals, or UNREACHABLE
+     */
+    private int[] breadthFirstSearch(StationSystem[] goals) {
+        int[] distances = new int[width * height];
+        Arrays.fill(distances, UNREACHABLE);
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (room.isWalkable(x, y) && isGoal(goals, x, y)) {
+                    distances[y * width + x] = 0;
+                    queue[tail++] = y * width + x;
+                }
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            for (int move = 0; move < DIRECTION_X.length; move++) {
+                int nextX = x + DIRECTION_X[move];
+                int nextY = y + DIRECTION_Y[move];
+                if (!room.isWalkable(nextX, nextY)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (distances[next] == UNREACHABLE) {
+                    distances[next] = distances[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * @return True if the cell is next to (or inside) the footprint of one of the goals
+     */
+    private static boolean isGoal(StationSystem[] goals, int x, int y) {
+        for (StationSystem goal : goals) {
+            int left = (int) goal.getXPosition();
+            int bottom = (int) goal.getYPosition();
+            int right = left + Math.max(1, goal.width) - 1;
+            int top = bottom + Math.max(1, goal.height) - 1;
+            int dx = Math.max(0, Math.max(left - x, x - right));
+            int dy = Math.max(0, Math.max(bottom - y, y - top));
+            if (dx + dy <= 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One of the searches being checked
+     */
+    private interface Search {
+        /**
+         * @return The path from the cell, or null if there isn't one
+         */
+        Queue<Node.Movements> findPath(int x, int y);
+    }
+}
@@ -0,0 +1,54 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.team30.game.game_mechanics.ChasePolicy;
+import com.team30.game.game_mechanics.GameSettings;
+import com.team30.game.game_mechanics.MapData;
+import com.team30.game.game_mechanics.World;
+
+import java.util.Locale;
+
+/**
+ * Measures how many searches the path cache saves, by playing games with the chasing Auber in every mode that
+ * looks paths up in the cache<br>
+ * Every lookup that misses is a search, so the hit rate is the share of searches saved. The same seeds are
+ * played in every mode<br>
+ * Arguments: the map file, the number of games per mode, and the longest game (in seconds of game time)
+ */
+public class PathCacheBenchmark {
+    private static final PathfindingMode[] CACHED_MODES = {
+            PathfindingMode.AStar, PathfindingMode.JumpPoint, PathfindingMode.TimeSlicedAStar};
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        int games = arg.length > 1 ? Integer.parseInt(arg[1]) : 20;
+        float gameLength = arg.length > 2 ? Float.parseFloat(arg[2]) : 300;
+
+        for (PathfindingMode mode : CACHED_MODES) {
+            long lookups = 0;
+            long searches = 0;
+            long evictions = 0;
+            long startTime = System.nanoTime();
+            for (int seed = 1; seed <= games; seed++) {
+                GameSettings settings = new GameSettings(seed);
+                settings.pathfindingMode = mode;
+                settings.pathfindingThreads = 0;
+                settings.logEvents = false;
+                World world = new World(map, settings, false);
+                world.setAuberPolicy(new ChasePolicy());
+                while (!world.isOver() && world.getElapsedTime() < gameLength) {
+                    world.update(world.getTickTime());
+                }
+                PathCache cache = world.getInfiltrators().getPathPlanner().getPathCache();
+                lookups += cache.getLookups();
+                searches += cache.getMisses();
+                evictions += cache.getEvictions();
+                world.dispose();
+            }
+            float seconds = (System.nanoTime() - startTime) / 1e9f;
+            System.out.println(String.format(Locale.ROOT, "%-16s %6d lookups and %6d searches per game, "
+                            + "%3.0f%% hit rate, %d evictions, %.2f s", mode, lookups / games, searches / games,
+                    lookups == 0 ? 0 : 100f * (lookups - searches) / lookups, evictions, seconds));
+        }
+    }
+}
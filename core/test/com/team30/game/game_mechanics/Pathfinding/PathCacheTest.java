@@ -0,0 +1,116 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.EntityType;
+import com.team30.game.game_mechanics.GameSettings;
+import com.team30.game.game_mechanics.ID;
+import com.team30.game.game_mechanics.MapData;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.StationSystem;
+import com.team30.game.game_mechanics.SystemContainer;
+import com.team30.game.game_mechanics.World;
+
+import java.util.ArrayList;
+import java.util.Queue;
+
+/**
+ * Checks the path cache hands back exactly the path a fresh search finds, and forgets paths to destroyed systems<br>
+ * The planner is asked for a path from every room tile of the map three times over: only the first time may
+ * search, the other two must be hits. Every path must match a fresh A* search to the closest system on the
+ * distance field, move for move. A system is then destroyed, and every path is checked again, so none that
+ * leads to it can be handed out<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class PathCacheTest {
+    private static final int PASSES = 3;
+
+    private final CollisionGrid room;
+    private final SystemContainer systems;
+    private final PathPlanner planner;
+    private final GridPathfinder pathfinder;
+    private int checked;
+    private int failures;
+
+    private PathCacheTest(CollisionGrid room, SystemContainer systems) {
+        this.room = room;
+        this.systems = systems;
+        this.planner = new PathPlanner(room, PathfindingMode.AStar, 0);
+        this.pathfinder = new GridPathfinder(room.getWidth(), room.getHeight());
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        GameSettings settings = new GameSettings(1);
+        settings.pathfindingThreads = 0;
+        settings.logEvents = false;
+        World world = new World(map, settings, false);
+        PathCacheTest test = new PathCacheTest(world.getRoomTiles(), world.getSystemContainer());
+        PathCache cache = test.planner.getPathCache();
+
+        test.checkPaths();
+        int lookups = cache.getLookups();
+        for (int pass = 1; pass < PASSES; pass++) {
+            test.checkPaths();
+        }
+        if (cache.getMisses() != lookups || cache.getLookups() != PASSES * lookups) {
+            test.failures++;
+            System.out.println("ERROR Expected " + lookups + " searches and " + (PASSES - 1) * lookups
+                    + " hits, but there were " + cache.getMisses() + " searches and "
+                    + (cache.getLookups() - cache.getMisses()) + " hits");
+        }
+
+        // Destroy the system the first cached path leads to
+        int destroyed = SystemDistanceField.UNREACHABLE;
+        SystemDistanceField field = test.systems.getDistanceField();
+        for (int cell = 0; cell < test.room.getWidth() * test.room.getHeight() && destroyed == SystemDistanceField.UNREACHABLE; cell++) {
+            destroyed = field.getClosestSystem(cell % test.room.getWidth(), cell / test.room.getWidth());
+        }
+        StationSystem system = test.systems.getEntityByInt(destroyed);
+        test.systems.applyDamage(new ID(0, EntityType.Infiltrator), system.id, system.getMaxHealth());
+        if (test.systems.isActive(destroyed)) {
+            test.failures++;
+            System.out.println("ERROR System " + destroyed + " wasn't destroyed");
+        }
+        int invalidations = cache.getInvalidations();
+        test.checkPaths();
+        if (cache.getInvalidations() == invalidations) {
+            test.failures++;
+            System.out.println("ERROR No paths were dropped when system " + destroyed + " was destroyed");
+        }
+        world.dispose();
+
+        System.out.println("Checked " + test.checked + " paths, " + test.failures + " wrong. " + cache);
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compares the planner's path from every room tile with a fresh search to the closest system
+     */
+    private void checkPaths() {
+        SystemDistanceField field = systems.getDistanceField();
+        for (int y = 0; y < room.getHeight(); y++) {
+            for (int x = 0; x < room.getWidth(); x++) {
+                if (!room.isWalkable(x, y)) {
+                    continue;
+                }
+                Queue<Node.Movements> path = planner.findPath(room, x, y, systems, field);
+                int destination = field.getClosestSystem(x, y);
+                Queue<Node.Movements> expected = destination == SystemDistanceField.UNREACHABLE
+                        ? null : pathfinder.findPath(room, x, y, systems.getEntityByInt(destination));
+                checked++;
+                if (path == null ? expected != null : expected == null || !new ArrayList<>(path).equals(new ArrayList<>(expected))) {
+                    failures++;
+                    System.out.println("ERROR From (" + x + ", " + y + ") the planner gave " + describe(path)
+                            + ", but a fresh search to system " + destination + " gives " + describe(expected));
+                }
+            }
+        }
+    }
+
+    private static String describe(Queue<Node.Movements> path) {
+        return path == null ? "no path" : "a path of " + path.size() + " moves";
+    }
+}
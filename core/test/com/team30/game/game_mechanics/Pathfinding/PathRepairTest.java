@@ -0,0 +1,240 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.GameSettings;
+import com.team30.game.game_mechanics.Infiltrators.Infiltrator;
+import com.team30.game.game_mechanics.MapData;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.SystemContainer;
+import com.team30.game.game_mechanics.WalkableCellIndex;
+import com.team30.game.game_mechanics.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+
+/**
+ * Checks repairs after room tiles are opened and closed against searching again from scratch<br>
+ * Room tiles of the map are closed (many of them on the paths being followed) and opened again over many rounds.
+ * After each round the repaired distance field must give every cell the same distance as a field built again from
+ * scratch, and a closest system that is at that distance. Each repaired path must only cross room tiles, end where
+ * it did before, and be no shorter than a fresh search from its start to its end; paths with nothing closed on
+ * them must be handed back as they are<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class PathRepairTest {
+    private static final int ROUNDS = 100;
+    private static final int PATHS = 50;
+    private static final int MAX_CHANGES_PER_ROUND = 20;
+
+    private final CollisionGrid room;
+    private final SystemContainer systems;
+    private final SystemDistanceField field;
+    private final PathPlanner planner;
+    private final GridPathfinder pathfinder;
+    private int checked;
+    private int failures;
+    private int repairs;
+
+    private PathRepairTest(CollisionGrid room, SystemContainer systems) {
+        this.room = room;
+        this.systems = systems;
+        this.field = new SystemDistanceField(room, Infiltrator.SIZE, Infiltrator.SIZE);
+        this.planner = new PathPlanner(room, PathfindingMode.AStar, 0);
+        this.pathfinder = new GridPathfinder(room.getWidth(), room.getHeight());
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        GameSettings settings = new GameSettings(1);
+        settings.pathfindingThreads = 0;
+        settings.logEvents = false;
+        World world = new World(map, settings, false);
+        // A copy, so the world's own fields aren't changed
+        PathRepairTest test = new PathRepairTest(new CollisionGrid(world.getRoomTiles()), world.getSystemContainer());
+        test.run(new Random(1));
+        world.dispose();
+
+        System.out.println("Checked " + test.checked + " cells and paths (" + test.repairs + " paths repaired), "
+                + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    private void run(Random random) {
+        field.rebuild(systems);
+        WalkableCellIndex cells = new CollisionGrid(room).getWalkableCells();
+        List<Integer> closed = new ArrayList<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            // Paths found before the change, from random room tiles to the closest system
+            List<int[]> starts = new ArrayList<>();
+            List<Queue<Node.Movements>> paths = new ArrayList<>();
+            for (int path = 0; path < PATHS; path++) {
+                int cell = cells.randomCell(random);
+                int x = cells.getX(cell);
+                int y = cells.getY(cell);
+                Queue<Node.Movements> moves = room.isWalkable(x, y) ? pathfinder.findPath(room, x, y, systems) : null;
+                if (moves != null && !moves.isEmpty()) {
+                    starts.add(new int[]{x, y});
+                    paths.add(moves);
+                }
+            }
+
+            int changes = 1 + random.nextInt(MAX_CHANGES_PER_ROUND);
+            for (int change = 0; change < changes; change++) {
+                if (!closed.isEmpty() && random.nextInt(3) == 0) {
+                    int cell = closed.remove(random.nextInt(closed.size()));
+                    room.setWalkable(cell % room.getWidth(), cell / room.getWidth(), true);
+                } else if (!paths.isEmpty() && random.nextBoolean()) {
+                    // Somewhere along a path, past its start
+                    int path = random.nextInt(paths.size());
+                    int x = starts.get(path)[0];
+                    int y = starts.get(path)[1];
+                    int steps = 1 + random.nextInt(paths.get(path).size());
+                    for (Node.Movements move : paths.get(path)) {
+                        if (steps-- == 0) {
+                            break;
+                        }
+                        x += Node.DIRECTION_X[move.ordinal()];
+                        y += Node.DIRECTION_Y[move.ordinal()];
+                    }
+                    close(x, y, closed);
+                } else {
+                    int cell = cells.randomCell(random);
+                    close(cells.getX(cell), cells.getY(cell), closed);
+                }
+            }
+
+            field.repair();
+            checkField();
+            for (int path = 0; path < paths.size(); path++) {
+                checkRepair(starts.get(path)[0], starts.get(path)[1], paths.get(path));
+            }
+        }
+    }
+
+    private void close(int x, int y, List<Integer> closed) {
+        if (room.isWalkable(x, y)) {
+            room.setWalkable(x, y, false);
+            closed.add(y * room.getWidth() + x);
+        }
+    }
+
+    /**
+     * Compares every cell of the repaired field with a field built from scratch
+     */
+    private void checkField() {
+        SystemDistanceField fresh = new SystemDistanceField(room, Infiltrator.SIZE, Infiltrator.SIZE);
+        fresh.rebuild(systems);
+        for (int y = 0; y < room.getHeight(); y++) {
+            for (int x = 0; x < room.getWidth(); x++) {
+                int distance = field.getDistance(x, y);
+                int system = field.getClosestSystem(x, y);
+                String cell = "Cell (" + x + ", " + y + ")";
+                checked++;
+                if (distance != fresh.getDistance(x, y)) {
+                    fail(cell + " was repaired to distance " + distance + ", but is " + fresh.getDistance(x, y) + " from scratch");
+                } else if (distance == 0 && system != fresh.getClosestSystem(x, y)) {
+                    fail(cell + " is next to system " + fresh.getClosestSystem(x, y) + ", but was repaired to " + system);
+                } else if (distance > 0 && !hasNeighbourLeadingTo(x, y, distance - 1, system)) {
+                    // Several systems can be as close, so the one chosen just has to be along the field
+                    fail(cell + " was repaired to system " + system + ", but no neighbour one closer leads to it");
+                }
+            }
+        }
+    }
+
+    private boolean hasNeighbourLeadingTo(int x, int y, int distance, int system) {
+        for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+            int nextX = x + Node.DIRECTION_X[move];
+            int nextY = y + Node.DIRECTION_Y[move];
+            if (field.getDistance(nextX, nextY) == distance && field.getClosestSystem(nextX, nextY) == system
+                    && room.isAreaWalkable(nextX, nextY, Infiltrator.SIZE, Infiltrator.SIZE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the repaired path only crosses room tiles and ends at the same cell, no shorter than a fresh search
+     */
+    private void checkRepair(int startX, int startY, Queue<Node.Movements> moves) {
+        Queue<Node.Movements> repaired = planner.repairPath(room, startX, startY, moves);
+        int endX = startX;
+        int endY = startY;
+        boolean blocked = false;
+        for (Node.Movements move : moves) {
+            endX += Node.DIRECTION_X[move.ordinal()];
+            endY += Node.DIRECTION_Y[move.ordinal()];
+            blocked |= !room.isWalkable(endX, endY);
+        }
+        String path = "The path of " + moves.size() + " moves from (" + startX + ", " + startY + ") to (" + endX + ", " + endY + ")";
+        checked++;
+        if (!blocked && room.isWalkable(startX, startY)) {
+            if (repaired != moves) {
+                fail(path + " had nothing closed on it, but was changed");
+            }
+            return;
+        }
+        if (repaired == null) {
+            return;
+        }
+        repairs++;
+        int x = startX;
+        int y = startY;
+        for (Node.Movements move : repaired) {
+            x += Node.DIRECTION_X[move.ordinal()];
+            y += Node.DIRECTION_Y[move.ordinal()];
+            if (!room.isWalkable(x, y)) {
+                fail(path + " was repaired through the closed cell (" + x + ", " + y + ")");
+                return;
+            }
+        }
+        if (x != endX || y != endY) {
+            fail(path + " was repaired to end at (" + x + ", " + y + ") instead");
+            return;
+        }
+        int shortest = shortestWalk(startX, startY, endX, endY);
+        if (repaired.size() < shortest) {
+            fail(path + " was repaired to " + repaired.size() + " moves, but the shortest walk there is " + shortest);
+        }
+    }
+
+    /**
+     * @return The fewest moves between the cells over room tiles, from a breadth first search
+     */
+    private int shortestWalk(int startX, int startY, int endX, int endY) {
+        int width = room.getWidth();
+        int[] distance = new int[width * room.getHeight()];
+        java.util.Arrays.fill(distance, -1);
+        int[] queue = new int[distance.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = startY * width + startX;
+        distance[queue[0]] = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell == endY * width + endX) {
+                return distance[cell];
+            }
+            for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+                int x = cell % width + Node.DIRECTION_X[move];
+                int y = cell / width + Node.DIRECTION_Y[move];
+                if (room.isWalkable(x, y) && distance[y * width + x] == -1) {
+                    distance[y * width + x] = distance[cell] + 1;
+                    queue[tail++] = y * width + x;
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,147 @@
+package com.team30.game.game_mechanics.Pathfinding;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.team30.game.game_mechanics.CollisionGrid;
+import com.team30.game.game_mechanics.GameSettings;
+import com.team30.game.game_mechanics.MapData;
+import com.team30.game.game_mechanics.Node;
+import com.team30.game.game_mechanics.SystemContainer;
+import com.team30.game.game_mechanics.World;
+
+import java.util.ArrayList;
+import java.util.Queue;
+
+/**
+ * Checks that paths asked for with requestPath are the same as the paths searched for straight away<br>
+ * A path is asked for from every room tile of the map at once, then the planner is updated until every request
+ * has finished. Paths searched on the worker threads, or a little at a time by time sliced A*, must match a blocking
+ * search on the game thread move for move. Time sliced searches are given a small budget, so each is split over
+ * many updates<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class PathRequestTest {
+    /**
+     * The longest to wait for every request to finish, far longer than it should take
+     */
+    private static final long TIMEOUT_MILLIS = 30000;
+    private static final int WORKER_THREADS = 2;
+    private static final int TIME_SLICED_NODE_BUDGET = 50;
+
+    private final CollisionGrid room;
+    private final SystemContainer systems;
+    private int checked;
+    private int failures;
+
+    private PathRequestTest(CollisionGrid room, SystemContainer systems) {
+        this.room = room;
+        this.systems = systems;
+    }
+
+    public static void main(String[] arg) throws InterruptedException {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        GameSettings settings = new GameSettings(1);
+        settings.pathfindingThreads = 0;
+        settings.logEvents = false;
+        World world = new World(map, settings, false);
+        PathRequestTest test = new PathRequestTest(world.getRoomTiles(), world.getSystemContainer());
+
+        test.checkRequests(PathfindingMode.AStar, WORKER_THREADS);
+        test.checkRequests(PathfindingMode.JumpPoint, WORKER_THREADS);
+        test.checkRequests(PathfindingMode.TimeSlicedAStar, 0);
+        world.dispose();
+
+        System.out.println("Checked " + test.checked + " requested paths, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Asks for a path from every room tile at once, and compares each with the path found straight away
+     *
+     * @param mode          The way to search for paths
+     * @param workerThreads The number of threads to search on
+     */
+    private void checkRequests(PathfindingMode mode, int workerThreads) throws InterruptedException {
+        PathPlanner planner = new PathPlanner(room, mode, workerThreads);
+        PathPlanner blocking = new PathPlanner(room, mode, 0);
+        if (!planner.isAsynchronous()) {
+            failures++;
+            System.out.println("ERROR " + mode + " on " + workerThreads + " threads doesn't search asynchronously");
+            return;
+        }
+        if (mode == PathfindingMode.TimeSlicedAStar) {
+            planner.getTimeSlicedPathfinder().setNodeBudget(TIME_SLICED_NODE_BUDGET);
+        }
+        SystemDistanceField field = systems.getDistanceField();
+        int width = room.getWidth();
+        PathRequest[] requests = new PathRequest[width * room.getHeight()];
+        for (int cell = 0; cell < requests.length; cell++) {
+            if (room.isWalkable(cell % width, cell / width)) {
+                requests[cell] = planner.requestPath(cell % width, cell / width, systems, field);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        int updates = 0;
+        while (!isDone(requests)) {
+            if (System.currentTimeMillis() - start > TIMEOUT_MILLIS) {
+                failures++;
+                System.out.println("ERROR " + mode + " requests didn't finish in " + TIMEOUT_MILLIS + " ms");
+                planner.dispose();
+                return;
+            }
+            planner.update(systems);
+            updates++;
+            Thread.sleep(1);
+        }
+        if (mode == PathfindingMode.TimeSlicedAStar && updates < 2) {
+            failures++;
+            System.out.println("ERROR Time sliced searches finished in " + updates + " updates, so weren't split up");
+        }
+
+        for (int cell = 0; cell < requests.length; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            if (!room.isWalkable(x, y)) {
+                continue;
+            }
+            Queue<Node.Movements> path = requests[cell] == null ? null : requests[cell].getPathFrom(x, y);
+            Queue<Node.Movements> expected = blocking.findPath(room, x, y, systems, field);
+            checked++;
+            String error = compare(path, expected);
+            if (error != null) {
+                failures++;
+                System.out.println("ERROR " + mode + " from (" + x + ", " + y + "): " + error);
+            }
+        }
+        planner.dispose();
+    }
+
+    /**
+     * @return Why the requested path is wrong, or null if it is the same as the expected one
+     */
+    private String compare(Queue<Node.Movements> path, Queue<Node.Movements> expected) {
+        if (path == null || expected == null) {
+            return path == expected ? null : "requested " + describe(path) + ", but found " + describe(expected) + " straight away";
+        }
+        if (!new ArrayList<>(path).equals(new ArrayList<>(expected))) {
+            return "requested a path of " + path.size() + " moves, which is different to the path of " + expected.size()
+                    + " moves found straight away";
+        }
+        return null;
+    }
+
+    private static boolean isDone(PathRequest[] requests) {
+        for (PathRequest request : requests) {
+            if (request != null && !request.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String describe(Queue<Node.Movements> path) {
+        return path == null ? "no path" : "a path of " + path.size() + " moves";
+    }
+}
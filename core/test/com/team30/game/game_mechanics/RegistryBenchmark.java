@@ -0,0 +1,76 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.team30.game.game_mechanics.Infiltrators.Infiltrator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Measures how much the system registry allocates and how fast it is, over frames of the lookups a game makes:
+ * moving the systems, checking whether systems are active and finding the closest attackable one<br>
+ * Ids below 128 are boxed to cached Integers, which hid the allocations of the old HashMap registries, so the
+ * systems are also created with ids above that<br>
+ * Arguments: the map file and the number of frames. Allocation is only measured on JVMs that count it per thread
+ */
+public class RegistryBenchmark {
+    private static final int REPEATS = 3;
+    private static final int CHECKS_PER_FRAME = 10;
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        int frames = arg.length > 1 ? Integer.parseInt(arg[1]) : 100000;
+        measure(map, frames, 0);
+        measure(map, frames, 128);
+    }
+
+    /**
+     * Times the lookups on systems created after the given number of other ids
+     */
+    private static void measure(MapData map, int frames, int skippedIds) {
+        GameSettings settings = new GameSettings(1);
+        settings.logEvents = false;
+        WorldContext context = new WorldContext(settings);
+        for (int id = 0; id < skippedIds; id++) {
+            context.nextId(EntityType.Npc);
+        }
+        CollisionGrid room = new CollisionGrid(map.rooms);
+        // The systems take the ids straight after this one
+        int firstId = context.nextId(EntityType.Npc).ID + 1;
+        SystemContainer systems = new SystemContainer(map.systems, room, context);
+        Vector2 position = new Vector2(20, 20);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long threadId = Thread.currentThread().getId();
+        for (int repeat = 0; repeat < REPEATS; repeat++) {
+            long startBytes = allocations == null ? 0 : allocations.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+            long sink = 0;
+            for (int frame = 0; frame < frames; frame++) {
+                systems.updateMovements(1f / World.DEFAULT_TICK_RATE, room);
+                for (int check = 0; check < CHECKS_PER_FRAME; check++) {
+                    if (systems.isActive(firstId + (frame + check) % (2 * CHECKS_PER_FRAME))) {
+                        sink++;
+                    }
+                }
+                ID closest = Infiltrator.getClosestSystem(position, systems);
+                if (closest != null) {
+                    sink += closest.ID;
+                }
+            }
+            long time = System.nanoTime() - startTime;
+            String line = String.format(Locale.ROOT, "System ids from %d: %.0f ns per frame", firstId, (float) time / frames);
+            if (allocations != null) {
+                long bytes = allocations.getThreadAllocatedBytes(threadId) - startBytes;
+                line += String.format(Locale.ROOT, ", %.1f bytes per frame", (float) bytes / frames);
+            }
+            // Printed so the lookups can't be optimised away
+            System.out.println(line + (sink == 0 ? " (no systems found)" : ""));
+        }
+        context.dispose();
+    }
+}
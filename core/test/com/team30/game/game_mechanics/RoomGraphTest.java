@@ -0,0 +1,317 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Bits;
+
+import java.util.Random;
+
+/**
+ * Checks the room graph splits every walkable cell into rooms and corridors properly, and agrees with a flood fill
+ * about what can be reached<br>
+ * Every walkable cell must be in exactly one segment, each segment must be one connected area, every open cell
+ * (with its 8 neighbours walkable) must be in a room, and doorways must be the corridor cells next to a room.
+ * Segments must be linked exactly when cells of them are next to each other. Two cells must be reachable exactly
+ * when a flood fill from one finds the other, and systems must be reachable exactly when a flood fill finds a
+ * room tile beside them<br>
+ * The map is checked, then random maps of rooms carved out of the walls with noise on top<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class RoomGraphTest {
+    private static final int RANDOM_MAPS = 50;
+    private static final int REACH_CHECKS = 2000;
+
+    private final CollisionGrid grid;
+    private final RoomGraph graph;
+    private final int width;
+    private final int height;
+    /**
+     * The connected area of each packed cell from a flood fill, or -1 if it isn't walkable
+     */
+    private final int[] area;
+    private int checked;
+    private int failures;
+
+    private RoomGraphTest(CollisionGrid grid) {
+        this.grid = grid;
+        this.graph = new RoomGraph(grid);
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.area = new int[width * height];
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        GameSettings settings = new GameSettings(1);
+        settings.pathfindingThreads = 0;
+        settings.logEvents = false;
+        World world = new World(map, settings, false);
+        Random random = new Random(1);
+        RoomGraphTest test = new RoomGraphTest(world.getRoomTiles());
+        test.checkSegments();
+        test.checkLinks();
+        test.checkReach(random);
+        SystemContainer systems = world.getSystemContainer();
+        Bits ids = systems.getActiveSystems();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            test.checkSystem(systems.getEntityByInt(id));
+        }
+        world.dispose();
+
+        for (int count = 0; count < RANDOM_MAPS; count++) {
+            RoomGraphTest noise = new RoomGraphTest(randomGrid(random));
+            noise.checkSegments();
+            noise.checkLinks();
+            noise.checkReach(random);
+            test.checked += noise.checked;
+            test.failures += noise.failures;
+        }
+
+        System.out.println("Checked " + test.checked + " cells, links and walks, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return A map up to 80 tiles each way of random rooms and corridors, with some cells flipped at random
+     */
+    private static CollisionGrid randomGrid(Random random) {
+        int width = 1 + random.nextInt(80);
+        int height = 1 + random.nextInt(80);
+        CollisionGrid grid = new CollisionGrid(width, height);
+        int rooms = random.nextInt(12);
+        for (int room = 0; room < rooms; room++) {
+            // Long thin rooms make corridors
+            int roomWidth = 1 + random.nextInt(random.nextBoolean() ? 3 : 15);
+            int roomHeight = 1 + random.nextInt(random.nextBoolean() ? 3 : 15);
+            int left = random.nextInt(width);
+            int bottom = random.nextInt(height);
+            for (int y = bottom; y < Math.min(height, bottom + roomHeight); y++) {
+                for (int x = left; x < Math.min(width, left + roomWidth); x++) {
+                    grid.setWalkable(x, y, true);
+                }
+            }
+        }
+        double flip = random.nextDouble() * 0.2;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (random.nextDouble() < flip) {
+                    grid.setWalkable(x, y, !grid.isWalkable(x, y));
+                }
+            }
+        }
+        return grid;
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    /**
+     * Checks every walkable cell is in one segment, of the right size and kind, and every segment is connected
+     */
+    private void checkSegments() {
+        int[] sizes = new int[graph.getSegmentCount()];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int segment = graph.getSegment(x, y);
+                String cell = "Cell (" + x + ", " + y + ") of " + graph;
+                checked++;
+                if (!grid.isWalkable(x, y)) {
+                    if (segment != RoomGraph.NONE || graph.isDoorway(x, y)) {
+                        fail(cell + " isn't walkable, but is in segment " + segment);
+                    }
+                    continue;
+                }
+                if (segment < 0 || segment >= sizes.length) {
+                    fail(cell + " is walkable, but is in segment " + segment);
+                    continue;
+                }
+                sizes[segment]++;
+                if (isOpen(x, y) && !graph.isRoom(segment)) {
+                    fail(cell + " has every neighbour walkable, but is in corridor " + segment);
+                }
+                boolean nextToRoom = false;
+                for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+                    nextToRoom |= graph.isRoom(graph.getSegment(x + Node.DIRECTION_X[move], y + Node.DIRECTION_Y[move]));
+                }
+                if (graph.isDoorway(x, y) != (!graph.isRoom(segment) && nextToRoom)) {
+                    fail(cell + " should " + (graph.isDoorway(x, y) ? "not " : "") + "be a doorway");
+                }
+            }
+        }
+        for (int segment = 0; segment < sizes.length; segment++) {
+            checked++;
+            if (sizes[segment] != graph.getSegmentSize(segment) || sizes[segment] == 0) {
+                fail("Segment " + segment + " of " + graph + " has " + graph.getSegmentSize(segment) + " cells, but "
+                        + sizes[segment] + " cells are in it");
+            } else if (fill(segment) != sizes[segment]) {
+                fail("Segment " + segment + " of " + graph + " is split into separate areas");
+            } else if (graph.isRoom(segment) && !hasOpenCell(segment)) {
+                fail("Room " + segment + " of " + graph + " has no cell with every neighbour walkable");
+            }
+        }
+    }
+
+    /**
+     * @return True if the cell and its 8 neighbours are walkable
+     */
+    private boolean isOpen(int x, int y) {
+        for (int aroundY = y - 1; aroundY <= y + 1; aroundY++) {
+            for (int aroundX = x - 1; aroundX <= x + 1; aroundX++) {
+                if (!grid.isWalkable(aroundX, aroundY)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean hasOpenCell(int segment) {
+        for (int cell = 0; cell < width * height; cell++) {
+            if (graph.getSegment(cell % width, cell / width) == segment && isOpen(cell % width, cell / width)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Flood fills from the first cell of the segment, without leaving it
+     *
+     * @return The number of cells reached
+     */
+    private int fill(int segment) {
+        int start = 0;
+        while (graph.getSegment(start % width, start / width) != segment) {
+            start++;
+        }
+        boolean[] filled = new boolean[width * height];
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        filled[start] = true;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+                int x = cell % width + Node.DIRECTION_X[move];
+                int y = cell / width + Node.DIRECTION_Y[move];
+                if (graph.getSegment(x, y) == segment && !filled[y * width + x]) {
+                    filled[y * width + x] = true;
+                    queue[tail++] = y * width + x;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Checks segments are linked exactly when cells of them are next to each other
+     */
+    private void checkLinks() {
+        int segments = graph.getSegmentCount();
+        boolean[] touching = new boolean[segments * segments];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int segment = graph.getSegment(x, y);
+                for (int move = 0; move < Node.MOVEMENTS.length && segment != RoomGraph.NONE; move++) {
+                    int other = graph.getSegment(x + Node.DIRECTION_X[move], y + Node.DIRECTION_Y[move]);
+                    if (other != RoomGraph.NONE && other != segment) {
+                        touching[segment * segments + other] = true;
+                    }
+                }
+            }
+        }
+        for (int segment = 0; segment < segments; segment++) {
+            boolean[] linked = new boolean[segments];
+            for (int index = 0; index < graph.getAdjacentCount(segment); index++) {
+                int other = graph.getAdjacent(segment, index);
+                checked++;
+                if (index > 0 && other <= graph.getAdjacent(segment, index - 1)) {
+                    fail("The links of segment " + segment + " of " + graph + " aren't in increasing order");
+                } else if (other < 0 || other >= segments || !touching[segment * segments + other]) {
+                    fail("Segment " + segment + " of " + graph + " is linked to " + other + ", which it doesn't touch");
+                } else {
+                    linked[other] = true;
+                }
+            }
+            for (int other = 0; other < segments; other++) {
+                if (touching[segment * segments + other] && !linked[other]) {
+                    fail("Segment " + segment + " of " + graph + " touches " + other + ", but isn't linked to it");
+                }
+            }
+        }
+    }
+
+    /**
+     * Labels the connected areas of walkable cells with a flood fill, then checks random pairs of cells (and every
+     * cell against the first) are reachable exactly when they are in the same area
+     */
+    private void checkReach(Random random) {
+        java.util.Arrays.fill(area, -1);
+        int[] queue = new int[width * height];
+        int areas = 0;
+        for (int start = 0; start < area.length; start++) {
+            if (area[start] != -1 || !grid.isWalkable(start % width, start / width)) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            area[start] = areas;
+            while (head < tail) {
+                int cell = queue[head++];
+                for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+                    int x = cell % width + Node.DIRECTION_X[move];
+                    int y = cell / width + Node.DIRECTION_Y[move];
+                    if (grid.isWalkable(x, y) && area[y * width + x] == -1) {
+                        area[y * width + x] = areas;
+                        queue[tail++] = y * width + x;
+                    }
+                }
+            }
+            areas++;
+        }
+        checked++;
+        if (areas != graph.getComponentCount()) {
+            fail(graph + " should have " + areas + " connected areas");
+        }
+        for (int check = 0; check < REACH_CHECKS + area.length; check++) {
+            int from = check < area.length ? 0 : random.nextInt(area.length);
+            int to = check < area.length ? check : random.nextInt(area.length);
+            boolean expected = area[from] != -1 && area[from] == area[to];
+            checked++;
+            if (graph.isReachable(from % width, from / width, to % width, to / width) != expected) {
+                fail("Cell " + to + " should " + (expected ? "" : "not ") + "be reachable from cell " + from + " of " + graph);
+            }
+        }
+    }
+
+    /**
+     * Checks the system is reachable from every cell exactly when the cell's area has a room tile beside it
+     */
+    private void checkSystem(StationSystem system) {
+        int left = (int) system.getXPosition();
+        int bottom = (int) system.getYPosition();
+        int right = left + Math.max(1, system.width) - 1;
+        int top = bottom + Math.max(1, system.height) - 1;
+        boolean[] besideArea = new boolean[width * height + 1];
+        for (int y = bottom - 1; y <= top + 1; y++) {
+            for (int x = left - 1; x <= right + 1; x++) {
+                boolean beside = (x >= left && x <= right) != (y >= bottom && y <= top);
+                if (beside && grid.isWalkable(x, y)) {
+                    besideArea[area[y * width + x]] = true;
+                }
+            }
+        }
+        for (int cell = 0; cell < area.length; cell++) {
+            boolean expected = area[cell] != -1 && besideArea[area[cell]];
+            checked++;
+            if (graph.canReach(cell % width, cell / width, system) != expected) {
+                fail(system.id + " should " + (expected ? "" : "not ") + "be reachable from cell " + cell);
+            }
+        }
+    }
+}
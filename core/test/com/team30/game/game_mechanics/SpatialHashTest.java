@@ -0,0 +1,169 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the spatial hash finds exactly the entities a scan over every entity finds<br>
+ * Random entities (some off the edge of the map) are added to hashes of random sizes, then moved, removed and added
+ * again. After each change, random areas and circles are queried, and the entities found must be the same as
+ * checking every entity's box or position directly, with none found twice<br>
+ * Exits with 1 if any check fails
+ */
+public class SpatialHashTest {
+    private static final int RANDOM_HASHES = 50;
+    private static final int CHANGES = 10;
+    private static final int QUERIES_PER_CHANGE = 50;
+
+    private final Random random;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final SpatialHash hash;
+    private final EntityStore<Entity> store;
+    private final List<Entity> added;
+    private final List<Entity> removed;
+    private final Array<Entity> result;
+    private int checked;
+    private int failures;
+
+    private SpatialHashTest(Random random) {
+        this.random = random;
+        this.mapWidth = 1 + random.nextInt(100);
+        this.mapHeight = 1 + random.nextInt(100);
+        this.hash = new SpatialHash(mapWidth, mapHeight, 1 + random.nextInt(8));
+        this.store = new EntityStore<>(1);
+        this.added = new ArrayList<>();
+        this.removed = new ArrayList<>();
+        this.result = new Array<>();
+    }
+
+    public static void main(String[] arg) {
+        Random random = new Random(1);
+        int checked = 0;
+        int failures = 0;
+        for (int count = 0; count < RANDOM_HASHES; count++) {
+            SpatialHashTest test = new SpatialHashTest(random);
+            test.run();
+            checked += test.checked;
+            failures += test.failures;
+        }
+
+        System.out.println("Checked " + checked + " queries, " + failures + " wrong");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void run() {
+        int entities = random.nextInt(300);
+        for (int entity = 0; entity < entities; entity++) {
+            Entity added = new Entity(store, new ID(entity, EntityType.Npc), null, randomX(), randomY(),
+                    1 + random.nextInt(3), 1 + random.nextInt(3));
+            hash.add(added);
+            this.added.add(added);
+        }
+        checkQueries();
+        for (int change = 0; change < CHANGES; change++) {
+            for (Entity entity : added) {
+                if (random.nextBoolean()) {
+                    // Mostly small steps, as entities make each update, with the odd jump across the map
+                    if (random.nextInt(10) == 0) {
+                        entity.setPosition(randomX(), randomY());
+                    } else {
+                        entity.setPosition(entity.getXPosition() + random.nextFloat() * 2 - 1,
+                                entity.getYPosition() + random.nextFloat() * 2 - 1);
+                    }
+                }
+            }
+            for (int entity = added.size() - 1; entity >= 0; entity--) {
+                if (random.nextInt(10) == 0) {
+                    hash.remove(added.get(entity));
+                    removed.add(added.remove(entity));
+                }
+            }
+            for (int entity = removed.size() - 1; entity >= 0; entity--) {
+                if (random.nextInt(4) == 0) {
+                    hash.add(removed.get(entity));
+                    added.add(removed.remove(entity));
+                }
+            }
+            // Removed entities that move must not be put back in
+            for (Entity entity : removed) {
+                entity.setPosition(randomX(), randomY());
+            }
+            checkQueries();
+        }
+        hash.clear();
+        removed.addAll(added);
+        added.clear();
+        checkQueries();
+    }
+
+    private float randomX() {
+        return random.nextFloat() * (mapWidth + 10) - 5;
+    }
+
+    private float randomY() {
+        return random.nextFloat() * (mapHeight + 10) - 5;
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    private void checkQueries() {
+        if (hash.size() != added.size()) {
+            fail(hash + " should have " + added.size() + " entities");
+        }
+        for (int query = 0; query < QUERIES_PER_CHANGE; query++) {
+            float minX = randomX();
+            float minY = randomY();
+            float maxX = minX + random.nextFloat() * 10;
+            float maxY = minY + random.nextFloat() * 10;
+            Set<Entity> expected = new HashSet<>();
+            for (Entity entity : added) {
+                float halfWidth = entity.width / 2f;
+                float halfHeight = entity.height / 2f;
+                if (minX < entity.getXPosition() + halfWidth && entity.getXPosition() - halfWidth < maxX
+                        && minY < entity.getYPosition() + halfHeight && entity.getYPosition() - halfHeight < maxY) {
+                    expected.add(entity);
+                }
+            }
+            hash.queryArea(minX, minY, maxX, maxY, result);
+            compare("The area (" + minX + ", " + minY + ") to (" + maxX + ", " + maxY + ")", expected);
+
+            float x = randomX();
+            float y = randomY();
+            float radius = random.nextFloat() * 10;
+            expected.clear();
+            for (Entity entity : added) {
+                float dx = entity.getXPosition() - x;
+                float dy = entity.getYPosition() - y;
+                if (dx * dx + dy * dy <= radius * radius) {
+                    expected.add(entity);
+                }
+            }
+            hash.queryRadius(x, y, radius, result);
+            compare("The circle of radius " + radius + " around (" + x + ", " + y + ")", expected);
+        }
+    }
+
+    private void compare(String query, Set<Entity> expected) {
+        Set<Entity> found = new HashSet<>();
+        for (Entity entity : result) {
+            found.add(entity);
+        }
+        checked++;
+        if (found.size() != result.size) {
+            fail(query + " found the same entity more than once, in " + hash);
+        } else if (!found.equals(expected)) {
+            fail(query + " found " + found.size() + " entities, but " + expected.size() + " are in it, in " + hash);
+        }
+    }
+}
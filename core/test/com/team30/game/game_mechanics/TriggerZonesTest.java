@@ -0,0 +1,153 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Random;
+
+/**
+ * Checks the trigger zones give the Auber the same heals, damage and teleports as checking the distance directly<br>
+ * From random positions in every cell of the map, being in a zone and within range of its system must be the same
+ * as the closest system (from the nearest system table) being of the right type and within range, so the zones
+ * never miss a position that is in range. A tracker is walked around the map and must always report the zones
+ * and system of the cell it is on, and what it entered and left<br>
+ * Systems are destroyed one at a time, and everything is checked again each time, until there are none left<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class TriggerZonesTest {
+    /**
+     * Random positions checked in each cell
+     */
+    private static final int POSITIONS_PER_CELL = 8;
+    private static final int WALK_STEPS = 20000;
+
+    private final SystemContainer systems;
+    private final CollisionGrid room;
+    private final Random random;
+    private final TriggerZones.Tracker tracker;
+    private float walkX;
+    private float walkY;
+    private int checked;
+    private int failures;
+
+    private TriggerZonesTest(SystemContainer systems, CollisionGrid room, Random random) {
+        this.systems = systems;
+        this.room = room;
+        this.random = random;
+        this.tracker = new TriggerZones.Tracker();
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        GameSettings settings = new GameSettings(1);
+        settings.pathfindingThreads = 0;
+        settings.logEvents = false;
+        World world = new World(map, settings, false);
+        Random random = new Random(1);
+        TriggerZonesTest test = new TriggerZonesTest(world.getSystemContainer(), world.getRoomTiles(), random);
+        SystemContainer systems = test.systems;
+
+        IntArray active = new IntArray();
+        Bits ids = systems.getActiveSystems();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            active.add(id);
+        }
+        test.checkCells();
+        test.walk();
+        while (active.size > 0) {
+            StationSystem system = systems.getEntityByInt(active.removeIndex(random.nextInt(active.size)));
+            int version = systems.getTriggerZones().getVersion();
+            systems.applyDamage(new ID(0, EntityType.Infiltrator), system.id, system.getMaxHealth());
+            test.checked++;
+            if (systems.getTriggerZones().getVersion() == version) {
+                test.fail("The zones weren't rebuilt when " + system.id + " was destroyed");
+            }
+            test.checkCells();
+            test.walk();
+        }
+        world.dispose();
+
+        System.out.println("Checked " + test.checked + " positions, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    private void checkCells() {
+        TriggerZones zones = systems.getTriggerZones();
+        NearestSystemTable nearest = systems.getNearestSystems();
+        for (int y = 0; y < room.getHeight(); y++) {
+            for (int x = 0; x < room.getWidth(); x++) {
+                for (int position = 0; position < POSITIONS_PER_CELL; position++) {
+                    float positionX = x + random.nextFloat();
+                    float positionY = y + random.nextFloat();
+                    StationSystem closest = nearest.getNearest(positionX, positionY);
+                    StationSystem zoneSystem = zones.getSystem(x, y);
+                    int cellZones = zones.getZones(x, y);
+                    checkZone("heal", positionX, positionY, closest != null && closest.type.equals("Healing")
+                                    && distance(closest, positionX, positionY) <= Auber.HEALTH_RANGE,
+                            (cellZones & TriggerZones.HEAL) != 0 && distance(zoneSystem, positionX, positionY) <= Auber.HEALTH_RANGE);
+                    checkZone("damage", positionX, positionY, closest != null && !closest.type.equals("Healing")
+                                    && distance(closest, positionX, positionY) <= Auber.DAMAGE_RANGE,
+                            (cellZones & TriggerZones.DAMAGE) != 0 && distance(zoneSystem, positionX, positionY) <= Auber.DAMAGE_RANGE);
+                    checkZone("teleport", positionX, positionY, closest != null && closest.type.equals("Teleportation")
+                                    && distance(closest, positionX, positionY) < Auber.TELEPORT_RANGE,
+                            (cellZones & TriggerZones.TELEPORT) != 0 && distance(zoneSystem, positionX, positionY) < Auber.TELEPORT_RANGE);
+                }
+            }
+        }
+    }
+
+    private static float distance(StationSystem system, float x, float y) {
+        float dx = system.getXPosition() - x;
+        float dy = system.getYPosition() - y;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private void checkZone(String zone, float x, float y, boolean expected, boolean found) {
+        checked++;
+        if (expected != found) {
+            fail("At (" + x + ", " + y + ") the Auber should " + (expected ? "" : "not ") + zone + ", but the zones say "
+                    + (found ? "it does" : "it doesn't"));
+        }
+    }
+
+    /**
+     * Walks the tracker around the map in small steps and the odd jump (like a teleport), checking each update
+     */
+    private void walk() {
+        TriggerZones zones = systems.getTriggerZones();
+        for (int step = 0; step < WALK_STEPS; step++) {
+            if (random.nextInt(100) == 0) {
+                walkX = random.nextFloat() * room.getWidth();
+                walkY = random.nextFloat() * room.getHeight();
+            } else {
+                walkX = Math.max(0, Math.min(room.getWidth() - 0.01f, walkX + random.nextFloat() - 0.5f));
+                walkY = Math.max(0, Math.min(room.getHeight() - 0.01f, walkY + random.nextFloat() - 0.5f));
+            }
+            int before = tracker.getZones();
+            boolean changed = tracker.update(zones, walkX, walkY);
+            int cellX = (int) Math.floor(walkX);
+            int cellY = (int) Math.floor(walkY);
+            int cellZones = zones.getZones(cellX, cellY);
+            StationSystem system = cellZones == 0 ? null : zones.getSystem(cellX, cellY);
+            String at = "Tracking at (" + walkX + ", " + walkY + ")";
+            checked++;
+            if (tracker.getZones() != cellZones || tracker.getSystem() != system) {
+                fail(at + " gave zones " + tracker.getZones() + " of " + tracker.getSystem() + ", but the cell has zones "
+                        + cellZones + " of " + system);
+            } else if (changed != (before != cellZones)) {
+                fail(at + " reported " + (changed ? "a change" : "no change") + " going from zones " + before + " to " + cellZones);
+            } else if (changed && (tracker.getEntered() != (cellZones & ~before) || tracker.getExited() != (before & ~cellZones))) {
+                fail(at + " entered " + tracker.getEntered() + " and left " + tracker.getExited() + " going from zones "
+                        + before + " to " + cellZones);
+            }
+        }
+    }
+}
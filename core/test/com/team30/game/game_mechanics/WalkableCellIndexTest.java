@@ -0,0 +1,202 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.util.Random;
+
+/**
+ * Checks the walkable cell index lists every walkable cell once, in the right room, and only picks cells it should<br>
+ * The map's index (grouped by the room graph) and indexes of random grids (grouped by connected area) are checked:
+ * every cell's room must match the cells drawn from that room, each room must be drawn from evenly enough that
+ * every one of its cells turns up, and cells of a connected area must all share a room. Spawning must only pick
+ * cells an entity fits on, and far enough from a point<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class WalkableCellIndexTest {
+    private static final int RANDOM_MAPS = 20;
+    /**
+     * Draws per cell of a room, so the chance of a cell never being drawn is far too small to matter
+     */
+    private static final int DRAWS_PER_CELL = 100;
+
+    private final CollisionGrid grid;
+    private final WalkableCellIndex index;
+    private final Random random;
+    private int checked;
+    private int failures;
+
+    private WalkableCellIndexTest(CollisionGrid grid, WalkableCellIndex index, Random random) {
+        this.grid = grid;
+        this.index = index;
+        this.random = random;
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        Random random = new Random(1);
+        CollisionGrid room = new CollisionGrid(map.rooms);
+        WalkableCellIndexTest test = new WalkableCellIndexTest(room, room.getWalkableCells(), random);
+        test.checkRooms();
+        test.checkDraws();
+        test.checkSpawning();
+
+        for (int count = 0; count < RANDOM_MAPS; count++) {
+            int width = 1 + random.nextInt(80);
+            int height = 1 + random.nextInt(80);
+            double open = random.nextDouble();
+            CollisionGrid grid = new CollisionGrid(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    grid.setWalkable(x, y, random.nextDouble() < open);
+                }
+            }
+            WalkableCellIndexTest noise = new WalkableCellIndexTest(grid, new WalkableCellIndex(grid), random);
+            noise.checkRooms();
+            noise.checkConnectedAreas();
+            noise.checkDraws();
+            test.checked += noise.checked;
+            test.failures += noise.failures;
+        }
+
+        System.out.println("Checked " + test.checked + " cells and draws, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    /**
+     * Checks only walkable cells have a room, and the rooms have as many cells as the index says
+     */
+    private void checkRooms() {
+        int[] roomSizes = new int[index.getRoomCount()];
+        int walkable = 0;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                int room = index.getRoom(x, y);
+                checked++;
+                if (grid.isWalkable(x, y) != (room != WalkableCellIndex.NONE)) {
+                    fail("Cell (" + x + ", " + y + ") is in room " + room + ", but walkable is " + grid.isWalkable(x, y));
+                } else if (room >= roomSizes.length) {
+                    fail("Cell (" + x + ", " + y + ") is in room " + room + ", but there are only " + roomSizes.length);
+                } else if (room != WalkableCellIndex.NONE) {
+                    roomSizes[room]++;
+                    walkable++;
+                }
+            }
+        }
+        if (walkable != index.size()) {
+            fail("The index has " + index.size() + " cells, but there are " + walkable + " walkable cells");
+        }
+        for (int room = 0; room < roomSizes.length; room++) {
+            if (roomSizes[room] != index.getRoomSize(room)) {
+                fail("Room " + room + " has " + index.getRoomSize(room) + " cells, but " + roomSizes[room] + " cells are in it");
+            }
+        }
+    }
+
+    /**
+     * Checks that neighbouring walkable cells are in the same room, and that every room is one connected area
+     */
+    private void checkConnectedAreas() {
+        WalkableCellIndex areas = new WalkableCellIndex(grid);
+        boolean[] seen = new boolean[areas.getRoomCount()];
+        int[] queue = new int[grid.getWidth() * grid.getHeight()];
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                int room = areas.getRoom(x, y);
+                if (room == WalkableCellIndex.NONE || seen[room]) {
+                    continue;
+                }
+                // Flood fill from the first cell of each room, which must reach exactly the cells of the room
+                seen[room] = true;
+                boolean[] filled = new boolean[queue.length];
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = y * grid.getWidth() + x;
+                filled[queue[0]] = true;
+                while (head < tail) {
+                    int cell = queue[head++];
+                    for (int move = 0; move < Node.MOVEMENTS.length; move++) {
+                        int nextX = cell % grid.getWidth() + Node.DIRECTION_X[move];
+                        int nextY = cell / grid.getWidth() + Node.DIRECTION_Y[move];
+                        int next = nextY * grid.getWidth() + nextX;
+                        if (grid.isWalkable(nextX, nextY) && !filled[next]) {
+                            filled[next] = true;
+                            queue[tail++] = next;
+                        }
+                    }
+                }
+                checked++;
+                if (tail != areas.getRoomSize(room)) {
+                    fail("Room " + room + " has " + areas.getRoomSize(room) + " cells, but " + tail + " are connected to it");
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws from every room until each of its cells should have turned up, checking nothing else does
+     */
+    private void checkDraws() {
+        boolean[] drawn = new boolean[grid.getWidth() * grid.getHeight()];
+        for (int room = 0; room < index.getRoomCount(); room++) {
+            for (int draw = 0; draw < DRAWS_PER_CELL * index.getRoomSize(room); draw++) {
+                int cell = index.randomCellInRoom(room, random);
+                checked++;
+                if (index.getRoom(index.getX(cell), index.getY(cell)) != room) {
+                    fail("Drew cell " + cell + " from room " + room + ", but it is in room " + index.getRoom(index.getX(cell), index.getY(cell)));
+                    return;
+                }
+                drawn[cell] = true;
+            }
+        }
+        for (int draw = 0; draw < DRAWS_PER_CELL * index.size(); draw++) {
+            int cell = index.randomCell(random);
+            checked++;
+            if (!grid.isWalkable(index.getX(cell), index.getY(cell))) {
+                fail("Drew cell " + cell + ", which isn't walkable");
+                return;
+            }
+        }
+        for (int cell = 0; cell < drawn.length; cell++) {
+            if (grid.isWalkable(cell % grid.getWidth(), cell / grid.getWidth()) && !drawn[cell]) {
+                fail("Cell " + cell + " was never drawn from its room");
+            }
+        }
+        if (index.size() == 0 && index.randomCell(random) != WalkableCellIndex.NONE) {
+            fail("Drew a cell from an empty index");
+        }
+    }
+
+    /**
+     * Checks spawning on the map only picks cells a 1x1 box fits on, and far enough from a point
+     */
+    private void checkSpawning() {
+        for (int draw = 0; draw < DRAWS_PER_CELL * index.size(); draw++) {
+            int cell = index.randomCellFitting(grid, 1, 1, random);
+            checked++;
+            if (!grid.isAreaWalkable(index.getX(cell), index.getY(cell), 1, 1)) {
+                fail("Spawned a 1x1 box on cell (" + index.getX(cell) + ", " + index.getY(cell) + "), which it doesn't fit on");
+                return;
+            }
+        }
+        float x = grid.getWidth() / 2f;
+        float y = grid.getHeight() / 2f;
+        float minDistance = 10;
+        for (int draw = 0; draw < DRAWS_PER_CELL * index.size(); draw++) {
+            int cell = index.randomCellAwayFrom(x, y, minDistance, random);
+            float dx = index.getX(cell) - x;
+            float dy = index.getY(cell) - y;
+            checked++;
+            if (dx * dx + dy * dy < minDistance * minDistance) {
+                fail("Spawned on cell (" + index.getX(cell) + ", " + index.getY(cell) + "), closer than " + minDistance);
+                return;
+            }
+        }
+    }
+}
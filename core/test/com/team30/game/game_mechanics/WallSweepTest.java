@@ -0,0 +1,284 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks swept moves never pass through a wall, however far they go, against a walk along the move worked out
+ * directly<br>
+ * The cells a box covers only change when one of its edges crosses a cell boundary, so every time that happens
+ * along the move is found, and the cells covered between each pair are checked. A sweep must not let the box
+ * reach a wall anywhere along the part of the move it allows, must end with the box on room tiles, and must not
+ * stop more than its margin before the first wall<br>
+ * Entities are then moved with time steps of up to 10 seconds at up to 200 tiles a second, and each must end on
+ * room tiles with nothing but room tiles on the straight line back to where it started<br>
+ * The map is checked, then random maps of thin walls with gaps in them<br>
+ * Argument: the map file. Exits with 1 if any check fails
+ */
+public class WallSweepTest {
+    private static final int RANDOM_MAPS = 50;
+    private static final int SWEEPS = 20000;
+    private static final int ENTITIES = 100;
+    private static final int UPDATES = 200;
+    private static final float[] SPEEDS = {5, 50, 200};
+    /**
+     * How far (in tiles) a sweep may stop short of a wall, the margin it leaves with room for rounding
+     */
+    private static final double SHORT_STOP = 2e-3;
+    /**
+     * How far (in tiles) a box may reach into a wall before it counts as passing through, for rounding
+     */
+    private static final double OVERLAP = 1e-4;
+
+    private final CollisionGrid grid;
+    private final Random random;
+    private int checked;
+    private int failures;
+
+    private WallSweepTest(CollisionGrid grid, Random random) {
+        this.grid = grid;
+        this.random = random;
+    }
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        Random random = new Random(1);
+        WallSweepTest test = new WallSweepTest(new CollisionGrid(map.rooms), random);
+        test.checkSweeps();
+        test.checkEntities();
+
+        for (int count = 0; count < RANDOM_MAPS; count++) {
+            WallSweepTest noise = new WallSweepTest(randomGrid(random), random);
+            noise.checkSweeps();
+            noise.checkEntities();
+            test.checked += noise.checked;
+            test.failures += noise.failures;
+        }
+
+        System.out.println("Checked " + test.checked + " moves, " + test.failures + " wrong");
+        if (test.failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return A walkable map up to 80 tiles each way, split by walls 1 tile thick with gaps, with some cells
+     * flipped at random
+     */
+    private static CollisionGrid randomGrid(Random random) {
+        int width = 3 + random.nextInt(78);
+        int height = 3 + random.nextInt(78);
+        CollisionGrid grid = new CollisionGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid.setWalkable(x, y, true);
+            }
+        }
+        int walls = random.nextInt(20);
+        for (int wall = 0; wall < walls; wall++) {
+            boolean across = random.nextBoolean();
+            int line = random.nextInt(across ? height : width);
+            for (int along = 0; along < (across ? width : height); along++) {
+                if (random.nextInt(10) != 0) {
+                    grid.setWalkable(across ? along : line, across ? line : along, false);
+                }
+            }
+        }
+        double flip = random.nextDouble() * 0.05;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (random.nextDouble() < flip) {
+                    grid.setWalkable(x, y, !grid.isWalkable(x, y));
+                }
+            }
+        }
+        return grid;
+    }
+
+    private void fail(String error) {
+        failures++;
+        System.out.println("ERROR " + error);
+    }
+
+    /**
+     * Sweeps boxes of random sizes from random positions, by up to 3 times the size of the map
+     */
+    private void checkSweeps() {
+        int reach = 3 * Math.max(grid.getWidth(), grid.getHeight());
+        for (int sweep = 0; sweep < SWEEPS; sweep++) {
+            int width = random.nextInt(3);
+            int height = random.nextInt(3);
+            float x = random.nextFloat() * grid.getWidth();
+            float y = random.nextFloat() * grid.getHeight();
+            // Some moves along just one axis, as those cross no boundaries on the other
+            float moveX = random.nextInt(4) == 0 ? 0 : (random.nextFloat() * 2 - 1) * reach * random.nextFloat();
+            float moveY = random.nextInt(4) == 0 ? 0 : (random.nextFloat() * 2 - 1) * reach * random.nextFloat();
+            float fraction = grid.sweepArea(x, y, width, height, moveX, moveY);
+            String move = "Sweeping a " + width + "x" + height + " box from (" + x + ", " + y + ") by (" + moveX + ", "
+                    + moveY + ") in " + grid.getWidth() + "x" + grid.getHeight();
+            checked++;
+            if (!(fraction >= 0 && fraction <= 1)) {
+                fail(move + " gave a fraction of " + fraction);
+                continue;
+            }
+            if (!grid.isAreaWalkable(x, y, width, height)) {
+                // Already in a wall, when only a move that gets out is allowed
+                float expected = grid.isAreaWalkable(x + moveX, y + moveY, width, height) ? 1 : 0;
+                if (fraction != expected) {
+                    fail(move + " started in a wall, and gave a fraction of " + fraction + " instead of " + expected);
+                }
+                continue;
+            }
+            if (!grid.isAreaWalkable(x + moveX * fraction, y + moveY * fraction, width, height)) {
+                fail(move + " stopped in a wall, at a fraction of " + fraction);
+                continue;
+            }
+            double speed = Math.max(Math.abs(moveX), Math.abs(moveY));
+            double[] wall = firstWall(x, y, width, height, moveX, moveY);
+            if (wall != null && wall[0] < fraction - OVERLAP / speed) {
+                fail(move + " passed through a wall at a fraction of " + wall[0] + ", but was allowed up to " + fraction);
+            } else if (wall == null && fraction != 1) {
+                fail(move + " has no wall in the way, but stopped at a fraction of " + fraction);
+            } else if (wall != null && fraction < wall[0] - SHORT_STOP / wall[1]) {
+                fail(move + " stopped at a fraction of " + fraction + ", well before the wall at " + wall[0]);
+            }
+        }
+    }
+
+    /**
+     * Finds every time along the move that an edge of the box crosses a cell boundary, and checks the cells the
+     * box covers between each pair of them in order, as for isClear
+     *
+     * @return The fraction of the move at which the box first reaches a wall, and the speed along the axis that
+     * crossed into it, or null if it reaches none
+     */
+    private double[] firstWall(double x, double y, int width, int height, double moveX, double moveY) {
+        double[] times = new double[4 * (grid.getWidth() + grid.getHeight()) + 16];
+        double[] speeds = new double[times.length];
+        int startLeft = (int) Math.floor(x);
+        int startBottom = (int) Math.floor(y);
+        int count = 0;
+        times[count] = 0;
+        speeds[count++] = Math.max(Math.abs(moveX), Math.abs(moveY));
+        count = addCrossings(x, moveX, times, speeds, count);
+        count = addCrossings(y, moveY, times, speeds, count);
+        times[count] = 1;
+        speeds[count++] = 0;
+        // Sort by time, keeping the speed with it
+        Integer[] order = new Integer[count];
+        for (int index = 0; index < count; index++) {
+            order[index] = index;
+        }
+        Arrays.sort(order, (first, second) -> Double.compare(times[first], times[second]));
+        for (int index = 0; index + 1 < count; index++) {
+            double start = times[order[index]];
+            double end = times[order[index + 1]];
+            if (end <= start) {
+                continue;
+            }
+            double middle = (start + end) / 2;
+            if (!isClear(x + moveX * middle, y + moveY * middle, width, height, startLeft, startBottom)) {
+                return new double[]{start, speeds[order[index]]};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the times along the move (from 0 to 1) that the position crosses a whole number, which is where the
+     * cells under both edges change. Only crossings within the map (and one either side of it) matter, as any box
+     * further out already covers cells outside the map
+     */
+    private int addCrossings(double start, double move, double[] times, double[] speeds, int count) {
+        if (move == 0) {
+            return count;
+        }
+        int limit = Math.max(grid.getWidth(), grid.getHeight()) + 2;
+        for (int boundary = -2; boundary <= limit; boundary++) {
+            double time = (boundary - start) / move;
+            if (time > 0 && time < 1) {
+                times[count] = time;
+                speeds[count++] = Math.abs(move);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Boxes only need their corners on room tiles, so a box more than 1 tile across can start over a wall, but it
+     * mustn't move onto any wall it wasn't already over
+     *
+     * @return True if every corner of the box is on a room tile, and every other cell it covers is a room tile or
+     * was covered by the box where it started
+     */
+    private boolean isClear(double x, double y, int width, int height, int startLeft, int startBottom) {
+        int left = (int) Math.floor(x);
+        int bottom = (int) Math.floor(y);
+        for (int row = bottom; row <= bottom + height; row++) {
+            for (int column = left; column <= left + width; column++) {
+                boolean corner = (row == bottom || row == bottom + height) && (column == left || column == left + width);
+                boolean wasCovered = row >= startBottom && row <= startBottom + height
+                        && column >= startLeft && column <= startLeft + width;
+                if (!grid.isWalkable(column, row) && (corner || !wasCovered)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves entities with random velocities and long time steps, checking nothing but room tiles is on the line
+     * each one moved along
+     */
+    private void checkEntities() {
+        EntityStore<Entity> store = new EntityStore<>(ENTITIES);
+        WalkableCellIndex cells = grid.getWalkableCells();
+        Entity[] entities = new Entity[ENTITIES];
+        int size = 0;
+        for (int entity = 0; entity < ENTITIES; entity++) {
+            int width = 1 + random.nextInt(2);
+            int cell = cells.randomCellFitting(grid, width, width, random);
+            // Falls back to a cell the entity doesn't fit on when there isn't one it does
+            if (cell == WalkableCellIndex.NONE || !grid.isAreaWalkable(cells.getX(cell), cells.getY(cell), width, width)) {
+                continue;
+            }
+            entities[size] = new Entity(store, new ID(entity, EntityType.Npc), null, cells.getX(cell), cells.getY(cell), width, width);
+            entities[size++].setSpeed(SPEEDS[random.nextInt(SPEEDS.length)], 1);
+        }
+        float[] startX = new float[size];
+        float[] startY = new float[size];
+        for (int update = 0; update < UPDATES; update++) {
+            for (int index = 0; index < size; index++) {
+                Entity entity = entities[index];
+                entity.setXVelocity(random.nextFloat() * 2 - 1);
+                entity.setYVelocity(random.nextFloat() * 2 - 1);
+                startX[index] = entity.getXPosition();
+                startY[index] = entity.getYPosition();
+            }
+            float deltaTime = random.nextFloat() * 10;
+            store.updatePositions(deltaTime, grid);
+            for (int index = 0; index < size; index++) {
+                Entity entity = entities[index];
+                float x = entity.getXPosition();
+                float y = entity.getYPosition();
+                double moveX = (double) x - startX[index];
+                double moveY = (double) y - startY[index];
+                String move = entity.id + " moving from (" + startX[index] + ", " + startY[index] + ") to (" + x
+                        + ", " + y + ") over " + deltaTime + "s in " + grid.getWidth() + "x" + grid.getHeight();
+                checked++;
+                if (!grid.isAreaWalkable(x, y, entity.width, entity.height)) {
+                    fail(move + " ended in a wall");
+                    continue;
+                }
+                double speed = Math.max(Math.abs(moveX), Math.abs(moveY));
+                double[] wall = speed == 0 ? null : firstWall(startX[index], startY[index], entity.width, entity.height, moveX, moveY);
+                if (wall != null && wall[0] < 1 - OVERLAP / speed) {
+                    fail(move + " passed through a wall " + wall[0] + " of the way along");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.team30.game.game_mechanics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Bits;
+import com.team30.game.game_mechanics.Infiltrators.Infiltrator;
+import com.team30.game.game_mechanics.Pathfinding.SystemDistanceField;
+
+/**
+ * Plays games with the default settings and nobody at the keys, so the Auber never catches anyone, and checks
+ * that the infiltrators destroy every system before the time runs out<br>
+ * Also checks the shared distance field has a cell next to every system, where an infiltrator fits to attack it<br>
+ * Arguments: the map file, and the number of games. Exits with 1 if any check fails
+ */
+public class WorldTest {
+    /**
+     * The longest a game can take (in seconds of game time), far longer than any game should
+     */
+    private static final float GAME_LENGTH = 600;
+
+    public static void main(String[] arg) {
+        MapData map = new MapData(new FileHandle(arg.length > 0 ? arg[0] : "Map.tmx"));
+        int games = arg.length > 1 ? Integer.parseInt(arg[1]) : 2;
+        int failures = 0;
+        for (int seed = 1; seed <= games; seed++) {
+            GameSettings settings = new GameSettings(seed);
+            settings.pathfindingThreads = 0;
+            settings.logEvents = false;
+            World world = new World(map, settings, false);
+            if (seed == 1) {
+                failures += checkSystemsReachable(world);
+            }
+            while (!world.isOver() && world.getElapsedTime() < GAME_LENGTH) {
+                world.update(world.getTickTime());
+            }
+            if (!world.isOver()) {
+                failures++;
+                System.out.println("ERROR Game with seed " + seed + " in " + settings.pathfindingMode
+                        + " mode didn't end, " + world.getSystemsDestroyed() + " systems destroyed");
+            }
+            world.dispose();
+        }
+
+        System.out.println("Played " + games + " games, " + failures + " failed");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return The number of active systems that no cell of the distance field attacks
+     */
+    private static int checkSystemsReachable(World world) {
+        SystemContainer systems = world.getSystemContainer();
+        SystemDistanceField field = systems.getDistanceField();
+        Bits attacked = new Bits();
+        CollisionGrid room = world.getRoomTiles();
+        for (int y = 0; y < room.getHeight(); y++) {
+            for (int x = 0; x < room.getWidth(); x++) {
+                if (field.getDistance(x, y) == 0 && room.isAreaWalkable(x, y, Infiltrator.SIZE, Infiltrator.SIZE)) {
+                    attacked.set(field.getClosestSystem(x, y));
+                }
+            }
+        }
+        int failures = 0;
+        Bits active = systems.getActiveSystems();
+        for (int id = active.nextSetBit(0); id >= 0; id = active.nextSetBit(id + 1)) {
+            if (!attacked.get(id)) {
+                failures++;
+                System.out.println("ERROR System " + id + " has no cell next to it that an infiltrator fits on");
+            }
+        }
+        return failures;
+    }
+}
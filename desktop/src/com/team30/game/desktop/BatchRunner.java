@@ -0,0 +1,230 @@
+package com.team30.game.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.team30.game.game_mechanics.ChasePolicy;
+import com.team30.game.game_mechanics.GameSettings;
+import com.team30.game.game_mechanics.MapData;
+import com.team30.game.game_mechanics.Pathfinding.PathCache;
+import com.team30.game.game_mechanics.Pathfinding.PathfindingMode;
+import com.team30.game.game_mechanics.World;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plays many games without a window at once, over a grid of settings, to see how the settings change who wins<br>
+ * Every world has its own random numbers and IDs, so games are split across a fork-join pool and each one
+ * plays out the same however many threads there are. Every point of the grid is played with the same seeds,
+ * so points can be compared game by game. Each result is written to the CSV file as soon as its game ends<br>
+ * Arguments: the map file, the CSV file, then any of runs=, length= (seconds of game time), threads=, seed=,
+ * policy= (chase or idle), and a comma separated list for any of maxInfiltrators=, spawnInterval=,
+ * infiltratorDamage=, systemHealth=, auberHealRate=, auberDamageRate= and pathfindingMode=
+ */
+public class BatchRunner {
+	private static final String HEADER = "seed,maxInfiltrators,spawnInterval,infiltratorDamage,systemHealth,"
+			+ "auberHealRate,auberDamageRate,pathfindingMode,policy,result,time,systemsDestroyed,infiltratorsCaught,"
+			+ "auberHealth,pathLookups,pathSearches,pathCacheHitRate";
+
+	private final MapData map;
+	private final List<GameSettings> games;
+	private final float gameLength;
+	private final boolean chase;
+	private final PrintWriter output;
+	private int finished;
+
+	private BatchRunner(MapData map, List<GameSettings> games, float gameLength, boolean chase, PrintWriter output) {
+		this.map = map;
+		this.games = games;
+		this.gameLength = gameLength;
+		this.chase = chase;
+		this.output = output;
+	}
+
+	public static void main(String[] arg) throws IOException {
+		if (arg.length < 2) {
+			System.out.println("Usage: BatchRunner <map.tmx> <results.csv> [runs=10] [length=300] [threads=cores] "
+					+ "[seed=1] [policy=chase|idle] [maxInfiltrators=5,10 ...] [pathfindingMode=FlowField,AStar ...]");
+			return;
+		}
+		int runs = 10;
+		float gameLength = 300;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seed = 1;
+		boolean chase = true;
+		List<GameSettings> grid = new ArrayList<>();
+		grid.add(new GameSettings(seed));
+		for (int index = 2; index < arg.length; index++) {
+			String[] option = arg[index].split("=", 2);
+			if (option.length != 2) {
+				System.out.println("ERROR Expected name=value, not " + arg[index]);
+				return;
+			}
+			switch (option[0]) {
+				case "runs":
+					runs = Integer.parseInt(option[1]);
+					break;
+				case "length":
+					gameLength = Float.parseFloat(option[1]);
+					break;
+				case "threads":
+					threads = Integer.parseInt(option[1]);
+					break;
+				case "seed":
+					seed = Long.parseLong(option[1]);
+					break;
+				case "policy":
+					chase = !option[1].equals("idle");
+					break;
+				default:
+					grid = expand(grid, option[0], option[1].split(","));
+					if (grid == null) {
+						return;
+					}
+			}
+		}
+
+		// Every point of the grid gets the same seeds, one per run
+		List<GameSettings> games = new ArrayList<>(grid.size() * runs);
+		for (GameSettings point : grid) {
+			for (int run = 0; run < runs; run++) {
+				GameSettings settings = point.copy();
+				settings.seed = seed + run;
+				// Paths are searched and entities moved on the game's own thread, the pool is already using every core
+				settings.pathfindingThreads = 0;
+				settings.movementThreads = 1;
+				// Every spawn and attack would be far too much to print for thousands of games at once
+				settings.logEvents = false;
+				games.add(settings);
+			}
+		}
+
+		MapData map = new MapData(new FileHandle(arg[0]));
+		try (PrintWriter output = new PrintWriter(new FileWriter(arg[1]))) {
+			output.println(HEADER);
+			output.flush();
+			BatchRunner runner = new BatchRunner(map, games, gameLength, chase, output);
+			long startTime = System.nanoTime();
+			new ForkJoinPool(threads).invoke(runner.new Games(0, games.size()));
+			float seconds = (System.nanoTime() - startTime) / 1e9f;
+			System.out.println("Played " + games.size() + " games (" + grid.size() + " settings, " + runs
+					+ " runs each) on " + threads + " threads in " + seconds + " seconds");
+		}
+	}
+
+	/**
+	 * @return Every point of the grid, once for each of the given values of the named setting, or null if the
+	 * setting doesn't exist
+	 */
+	private static List<GameSettings> expand(List<GameSettings> grid, String name, String[] values) {
+		List<GameSettings> expanded = new ArrayList<>(grid.size() * values.length);
+		for (GameSettings point : grid) {
+			for (String value : values) {
+				GameSettings settings = point.copy();
+				switch (name) {
+					case "maxInfiltrators":
+						settings.maxInfiltrators = Integer.parseInt(value);
+						break;
+					case "spawnInterval":
+						settings.spawnInterval = Float.parseFloat(value);
+						break;
+					case "infiltratorDamage":
+						settings.infiltratorDamage = Integer.parseInt(value);
+						break;
+					case "systemHealth":
+						settings.systemHealth = Integer.parseInt(value);
+						break;
+					case "auberHealRate":
+						settings.auberHealRate = Integer.parseInt(value);
+						break;
+					case "auberDamageRate":
+						settings.auberDamageRate = Float.parseFloat(value);
+						break;
+					case "pathfindingMode":
+						settings.pathfindingMode = PathfindingMode.valueOf(value);
+						break;
+					default:
+						System.out.println("ERROR Unknown setting " + name);
+						return null;
+				}
+				expanded.add(settings);
+			}
+		}
+		return expanded;
+	}
+
+	/**
+	 * Plays one game through, until it ends or runs out of time
+	 */
+	private void play(GameSettings settings) {
+		String result;
+		World world = new World(map, settings, false);
+		try {
+			if (chase) {
+				world.setAuberPolicy(new ChasePolicy());
+			}
+			// One tick per update, the same ticks as a game played on screen
+			while (!world.isOver() && world.getElapsedTime() < gameLength) {
+				world.update(world.getTickTime());
+			}
+			if (!world.isOver()) {
+				result = "timeout";
+			} else {
+				result = world.hasPlayerWon() ? "win" : "loss";
+			}
+		} catch (RuntimeException exception) {
+			System.out.println("ERROR Game with seed " + settings.seed + " failed: " + exception);
+			result = "error";
+		} finally {
+			world.dispose();
+		}
+		// Every lookup that misses the cache is a search, so the hit rate is the share of searches saved
+		PathCache cache = world.getInfiltrators().getPathPlanner().getPathCache();
+		String row = String.format(Locale.ROOT, "%d,%d,%s,%d,%d,%d,%s,%s,%s,%s,%.3f,%d,%d,%d,%d,%d,%.3f",
+				settings.seed, settings.maxInfiltrators, settings.spawnInterval, settings.infiltratorDamage,
+				settings.systemHealth, settings.auberHealRate, settings.auberDamageRate, settings.pathfindingMode, chase ? "chase" : "idle",
+				result, world.getElapsedTime(), world.getSystemsDestroyed(),
+				world.getInfiltrators().getSpawnedInfiltrators() - world.getInfiltrators().getAmountOfInfiltrators(),
+				world.getAuber().getHealth(), cache.getLookups(), cache.getMisses(), cache.getHitRate());
+		synchronized (output) {
+			output.println(row);
+			output.flush();
+			finished++;
+			if (finished % 100 == 0) {
+				System.out.println("Finished " + finished + " of " + games.size() + " games");
+			}
+		}
+	}
+
+	/**
+	 * Plays a range of the games, splitting it in half until there is one game left for each task
+	 */
+	private class Games extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int start;
+		private final int end;
+
+		Games(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start == 1) {
+				play(games.get(start));
+				return;
+			}
+			if (end <= start) {
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new Games(start, middle), new Games(middle, end));
+		}
+	}
+}
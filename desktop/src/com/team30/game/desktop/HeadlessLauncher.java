@@ -0,0 +1,43 @@
+package com.team30.game.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.team30.game.game_mechanics.GameSettings;
+import com.team30.game.game_mechanics.InfiltratorContainer;
+import com.team30.game.game_mechanics.MapData;
+import com.team30.game.game_mechanics.Pathfinding.PathfindingMode;
+import com.team30.game.game_mechanics.World;
+
+/**
+ * Plays games without a window or textures, as fast as they can be stepped<br>
+ * Arguments: the number of games, the longest game (in seconds of game time), the map file, and how infiltrators
+ * find their way to a system (a PathfindingMode such as AStar or FlowField)<br>
+ * Games only ever run at the fixed tick rate, one tick per update, the same ticks as on screen. Healing, damage and
+ * decisions happen once per tick rather than scaling with time, so there is no choice of time step
+ */
+public class HeadlessLauncher {
+	public static void main(String[] arg) {
+		int games = arg.length > 0 ? Integer.parseInt(arg[0]) : 10;
+		float gameLength = arg.length > 1 ? Float.parseFloat(arg[1]) : 300;
+		String mapFile = arg.length > 2 ? arg[2] : "Map.tmx";
+		PathfindingMode mode = arg.length > 3 ? PathfindingMode.valueOf(arg[3]) : InfiltratorContainer.PATHFINDING_MODE;
+
+		MapData map = new MapData(new FileHandle(mapFile));
+		int finished = 0;
+		long startTime = System.nanoTime();
+		for (int game = 0; game < games; game++) {
+			GameSettings settings = new GameSettings();
+			settings.pathfindingMode = mode;
+			settings.logEvents = false;
+			World world = new World(map, settings, false);
+			while (world.getElapsedTime() < gameLength) {
+				if (world.update(world.getTickTime())) {
+					finished++;
+					break;
+				}
+			}
+			world.dispose();
+		}
+		float seconds = (System.nanoTime() - startTime) / 1e9f;
+		System.out.println("Played " + games + " games (" + finished + " finished) in " + seconds + " seconds");
+	}
+}